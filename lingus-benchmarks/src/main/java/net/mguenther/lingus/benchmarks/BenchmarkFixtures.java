@@ -0,0 +1,58 @@
+package net.mguenther.lingus.benchmarks;
+
+import net.mguenther.lingus.wordembedding.api.ActivateModelRequest;
+import net.mguenther.lingus.wordembedding.api.ModelLoadProgress;
+import net.mguenther.lingus.wordembedding.service.ActivationInProgressException;
+import net.mguenther.lingus.wordembedding.service.WordEmbeddingService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers that the benchmarks of the service layer share. The service itself is wired together by
+ * {@link net.mguenther.lingus.wordembedding.service.StandaloneWordEmbeddingService}.
+ */
+final class BenchmarkFixtures {
+
+    private static final long ACTIVATION_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Activates the given model and blocks until the activation has completed. Waits for a preceding
+     * activation that is still being wrapped up, instead of failing.
+     */
+    static void activate(final WordEmbeddingService service, final String filename) {
+        final long deadline = System.currentTimeMillis() + ACTIVATION_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                service.activate(new ActivateModelRequest(filename));
+                break;
+            } catch (ActivationInProgressException e) {
+                pause(deadline, filename);
+            }
+        }
+        while (true) {
+            final ModelLoadProgress progress = service.progress(filename);
+            if ("COMPLETED".equals(progress.getState())) {
+                return;
+            }
+            if ("FAILED".equals(progress.getState())) {
+                throw new IllegalStateException("Unable to activate model '" + filename + "': " + progress.getError());
+            }
+            pause(deadline, filename);
+        }
+    }
+
+    private static void pause(final long deadline, final String filename) {
+        if (System.currentTimeMillis() > deadline) {
+            throw new IllegalStateException("The activation of model '" + filename + "' did not complete in time.");
+        }
+        try {
+            Thread.sleep(1L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for model '" + filename + "' to be activated.", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package net.mguenther.lingus.benchmarks;
+
+import net.mguenther.lingus.wordembedding.vectors.DotProduct;
+import net.mguenther.lingus.wordembedding.vectors.ExhaustiveSearch;
+import net.mguenther.lingus.wordembedding.vectors.MappedVectorStore;
+import net.mguenther.lingus.wordembedding.vectors.Neighbours;
+import net.mguenther.lingus.wordembedding.vectors.ProgressListener;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the dot product kernels (cf. {@link DotProduct}) on a single pair of vectors and on an
+ * exhaustive top-10 search over a memory-mapped model. The ND4J benchmarks are the baseline: they
+ * compute the similarity of a pair of words the way Deeplearning4J's {@code WordVectors#similarity}
+ * does, i.e. by the cosine similarity of two {@link INDArray}s, which goes through ND4J's op dispatch
+ * for every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DotProductBenchmark {
+
+    private static final int VOCABULARY_SIZE = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class KernelVectors {
+
+        @Param({"100", "300"})
+        int dimensions;
+
+        @Param({"SCALAR", "UNROLLED"})
+        DotProduct kernel;
+
+        float[] left;
+
+        float[] right;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            left = randomVector(dimensions, 42L);
+            right = randomVector(dimensions, 43L);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Nd4jVectors {
+
+        @Param({"100", "300"})
+        int dimensions;
+
+        INDArray left;
+
+        INDArray right;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            left = Nd4j.create(randomVector(dimensions, 42L));
+            right = Nd4j.create(randomVector(dimensions, 43L));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Model {
+
+        @Param({"100", "300"})
+        int dimensions;
+
+        @Param({"SCALAR", "UNROLLED"})
+        DotProduct kernel;
+
+        MappedVectorStore store;
+
+        float[] query;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            final String filename = "synthetic-" + VOCABULARY_SIZE + "-" + dimensions + ".lingus";
+            final Path model = SyntheticModels.create(SyntheticModels.directory("dot-product"), filename, VOCABULARY_SIZE, dimensions, 42L);
+            store = MappedVectorStore.open(model, ProgressListener.NONE, kernel);
+            query = new float[dimensions];
+            store.vector(VOCABULARY_SIZE / 2, query);
+        }
+    }
+
+    @Benchmark
+    public float kernel(final KernelVectors vectors) {
+        return vectors.kernel.dot(vectors.left, 0, vectors.right, vectors.dimensions);
+    }
+
+    @Benchmark
+    public double nd4j(final Nd4jVectors vectors) {
+        return Transforms.cosineSim(vectors.left, vectors.right);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Neighbours exhaustiveSearch(final Model model) {
+        return ExhaustiveSearch.nearest(model.store, model.query, 10, VOCABULARY_SIZE / 2);
+    }
+
+    private static float[] randomVector(final int dimensions, final long seed) {
+        final Random random = new Random(seed);
+        final float[] vector = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
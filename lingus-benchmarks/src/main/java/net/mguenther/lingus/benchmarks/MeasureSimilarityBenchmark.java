@@ -0,0 +1,77 @@
+package net.mguenther.lingus.benchmarks;
+
+import net.mguenther.lingus.wordembedding.api.MeasureSimilarityRequest;
+import net.mguenther.lingus.wordembedding.api.MeasureSimilarityResult;
+import net.mguenther.lingus.wordembedding.service.StandaloneWordEmbeddingService;
+import net.mguenther.lingus.wordembedding.service.WordEmbeddingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of {@link WordEmbeddingService#measureSimilarity(MeasureSimilarityRequest)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeasureSimilarityBenchmark {
+
+    private static final int NUMBER_OF_REQUESTS = 1024;
+
+    @Param({"10000", "100000"})
+    private int vocabularySize;
+
+    private WordEmbeddingService service;
+
+    private MeasureSimilarityRequest[] requests;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        int next(final int length) {
+            final int current = next;
+            next = current + 1 == length ? 0 : current + 1;
+            return current;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Path directory = SyntheticModels.directory("measure-similarity-" + vocabularySize);
+        final String filename = "synthetic-" + vocabularySize + ".lingus";
+        SyntheticModels.create(directory, filename, vocabularySize, SyntheticModels.DEFAULT_DIMENSIONS, 42L);
+        service = StandaloneWordEmbeddingService.create(directory, false);
+        BenchmarkFixtures.activate(service, filename);
+        final Random random = new Random(7L);
+        requests = new MeasureSimilarityRequest[NUMBER_OF_REQUESTS];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new MeasureSimilarityRequest(
+                    SyntheticModels.word(random.nextInt(vocabularySize)),
+                    SyntheticModels.word(random.nextInt(vocabularySize)));
+        }
+    }
+
+    @Benchmark
+    public MeasureSimilarityResult measureSimilarity(final Cursor cursor) {
+        return service.measureSimilarity(requests[cursor.next(requests.length)]);
+    }
+}
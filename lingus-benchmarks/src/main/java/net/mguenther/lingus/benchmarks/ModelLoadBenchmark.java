@@ -0,0 +1,60 @@
+package net.mguenther.lingus.benchmarks;
+
+import net.mguenther.lingus.wordembedding.service.StandaloneWordEmbeddingService;
+import net.mguenther.lingus.wordembedding.service.WordEmbeddingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to activate a model, i.e. from {@link WordEmbeddingService#activate}
+ * until the model serves requests. With the HNSW index enabled, the index is built once during the
+ * setup of the trial, so that the benchmark measures reading the index from its sidecar file.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelLoadBenchmark {
+
+    @Param({"10000", "100000"})
+    private int vocabularySize;
+
+    @Param({"false", "true"})
+    private boolean indexEnabled;
+
+    private WordEmbeddingService service;
+
+    private String filename;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Path directory = SyntheticModels.directory("model-load-" + vocabularySize);
+        filename = "synthetic-" + vocabularySize + ".lingus";
+        SyntheticModels.create(directory, filename, vocabularySize, SyntheticModels.DEFAULT_DIMENSIONS, 42L);
+        service = StandaloneWordEmbeddingService.create(directory, indexEnabled);
+        if (indexEnabled) {
+            BenchmarkFixtures.activate(service, filename);
+        }
+    }
+
+    @Benchmark
+    public void load() {
+        BenchmarkFixtures.activate(service, filename);
+    }
+}
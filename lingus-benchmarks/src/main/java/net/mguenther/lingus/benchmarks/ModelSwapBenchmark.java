@@ -0,0 +1,105 @@
+package net.mguenther.lingus.benchmarks;
+
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest;
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.service.StandaloneWordEmbeddingService;
+import net.mguenther.lingus.wordembedding.service.WordEmbeddingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of queries against the default model while another thread keeps swapping the
+ * default model between two resident models. The group {@code swap} runs the queries alongside the
+ * swaps, the group {@code noSwap} runs the same queries without any swaps as a baseline. A difference
+ * between the {@code query} scores of both groups is the cost that a swap imposes on readers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Group)
+public class ModelSwapBenchmark {
+
+    private static final int NUMBER_OF_REQUESTS = 1024;
+
+    private static final String[] MODELS = {"synthetic-a.lingus", "synthetic-b.lingus"};
+
+    @Param({"100000"})
+    private int vocabularySize;
+
+    private WordEmbeddingService service;
+
+    private FindSimilarWordsRequest[] requests;
+
+    private int swaps;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        int next(final int length) {
+            final int current = next;
+            next = current + 1 == length ? 0 : current + 1;
+            return current;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Path directory = SyntheticModels.directory("model-swap-" + vocabularySize);
+        for (int i = 0; i < MODELS.length; i++) {
+            SyntheticModels.create(directory, MODELS[i], vocabularySize, SyntheticModels.DEFAULT_DIMENSIONS, 42L + i);
+        }
+        service = StandaloneWordEmbeddingService.create(directory, true);
+        for (String model : MODELS) {
+            BenchmarkFixtures.activate(service, model);
+        }
+        final Random random = new Random(7L);
+        requests = new FindSimilarWordsRequest[NUMBER_OF_REQUESTS];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = FindSimilarWordsRequest.create()
+                    .forTerm(SyntheticModels.word(random.nextInt(vocabularySize)))
+                    .build();
+        }
+    }
+
+    @Benchmark
+    @Group("swap")
+    @GroupThreads(3)
+    public FindSimilarWordsResult query(final Cursor cursor) {
+        return service.similar(requests[cursor.next(requests.length)]);
+    }
+
+    @Benchmark
+    @Group("swap")
+    @GroupThreads(1)
+    public void swapModel() {
+        BenchmarkFixtures.activate(service, MODELS[swaps++ % MODELS.length]);
+    }
+
+    @Benchmark
+    @Group("noSwap")
+    @GroupThreads(3)
+    public FindSimilarWordsResult queryWithoutSwap(final Cursor cursor) {
+        return service.similar(requests[cursor.next(requests.length)]);
+    }
+}
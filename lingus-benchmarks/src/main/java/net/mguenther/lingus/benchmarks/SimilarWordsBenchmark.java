@@ -0,0 +1,86 @@
+package net.mguenther.lingus.benchmarks;
+
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest;
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.service.StandaloneWordEmbeddingService;
+import net.mguenther.lingus.wordembedding.service.WordEmbeddingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of {@link WordEmbeddingService#similar(FindSimilarWordsRequest)} for a single
+ * term, both for approximate searches through the HNSW index and for exact searches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimilarWordsBenchmark {
+
+    private static final int NUMBER_OF_REQUESTS = 1024;
+
+    @Param({"10000", "100000"})
+    private int vocabularySize;
+
+    @Param({"1", "5", "10"})
+    private int suggestionsPerTerm;
+
+    @Param({"false", "true"})
+    private boolean exact;
+
+    private WordEmbeddingService service;
+
+    private FindSimilarWordsRequest[] requests;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        int next(final int length) {
+            final int current = next;
+            next = current + 1 == length ? 0 : current + 1;
+            return current;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Path directory = SyntheticModels.directory("similar-words-" + vocabularySize);
+        final String filename = "synthetic-" + vocabularySize + ".lingus";
+        SyntheticModels.create(directory, filename, vocabularySize, SyntheticModels.DEFAULT_DIMENSIONS, 42L);
+        service = StandaloneWordEmbeddingService.create(directory, true);
+        BenchmarkFixtures.activate(service, filename);
+        final Random random = new Random(7L);
+        requests = new FindSimilarWordsRequest[NUMBER_OF_REQUESTS];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = FindSimilarWordsRequest.create()
+                    .forTerm(SyntheticModels.word(random.nextInt(vocabularySize)))
+                    .limit(suggestionsPerTerm)
+                    .exact(exact)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public FindSimilarWordsResult similar(final Cursor cursor) {
+        return service.similar(requests[cursor.next(requests.length)]);
+    }
+}
@@ -0,0 +1,144 @@
+package net.mguenther.lingus.benchmarks;
+
+import net.mguenther.lingus.wordembedding.vectors.LingusModelFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Generates synthetic models in the Lingus-native format (cf. {@link LingusModelFormat}), so that the
+ * benchmarks do not depend on a trained model. Word {@code i} is named {@code "w" + i}. Its vector is
+ * drawn from a Gaussian around one of {@code sqrt(vocabularySize)} random cluster centers and is
+ * L2-normalized, which gives the nearest-neighbour searches a structure similar to that of trained
+ * embeddings instead of uniformly random noise.
+ *
+ * Models are deterministic wrt. their parameters and are reused across benchmark runs.
+ */
+public final class SyntheticModels {
+
+    public static final int DEFAULT_DIMENSIONS = 100;
+
+    private static final double CLUSTER_SPREAD = 0.35;
+
+    private SyntheticModels() {
+    }
+
+    /**
+     * @return
+     *      the directory below {@code java.io.tmpdir} that holds the synthetic models of the given
+     *      benchmark
+     */
+    public static Path directory(final String benchmark) throws IOException {
+        return Files.createDirectories(Paths.get(System.getProperty("java.io.tmpdir"), "lingus-benchmarks", benchmark));
+    }
+
+    public static String word(final int id) {
+        return "w" + id;
+    }
+
+    /**
+     * Writes a synthetic model to {@code directory/filename}, unless a model of that name already exists.
+     *
+     * @return
+     *      the path of the model
+     */
+    public static Path create(final Path directory,
+                              final String filename,
+                              final int vocabularySize,
+                              final int dimensions,
+                              final long seed) throws IOException {
+        final Path target = directory.resolve(filename);
+        if (Files.exists(target)) {
+            return target;
+        }
+        final Path partial = directory.resolve(filename + ".partial");
+        write(partial, vocabularySize, dimensions, seed);
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    private static void write(final Path target, final int vocabularySize, final int dimensions, final long seed) throws IOException {
+        final byte[][] encoded = new byte[vocabularySize][];
+        long stringBytes = 0;
+        for (int i = 0; i < vocabularySize; i++) {
+            encoded[i] = word(i).getBytes(StandardCharsets.UTF_8);
+            stringBytes += encoded[i].length;
+        }
+        final long vocabOffset = LingusModelFormat.HEADER_SIZE;
+        final long vocabEnd = vocabOffset + (long) vocabularySize * Long.BYTES + (long) (vocabularySize + 1) * Integer.BYTES + stringBytes;
+        final long matrixOffset = (vocabEnd + LingusModelFormat.MATRIX_ALIGNMENT - 1) / LingusModelFormat.MATRIX_ALIGNMENT * LingusModelFormat.MATRIX_ALIGNMENT;
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer header = ByteBuffer.allocate(LingusModelFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(LingusModelFormat.MAGIC);
+            header.putInt(LingusModelFormat.VERSION);
+            header.putInt(LingusModelFormat.FLAG_NORMALIZED);
+            header.putInt(vocabularySize);
+            header.putInt(dimensions);
+            header.putInt(0);
+            header.putLong(vocabOffset);
+            header.putLong(matrixOffset);
+            header.position(0);
+            writeFully(channel, header, 0L);
+
+            final ByteBuffer vocabulary = ByteBuffer.allocate((int) (matrixOffset - vocabOffset)).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < vocabularySize; i++) {
+                vocabulary.putLong(vocabularySize - i);
+            }
+            int offset = 0;
+            for (int i = 0; i < vocabularySize; i++) {
+                vocabulary.putInt(offset);
+                offset += encoded[i].length;
+            }
+            vocabulary.putInt(offset);
+            for (byte[] word : encoded) {
+                vocabulary.put(word);
+            }
+            vocabulary.position(0);
+            writeFully(channel, vocabulary, vocabOffset);
+
+            final Random random = new Random(seed);
+            final float[][] centers = new float[Math.max(1, (int) Math.sqrt(vocabularySize))][dimensions];
+            for (float[] center : centers) {
+                for (int d = 0; d < dimensions; d++) {
+                    center[d] = (float) random.nextGaussian();
+                }
+            }
+            final ByteBuffer row = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            final float[] vector = new float[dimensions];
+            long position = matrixOffset;
+            for (int i = 0; i < vocabularySize; i++) {
+                final float[] center = centers[random.nextInt(centers.length)];
+                double norm = 0.0;
+                for (int d = 0; d < dimensions; d++) {
+                    vector[d] = center[d] + (float) (CLUSTER_SPREAD * random.nextGaussian());
+                    norm += vector[d] * vector[d];
+                }
+                norm = Math.sqrt(norm);
+                row.clear();
+                for (int d = 0; d < dimensions; d++) {
+                    row.putFloat((float) (vector[d] / norm));
+                }
+                row.flip();
+                writeFully(channel, row, position);
+                position += row.capacity();
+            }
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+}
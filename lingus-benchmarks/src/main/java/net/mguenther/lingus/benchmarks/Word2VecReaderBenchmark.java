@@ -0,0 +1,102 @@
+package net.mguenther.lingus.benchmarks;
+
+import net.mguenther.lingus.wordembedding.vectors.DotProduct;
+import net.mguenther.lingus.wordembedding.vectors.MappedVectorStore;
+import net.mguenther.lingus.wordembedding.vectors.ProgressListener;
+import net.mguenther.lingus.wordembedding.vectors.VectorStore;
+import net.mguenther.lingus.wordembedding.vectors.Word2VecModelReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link Word2VecModelReader} takes to read a synthetic model in the binary and
+ * the text format of the original word2vec tool, parsing with a single thread and with one thread
+ * per core.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Word2VecReaderBenchmark {
+
+    @Param({"100000"})
+    private int vocabularySize;
+
+    @Param({"BINARY", "TEXT"})
+    private Word2VecModelReader.Layout layout;
+
+    /**
+     * The number of parsing threads; {@code 0} uses one thread per core.
+     */
+    @Param({"1", "0"})
+    private int threads;
+
+    private Path model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Path directory = SyntheticModels.directory("word2vec-reader-" + vocabularySize);
+        final Path lingusModel = SyntheticModels.create(directory, "synthetic-" + vocabularySize + ".lingus", vocabularySize, SyntheticModels.DEFAULT_DIMENSIONS, 42L);
+        model = directory.resolve("synthetic-" + vocabularySize + "." + layout.name().toLowerCase());
+        if (!Files.exists(model)) {
+            final Path partial = directory.resolve(model.getFileName() + ".partial");
+            export(MappedVectorStore.open(lingusModel), partial, layout == Word2VecModelReader.Layout.BINARY);
+            Files.move(partial, model, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @Benchmark
+    public VectorStore read() throws IOException {
+        final int numberOfThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return Word2VecModelReader.read(model, layout, numberOfThreads, ProgressListener.NONE, DotProduct.UNROLLED);
+    }
+
+    private static void export(final VectorStore store, final Path target, final boolean binary) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), 1 << 20)) {
+            out.write((store.size() + " " + store.dimensions() + "\n").getBytes(StandardCharsets.UTF_8));
+            final float[] vector = new float[store.dimensions()];
+            final ByteBuffer components = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int id = 0; id < store.size(); id++) {
+                store.vector(id, vector);
+                out.write((store.word(id) + " ").getBytes(StandardCharsets.UTF_8));
+                if (binary) {
+                    components.clear();
+                    for (float component : vector) {
+                        components.putFloat(component);
+                    }
+                    out.write(components.array());
+                } else {
+                    final StringBuilder line = new StringBuilder();
+                    for (float component : vector) {
+                        line.append(component).append(' ');
+                    }
+                    out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                out.write('\n');
+            }
+        }
+    }
+}
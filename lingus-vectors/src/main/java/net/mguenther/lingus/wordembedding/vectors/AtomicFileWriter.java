@@ -0,0 +1,44 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a file next to its target and moves it into place once it is complete, so that readers
+ * never observe a partially written file, be it because the writer failed halfway or because a
+ * concurrent writer is still at it.
+ */
+final class AtomicFileWriter {
+
+    @FunctionalInterface
+    interface Content {
+
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
+    private AtomicFileWriter() {
+    }
+
+    static void write(final Path target, final Content content) throws IOException {
+        final Path directory = target.toAbsolutePath().getParent();
+        final Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                content.writeTo(channel);
+                channel.force(false);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Exact nearest-neighbour search for many queries at once. The queries are scored against the
+ * vocabulary as a blocked matrix product: a block of queries is multiplied with consecutive tiles of
+ * the vector matrix, so that each tile is read once per block of queries instead of once per query,
+ * and each row of a tile is loaded once for four queries at a time. The scores of each query feed a
+ * bounded top-{@code k} selection.
+ *
+ * The neighbours of a block of queries are handed to the caller as soon as the block is complete,
+ * so that results can be streamed while the remaining blocks are still being computed.
+ *
+ * The deadline of a search is polled once per tile. Once it has passed, the current block of queries
+ * is completed with the neighbours among the rows scored so far, and the queries of the remaining
+ * blocks are completed without any neighbours; all of them are flagged as partial.
+ */
+public final class BatchSearch {
+
+    /**
+     * Number of queries that are scored together against the vector matrix.
+     */
+    static final int QUERY_BLOCK = 64;
+
+    /**
+     * Number of rows of the vector matrix that are copied into a contiguous tile at once.
+     */
+    static final int ROW_BLOCK = 256;
+
+    private BatchSearch() {
+    }
+
+    /**
+     * @param store
+     *      the vectors to search
+     * @param queries
+     *      L2-normalized query vectors of length {@link VectorStore#dimensions()}
+     * @param k
+     *      the maximum number of neighbours per query
+     * @param excludedIds
+     *      per query, the id of a word that must not be part of its result (typically the query word
+     *      itself), or {@code -1}
+     * @param consumer
+     *      receives the {@code k} nearest neighbours of each query in descending order of their
+     *      similarity along with the index of the query; queries are reported in ascending order
+     */
+    public static void nearest(final VectorStore store,
+                               final float[][] queries,
+                               final int k,
+                               final int[] excludedIds,
+                               final ObjIntConsumer<Neighbours> consumer) {
+        nearest(store, queries, k, excludedIds, Deadline.NONE, consumer);
+    }
+
+    /**
+     * Like {@link #nearest(VectorStore, float[][], int, int[], ObjIntConsumer)}, but stops scoring
+     * once the given deadline has passed.
+     */
+    public static void nearest(final VectorStore store,
+                               final float[][] queries,
+                               final int k,
+                               final int[] excludedIds,
+                               final Deadline deadline,
+                               final ObjIntConsumer<Neighbours> consumer) {
+        if (queries.length != excludedIds.length) {
+            throw new IllegalArgumentException("Each query requires exactly one excluded id.");
+        }
+        final int dimensions = store.dimensions();
+        final float[] block = new float[QUERY_BLOCK * dimensions];
+        final float[] tile = new float[ROW_BLOCK * dimensions];
+        boolean expired = false;
+        for (int first = 0; first < queries.length; first += QUERY_BLOCK) {
+            final int numberOfQueries = Math.min(QUERY_BLOCK, queries.length - first);
+            final TopK[] topKs = new TopK[numberOfQueries];
+            for (int q = 0; q < numberOfQueries; q++) {
+                System.arraycopy(queries[first + q], 0, block, q * dimensions, dimensions);
+                topKs[q] = new TopK(k);
+            }
+            for (int firstRow = 0; firstRow < store.size() && !expired; firstRow += ROW_BLOCK) {
+                if (deadline.isExpired()) {
+                    expired = true;
+                    break;
+                }
+                final int numberOfRows = Math.min(ROW_BLOCK, store.size() - firstRow);
+                store.rows(firstRow, numberOfRows, tile);
+                multiply(block, numberOfQueries, tile, numberOfRows, dimensions, firstRow, excludedIds, first, topKs);
+            }
+            for (int q = 0; q < numberOfQueries; q++) {
+                consumer.accept(topKs[q].toNeighbours(expired), first + q);
+            }
+        }
+    }
+
+    private static void multiply(final float[] block,
+                                 final int numberOfQueries,
+                                 final float[] tile,
+                                 final int numberOfRows,
+                                 final int dimensions,
+                                 final int firstRow,
+                                 final int[] excludedIds,
+                                 final int firstQuery,
+                                 final TopK[] topKs) {
+        for (int r = 0; r < numberOfRows; r++) {
+            final int row = r * dimensions;
+            final int id = firstRow + r;
+            int q = 0;
+            for (; q + 4 <= numberOfQueries; q += 4) {
+                final int q0 = q * dimensions;
+                final int q1 = q0 + dimensions;
+                final int q2 = q1 + dimensions;
+                final int q3 = q2 + dimensions;
+                float s0 = 0f;
+                float s1 = 0f;
+                float s2 = 0f;
+                float s3 = 0f;
+                for (int d = 0; d < dimensions; d++) {
+                    final float x = tile[row + d];
+                    s0 += x * block[q0 + d];
+                    s1 += x * block[q1 + d];
+                    s2 += x * block[q2 + d];
+                    s3 += x * block[q3 + d];
+                }
+                offer(topKs, excludedIds, firstQuery, q, id, s0);
+                offer(topKs, excludedIds, firstQuery, q + 1, id, s1);
+                offer(topKs, excludedIds, firstQuery, q + 2, id, s2);
+                offer(topKs, excludedIds, firstQuery, q + 3, id, s3);
+            }
+            for (; q < numberOfQueries; q++) {
+                final int base = q * dimensions;
+                float sum = 0f;
+                for (int d = 0; d < dimensions; d++) {
+                    sum += tile[row + d] * block[base + d];
+                }
+                offer(topKs, excludedIds, firstQuery, q, id, sum);
+            }
+        }
+    }
+
+    private static void offer(final TopK[] topKs,
+                              final int[] excludedIds,
+                              final int firstQuery,
+                              final int q,
+                              final int id,
+                              final float score) {
+        if (excludedIds[firstQuery + q] != id) {
+            topKs[q].offer(id, score);
+        }
+    }
+}
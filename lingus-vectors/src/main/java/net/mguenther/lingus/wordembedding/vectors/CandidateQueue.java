@@ -0,0 +1,71 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Growable max-heap of (id, score) pairs that yields the highest-scoring candidate first.
+ */
+final class CandidateQueue {
+
+    private int[] ids = new int[64];
+
+    private float[] scores = new float[64];
+
+    private int size;
+
+    void push(final int id, final float score) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (scores[parent] >= score) {
+                break;
+            }
+            ids[i] = ids[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        ids[i] = id;
+        scores[i] = score;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    float peekScore() {
+        return scores[0];
+    }
+
+    int pop() {
+        final int top = ids[0];
+        size--;
+        final int lastId = ids[size];
+        final float lastScore = scores[size];
+        int i = 0;
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            final int right = left + 1;
+            final int largest = right < size && scores[right] > scores[left] ? right : left;
+            if (lastScore >= scores[largest]) {
+                break;
+            }
+            ids[i] = ids[largest];
+            scores[i] = scores[largest];
+            i = largest;
+        }
+        ids[i] = lastId;
+        scores[i] = lastScore;
+        return top;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,63 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which a search has to return. Searches poll their deadline every so often
+ * and, once it has passed, stop and return the best neighbours they have found so far, flagged as
+ * partial (cf. {@link Neighbours#isPartial()}). Polling is cheap, but not free, so searches poll
+ * once per batch of scored vectors rather than once per vector.
+ */
+public final class Deadline {
+
+    /**
+     * A deadline that never passes.
+     */
+    public static final Deadline NONE = new Deadline(0L, false);
+
+    private final long expiresAt;
+
+    private final boolean bounded;
+
+    private Deadline(final long expiresAt, final boolean bounded) {
+        this.expiresAt = expiresAt;
+        this.bounded = bounded;
+    }
+
+    /**
+     * @param timeout
+     *      the time from now until the deadline passes; {@code 0} or less for no deadline at all
+     * @param unit
+     *      the unit of {@code timeout}
+     * @return
+     *      a deadline that passes after the given timeout
+     */
+    public static Deadline in(final long timeout, final TimeUnit unit) {
+        return timeout <= 0 ? NONE : new Deadline(System.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    /**
+     * @return
+     *      {@code true} if the deadline has passed
+     */
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - expiresAt >= 0;
+    }
+
+    /**
+     * @return
+     *      {@code true} if this deadline passes at some point, {@code false} for {@link #NONE}
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * @return
+     *      the nanoseconds until the deadline passes, or {@code 0} if it has passed already; only
+     *      meaningful if the deadline {@link #isBounded() is bounded}
+     */
+    public long remainingNanos() {
+        return Math.max(0L, expiresAt - System.nanoTime());
+    }
+}
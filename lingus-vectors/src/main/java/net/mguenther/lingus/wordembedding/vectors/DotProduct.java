@@ -0,0 +1,111 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.nio.FloatBuffer;
+
+/**
+ * The kernels that compute the dot product of a stored vector with a query. As vectors are
+ * L2-normalized when a model is activated, this is the kernel behind every exact similarity, the
+ * exhaustive search, the re-ranking of quantized candidates and the HNSW graph traversal.
+ *
+ * A single running sum makes each multiply-add wait for the previous one, and HotSpot does not
+ * vectorize floating-point reductions, as that would change the order of the additions. The
+ * {@link #UNROLLED} kernel keeps eight independent partial sums instead, which lets the CPU overlap
+ * the multiply-adds of consecutive components. Its results differ from those of the {@link #SCALAR}
+ * kernel only by rounding.
+ */
+public enum DotProduct {
+
+    /**
+     * Sums up the products of all components in order.
+     */
+    SCALAR {
+        @Override
+        public float dot(final float[] vectors, final int offset, final float[] query, final int length) {
+            float sum = 0f;
+            for (int d = 0; d < length; d++) {
+                sum += vectors[offset + d] * query[d];
+            }
+            return sum;
+        }
+
+        @Override
+        public float dot(final FloatBuffer vectors, final int offset, final float[] query, final int length) {
+            float sum = 0f;
+            for (int d = 0; d < length; d++) {
+                sum += vectors.get(offset + d) * query[d];
+            }
+            return sum;
+        }
+    },
+
+    /**
+     * Sums up the products in eight independent partial sums and adds them up pairwise at the end.
+     * Vectors in a {@link FloatBuffer} (i.e. memory-mapped models) are summed up in order, as HotSpot
+     * checks the bounds of each unrolled read from a buffer individually, which costs more than the
+     * independent sums save.
+     */
+    UNROLLED {
+        @Override
+        public float dot(final float[] vectors, final int offset, final float[] query, final int length) {
+            float s0 = 0f;
+            float s1 = 0f;
+            float s2 = 0f;
+            float s3 = 0f;
+            float s4 = 0f;
+            float s5 = 0f;
+            float s6 = 0f;
+            float s7 = 0f;
+            final int unrolled = length & ~7;
+            int d = 0;
+            for (; d < unrolled; d += 8) {
+                final int i = offset + d;
+                s0 += vectors[i] * query[d];
+                s1 += vectors[i + 1] * query[d + 1];
+                s2 += vectors[i + 2] * query[d + 2];
+                s3 += vectors[i + 3] * query[d + 3];
+                s4 += vectors[i + 4] * query[d + 4];
+                s5 += vectors[i + 5] * query[d + 5];
+                s6 += vectors[i + 6] * query[d + 6];
+                s7 += vectors[i + 7] * query[d + 7];
+            }
+            float sum = ((s0 + s1) + (s2 + s3)) + ((s4 + s5) + (s6 + s7));
+            for (; d < length; d++) {
+                sum += vectors[offset + d] * query[d];
+            }
+            return sum;
+        }
+
+        @Override
+        public float dot(final FloatBuffer vectors, final int offset, final float[] query, final int length) {
+            return SCALAR.dot(vectors, offset, query, length);
+        }
+    };
+
+    /**
+     * @param vectors
+     *      array that holds the stored vector
+     * @param offset
+     *      the index of the first component of the stored vector in {@code vectors}
+     * @param query
+     *      the query vector, starting at index {@code 0}
+     * @param length
+     *      the number of components
+     * @return
+     *      the dot product of the stored vector with the query
+     */
+    public abstract float dot(float[] vectors, int offset, float[] query, int length);
+
+    /**
+     * @param vectors
+     *      buffer that holds the stored vector
+     * @param offset
+     *      the absolute index of the first component of the stored vector in {@code vectors}
+     * @param query
+     *      the query vector, starting at index {@code 0}
+     * @param length
+     *      the number of components
+     * @return
+     *      the dot product of the stored vector with the query
+     */
+    public abstract float dot(FloatBuffer vectors, int offset, float[] query, int length);
+}
@@ -0,0 +1,109 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+/**
+ * Exact nearest-neighbour search that scores the query against every vector of a {@link VectorStore}.
+ */
+public final class ExhaustiveSearch {
+
+    /**
+     * Number of vectors that are scored between two polls of the deadline.
+     */
+    private static final int DEADLINE_INTERVAL = 1024;
+
+    private ExhaustiveSearch() {
+    }
+
+    /**
+     * @param store
+     *      the vectors to search
+     * @param query
+     *      L2-normalized query vector
+     * @param k
+     *      the maximum number of neighbours to return
+     * @param excludedId
+     *      id of a word that must not be part of the result (typically the query word itself),
+     *      or {@code -1}
+     * @return
+     *      the {@code k} nearest neighbours of the query in descending order of their similarity
+     */
+    public static Neighbours nearest(final VectorStore store, final float[] query, final int k, final int excludedId) {
+        return nearest(store.scorer(query), store.size(), k, excludedId, Deadline.NONE);
+    }
+
+    /**
+     * Like {@link #nearest(VectorStore, float[], int, int)}, but returns the best neighbours among
+     * the vectors scored so far once the given deadline has passed.
+     */
+    public static Neighbours nearest(final VectorStore store, final float[] query, final int k, final int excludedId, final Deadline deadline) {
+        return nearest(store.scorer(query), store.size(), k, excludedId, deadline);
+    }
+
+    /**
+     * @param scorer
+     *      scores the words against the query
+     * @param size
+     *      the number of words
+     * @param k
+     *      the maximum number of neighbours to return
+     * @param excludedId
+     *      id of a word that must not be part of the result, or {@code -1}
+     * @return
+     *      the {@code k} best-scoring words in descending order of their score
+     */
+    public static Neighbours nearest(final QueryScorer scorer, final int size, final int k, final int excludedId) {
+        return nearest(scorer, size, k, excludedId, Deadline.NONE);
+    }
+
+    /**
+     * @param scorer
+     *      scores the words against the query
+     * @param size
+     *      the number of words
+     * @param k
+     *      the maximum number of neighbours to return
+     * @param excludedId
+     *      id of a word that must not be part of the result, or {@code -1}
+     * @param deadline
+     *      the deadline after which the search stops scoring further words
+     * @return
+     *      the {@code k} best-scoring words in descending order of their score; partial if the
+     *      deadline has passed before all words have been scored
+     */
+    public static Neighbours nearest(final QueryScorer scorer, final int size, final int k, final int excludedId, final Deadline deadline) {
+        final TopK topK = new TopK(k);
+        for (int id = 0; id < size; id++) {
+            if (id % DEADLINE_INTERVAL == 0 && deadline.isExpired()) {
+                return topK.toNeighbours(true);
+            }
+            if (id != excludedId) {
+                topK.offer(id, scorer.score(id));
+            }
+        }
+        return topK.toNeighbours();
+    }
+
+    /**
+     * Re-scores the given candidates against the full-precision vectors of the store, e.g. after a
+     * candidate search on quantized vectors.
+     *
+     * @param store
+     *      the full-precision vectors
+     * @param query
+     *      L2-normalized query vector
+     * @param candidates
+     *      the candidates to re-rank
+     * @param k
+     *      the maximum number of neighbours to return
+     * @return
+     *      the {@code k} most similar candidates in descending order of their exact similarity;
+     *      partial if the candidates are partial
+     */
+    public static Neighbours rerank(final VectorStore store, final float[] query, final Neighbours candidates, final int k) {
+        final TopK topK = new TopK(k);
+        for (int rank = 0; rank < candidates.size(); rank++) {
+            final int id = candidates.id(rank);
+            topK.offer(id, store.dot(id, query));
+        }
+        return topK.toNeighbours(candidates.isPartial());
+    }
+}
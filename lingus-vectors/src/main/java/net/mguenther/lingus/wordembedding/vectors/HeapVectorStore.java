@@ -0,0 +1,101 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+/**
+ * {@link VectorStore} that keeps all vectors in a single float array on the heap. This is used for
+ * models that have to be parsed anyway (e.g. models written by Deeplearning4J).
+ */
+public final class HeapVectorStore implements VectorStore {
+
+    private final int dimensions;
+
+    private final VocabularyIndex vocabulary;
+
+    private final float[] matrix;
+
+    private final DotProduct kernel;
+
+    /**
+     * Creates a store that scores with the {@link DotProduct#SCALAR} kernel.
+     */
+    public HeapVectorStore(final String[] words, final float[] matrix, final int dimensions) {
+        this(words, matrix, dimensions, DotProduct.SCALAR);
+    }
+
+    /**
+     * @param words
+     *      the vocabulary; the word at index {@code i} owns row {@code i} of the matrix
+     * @param matrix
+     *      row-major matrix of {@code words.length * dimensions} floats; the rows are L2-normalized
+     *      in place
+     * @param dimensions
+     *      the number of dimensions of each vector
+     * @param kernel
+     *      computes the dot products of the vectors with queries
+     */
+    public HeapVectorStore(final String[] words, final float[] matrix, final int dimensions, final DotProduct kernel) {
+        if ((long) words.length * dimensions != matrix.length) {
+            throw new IllegalArgumentException("The matrix does not match the vocabulary size and the number of dimensions.");
+        }
+        this.dimensions = dimensions;
+        this.matrix = matrix;
+        this.kernel = kernel;
+        for (int i = 0; i < words.length; i++) {
+            normalize(i);
+        }
+        this.vocabulary = VocabularyIndex.build(words);
+    }
+
+    private void normalize(final int id) {
+        final int base = id * dimensions;
+        double norm = 0.0;
+        for (int d = 0; d < dimensions; d++) {
+            norm += matrix[base + d] * matrix[base + d];
+        }
+        if (norm > 0.0) {
+            final float inverse = (float) (1.0 / Math.sqrt(norm));
+            for (int d = 0; d < dimensions; d++) {
+                matrix[base + d] *= inverse;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return vocabulary.size();
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public String word(final int id) {
+        return vocabulary.word(id);
+    }
+
+    @Override
+    public int id(final String word) {
+        return vocabulary.id(word);
+    }
+
+    @Override
+    public VocabularyIndex vocabulary() {
+        return vocabulary;
+    }
+
+    @Override
+    public void vector(final int id, final float[] target) {
+        System.arraycopy(matrix, id * dimensions, target, 0, dimensions);
+    }
+
+    @Override
+    public void rows(final int from, final int count, final float[] target) {
+        System.arraycopy(matrix, from * dimensions, target, 0, count * dimensions);
+    }
+
+    @Override
+    public float dot(final int id, final float[] query) {
+        return kernel.dot(matrix, id * dimensions, query, dimensions);
+    }
+}
@@ -0,0 +1,659 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hierarchical navigable small world graph (cf. Malkov and Yashunin, "Efficient and robust approximate
+ * nearest neighbor search using Hierarchical Navigable Small World graphs") over the vectors of a
+ * {@link VectorStore}. Nodes are the word ids of the store, the similarity of two nodes is the dot
+ * product of their (normalized) vectors.
+ *
+ * The links of a node are kept in flat int arrays: each level of a node occupies a block that starts
+ * with the number of links, followed by the links themselves. Level 0 allows twice as many links as
+ * the upper levels.
+ *
+ * An index is immutable once it has been built and can be searched concurrently. Each search needs
+ * scratch space that grows with the size of the vocabulary (the set of visited nodes). The index pools
+ * this scratch space for up to {@code MAX_POOLED_CONTEXTS} concurrent searches, so that it is
+ * allocated once and becomes garbage along with the index; searches beyond that allocate their own.
+ */
+public final class HnswIndex {
+
+    public static final String FILE_EXTENSION = ".hnsw";
+
+    private static final int MAGIC = 0x534E484C;
+
+    private static final int VERSION = 1;
+
+    private static final int PROGRESS_INTERVAL = 1024;
+
+    /**
+     * Number of candidates that a search expands between two polls of its deadline.
+     */
+    private static final int DEADLINE_INTERVAL = 16;
+
+    /**
+     * Number of search contexts that the index keeps for reuse; matches the default number of threads
+     * of the query bulkhead.
+     */
+    private static final int MAX_POOLED_CONTEXTS = Runtime.getRuntime().availableProcessors();
+
+    private final VectorStore store;
+
+    private final int m;
+
+    private final int maxM0;
+
+    private final int[] levels;
+
+    private final int[] level0;
+
+    private final int[][] upper;
+
+    private final Queue<SearchContext> contexts = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pooledContexts = new AtomicInteger();
+
+    private int entryPoint;
+
+    private int maxLevel;
+
+    private HnswIndex(final VectorStore store,
+                      final int m,
+                      final int[] levels,
+                      final int[] level0,
+                      final int[][] upper,
+                      final int entryPoint,
+                      final int maxLevel) {
+        this.store = store;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.levels = levels;
+        this.level0 = level0;
+        this.upper = upper;
+        this.entryPoint = entryPoint;
+        this.maxLevel = maxLevel;
+    }
+
+    /**
+     * Builds a new index over all vectors of the given store.
+     *
+     * @param store
+     *      the vectors to index
+     * @param m
+     *      the maximum number of links per node on the upper levels
+     * @param efConstruction
+     *      the size of the dynamic candidate list while inserting nodes; higher values yield a
+     *      better graph at the expense of build time
+     * @param seed
+     *      seed for the random level assignment
+     * @return
+     *      the index
+     */
+    public static HnswIndex build(final VectorStore store, final int m, final int efConstruction, final long seed) {
+        return build(store, m, efConstruction, seed, ProgressListener.NONE);
+    }
+
+    /**
+     * Same as {@link #build(VectorStore, int, int, long)}, but advances {@code progress} by the number
+     * of words that have been inserted into the graph.
+     */
+    public static HnswIndex build(final VectorStore store,
+                                  final int m,
+                                  final int efConstruction,
+                                  final long seed,
+                                  final ProgressListener progress) {
+        final int size = store.size();
+        if ((long) size * (2 * m + 1) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The vocabulary is too large to be indexed with m = " + m + ".");
+        }
+        final HnswIndex index = new HnswIndex(store, m, new int[size], new int[size * (2 * m + 1)], new int[size][], -1, -1);
+        final Random random = new Random(seed);
+        final double levelMultiplier = 1.0 / Math.log(Math.max(2, m));
+        final float[] vector = new float[store.dimensions()];
+        for (int node = 0; node < size; node++) {
+            final int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+            store.vector(node, vector);
+            index.insert(node, level, vector, Math.max(efConstruction, m));
+            if ((node + 1) % PROGRESS_INTERVAL == 0) {
+                progress.advance(0L, PROGRESS_INTERVAL);
+            }
+        }
+        progress.advance(0L, size % PROGRESS_INTERVAL);
+        return index;
+    }
+
+    private void insert(final int node, final int level, final float[] vector, final int efConstruction) {
+        levels[node] = level;
+        if (level > 0) {
+            upper[node] = new int[level * (m + 1)];
+        }
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+        final SearchContext context = acquireContext();
+        try {
+            insert(node, level, vector, efConstruction, context);
+        } finally {
+            releaseContext(context);
+        }
+    }
+
+    private void insert(final int node, final int level, final float[] vector, final int efConstruction, final SearchContext context) {
+        final QueryScorer scorer = store.scorer(vector);
+        int currentEntryPoint = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            currentEntryPoint = greedy(scorer, currentEntryPoint, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            final Neighbours candidates = searchLayer(context, scorer, currentEntryPoint, efConstruction, l, Deadline.NONE);
+            final int[] selected = selectNeighbours(candidates, maxLinks(l), context.scratch);
+            final int[] block = block(node, l);
+            final int offset = offset(node, l);
+            block[offset] = selected.length;
+            System.arraycopy(selected, 0, block, offset + 1, selected.length);
+            for (int neighbour : selected) {
+                link(neighbour, node, l, context);
+            }
+            currentEntryPoint = candidates.id(0);
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    private void link(final int from, final int to, final int level, final SearchContext context) {
+        final int[] block = block(from, level);
+        final int offset = offset(from, level);
+        final int count = block[offset];
+        final int maxLinks = maxLinks(level);
+        if (count < maxLinks) {
+            block[offset + 1 + count] = to;
+            block[offset] = count + 1;
+            return;
+        }
+        final float[] origin = context.origin;
+        store.vector(from, origin);
+        final TopK candidates = new TopK(count + 1);
+        for (int i = 0; i < count; i++) {
+            final int existing = block[offset + 1 + i];
+            candidates.offer(existing, store.dot(existing, origin));
+        }
+        candidates.offer(to, store.dot(to, origin));
+        final int[] selected = selectNeighbours(candidates.toNeighbours(), maxLinks, context.scratch);
+        block[offset] = selected.length;
+        System.arraycopy(selected, 0, block, offset + 1, selected.length);
+    }
+
+    /**
+     * Selects up to {@code maxLinks} neighbours from the given candidates (ordered by descending
+     * similarity to the base node). A candidate is only kept if it is closer to the base node than to
+     * any of the neighbours selected so far, which keeps the graph navigable across clusters.
+     */
+    private int[] selectNeighbours(final Neighbours candidates, final int maxLinks, final float[] scratch) {
+        final int[] selected = new int[Math.min(maxLinks, candidates.size())];
+        int count = 0;
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            final int candidate = candidates.id(i);
+            final float similarityToBase = candidates.score(i);
+            store.vector(candidate, scratch);
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (store.dot(selected[j], scratch) > similarityToBase) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate;
+            }
+        }
+        if (count == selected.length) {
+            return selected;
+        }
+        final int[] trimmed = new int[count];
+        System.arraycopy(selected, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Searches the index for the approximate nearest neighbours of the given query.
+     *
+     * @param query
+     *      L2-normalized query vector
+     * @param k
+     *      the maximum number of neighbours to return
+     * @param efSearch
+     *      the size of the dynamic candidate list; higher values yield a better recall at the
+     *      expense of latency
+     * @param excludedId
+     *      id of a word that must not be part of the result, or {@code -1}
+     * @return
+     *      the neighbours in descending order of their similarity
+     */
+    public Neighbours nearest(final float[] query, final int k, final int efSearch, final int excludedId) {
+        return nearest(store.scorer(query), k, efSearch, excludedId, Deadline.NONE);
+    }
+
+    /**
+     * Like {@link #nearest(float[], int, int, int)}, but returns the best neighbours found so far
+     * once the given deadline has passed.
+     */
+    public Neighbours nearest(final float[] query, final int k, final int efSearch, final int excludedId, final Deadline deadline) {
+        return nearest(store.scorer(query), k, efSearch, excludedId, deadline);
+    }
+
+    /**
+     * Searches the index with the given scorer, e.g. one that scores quantized vectors.
+     *
+     * @param scorer
+     *      scores the nodes against the query
+     * @param k
+     *      the maximum number of neighbours to return
+     * @param efSearch
+     *      the size of the dynamic candidate list
+     * @param excludedId
+     *      id of a word that must not be part of the result, or {@code -1}
+     * @return
+     *      the neighbours in descending order of their score
+     */
+    public Neighbours nearest(final QueryScorer scorer, final int k, final int efSearch, final int excludedId) {
+        return nearest(scorer, k, efSearch, excludedId, Deadline.NONE);
+    }
+
+    /**
+     * Searches the index with the given scorer until the search converges or the given deadline
+     * passes, whichever comes first.
+     *
+     * @param scorer
+     *      scores the nodes against the query
+     * @param k
+     *      the maximum number of neighbours to return
+     * @param efSearch
+     *      the size of the dynamic candidate list
+     * @param excludedId
+     *      id of a word that must not be part of the result, or {@code -1}
+     * @param deadline
+     *      the deadline after which the search stops expanding candidates
+     * @return
+     *      the neighbours in descending order of their score; partial if the deadline has passed
+     *      before the search has converged
+     */
+    public Neighbours nearest(final QueryScorer scorer, final int k, final int efSearch, final int excludedId, final Deadline deadline) {
+        if (entryPoint < 0 || k <= 0) {
+            return new TopK(0).toNeighbours();
+        }
+        int currentEntryPoint = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            currentEntryPoint = greedy(scorer, currentEntryPoint, l);
+        }
+        final SearchContext context = acquireContext();
+        final Neighbours candidates;
+        try {
+            candidates = searchLayer(context, scorer, currentEntryPoint, Math.max(efSearch, k + 1), 0, deadline);
+        } finally {
+            releaseContext(context);
+        }
+        final TopK result = new TopK(k);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (candidates.id(i) != excludedId) {
+                result.offer(candidates.id(i), candidates.score(i));
+            }
+        }
+        return result.toNeighbours(candidates.isPartial());
+    }
+
+    private int greedy(final QueryScorer scorer, final int start, final int level) {
+        int current = start;
+        float best = scorer.score(current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            final int[] block = block(current, level);
+            final int offset = offset(current, level);
+            final int count = block[offset];
+            for (int i = 0; i < count; i++) {
+                final int candidate = block[offset + 1 + i];
+                final float score = scorer.score(candidate);
+                if (score > best) {
+                    best = score;
+                    current = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Neighbours searchLayer(final SearchContext context,
+                                   final QueryScorer scorer,
+                                   final int start,
+                                   final int ef,
+                                   final int level,
+                                   final Deadline deadline) {
+        final VisitedSet visited = context.visited;
+        final CandidateQueue candidates = context.candidates;
+        final TopK results = new TopK(ef);
+        visited.clear();
+        candidates.clear();
+        visited.add(start);
+        final float startScore = scorer.score(start);
+        candidates.push(start, startScore);
+        results.offer(start, startScore);
+        int expansions = 0;
+        while (!candidates.isEmpty()) {
+            if (results.isFull() && candidates.peekScore() < results.threshold()) {
+                break;
+            }
+            if (++expansions % DEADLINE_INTERVAL == 0 && deadline.isExpired()) {
+                return results.toNeighbours(true);
+            }
+            final int current = candidates.pop();
+            final int[] block = block(current, level);
+            final int offset = offset(current, level);
+            final int count = block[offset];
+            for (int i = 0; i < count; i++) {
+                final int neighbour = block[offset + 1 + i];
+                if (visited.add(neighbour)) {
+                    final float score = scorer.score(neighbour);
+                    if (!results.isFull() || score > results.threshold()) {
+                        candidates.push(neighbour, score);
+                        results.offer(neighbour, score);
+                    }
+                }
+            }
+        }
+        return results.toNeighbours();
+    }
+
+    private int maxLinks(final int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    private int[] block(final int node, final int level) {
+        return level == 0 ? level0 : upper[node];
+    }
+
+    private int offset(final int node, final int level) {
+        return level == 0 ? node * (maxM0 + 1) : (level - 1) * (m + 1);
+    }
+
+    private SearchContext acquireContext() {
+        final SearchContext context = contexts.poll();
+        if (context == null) {
+            return new SearchContext(store.size(), store.dimensions());
+        }
+        pooledContexts.decrementAndGet();
+        return context;
+    }
+
+    private void releaseContext(final SearchContext context) {
+        if (pooledContexts.incrementAndGet() <= MAX_POOLED_CONTEXTS) {
+            contexts.offer(context);
+        } else {
+            pooledContexts.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return
+     *      the number of bytes that the scratch space of concurrent searches occupies at most while it
+     *      is pooled by this index
+     */
+    public long searchContextBytes() {
+        return estimateSearchContextBytes(store.size(), store.dimensions());
+    }
+
+    /**
+     * @return
+     *      the number of bytes that the pooled scratch space of searches on an index over the given
+     *      number of words and dimensions occupies at most
+     */
+    public static long estimateSearchContextBytes(final int vocabSize, final int dimensions) {
+        return (long) MAX_POOLED_CONTEXTS * ((long) vocabSize * Integer.BYTES + 2L * dimensions * Float.BYTES);
+    }
+
+    /**
+     * @return
+     *      the number of bytes that the graph occupies on the heap (excluding the vectors)
+     */
+    public long sizeInBytes() {
+        long bytes = (long) (levels.length + level0.length) * Integer.BYTES;
+        for (int[] links : upper) {
+            if (links != null) {
+                bytes += (long) links.length * Integer.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Persists this index. The index is written to a temporary file that replaces the target once
+     * it is complete.
+     *
+     * @param target
+     *      the file to write to
+     * @param fingerprint
+     *      identifies the model the index has been built for; {@link #read(Path, VectorStore, long)}
+     *      refuses to load the index for a different fingerprint
+     * @throws IOException
+     *      if the index cannot be written
+     */
+    public void write(final Path target, final long fingerprint) throws IOException {
+        AtomicFileWriter.write(target, channel -> {
+            final ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putInt(store.size()).putInt(store.dimensions())
+                    .putInt(m).putInt(entryPoint).putInt(maxLevel).putInt(0)
+                    .putLong(fingerprint);
+            header.flip();
+            writeFully(channel, header);
+            final IntArrayChannel ints = new IntArrayChannel(channel);
+            ints.write(levels);
+            ints.write(level0);
+            for (int[] links : upper) {
+                if (links != null) {
+                    ints.write(links);
+                }
+            }
+            ints.flush();
+        });
+    }
+
+    /**
+     * Reads an index that has previously been written by {@link #write(Path, long)}.
+     *
+     * @param source
+     *      the file to read from
+     * @param store
+     *      the vectors the index has been built for
+     * @param fingerprint
+     *      identifies the model the index has been built for
+     * @return
+     *      the index
+     * @throws IOException
+     *      if the index cannot be read, does not belong to the given model or is corrupt
+     */
+    public static HnswIndex read(final Path source, final VectorStore store, final long fingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Unexpected end of file while reading the index header.");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("The file is not an HNSW index of a supported version.");
+            }
+            final int size = header.getInt();
+            final int dimensions = header.getInt();
+            final int m = header.getInt();
+            final int entryPoint = header.getInt();
+            final int maxLevel = header.getInt();
+            header.getInt();
+            if (header.getLong() != fingerprint || size != store.size() || dimensions != store.dimensions()) {
+                throw new IOException("The HNSW index has been built for a different model.");
+            }
+            if (m < 1 || (long) size * (2 * (long) m + 1) > Integer.MAX_VALUE) {
+                throw new IOException("The HNSW index is corrupt: m = " + m + " is out of range.");
+            }
+            final boolean emptyGraph = entryPoint == -1 && maxLevel == -1;
+            if (size == 0 ? !emptyGraph : (entryPoint < 0 || entryPoint >= size || maxLevel < 0)) {
+                throw new IOException("The HNSW index is corrupt: entry point " + entryPoint + " on level " + maxLevel + " is out of range.");
+            }
+            final IntArrayChannel ints = new IntArrayChannel(channel);
+            final int[] levels = ints.read(size);
+            final int[] level0 = ints.read(size * (2 * m + 1));
+            final int[][] upper = new int[size][];
+            for (int node = 0; node < size; node++) {
+                if (levels[node] < 0 || levels[node] > maxLevel) {
+                    throw new IOException("The HNSW index is corrupt: level " + levels[node] + " of node " + node + " is out of range.");
+                }
+                if (levels[node] > 0) {
+                    upper[node] = ints.read((long) levels[node] * (m + 1));
+                }
+            }
+            if (channel.position() != channel.size()) {
+                throw new IOException("The HNSW index is corrupt: the file is larger than the graph.");
+            }
+            if (size > 0 && levels[entryPoint] != maxLevel) {
+                throw new IOException("The HNSW index is corrupt: the entry point is not on the top level.");
+            }
+            final HnswIndex index = new HnswIndex(store, m, levels, level0, upper, entryPoint, maxLevel);
+            index.validateLinks();
+            return index;
+        }
+    }
+
+    /**
+     * Makes sure that each block of links holds no more links than allowed and refers to existing
+     * nodes only, so that a corrupt file yields an {@link IOException} rather than failing searches.
+     */
+    private void validateLinks() throws IOException {
+        for (int node = 0; node < levels.length; node++) {
+            for (int level = 0; level <= levels[node]; level++) {
+                final int[] block = block(node, level);
+                final int offset = offset(node, level);
+                final int count = block[offset];
+                if (count < 0 || count > maxLinks(level)) {
+                    throw new IOException("The HNSW index is corrupt: node " + node + " has " + count + " links on level " + level + ".");
+                }
+                for (int i = offset + 1; i <= offset + count; i++) {
+                    if (block[i] < 0 || block[i] >= levels.length) {
+                        throw new IOException("The HNSW index is corrupt: node " + node + " links to node " + block[i] + " on level " + level + ".");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param model
+     *      location of a model file
+     * @return
+     *      location of the index that belongs to the given model
+     */
+    public static Path locationFor(final Path model) {
+        return model.resolveSibling(model.getFileName().toString() + FILE_EXTENSION);
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Transfers int arrays from and to a channel in little-endian byte order using a reusable buffer.
+     */
+    private static final class IntArrayChannel {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+
+        IntArrayChannel(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(final int[] values) throws IOException {
+            int written = 0;
+            while (written < values.length) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    flush();
+                }
+                final IntBuffer view = buffer.asIntBuffer();
+                final int chunk = Math.min(view.remaining(), values.length - written);
+                view.put(values, written, chunk);
+                buffer.position(buffer.position() + chunk * Integer.BYTES);
+                written += chunk;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+        }
+
+        /**
+         * Reads the given number of ints, making sure that the file holds them before allocating
+         * the array, so that a corrupt length does not exhaust the heap.
+         */
+        int[] read(final long length) throws IOException {
+            if (length > Integer.MAX_VALUE || channel.size() - channel.position() < length * Integer.BYTES) {
+                throw new IOException("Unexpected end of file while reading the index.");
+            }
+            final int[] values = new int[(int) length];
+            int read = 0;
+            while (read < values.length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), (long) (values.length - read) * Integer.BYTES));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new IOException("Unexpected end of file while reading the index.");
+                    }
+                }
+                buffer.flip();
+                final int chunk = buffer.remaining() / Integer.BYTES;
+                buffer.asIntBuffer().get(values, read, chunk);
+                read += chunk;
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Scratch space of a single search.
+     */
+    private static final class SearchContext {
+
+        private final VisitedSet visited;
+
+        private final CandidateQueue candidates = new CandidateQueue();
+
+        private final float[] origin;
+
+        private final float[] scratch;
+
+        SearchContext(final int size, final int dimensions) {
+            this.visited = new VisitedSet(size);
+            this.origin = new float[dimensions];
+            this.scratch = new float[dimensions];
+        }
+    }
+}
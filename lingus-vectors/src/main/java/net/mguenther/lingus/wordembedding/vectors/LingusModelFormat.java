@@ -0,0 +1,137 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Describes the Lingus-native file layout for word vector models. All numbers are stored in
+ * little-endian byte order. A file consists of three consecutive sections:
+ *
+ * <pre>
+ * header (64 bytes)
+ *   int   magic          'LNGS'
+ *   int   version
+ *   int   flags          bit 0: vectors are L2-normalized
+ *   int   vocabSize
+ *   int   dimensions
+ *   int   reserved
+ *   long  vocabOffset    absolute offset of the vocabulary table
+ *   long  matrixOffset   absolute offset of the vector matrix (aligned to 64 bytes)
+ *   ...   padding
+ * vocabulary table
+ *   long[vocabSize]      word frequencies
+ *   int[vocabSize + 1]   offsets of the UTF-8 encoded words, relative to the start of the string data
+ *   byte[]               UTF-8 encoded words
+ * vector matrix
+ *   float[vocabSize * dimensions], row-major, row i belongs to word i
+ * </pre>
+ *
+ * The CLI tool {@code ConvertWord2VecModel} produces files in this layout.
+ */
+public final class LingusModelFormat {
+
+    public static final int MAGIC = 0x53474E4C;
+
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 64;
+
+    public static final int FLAG_NORMALIZED = 1;
+
+    public static final int MATRIX_ALIGNMENT = 64;
+
+    private LingusModelFormat() {
+    }
+
+    /**
+     * Checks whether the given file starts with the magic number of the Lingus-native format.
+     *
+     * @param path
+     *      the file to check
+     * @return
+     *      {@code true} if the file is a Lingus-native model, {@code false} otherwise
+     */
+    public static boolean isLingusModel(final Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(buffer, 0) < 4) {
+                return false;
+            }
+            buffer.flip();
+            return buffer.getInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads and validates the header of a Lingus-native model without touching the vocabulary or
+     * the vector matrix.
+     *
+     * @param channel
+     *      open channel to the model file
+     * @return
+     *      the decoded header
+     * @throws IOException
+     *      if the file cannot be read or is not a valid Lingus-native model
+     */
+    public static Header readHeader(final FileChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file while reading the model header.");
+            }
+        }
+        buffer.flip();
+        final int magic = buffer.getInt();
+        if (magic != MAGIC) {
+            throw new IOException("The file is not a Lingus model (bad magic number).");
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported Lingus model version %d.", version));
+        }
+        final int flags = buffer.getInt();
+        final int vocabSize = buffer.getInt();
+        final int dimensions = buffer.getInt();
+        buffer.getInt();
+        final long vocabOffset = buffer.getLong();
+        final long matrixOffset = buffer.getLong();
+        final Header header = new Header(flags, vocabSize, dimensions, vocabOffset, matrixOffset);
+        if (vocabSize < 0 || dimensions <= 0 || vocabOffset < HEADER_SIZE || matrixOffset < vocabOffset) {
+            throw new IOException("The header of the Lingus model is corrupt.");
+        }
+        if (channel.size() < matrixOffset + header.matrixBytes()) {
+            throw new IOException("The Lingus model is truncated.");
+        }
+        return header;
+    }
+
+    @Getter
+    @ToString
+    @RequiredArgsConstructor
+    public static final class Header {
+
+        private final int flags;
+        private final int vocabSize;
+        private final int dimensions;
+        private final long vocabOffset;
+        private final long matrixOffset;
+
+        public boolean isNormalized() {
+            return (flags & FLAG_NORMALIZED) != 0;
+        }
+
+        public long matrixBytes() {
+            return (long) vocabSize * dimensions * Float.BYTES;
+        }
+    }
+}
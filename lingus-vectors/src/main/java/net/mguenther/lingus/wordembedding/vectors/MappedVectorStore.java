@@ -0,0 +1,173 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link VectorStore} that maps a model in the Lingus-native format (cf. {@link LingusModelFormat})
+ * into memory and queries the vector matrix in place. Opening a store only builds the index over the
+ * mapped vocabulary, whose words are decoded as they are returned; the vectors are paged in by the
+ * operating system as they are accessed.
+ *
+ * The matrix is split into several mappings if it exceeds the 2 GB limit of a single
+ * {@link MappedByteBuffer}. Each mapping holds a whole number of rows.
+ */
+public final class MappedVectorStore implements VectorStore {
+
+    private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+    private final int dimensions;
+
+    private final VocabularyIndex vocabulary;
+
+    private final FloatBuffer[] segments;
+
+    private final int rowsPerSegment;
+
+    private final DotProduct kernel;
+
+    private MappedVectorStore(final int dimensions,
+                              final VocabularyIndex vocabulary,
+                              final FloatBuffer[] segments,
+                              final int rowsPerSegment,
+                              final DotProduct kernel) {
+        this.dimensions = dimensions;
+        this.vocabulary = vocabulary;
+        this.segments = segments;
+        this.rowsPerSegment = rowsPerSegment;
+        this.kernel = kernel;
+    }
+
+    public static MappedVectorStore open(final Path path) throws IOException {
+        return open(path, ProgressListener.NONE);
+    }
+
+    /**
+     * Opens a store that scores with the {@link DotProduct#SCALAR} kernel.
+     */
+    public static MappedVectorStore open(final Path path, final ProgressListener progress) throws IOException {
+        return open(path, progress, DotProduct.SCALAR);
+    }
+
+    /**
+     * @param path
+     *      the location of the model file
+     * @param progress
+     *      is advanced once the vocabulary has been indexed and once the matrix has been mapped
+     * @param kernel
+     *      computes the dot products of the vectors with queries
+     */
+    public static MappedVectorStore open(final Path path, final ProgressListener progress, final DotProduct kernel) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final LingusModelFormat.Header header = LingusModelFormat.readHeader(channel);
+            if (!header.isNormalized()) {
+                throw new IOException("Only Lingus models with L2-normalized vectors are supported.");
+            }
+            final VocabularyIndex vocabulary = readVocabulary(channel, header, progress);
+            final long rowBytes = (long) header.getDimensions() * Float.BYTES;
+            final int rowsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / rowBytes);
+            final int numberOfSegments = header.getVocabSize() == 0 ? 0 : (header.getVocabSize() - 1) / rowsPerSegment + 1;
+            final FloatBuffer[] segments = new FloatBuffer[numberOfSegments];
+            for (int s = 0; s < numberOfSegments; s++) {
+                final int rows = Math.min(rowsPerSegment, header.getVocabSize() - s * rowsPerSegment);
+                final long offset = header.getMatrixOffset() + s * rowsPerSegment * rowBytes;
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset, rows * rowBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asFloatBuffer();
+            }
+            progress.advance(header.matrixBytes(), 0);
+            return new MappedVectorStore(header.getDimensions(), vocabulary, segments, rowsPerSegment, kernel);
+        }
+    }
+
+    /**
+     * Maps the vocabulary table and indexes the words in place. Only the index itself is built on the
+     * heap; the words and their frequencies remain in the mapping.
+     */
+    private static VocabularyIndex readVocabulary(final FileChannel channel,
+                                                  final LingusModelFormat.Header header,
+                                                  final ProgressListener progress) throws IOException {
+        final int vocabSize = header.getVocabSize();
+        final long frequenciesBytes = (long) vocabSize * Long.BYTES;
+        final long vocabularyBytes = header.getMatrixOffset() - header.getVocabOffset();
+        if (vocabularyBytes > MAX_SEGMENT_BYTES) {
+            throw new IOException("The vocabulary of the Lingus model exceeds the supported size.");
+        }
+        if (vocabularyBytes < frequenciesBytes) {
+            throw new IOException("The vocabulary table of the Lingus model is corrupt.");
+        }
+        progress.advance(header.getVocabOffset(), 0);
+        final MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, header.getVocabOffset(), vocabularyBytes);
+        final LongBuffer frequencies = table.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        final ByteBuffer positioned = table.duplicate();
+        positioned.position((int) frequenciesBytes);
+        final WordTable words = WordTable.wrap(positioned.slice(), vocabSize);
+        if (words == null) {
+            throw new IOException("The vocabulary table of the Lingus model is corrupt.");
+        }
+        final VocabularyIndex vocabulary = VocabularyIndex.build(words, frequencies);
+        progress.advance(vocabularyBytes, vocabSize);
+        return vocabulary;
+    }
+
+    @Override
+    public int size() {
+        return vocabulary.size();
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public String word(final int id) {
+        return vocabulary.word(id);
+    }
+
+    @Override
+    public int id(final String word) {
+        return vocabulary.id(word);
+    }
+
+    @Override
+    public VocabularyIndex vocabulary() {
+        return vocabulary;
+    }
+
+    @Override
+    public void vector(final int id, final float[] target) {
+        final FloatBuffer segment = segments[id / rowsPerSegment];
+        final int base = (id % rowsPerSegment) * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            target[d] = segment.get(base + d);
+        }
+    }
+
+    @Override
+    public void rows(final int from, final int count, final float[] target) {
+        int id = from;
+        int offset = 0;
+        while (id < from + count) {
+            final int row = id % rowsPerSegment;
+            final int rows = Math.min(from + count - id, rowsPerSegment - row);
+            final FloatBuffer segment = segments[id / rowsPerSegment].duplicate();
+            segment.position(row * dimensions);
+            segment.get(target, offset, rows * dimensions);
+            id += rows;
+            offset += rows * dimensions;
+        }
+    }
+
+    @Override
+    public float dot(final int id, final float[] query) {
+        return kernel.dot(segments[id / rowsPerSegment], (id % rowsPerSegment) * dimensions, query, dimensions);
+    }
+}
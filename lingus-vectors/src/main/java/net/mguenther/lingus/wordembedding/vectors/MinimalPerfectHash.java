@@ -0,0 +1,161 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimal perfect hash function over the 64-bit hashes of a fixed set of distinct keys, built as a
+ * cascade of bit arrays (cf. Limasset et al., "Fast and scalable minimal perfect hashing for massive key sets").
+ * Each level hashes the keys that are still unplaced into a bit array of {@code GAMMA} times their
+ * number of bits; keys that do not collide with another key are placed at that level. The slot of a
+ * key is the rank of its bit across all levels, so the slots of {@code n} keys are exactly
+ * {@code [0, n)}. The few keys that are still unplaced after {@code MAX_LEVELS} levels, among them
+ * all keys whose hashes collide, are kept in a sorted array of their hashes and take the slots after
+ * those of the other keys. Keys with the same hash occupy consecutive slots.
+ *
+ * The function occupies about 3 bits per key (plus the rank table). For keys that are not part of
+ * the set, it returns an arbitrary slot or {@code -1}, so callers have to verify the key at the slot.
+ */
+final class MinimalPerfectHash {
+
+    private static final double GAMMA = 2.0;
+
+    private static final int MAX_LEVELS = 32;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long[][] levels;
+
+    private final int[][] ranks;
+
+    /**
+     * The hashes of the keys that have not been placed at any level in ascending order; the key at
+     * index {@code i} occupies slot {@code fallbackSlot + i}.
+     */
+    private final long[] fallback;
+
+    private final int fallbackSlot;
+
+    private MinimalPerfectHash(final long[][] levels, final int[][] ranks, final long[] fallback, final int fallbackSlot) {
+        this.levels = levels;
+        this.ranks = ranks;
+        this.fallback = fallback;
+        this.fallbackSlot = fallbackSlot;
+    }
+
+    /**
+     * @param hashes
+     *      the hashes of distinct keys
+     * @return
+     *      a function that maps each key to a slot in {@code [0, hashes.length)}; keys with distinct
+     *      hashes are mapped to distinct slots, keys with the same hash to the first of their slots
+     */
+    static MinimalPerfectHash build(final long[] hashes) {
+        final int[] unplaced = new int[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            unplaced[i] = i;
+        }
+        final List<long[]> levels = new ArrayList<>();
+        int numberOfUnplaced = hashes.length;
+        while (numberOfUnplaced > 0 && levels.size() < MAX_LEVELS) {
+            final int level = levels.size();
+            final long[] occupied = new long[(int) Math.max(1L, (long) Math.ceil(GAMMA * numberOfUnplaced / Long.SIZE))];
+            final long[] collisions = new long[occupied.length];
+            final long bits = (long) occupied.length * Long.SIZE;
+            for (int i = 0; i < numberOfUnplaced; i++) {
+                final long position = position(hashes[unplaced[i]], level, bits);
+                if (isSet(occupied, position)) {
+                    set(collisions, position);
+                } else {
+                    set(occupied, position);
+                }
+            }
+            int next = 0;
+            for (int i = 0; i < numberOfUnplaced; i++) {
+                if (isSet(collisions, position(hashes[unplaced[i]], level, bits))) {
+                    unplaced[next++] = unplaced[i];
+                }
+            }
+            for (int w = 0; w < occupied.length; w++) {
+                occupied[w] &= ~collisions[w];
+            }
+            levels.add(occupied);
+            numberOfUnplaced = next;
+        }
+        final long[][] levelArray = levels.toArray(new long[0][]);
+        final int[][] ranks = new int[levelArray.length][];
+        int rank = 0;
+        for (int l = 0; l < levelArray.length; l++) {
+            ranks[l] = new int[levelArray[l].length];
+            for (int w = 0; w < levelArray[l].length; w++) {
+                ranks[l][w] = rank;
+                rank += Long.bitCount(levelArray[l][w]);
+            }
+        }
+        final long[] fallback = new long[numberOfUnplaced];
+        for (int i = 0; i < numberOfUnplaced; i++) {
+            fallback[i] = hashes[unplaced[i]];
+        }
+        Arrays.sort(fallback);
+        return new MinimalPerfectHash(levelArray, ranks, fallback, rank);
+    }
+
+    /**
+     * @return
+     *      the (first) slot of the key with the given hash if it is part of the set; an arbitrary slot
+     *      or {@code -1} otherwise
+     */
+    int slot(final long hash) {
+        for (int l = 0; l < levels.length; l++) {
+            final long[] level = levels[l];
+            final long position = position(hash, l, (long) level.length * Long.SIZE);
+            final int word = (int) (position >>> 6);
+            final long mask = 1L << (position & 63);
+            if ((level[word] & mask) != 0) {
+                return ranks[l][word] + Long.bitCount(level[word] & (mask - 1));
+            }
+        }
+        int index = fallback.length == 0 ? -1 : Arrays.binarySearch(fallback, hash);
+        if (index < 0) {
+            return -1;
+        }
+        while (index > 0 && fallback[index - 1] == hash) {
+            index--;
+        }
+        return fallbackSlot + index;
+    }
+
+    /**
+     * @return
+     *      {@code true} if the key at the next slot has the same hash as the key at the given slot
+     */
+    boolean sharesHashWithNextSlot(final int slot) {
+        final int index = slot - fallbackSlot;
+        return index >= 0 && index + 1 < fallback.length && fallback[index] == fallback[index + 1];
+    }
+
+    long sizeInBytes() {
+        long bytes = 0L;
+        for (int l = 0; l < levels.length; l++) {
+            bytes += (long) levels[l].length * (Long.BYTES + Integer.BYTES);
+        }
+        return bytes + (long) fallback.length * Long.BYTES;
+    }
+
+    private static long position(final long hash, final int level, final long bits) {
+        long h = hash + (level + 1) * GOLDEN_GAMMA;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        h = h ^ (h >>> 33);
+        return (h >>> 1) % bits;
+    }
+
+    private static boolean isSet(final long[] bits, final long position) {
+        return (bits[(int) (position >>> 6)] & (1L << (position & 63))) != 0;
+    }
+
+    private static void set(final long[] bits, final long position) {
+        bits[(int) (position >>> 6)] |= 1L << (position & 63);
+    }
+}
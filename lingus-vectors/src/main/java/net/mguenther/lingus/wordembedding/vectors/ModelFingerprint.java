@@ -0,0 +1,70 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Identifies the state of a model file, so that files derived from a model (e.g. an {@link HnswIndex}
+ * or a {@link NeighbourTable}) are not used once the model has been replaced.
+ *
+ * Besides the size and the modification time of the file, the fingerprint covers a checksum of the
+ * contents at its beginning, middle and end. Hashing the whole file would take about as long as
+ * loading the model, whereas the samples already tell apart models of the same size that have been
+ * copied over each other with their modification times preserved.
+ */
+public final class ModelFingerprint {
+
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    private ModelFingerprint() {
+    }
+
+    /**
+     * @param model
+     *      location of a model file
+     * @return
+     *      a fingerprint that changes whenever the size, the modification time or the sampled
+     *      contents of the file change
+     * @throws IOException
+     *      if the model file cannot be read
+     */
+    public static long of(final Path model) throws IOException {
+        final CRC32 checksum = new CRC32();
+        try (FileChannel channel = FileChannel.open(model, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final ByteBuffer sample = ByteBuffer.allocate(SAMPLE_SIZE);
+            for (long position : new long[]{0L, Math.max(0L, size / 2 - SAMPLE_SIZE / 2), Math.max(0L, size - SAMPLE_SIZE)}) {
+                sample.clear();
+                while (sample.hasRemaining()) {
+                    if (channel.read(sample, position + sample.position()) < 0) {
+                        break;
+                    }
+                }
+                sample.flip();
+                checksum.update(sample.array(), 0, sample.limit());
+            }
+            long fingerprint = size;
+            fingerprint = 31 * fingerprint + Files.getLastModifiedTime(model).toMillis();
+            fingerprint = 31 * fingerprint + checksum.getValue();
+            return mix(fingerprint);
+        }
+    }
+
+    /**
+     * Spreads the bits of the given value over the whole long (the finalizer of MurmurHash3).
+     */
+    private static long mix(final long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
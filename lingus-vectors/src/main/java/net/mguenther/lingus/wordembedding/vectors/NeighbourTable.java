@@ -0,0 +1,328 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The exact nearest neighbours of the first {@code rows} words of a model, computed ahead of time.
+ * Models that have been converted from Deeplearning4J list their words in descending order of their
+ * frequency, so a table over the first rows covers the words that are queried the most.
+ *
+ * All numbers are stored in little-endian byte order:
+ *
+ * <pre>
+ * header (32 bytes)
+ *   int   magic          'LNBR'
+ *   int   version
+ *   int   vocabSize      the size of the vocabulary of the model
+ *   int   rows           the number of words the table holds neighbours for (ids [0, rows))
+ *   int   neighbours     the number of neighbours per row
+ *   int   reserved
+ *   long  fingerprint    identifies the model the table has been computed for
+ * neighbour ids
+ *   int[rows * neighbours], row-major, ordered by descending similarity, padded with -1
+ * similarities
+ *   float[rows * neighbours], row-major
+ * </pre>
+ *
+ * A table that has been read from a file is memory-mapped. A table can be queried concurrently.
+ */
+public final class NeighbourTable {
+
+    public static final String FILE_EXTENSION = ".neighbours";
+
+    private static final int MAGIC = 0x52424E4C;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * Number of words whose neighbours are computed by a single task.
+     */
+    private static final int CHUNK = 16 * BatchSearch.QUERY_BLOCK;
+
+    /**
+     * Upper bound for the number of entries, so that each section of the file can be mapped at once.
+     */
+    private static final long MAX_ENTRIES = Integer.MAX_VALUE / Integer.BYTES;
+
+    private final int vocabSize;
+
+    private final int rows;
+
+    private final int neighbours;
+
+    private final IntBuffer ids;
+
+    private final FloatBuffer scores;
+
+    private NeighbourTable(final int vocabSize, final int rows, final int neighbours, final IntBuffer ids, final FloatBuffer scores) {
+        this.vocabSize = vocabSize;
+        this.rows = rows;
+        this.neighbours = neighbours;
+        this.ids = ids;
+        this.scores = scores;
+    }
+
+    /**
+     * Computes the exact nearest neighbours of the words with ids {@code [0, rows)}. The words are
+     * split into chunks that are searched in parallel, each of them by a {@link BatchSearch}.
+     *
+     * @param store
+     *      the vectors to search
+     * @param rows
+     *      the number of words to compute neighbours for
+     * @param neighbours
+     *      the number of neighbours per word
+     * @param threads
+     *      the number of threads to search with
+     * @param progress
+     *      receives the number of words whose neighbours have been computed; it is called from
+     *      multiple threads
+     * @return
+     *      the table
+     */
+    public static NeighbourTable compute(final VectorStore store,
+                                         final int rows,
+                                         final int neighbours,
+                                         final int threads,
+                                         final ProgressListener progress) {
+        if (rows < 0 || rows > store.size()) {
+            throw new IllegalArgumentException("The number of rows must be within [0, " + store.size() + "].");
+        }
+        if (neighbours < 1) {
+            throw new IllegalArgumentException("There must be at least one neighbour per row.");
+        }
+        if ((long) rows * neighbours > MAX_ENTRIES) {
+            throw new IllegalArgumentException("A table of " + rows + " rows with " + neighbours + " neighbours each exceeds the maximum size.");
+        }
+        final int[] ids = new int[rows * neighbours];
+        final float[] scores = new float[rows * neighbours];
+        Arrays.fill(ids, -1);
+        Arrays.fill(scores, Float.NaN);
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            final Thread thread = new Thread(runnable, "neighbour-table-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> chunks = new ArrayList<>();
+            for (int first = 0; first < rows; first += CHUNK) {
+                final int from = first;
+                final int count = Math.min(CHUNK, rows - first);
+                chunks.add(executor.submit(() -> computeChunk(store, from, count, neighbours, ids, scores, progress)));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing the neighbour table.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to compute the neighbour table.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return new NeighbourTable(store.size(), rows, neighbours, IntBuffer.wrap(ids), FloatBuffer.wrap(scores));
+    }
+
+    private static void computeChunk(final VectorStore store,
+                                     final int from,
+                                     final int count,
+                                     final int neighbours,
+                                     final int[] ids,
+                                     final float[] scores,
+                                     final ProgressListener progress) {
+        final float[][] queries = new float[count][store.dimensions()];
+        final int[] excludedIds = new int[count];
+        for (int q = 0; q < count; q++) {
+            excludedIds[q] = from + q;
+            store.vector(from + q, queries[q]);
+        }
+        BatchSearch.nearest(store, queries, neighbours, excludedIds, (nearest, q) -> {
+            final int base = (from + q) * neighbours;
+            for (int rank = 0; rank < nearest.size(); rank++) {
+                ids[base + rank] = nearest.id(rank);
+                scores[base + rank] = nearest.score(rank);
+            }
+        });
+        progress.advance(0L, count);
+    }
+
+    /**
+     * @param id
+     *      the id of a word
+     * @param k
+     *      the maximum number of neighbours
+     * @return
+     *      the {@code k} nearest neighbours of the given word in descending order of their similarity,
+     *      or {@code null} if the table does not hold them, i.e. if the word is not part of the table
+     *      or {@code k} exceeds the number of neighbours per row
+     */
+    public Neighbours neighbours(final int id, final int k) {
+        if (id < 0 || id >= rows || k > neighbours) {
+            return null;
+        }
+        final int base = id * neighbours;
+        int size = 0;
+        while (size < k && ids.get(base + size) >= 0) {
+            size++;
+        }
+        final int[] nearestIds = new int[size];
+        final float[] nearestScores = new float[size];
+        for (int rank = 0; rank < size; rank++) {
+            nearestIds[rank] = ids.get(base + rank);
+            nearestScores[rank] = scores.get(base + rank);
+        }
+        return new Neighbours(nearestIds, nearestScores);
+    }
+
+    /**
+     * @return
+     *      the number of words the table holds neighbours for
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * @return
+     *      the number of neighbours per word
+     */
+    public int neighbours() {
+        return neighbours;
+    }
+
+    /**
+     * @return
+     *      the number of bytes that the neighbours and their similarities occupy
+     */
+    public long sizeInBytes() {
+        return (long) rows * neighbours * (Integer.BYTES + Float.BYTES);
+    }
+
+    /**
+     * Persists this table. The table is written to a temporary file that replaces the target once
+     * it is complete.
+     *
+     * @param target
+     *      the file to write to
+     * @param fingerprint
+     *      identifies the model the table has been computed for; {@link #read(Path, VectorStore, long)}
+     *      refuses to load the table for a different fingerprint
+     * @throws IOException
+     *      if the table cannot be written
+     */
+    public void write(final Path target, final long fingerprint) throws IOException {
+        AtomicFileWriter.write(target, channel -> {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION)
+                    .putInt(vocabSize).putInt(rows).putInt(neighbours).putInt(0)
+                    .putLong(fingerprint);
+            header.flip();
+            writeFully(channel, header);
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            final IntBuffer idsToWrite = (IntBuffer) ids.duplicate().clear();
+            while (idsToWrite.hasRemaining()) {
+                buffer.clear();
+                final IntBuffer view = buffer.asIntBuffer();
+                final int chunk = Math.min(view.remaining(), idsToWrite.remaining());
+                for (int i = 0; i < chunk; i++) {
+                    view.put(idsToWrite.get());
+                }
+                buffer.limit(chunk * Integer.BYTES);
+                writeFully(channel, buffer);
+            }
+            final FloatBuffer scoresToWrite = (FloatBuffer) scores.duplicate().clear();
+            while (scoresToWrite.hasRemaining()) {
+                buffer.clear();
+                final FloatBuffer view = buffer.asFloatBuffer();
+                final int chunk = Math.min(view.remaining(), scoresToWrite.remaining());
+                for (int i = 0; i < chunk; i++) {
+                    view.put(scoresToWrite.get());
+                }
+                buffer.limit(chunk * Float.BYTES);
+                writeFully(channel, buffer);
+            }
+        });
+    }
+
+    /**
+     * Maps a table that has previously been written by {@link #write(Path, long)} into memory.
+     *
+     * @param source
+     *      the file to read from
+     * @param store
+     *      the vectors the table has been computed for
+     * @param fingerprint
+     *      identifies the model the table has been computed for
+     * @return
+     *      the table
+     * @throws IOException
+     *      if the table cannot be read or does not belong to the given model
+     */
+    public static NeighbourTable read(final Path source, final VectorStore store, final long fingerprint) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IOException("Unexpected end of file while reading the header of the neighbour table.");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("The file is not a neighbour table of a supported version.");
+            }
+            final int vocabSize = header.getInt();
+            final int rows = header.getInt();
+            final int neighbours = header.getInt();
+            header.getInt();
+            if (header.getLong() != fingerprint || vocabSize != store.size()) {
+                throw new IOException("The neighbour table has been computed for a different model.");
+            }
+            final long sectionSize = (long) rows * neighbours * Integer.BYTES;
+            if (rows < 0 || rows > vocabSize || neighbours < 1 || sectionSize > Integer.MAX_VALUE || channel.size() != HEADER_SIZE + 2 * sectionSize) {
+                throw new IOException("The neighbour table is corrupt.");
+            }
+            final IntBuffer ids = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, sectionSize)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer();
+            final FloatBuffer scores = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + sectionSize, sectionSize)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+            return new NeighbourTable(vocabSize, rows, neighbours, ids, scores);
+        }
+    }
+
+    /**
+     * @param model
+     *      location of a model file
+     * @return
+     *      location of the neighbour table that belongs to the given model
+     */
+    public static Path locationFor(final Path model) {
+        return model.resolveSibling(model.getFileName().toString() + FILE_EXTENSION);
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
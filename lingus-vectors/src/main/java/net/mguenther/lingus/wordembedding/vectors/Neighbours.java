@@ -0,0 +1,46 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+/**
+ * The result of a nearest-neighbour search: word ids along with their similarity to the query,
+ * ordered by descending similarity. A partial result is the best a search has found until its
+ * {@link Deadline} has passed.
+ */
+public final class Neighbours {
+
+    private final int[] ids;
+
+    private final float[] scores;
+
+    private final boolean partial;
+
+    Neighbours(final int[] ids, final float[] scores) {
+        this(ids, scores, false);
+    }
+
+    Neighbours(final int[] ids, final float[] scores, final boolean partial) {
+        this.ids = ids;
+        this.scores = scores;
+        this.partial = partial;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int id(final int rank) {
+        return ids[rank];
+    }
+
+    public float score(final int rank) {
+        return scores[rank];
+    }
+
+    /**
+     * @return
+     *      {@code true} if the search has been cut short by its deadline, so that better neighbours
+     *      may exist
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+}
@@ -0,0 +1,252 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Reduces the dimensions of word vectors by projecting them onto their principal components, i.e.
+ * onto the directions along which the vectors vary most.
+ *
+ * The covariance matrix of the vectors is accumulated in a single streaming pass, so that fitting
+ * requires memory in the order of {@code dimensions²} regardless of the size of the vocabulary. Its
+ * eigenvectors are computed with the cyclic Jacobi method, which is cheap for the few hundred
+ * dimensions of a word2vec model. The vectors are centered before they are projected.
+ */
+public final class PrincipalComponents {
+
+    /**
+     * Number of words whose outer products are accumulated into one partial covariance matrix.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final int MAX_SWEEPS = 64;
+
+    private static final double TOLERANCE = 1e-24;
+
+    private final float[] mean;
+
+    /**
+     * The principal components in row-major order, the one with the largest variance first.
+     */
+    private final float[] components;
+
+    private final int numberOfComponents;
+
+    /**
+     * The variance along each eigenvector of the covariance matrix in descending order.
+     */
+    private final double[] variances;
+
+    private PrincipalComponents(final float[] mean, final float[] components, final int numberOfComponents, final double[] variances) {
+        this.mean = mean;
+        this.components = components;
+        this.numberOfComponents = numberOfComponents;
+        this.variances = variances;
+    }
+
+    /**
+     * @param store
+     *      the vectors of the words
+     * @param ids
+     *      the ids of the words whose vectors are analyzed
+     * @param numberOfComponents
+     *      the number of dimensions that the vectors are reduced to
+     * @return
+     *      the principal components of the vectors of the given words
+     */
+    public static PrincipalComponents fit(final VectorStore store, final int[] ids, final int numberOfComponents) {
+        final int dimensions = store.dimensions();
+        if (numberOfComponents < 1 || numberOfComponents > dimensions) {
+            throw new IllegalArgumentException("The number of components has to be between 1 and " + dimensions + ".");
+        }
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("At least one vector is required to compute principal components.");
+        }
+        final int chunks = (ids.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final double[] moments = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> accumulate(store, ids, chunk * CHUNK_SIZE, Math.min(ids.length, (chunk + 1) * CHUNK_SIZE)))
+                .reduce(PrincipalComponents::add)
+                .orElseThrow(IllegalStateException::new);
+
+        final double[] sum = Arrays.copyOfRange(moments, dimensions * dimensions, dimensions * dimensions + dimensions);
+        final float[] mean = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            mean[d] = (float) (sum[d] / ids.length);
+        }
+        final double[][] covariance = new double[dimensions][dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            for (int j = i; j < dimensions; j++) {
+                final double value = moments[i * dimensions + j] / ids.length - (sum[i] / ids.length) * (sum[j] / ids.length);
+                covariance[i][j] = value;
+                covariance[j][i] = value;
+            }
+        }
+
+        final double[][] eigenvectors = new double[dimensions][dimensions];
+        final double[] eigenvalues = eigen(covariance, eigenvectors);
+        final Integer[] order = new Integer[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            order[d] = d;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer d) -> eigenvalues[d]).reversed());
+
+        final double[] variances = new double[dimensions];
+        final float[] components = new float[numberOfComponents * dimensions];
+        for (int rank = 0; rank < dimensions; rank++) {
+            variances[rank] = Math.max(0.0, eigenvalues[order[rank]]);
+            if (rank < numberOfComponents) {
+                for (int d = 0; d < dimensions; d++) {
+                    components[rank * dimensions + d] = (float) eigenvectors[d][order[rank]];
+                }
+            }
+        }
+        return new PrincipalComponents(mean, components, numberOfComponents, variances);
+    }
+
+    /**
+     * @return
+     *      the upper triangle of the sum of the outer products of the vectors in {@code ids[from, to)},
+     *      followed by the sum of the vectors
+     */
+    private static double[] accumulate(final VectorStore store, final int[] ids, final int from, final int to) {
+        final int dimensions = store.dimensions();
+        final double[] moments = new double[dimensions * dimensions + dimensions];
+        final float[] vector = new float[dimensions];
+        for (int i = from; i < to; i++) {
+            store.vector(ids[i], vector);
+            for (int r = 0; r < dimensions; r++) {
+                final double x = vector[r];
+                final int row = r * dimensions;
+                for (int c = r; c < dimensions; c++) {
+                    moments[row + c] += x * vector[c];
+                }
+                moments[dimensions * dimensions + r] += x;
+            }
+        }
+        return moments;
+    }
+
+    private static double[] add(final double[] a, final double[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] += b[i];
+        }
+        return a;
+    }
+
+    /**
+     * Diagonalizes the given symmetric matrix with the cyclic Jacobi method.
+     *
+     * @param a
+     *      a symmetric matrix; it is overwritten
+     * @param vectors
+     *      receives the eigenvectors as its columns
+     * @return
+     *      the eigenvalues in the order of the columns of {@code vectors}
+     */
+    static double[] eigen(final double[][] a, final double[][] vectors) {
+        final int n = a.length;
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(vectors[i], 0.0);
+            vectors[i][i] = 1.0;
+        }
+        double norm = 0.0;
+        for (double[] row : a) {
+            for (double value : row) {
+                norm += value * value;
+            }
+        }
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            double offDiagonal = 0.0;
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    offDiagonal += a[p][q] * a[p][q];
+                }
+            }
+            if (offDiagonal <= TOLERANCE * norm) {
+                break;
+            }
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    if (a[p][q] != 0.0) {
+                        rotate(a, vectors, p, q);
+                    }
+                }
+            }
+        }
+        final double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = a[i][i];
+        }
+        return values;
+    }
+
+    /**
+     * Applies the Jacobi rotation that zeroes {@code a[p][q]} to both sides of {@code a} and
+     * accumulates it into {@code vectors}.
+     */
+    private static void rotate(final double[][] a, final double[][] vectors, final int p, final int q) {
+        final double theta = (a[q][q] - a[p][p]) / (2.0 * a[p][q]);
+        final double t = Math.signum(theta == 0.0 ? 1.0 : theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1.0));
+        final double c = 1.0 / Math.sqrt(t * t + 1.0);
+        final double s = t * c;
+        for (int k = 0; k < a.length; k++) {
+            final double akp = a[k][p];
+            final double akq = a[k][q];
+            a[k][p] = c * akp - s * akq;
+            a[k][q] = s * akp + c * akq;
+        }
+        for (int k = 0; k < a.length; k++) {
+            final double apk = a[p][k];
+            final double aqk = a[q][k];
+            a[p][k] = c * apk - s * aqk;
+            a[q][k] = s * apk + c * aqk;
+        }
+        for (int k = 0; k < vectors.length; k++) {
+            final double vkp = vectors[k][p];
+            final double vkq = vectors[k][q];
+            vectors[k][p] = c * vkp - s * vkq;
+            vectors[k][q] = s * vkp + c * vkq;
+        }
+    }
+
+    /**
+     * Projects a vector onto the principal components.
+     *
+     * @param vector
+     *      array of the original number of dimensions
+     * @param target
+     *      array of {@link #numberOfComponents()} elements that receives the projected vector
+     */
+    public void project(final float[] vector, final float[] target) {
+        final int dimensions = mean.length;
+        for (int component = 0; component < numberOfComponents; component++) {
+            final int offset = component * dimensions;
+            double sum = 0.0;
+            for (int d = 0; d < dimensions; d++) {
+                sum += components[offset + d] * (vector[d] - mean[d]);
+            }
+            target[component] = (float) sum;
+        }
+    }
+
+    public int numberOfComponents() {
+        return numberOfComponents;
+    }
+
+    /**
+     * @return
+     *      the share of the variance of the vectors that their projections retain, between 0 and 1
+     */
+    public double retainedVariance() {
+        double retained = 0.0;
+        double total = 0.0;
+        for (int rank = 0; rank < variances.length; rank++) {
+            if (rank < numberOfComponents) {
+                retained += variances[rank];
+            }
+            total += variances[rank];
+        }
+        return total > 0.0 ? retained / total : 1.0;
+    }
+}
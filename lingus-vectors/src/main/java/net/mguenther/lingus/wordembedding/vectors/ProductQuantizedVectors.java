@@ -0,0 +1,231 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Product quantization (cf. Jégou et al., "Product Quantization for Nearest Neighbor Search"): the
+ * vector space is split into subspaces of equal dimensionality, and each subvector is replaced by
+ * the one-byte id of its nearest centroid in a codebook that has been trained for the subspace with
+ * k-means. Queries are scored by asymmetric distance computation, i.e. the query stays in full
+ * precision and its dot products with all centroids are tabulated once per query.
+ */
+public final class ProductQuantizedVectors implements QuantizedVectors {
+
+    private static final int MAX_CENTROIDS = 256;
+
+    private static final int[] PREFERRED_SUBSPACE_DIMENSIONS = {4, 5, 3, 6, 8, 2, 10, 12, 16};
+
+    private final int subspaces;
+
+    private final int subDimensions;
+
+    private final int centroids;
+
+    private final float[] codebooks;
+
+    private final byte[] codes;
+
+    private ProductQuantizedVectors(final int subspaces, final int subDimensions, final int centroids, final float[] codebooks, final byte[] codes) {
+        this.subspaces = subspaces;
+        this.subDimensions = subDimensions;
+        this.centroids = centroids;
+        this.codebooks = codebooks;
+        this.codes = codes;
+    }
+
+    /**
+     * Determines the number of subspaces for vectors of the given dimensionality.
+     *
+     * @param dimensions
+     *      the number of dimensions of the vectors
+     * @param requested
+     *      the requested number of subspaces, or {@code 0} to derive it from the dimensionality
+     * @return
+     *      the requested number of subspaces if it divides {@code dimensions}, otherwise a divisor of
+     *      {@code dimensions} that yields subspaces of about four dimensions
+     */
+    public static int subspacesFor(final int dimensions, final int requested) {
+        if (requested > 0 && dimensions % requested == 0) {
+            return requested;
+        }
+        for (int subDimensions : PREFERRED_SUBSPACE_DIMENSIONS) {
+            if (dimensions % subDimensions == 0) {
+                return dimensions / subDimensions;
+            }
+        }
+        return dimensions;
+    }
+
+    /**
+     * Trains the codebooks on a random sample of the vectors and encodes all vectors.
+     *
+     * @param store
+     *      the vectors to quantize
+     * @param subspaces
+     *      the number of subspaces; must divide the dimensionality of the vectors
+     * @param sampleSize
+     *      the maximum number of vectors used to train the codebooks
+     * @param iterations
+     *      the number of k-means iterations
+     * @param seed
+     *      seed for sampling and centroid initialization
+     * @return
+     *      the quantized vectors
+     */
+    public static ProductQuantizedVectors encode(final VectorStore store, final int subspaces, final int sampleSize, final int iterations, final long seed) {
+        final int size = store.size();
+        final int dimensions = store.dimensions();
+        if (dimensions % subspaces != 0) {
+            throw new IllegalArgumentException("The number of subspaces must divide the number of dimensions.");
+        }
+        if ((long) size * subspaces > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The model is too large to be quantized into a single code array.");
+        }
+        final int subDimensions = dimensions / subspaces;
+        final float[] sample = sample(store, Math.min(size, sampleSize), seed);
+        final int sampleCount = sample.length / dimensions;
+        final int centroids = Math.max(1, Math.min(MAX_CENTROIDS, sampleCount));
+        final float[] codebooks = new float[subspaces * centroids * subDimensions];
+        IntStream.range(0, subspaces).parallel().forEach(subspace ->
+                train(sample, sampleCount, dimensions, subspace, subDimensions, centroids, iterations, seed + subspace, codebooks));
+
+        final byte[] codes = new byte[size * subspaces];
+        final ThreadLocal<float[]> buffers = ThreadLocal.withInitial(() -> new float[dimensions]);
+        IntStream.range(0, size).parallel().forEach(id -> {
+            final float[] vector = buffers.get();
+            store.vector(id, vector);
+            for (int subspace = 0; subspace < subspaces; subspace++) {
+                codes[id * subspaces + subspace] = (byte) nearestCentroid(codebooks, subspace, centroids, subDimensions, vector, subspace * subDimensions);
+            }
+        });
+        return new ProductQuantizedVectors(subspaces, subDimensions, centroids, codebooks, codes);
+    }
+
+    private static float[] sample(final VectorStore store, final int sampleCount, final long seed) {
+        final int size = store.size();
+        final int dimensions = store.dimensions();
+        final int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        final Random random = new Random(seed);
+        for (int i = 0; i < sampleCount; i++) {
+            final int j = i + random.nextInt(size - i);
+            final int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        final float[] sample = new float[sampleCount * dimensions];
+        final float[] vector = new float[dimensions];
+        for (int i = 0; i < sampleCount; i++) {
+            store.vector(ids[i], vector);
+            System.arraycopy(vector, 0, sample, i * dimensions, dimensions);
+        }
+        return sample;
+    }
+
+    private static void train(final float[] sample,
+                              final int sampleCount,
+                              final int dimensions,
+                              final int subspace,
+                              final int subDimensions,
+                              final int centroids,
+                              final int iterations,
+                              final long seed,
+                              final float[] codebooks) {
+        final int subspaceOffset = subspace * subDimensions;
+        final int codebookOffset = subspace * centroids * subDimensions;
+        final Random random = new Random(seed);
+        // initialize the centroids with distinct sample points (the sample is already shuffled)
+        for (int c = 0; c < centroids; c++) {
+            System.arraycopy(sample, c * dimensions + subspaceOffset, codebooks, codebookOffset + c * subDimensions, subDimensions);
+        }
+        final int[] assignment = new int[sampleCount];
+        final float[] sums = new float[centroids * subDimensions];
+        final int[] counts = new int[centroids];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = 0; i < sampleCount; i++) {
+                assignment[i] = nearestCentroid(codebooks, subspace, centroids, subDimensions, sample, i * dimensions + subspaceOffset);
+            }
+            Arrays.fill(sums, 0f);
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < sampleCount; i++) {
+                final int c = assignment[i];
+                counts[c]++;
+                for (int d = 0; d < subDimensions; d++) {
+                    sums[c * subDimensions + d] += sample[i * dimensions + subspaceOffset + d];
+                }
+            }
+            for (int c = 0; c < centroids; c++) {
+                final int target = codebookOffset + c * subDimensions;
+                if (counts[c] == 0) {
+                    // re-seed empty clusters with a random sample point
+                    System.arraycopy(sample, random.nextInt(sampleCount) * dimensions + subspaceOffset, codebooks, target, subDimensions);
+                } else {
+                    for (int d = 0; d < subDimensions; d++) {
+                        codebooks[target + d] = sums[c * subDimensions + d] / counts[c];
+                    }
+                }
+            }
+        }
+    }
+
+    private static int nearestCentroid(final float[] codebooks,
+                                       final int subspace,
+                                       final int centroids,
+                                       final int subDimensions,
+                                       final float[] vector,
+                                       final int vectorOffset) {
+        final int codebookOffset = subspace * centroids * subDimensions;
+        int best = 0;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < centroids; c++) {
+            final int base = codebookOffset + c * subDimensions;
+            float distance = 0f;
+            for (int d = 0; d < subDimensions; d++) {
+                final float delta = vector[vectorOffset + d] - codebooks[base + d];
+                distance += delta * delta;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public QueryScorer scorer(final float[] query) {
+        final float[] table = new float[subspaces * centroids];
+        for (int subspace = 0; subspace < subspaces; subspace++) {
+            final int codebookOffset = subspace * centroids * subDimensions;
+            final int queryOffset = subspace * subDimensions;
+            for (int c = 0; c < centroids; c++) {
+                float dot = 0f;
+                for (int d = 0; d < subDimensions; d++) {
+                    dot += query[queryOffset + d] * codebooks[codebookOffset + c * subDimensions + d];
+                }
+                table[subspace * centroids + c] = dot;
+            }
+        }
+        return id -> {
+            final int base = id * subspaces;
+            float sum = 0f;
+            for (int subspace = 0; subspace < subspaces; subspace++) {
+                sum += table[subspace * centroids + (codes[base + subspace] & 0xFF)];
+            }
+            return sum;
+        };
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return codes.length + (long) codebooks.length * Float.BYTES;
+    }
+
+    public static long estimateSizeInBytes(final int vocabSize, final int dimensions, final int subspaces) {
+        return (long) vocabSize * subspaces + (long) MAX_CENTROIDS * dimensions * Float.BYTES;
+    }
+}
@@ -0,0 +1,19 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+/**
+ * Receives progress increments while a model is read or an index is built, so that long-running
+ * activations can report how far they got.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    ProgressListener NONE = (bytes, words) -> { };
+
+    /**
+     * @param bytes
+     *      the number of bytes of the model file that have been processed since the last call
+     * @param words
+     *      the number of words that have been processed since the last call
+     */
+    void advance(long bytes, int words);
+}
@@ -0,0 +1,24 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+/**
+ * Compressed representation of the vectors of a {@link VectorStore}. The scores of a quantized
+ * representation only approximate the exact similarities, so a search on quantized vectors is
+ * typically followed by re-ranking its candidates against the full-precision vectors
+ * (cf. {@link ExhaustiveSearch#rerank(VectorStore, float[], Neighbours, int)}).
+ */
+public interface QuantizedVectors {
+
+    /**
+     * @param query
+     *      L2-normalized query vector in full precision
+     * @return
+     *      a scorer that approximates the similarity of words to the given query
+     */
+    QueryScorer scorer(float[] query);
+
+    /**
+     * @return
+     *      the number of bytes that the codes and codebooks occupy on the heap
+     */
+    long sizeInBytes();
+}
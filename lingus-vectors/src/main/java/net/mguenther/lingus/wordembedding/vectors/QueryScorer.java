@@ -0,0 +1,17 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+/**
+ * Scores the words of a model against a fixed query vector. Implementations may precompute
+ * query-specific tables, so a scorer is meant to be used for a single search by a single thread.
+ */
+@FunctionalInterface
+public interface QueryScorer {
+
+    /**
+     * @param id
+     *      the id of a word
+     * @return
+     *      the (possibly approximated) similarity of the word to the query
+     */
+    float score(int id);
+}
@@ -0,0 +1,99 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Quantizes each component of a vector to a signed byte using a per-dimension affine mapping
+ * between the minimum and maximum value of that dimension. This reduces the memory footprint of the
+ * vectors by a factor of four.
+ */
+public final class ScalarQuantizedVectors implements QuantizedVectors {
+
+    private static final int LEVELS = 255;
+
+    private static final int CODE_OFFSET = 128;
+
+    private final int dimensions;
+
+    private final float[] minimum;
+
+    private final float[] step;
+
+    private final byte[] codes;
+
+    private ScalarQuantizedVectors(final int dimensions, final float[] minimum, final float[] step, final byte[] codes) {
+        this.dimensions = dimensions;
+        this.minimum = minimum;
+        this.step = step;
+        this.codes = codes;
+    }
+
+    public static ScalarQuantizedVectors encode(final VectorStore store) {
+        final int size = store.size();
+        final int dimensions = store.dimensions();
+        if ((long) size * dimensions > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The model is too large to be quantized into a single code array.");
+        }
+        final float[] minimum = new float[dimensions];
+        final float[] maximum = new float[dimensions];
+        Arrays.fill(minimum, Float.POSITIVE_INFINITY);
+        Arrays.fill(maximum, Float.NEGATIVE_INFINITY);
+        final float[] vector = new float[dimensions];
+        for (int id = 0; id < size; id++) {
+            store.vector(id, vector);
+            for (int d = 0; d < dimensions; d++) {
+                minimum[d] = Math.min(minimum[d], vector[d]);
+                maximum[d] = Math.max(maximum[d], vector[d]);
+            }
+        }
+        final float[] step = new float[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            if (size == 0) {
+                minimum[d] = 0f;
+            }
+            step[d] = size == 0 || maximum[d] <= minimum[d] ? 1f : (maximum[d] - minimum[d]) / LEVELS;
+        }
+        final byte[] codes = new byte[size * dimensions];
+        final ThreadLocal<float[]> buffers = ThreadLocal.withInitial(() -> new float[dimensions]);
+        IntStream.range(0, size).parallel().forEach(id -> {
+            final float[] v = buffers.get();
+            store.vector(id, v);
+            final int base = id * dimensions;
+            for (int d = 0; d < dimensions; d++) {
+                final int level = Math.round((v[d] - minimum[d]) / step[d]);
+                codes[base + d] = (byte) (Math.max(0, Math.min(LEVELS, level)) - CODE_OFFSET);
+            }
+        });
+        return new ScalarQuantizedVectors(dimensions, minimum, step, codes);
+    }
+
+    @Override
+    public QueryScorer scorer(final float[] query) {
+        // x ~ minimum + (code + 128) * step, hence q.x ~ sum(q * (minimum + 128 * step)) + sum(q * step * code)
+        final float[] scaled = new float[dimensions];
+        float offset = 0f;
+        for (int d = 0; d < dimensions; d++) {
+            scaled[d] = query[d] * step[d];
+            offset += query[d] * (minimum[d] + CODE_OFFSET * step[d]);
+        }
+        final float constant = offset;
+        return id -> {
+            final int base = id * dimensions;
+            float sum = constant;
+            for (int d = 0; d < dimensions; d++) {
+                sum += scaled[d] * codes[base + d];
+            }
+            return sum;
+        };
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return estimateSizeInBytes(codes.length / Math.max(1, dimensions), dimensions);
+    }
+
+    public static long estimateSizeInBytes(final int vocabSize, final int dimensions) {
+        return (long) vocabSize * dimensions + 2L * dimensions * Float.BYTES;
+    }
+}
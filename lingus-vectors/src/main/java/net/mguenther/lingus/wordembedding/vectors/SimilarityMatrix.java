@@ -0,0 +1,122 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Computes the pairwise similarities of two lists of words as a blocked matrix product: the vectors
+ * of a block of rows are multiplied with consecutive tiles of column vectors, so that each tile is
+ * read once per block of rows instead of once per row, and each column vector is loaded once for
+ * four rows at a time.
+ */
+public final class SimilarityMatrix {
+
+    /**
+     * Number of rows that are scored together against the column vectors.
+     */
+    static final int ROW_BLOCK = BatchSearch.QUERY_BLOCK;
+
+    /**
+     * Number of column vectors that are copied into a contiguous tile at once.
+     */
+    static final int COLUMN_BLOCK = BatchSearch.ROW_BLOCK;
+
+    private SimilarityMatrix() {
+    }
+
+    /**
+     * @param store
+     *      the vectors of the words
+     * @param rowIds
+     *      the ids of the words of the rows; {@code -1} for words that are not part of the vocabulary
+     * @param columnIds
+     *      the ids of the words of the columns; {@code -1} for words that are not part of the vocabulary
+     * @return
+     *      a matrix of {@code rowIds.length} rows and {@code columnIds.length} columns holding the
+     *      similarity of each pair of words, or {@link Float#NaN} if one of the words is not part of
+     *      the vocabulary
+     */
+    public static float[][] compute(final VectorStore store, final int[] rowIds, final int[] columnIds) {
+        final int dimensions = store.dimensions();
+        final float[][] similarities = new float[rowIds.length][columnIds.length];
+        final float[] block = new float[ROW_BLOCK * dimensions];
+        final float[] tile = new float[COLUMN_BLOCK * dimensions];
+        final float[] vector = new float[dimensions];
+        for (int firstRow = 0; firstRow < rowIds.length; firstRow += ROW_BLOCK) {
+            final int numberOfRows = Math.min(ROW_BLOCK, rowIds.length - firstRow);
+            for (int r = 0; r < numberOfRows; r++) {
+                copy(store, rowIds[firstRow + r], vector, block, r * dimensions);
+            }
+            for (int firstColumn = 0; firstColumn < columnIds.length; firstColumn += COLUMN_BLOCK) {
+                final int numberOfColumns = Math.min(COLUMN_BLOCK, columnIds.length - firstColumn);
+                for (int c = 0; c < numberOfColumns; c++) {
+                    copy(store, columnIds[firstColumn + c], vector, tile, c * dimensions);
+                }
+                multiply(block, numberOfRows, firstRow, tile, numberOfColumns, firstColumn, dimensions, similarities);
+            }
+        }
+        for (int row = 0; row < rowIds.length; row++) {
+            for (int column = 0; column < columnIds.length; column++) {
+                if (rowIds[row] < 0 || columnIds[column] < 0) {
+                    similarities[row][column] = Float.NaN;
+                }
+            }
+        }
+        return similarities;
+    }
+
+    /**
+     * Copies the vector of the given word into {@code target}, or zeroes if the word is not part of
+     * the vocabulary.
+     */
+    private static void copy(final VectorStore store, final int id, final float[] vector, final float[] target, final int offset) {
+        if (id < 0) {
+            Arrays.fill(target, offset, offset + vector.length, 0f);
+        } else {
+            store.vector(id, vector);
+            System.arraycopy(vector, 0, target, offset, vector.length);
+        }
+    }
+
+    private static void multiply(final float[] block,
+                                 final int numberOfRows,
+                                 final int firstRow,
+                                 final float[] tile,
+                                 final int numberOfColumns,
+                                 final int firstColumn,
+                                 final int dimensions,
+                                 final float[][] similarities) {
+        for (int c = 0; c < numberOfColumns; c++) {
+            final int column = c * dimensions;
+            int r = 0;
+            for (; r + 4 <= numberOfRows; r += 4) {
+                final int r0 = r * dimensions;
+                final int r1 = r0 + dimensions;
+                final int r2 = r1 + dimensions;
+                final int r3 = r2 + dimensions;
+                float s0 = 0f;
+                float s1 = 0f;
+                float s2 = 0f;
+                float s3 = 0f;
+                for (int d = 0; d < dimensions; d++) {
+                    final float x = tile[column + d];
+                    s0 += x * block[r0 + d];
+                    s1 += x * block[r1 + d];
+                    s2 += x * block[r2 + d];
+                    s3 += x * block[r3 + d];
+                }
+                similarities[firstRow + r][firstColumn + c] = s0;
+                similarities[firstRow + r + 1][firstColumn + c] = s1;
+                similarities[firstRow + r + 2][firstColumn + c] = s2;
+                similarities[firstRow + r + 3][firstColumn + c] = s3;
+            }
+            for (; r < numberOfRows; r++) {
+                final int base = r * dimensions;
+                float sum = 0f;
+                for (int d = 0; d < dimensions; d++) {
+                    sum += tile[column + d] * block[base + d];
+                }
+                similarities[firstRow + r][firstColumn + c] = sum;
+            }
+        }
+    }
+}
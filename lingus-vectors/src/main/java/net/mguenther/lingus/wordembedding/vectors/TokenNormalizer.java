@@ -0,0 +1,22 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes terms the way Deeplearning4J's {@code CommonPreprocessor} normalizes tokens before
+ * training: digits and the punctuation characters {@code . : , " ' ( ) [ ] | / ? ! ;} are removed and
+ * the remainder is lower-cased. This allows to resolve terms like {@code "Schule,"} against a model
+ * that has only seen {@code "schule"}.
+ */
+public final class TokenNormalizer {
+
+    private static final Pattern PUNCTUATION = Pattern.compile("[\\d.:,\"'()\\[\\]|/?!;]+");
+
+    private TokenNormalizer() {
+    }
+
+    public static String normalize(final String term) {
+        return PUNCTUATION.matcher(term).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
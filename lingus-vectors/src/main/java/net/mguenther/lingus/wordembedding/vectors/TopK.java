@@ -0,0 +1,103 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+/**
+ * Bounded min-heap that retains the {@code k} highest-scoring ids offered to it.
+ */
+final class TopK {
+
+    private final int[] ids;
+
+    private final float[] scores;
+
+    private int size;
+
+    TopK(final int k) {
+        this.ids = new int[k];
+        this.scores = new float[k];
+    }
+
+    void offer(final int id, final float score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && score > scores[0]) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    boolean isFull() {
+        return size == ids.length;
+    }
+
+    /**
+     * @return
+     *      the lowest score currently retained
+     */
+    float threshold() {
+        return size == 0 ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    Neighbours toNeighbours() {
+        return toNeighbours(false);
+    }
+
+    Neighbours toNeighbours(final boolean partial) {
+        final int[] sortedIds = new int[size];
+        final float[] sortedScores = new float[size];
+        final int[] heapIds = ids.clone();
+        final float[] heapScores = scores.clone();
+        int remaining = size;
+        for (int rank = size - 1; rank >= 0; rank--) {
+            sortedIds[rank] = heapIds[0];
+            sortedScores[rank] = heapScores[0];
+            remaining--;
+            heapIds[0] = heapIds[remaining];
+            heapScores[0] = heapScores[remaining];
+            siftDown(heapIds, heapScores, remaining, 0);
+        }
+        return new Neighbours(sortedIds, sortedScores, partial);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) {
+                break;
+            }
+            swap(ids, scores, i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(final int i) {
+        siftDown(ids, scores, size, i);
+    }
+
+    private static void siftDown(final int[] ids, final float[] scores, final int size, int i) {
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            final int smallest = right < size && scores[right] < scores[left] ? right : left;
+            if (scores[i] <= scores[smallest]) {
+                return;
+            }
+            swap(ids, scores, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(final int[] ids, final float[] scores, final int i, final int j) {
+        final int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        final float score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
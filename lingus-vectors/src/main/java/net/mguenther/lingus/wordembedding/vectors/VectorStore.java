@@ -0,0 +1,95 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+/**
+ * Read-only access to the vocabulary and the L2-normalized word vectors of a model. Words are
+ * addressed by a dense integer id in the range {@code [0, size())}. As all vectors are normalized,
+ * the dot product of two vectors is their cosine similarity.
+ */
+public interface VectorStore {
+
+    /**
+     * @return
+     *      the number of words in the vocabulary
+     */
+    int size();
+
+    /**
+     * @return
+     *      the number of dimensions of each word vector
+     */
+    int dimensions();
+
+    /**
+     * @param id
+     *      the id of a word
+     * @return
+     *      the word with the given id
+     */
+    String word(int id);
+
+    /**
+     * @param word
+     *      the word to look up
+     * @return
+     *      the id of the given word or {@code -1} if the word is not part of the vocabulary
+     */
+    int id(String word);
+
+    /**
+     * @return
+     *      the index that resolves words to ids and finds words by prefix
+     */
+    VocabularyIndex vocabulary();
+
+    /**
+     * Copies the vector of the given word into {@code target}.
+     *
+     * @param id
+     *      the id of a word
+     * @param target
+     *      array of length {@link #dimensions()} that receives the vector
+     */
+    void vector(int id, float[] target);
+
+    /**
+     * Copies the vectors of the words with ids {@code [from, from + count)} into {@code target} in
+     * row-major order.
+     *
+     * @param from
+     *      the id of the first word
+     * @param count
+     *      the number of consecutive words
+     * @param target
+     *      array of at least {@code count * dimensions()} floats that receives the vectors
+     */
+    default void rows(final int from, final int count, final float[] target) {
+        final int dimensions = dimensions();
+        final float[] row = new float[dimensions];
+        for (int i = 0; i < count; i++) {
+            vector(from + i, row);
+            System.arraycopy(row, 0, target, i * dimensions, dimensions);
+        }
+    }
+
+    /**
+     * Computes the dot product of the vector of the given word with {@code query}.
+     *
+     * @param id
+     *      the id of a word
+     * @param query
+     *      array of length {@link #dimensions()}
+     * @return
+     *      the dot product
+     */
+    float dot(int id, float[] query);
+
+    /**
+     * @param query
+     *      L2-normalized query vector
+     * @return
+     *      a scorer that computes the exact similarity of words to the given query
+     */
+    default QueryScorer scorer(final float[] query) {
+        return id -> dot(id, query);
+    }
+}
@@ -0,0 +1,41 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.util.Arrays;
+
+/**
+ * Set of visited node ids that can be cleared in constant time by advancing a generation counter.
+ */
+final class VisitedSet {
+
+    private final int[] marks;
+
+    private int generation = 1;
+
+    VisitedSet(final int capacity) {
+        this.marks = new int[capacity];
+    }
+
+    int capacity() {
+        return marks.length;
+    }
+
+    /**
+     * @return
+     *      {@code true} if the id has not been visited before
+     */
+    boolean add(final int id) {
+        if (marks[id] == generation) {
+            return false;
+        }
+        marks[id] = generation;
+        return true;
+    }
+
+    void clear() {
+        generation++;
+        if (generation == 0) {
+            Arrays.fill(marks, 0);
+            generation = 1;
+        }
+    }
+}
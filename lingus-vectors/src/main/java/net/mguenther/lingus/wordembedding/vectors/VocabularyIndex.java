@@ -0,0 +1,442 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable index over the vocabulary of a model that resolves words to their ids and finds words
+ * by prefix. The index works on a {@link WordTable}, so that the words of a mapped model are compared
+ * in place rather than decoded into strings. Words are resolved by a {@link MinimalPerfectHash} over
+ * the hashes of their UTF-8 bytes whose slots point to word ids; the word at the resulting id is
+ * compared with the requested one to reject unknown words. For prefix queries, the index keeps the
+ * ids in lexicographic order of their words, so that all words with a common prefix form a
+ * contiguous range that is found by binary search. The most frequent words of a range are found with
+ * a range-minimum structure instead of scanning the range: the position of the first-ranked id of
+ * each block of {@code BLOCK_SIZE} sorted ids, and a sparse table over these blocks that answers the
+ * position of the first-ranked id of any run of blocks.
+ *
+ * Words are ranked by the frequencies that the model records for them, if any, and by their id
+ * otherwise; word2vec assigns ids in descending order of word frequency, so both rank frequent words
+ * first. Words of equal frequency are ranked by their id. If the vocabulary contains a word more than
+ * once, the index resolves it to its lowest id.
+ */
+public final class VocabularyIndex {
+
+    private static final int BLOCK_SHIFT = 6;
+
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    private final WordTable words;
+
+    private final LongBuffer frequencies;
+
+    private final MinimalPerfectHash hash;
+
+    private final int[] idsBySlot;
+
+    private final int[] sortedIds;
+
+    /**
+     * {@code blockMinima[j][b]} is the position in {@link #sortedIds} of the first-ranked id within
+     * the blocks {@code [b, b + 2^j)}.
+     */
+    private final int[][] blockMinima;
+
+    private VocabularyIndex(final WordTable words,
+                            final LongBuffer frequencies,
+                            final MinimalPerfectHash hash,
+                            final int[] idsBySlot,
+                            final int[] sortedIds) {
+        this.words = words;
+        this.frequencies = frequencies;
+        this.hash = hash;
+        this.idsBySlot = idsBySlot;
+        this.sortedIds = sortedIds;
+        this.blockMinima = buildBlockMinima();
+    }
+
+    private int[][] buildBlockMinima() {
+        final int blocks = (sortedIds.length + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        if (blocks == 0) {
+            return new int[0][];
+        }
+        final int levels = 32 - Integer.numberOfLeadingZeros(blocks);
+        final int[][] minima = new int[levels][];
+        minima[0] = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            final int from = b << BLOCK_SHIFT;
+            minima[0][b] = first(from, Math.min(from + BLOCK_SIZE, sortedIds.length), from);
+        }
+        for (int j = 1; j < levels; j++) {
+            final int half = 1 << (j - 1);
+            minima[j] = new int[blocks - (1 << j) + 1];
+            for (int b = 0; b < minima[j].length; b++) {
+                minima[j][b] = earlier(minima[j - 1][b], minima[j - 1][b + half]);
+            }
+        }
+        return minima;
+    }
+
+    /**
+     * Builds an index over words that have been read onto the heap and ranks them by their id. The
+     * words are packed into a {@link WordTable}, so the array is not referenced by the index.
+     *
+     * @param words
+     *      the vocabulary; the word at index {@code i} has id {@code i}
+     */
+    public static VocabularyIndex build(final String[] words) {
+        return build(WordTable.of(words), null);
+    }
+
+    /**
+     * @param words
+     *      the vocabulary; the word at index {@code i} has id {@code i}
+     * @param frequencies
+     *      the frequency of each word by id, or {@code null} to rank words by their id
+     */
+    static VocabularyIndex build(final WordTable words, final LongBuffer frequencies) {
+        final int[] sortedIds = sortByWord(words);
+        int distinct = 0;
+        for (int i = 0; i < sortedIds.length; i++) {
+            if (i == 0 || words.compare(sortedIds[i], sortedIds[distinct - 1]) != 0) {
+                sortedIds[distinct++] = sortedIds[i];
+            }
+        }
+        final int[] distinctIds = Arrays.copyOf(sortedIds, distinct);
+        final long[] hashes = new long[distinct];
+        for (int i = 0; i < distinct; i++) {
+            hashes[i] = words.hash(distinctIds[i]);
+        }
+        final MinimalPerfectHash hash = MinimalPerfectHash.build(hashes);
+        final int[] idsBySlot = new int[distinct];
+        Arrays.fill(idsBySlot, -1);
+        for (int i = 0; i < distinct; i++) {
+            int slot = hash.slot(hashes[i]);
+            // words whose hashes collide occupy consecutive slots
+            while (idsBySlot[slot] >= 0) {
+                slot++;
+            }
+            idsBySlot[slot] = distinctIds[i];
+        }
+        return new VocabularyIndex(words, frequencies, hash, idsBySlot, distinctIds);
+    }
+
+    /**
+     * Sorts the ids of the given words in lexicographic order of their words with a bottom-up merge
+     * sort over primitive ids. The sort is stable, so ids of equal words remain in ascending order.
+     */
+    static int[] sortByWord(final WordTable words) {
+        final int n = words.size();
+        int[] source = new int[n];
+        int[] target = new int[n];
+        for (int i = 0; i < n; i++) {
+            source[i] = i;
+        }
+        for (int width = 1; width < n; width <<= 1) {
+            for (int from = 0; from < n; from += width << 1) {
+                final int middle = Math.min(from + width, n);
+                final int to = Math.min(from + (width << 1), n);
+                if (middle == to || words.compare(source[middle - 1], source[middle]) <= 0) {
+                    System.arraycopy(source, from, target, from, to - from);
+                } else {
+                    merge(words, source, target, from, middle, to);
+                }
+            }
+            final int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        return source;
+    }
+
+    private static void merge(final WordTable words, final int[] source, final int[] target, final int from, final int middle, final int to) {
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && words.compare(source[left], source[right]) <= 0)) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    /**
+     * @return
+     *      the number of words in the vocabulary, including duplicates
+     */
+    public int size() {
+        return words.size();
+    }
+
+    /**
+     * @return
+     *      the word with the given id, decoded from the word table
+     */
+    public String word(final int id) {
+        return words.word(id);
+    }
+
+    /**
+     * @param word
+     *      the word to look up
+     * @return
+     *      the id of the given word or {@code -1} if the word is not part of the vocabulary
+     */
+    public int id(final String word) {
+        final byte[] bytes = WordTable.encode(word);
+        int slot = hash.slot(WordTable.hash(bytes));
+        if (slot < 0 || slot >= idsBySlot.length) {
+            return -1;
+        }
+        while (words.compare(idsBySlot[slot], bytes) != 0) {
+            if (!hash.sharesHashWithNextSlot(slot)) {
+                return -1;
+            }
+            slot++;
+        }
+        return idsBySlot[slot];
+    }
+
+    /**
+     * Looks up the given term as is and, if it is not part of the vocabulary, in the form that
+     * {@link TokenNormalizer} normalizes it to.
+     *
+     * @param term
+     *      the term to look up
+     * @return
+     *      the id of the term or of its normalized form, or {@code -1} if neither is part of the
+     *      vocabulary
+     */
+    public int normalizedId(final String term) {
+        final int id = id(term);
+        if (id >= 0) {
+            return id;
+        }
+        final String normalized = TokenNormalizer.normalize(term);
+        return normalized.equals(term) ? -1 : id(normalized);
+    }
+
+    /**
+     * Finds the words that start with the given prefix, most frequent words first.
+     *
+     * The range of matching words is split around its first-ranked id, and the first-ranked ids of
+     * the resulting ranges are kept in a heap; each step takes the first-ranked id from the heap and
+     * splits its range further. Thus, the time it takes depends on {@code limit} rather than on the
+     * number of matches, which is large for short prefixes.
+     *
+     * @param prefix
+     *      the prefix that the words have to start with
+     * @param limit
+     *      the maximum number of words
+     * @return
+     *      the ids of at most {@code limit} matching words in the order of their rank
+     */
+    public int[] withPrefix(final String prefix, final int limit) {
+        final byte[] bytes = WordTable.encode(prefix);
+        final int from = firstIndexNotBefore(bytes);
+        final int to = firstIndexWithoutPrefix(bytes, from);
+        if (to - from <= limit) {
+            final int[] ids = Arrays.copyOfRange(sortedIds, from, to);
+            for (int i = 1; i < ids.length; i++) {
+                final int id = ids[i];
+                int j = i;
+                while (j > 0 && ranksBefore(id, ids[j - 1])) {
+                    ids[j] = ids[j - 1];
+                    j--;
+                }
+                ids[j] = id;
+            }
+            return ids;
+        }
+        final RangeHeap ranges = new RangeHeap(2 * limit + 1);
+        ranges.push(from, to, firstBetween(from, to));
+        final int[] ids = new int[limit];
+        for (int i = 0; i < limit; i++) {
+            final int position = ranges.firstPosition();
+            final int low = ranges.firstFrom();
+            final int high = ranges.firstTo();
+            ranges.pop();
+            ids[i] = sortedIds[position];
+            if (low < position) {
+                ranges.push(low, position, firstBetween(low, position));
+            }
+            if (position + 1 < high) {
+                ranges.push(position + 1, high, firstBetween(position + 1, high));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return
+     *      {@code true} if the word with the given id ranks before the word with the other id
+     */
+    private boolean ranksBefore(final int id, final int otherId) {
+        if (frequencies != null) {
+            final long frequency = frequencies.get(id);
+            final long otherFrequency = frequencies.get(otherId);
+            if (frequency != otherFrequency) {
+                return frequency > otherFrequency;
+            }
+        }
+        return id < otherId;
+    }
+
+    /**
+     * @return
+     *      the position in {@link #sortedIds} of the first-ranked id within {@code [from, to)}
+     */
+    private int firstBetween(final int from, final int to) {
+        final int firstBlock = from >>> BLOCK_SHIFT;
+        final int lastBlock = (to - 1) >>> BLOCK_SHIFT;
+        if (firstBlock == lastBlock) {
+            return first(from, to, from);
+        }
+        int position = first(from, (firstBlock + 1) << BLOCK_SHIFT, from);
+        position = first(lastBlock << BLOCK_SHIFT, to, position);
+        if (firstBlock + 1 < lastBlock) {
+            final int blocks = lastBlock - firstBlock - 1;
+            final int j = 31 - Integer.numberOfLeadingZeros(blocks);
+            position = earlier(position, blockMinima[j][firstBlock + 1]);
+            position = earlier(position, blockMinima[j][lastBlock - (1 << j)]);
+        }
+        return position;
+    }
+
+    private int first(final int from, final int to, final int initial) {
+        int position = initial;
+        for (int i = from; i < to; i++) {
+            if (ranksBefore(sortedIds[i], sortedIds[position])) {
+                position = i;
+            }
+        }
+        return position;
+    }
+
+    private int earlier(final int a, final int b) {
+        return ranksBefore(sortedIds[b], sortedIds[a]) ? b : a;
+    }
+
+    private int firstIndexNotBefore(final byte[] prefix) {
+        int low = 0;
+        int high = sortedIds.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (words.compare(sortedIds[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstIndexWithoutPrefix(final byte[] prefix, final int from) {
+        int low = from;
+        int high = sortedIds.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (words.startsWith(sortedIds[mid], prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return
+     *      the number of bytes that the index occupies on the heap, including the words if they have
+     *      been read onto the heap rather than mapped into memory
+     */
+    public long sizeInBytes() {
+        long blockMinimaLength = 0L;
+        for (int[] level : blockMinima) {
+            blockMinimaLength += level.length;
+        }
+        return words.heapBytes()
+                + hash.sizeInBytes()
+                + (idsBySlot.length + sortedIds.length + blockMinimaLength) * Integer.BYTES;
+    }
+
+    /**
+     * Binary heap of ranges of {@link #sortedIds}, ordered by the rank of the first-ranked id within
+     * each range.
+     */
+    private final class RangeHeap {
+
+        private final int[] from;
+
+        private final int[] to;
+
+        private final int[] first;
+
+        private int size = 0;
+
+        RangeHeap(final int capacity) {
+            this.from = new int[capacity];
+            this.to = new int[capacity];
+            this.first = new int[capacity];
+        }
+
+        void push(final int rangeFrom, final int rangeTo, final int position) {
+            int i = size++;
+            while (i > 0) {
+                final int parent = (i - 1) >>> 1;
+                if (!ranksBefore(sortedIds[position], sortedIds[first[parent]])) {
+                    break;
+                }
+                move(parent, i);
+                i = parent;
+            }
+            from[i] = rangeFrom;
+            to[i] = rangeTo;
+            first[i] = position;
+        }
+
+        int firstPosition() {
+            return first[0];
+        }
+
+        int firstFrom() {
+            return from[0];
+        }
+
+        int firstTo() {
+            return to[0];
+        }
+
+        void pop() {
+            size--;
+            final int lastFrom = from[size];
+            final int lastTo = to[size];
+            final int lastFirst = first[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && ranksBefore(sortedIds[first[child + 1]], sortedIds[first[child]])) {
+                    child++;
+                }
+                if (!ranksBefore(sortedIds[first[child]], sortedIds[lastFirst])) {
+                    break;
+                }
+                move(child, i);
+                i = child;
+            }
+            from[i] = lastFrom;
+            to[i] = lastTo;
+            first[i] = lastFirst;
+        }
+
+        private void move(final int source, final int target) {
+            from[target] = from[source];
+            to[target] = to[source];
+            first[target] = first[source];
+        }
+    }
+}
@@ -0,0 +1,681 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads word2vec models into a {@link HeapVectorStore} without going through Deeplearning4J. The
+ * following layouts are supported:
+ *
+ * <ul>
+ *     <li>{@link Layout#DL4J}: archives written by {@code WordVectorSerializer.writeWord2VecModel}, of
+ *     which only the word vectors ({@code syn0.txt}) are read</li>
+ *     <li>{@link Layout#BINARY}: the binary format of the original word2vec tool, i.e. a header line
+ *     {@code "<vocabSize> <dimensions>"} followed by one record per word, consisting of the word, a
+ *     blank and the components as little-endian 32-bit floats</li>
+ *     <li>{@link Layout#TEXT}: the text format of the original word2vec tool, i.e. the same header line
+ *     followed by one line per word, consisting of the word and its components separated by blanks</li>
+ * </ul>
+ *
+ * The model is read sequentially in large blocks that end at a record boundary. The blocks are
+ * parsed by a pool of threads straight into the rows of a single matrix that is allocated up front,
+ * so that parsing - which dominates the time to read the text-based layouts - scales with the number
+ * of cores. Apart from the words themselves, no objects are allocated per word.
+ */
+public final class Word2VecModelReader {
+
+    /**
+     * The layouts of word2vec models that this reader understands.
+     */
+    public enum Layout {
+        DL4J, BINARY, TEXT
+    }
+
+    private static final String DL4J_VECTORS = "syn0.txt";
+
+    private static final String BASE64_PREFIX = "B64:";
+
+    private static final int ZIP_MAGIC = 0x04034B50;
+
+    private static final int MAX_HEADER_LENGTH = 1024;
+
+    /**
+     * Number of bytes at the start of a file that are inspected to detect its layout.
+     */
+    private static final int SAMPLE_SIZE = 1 << 20;
+
+    private static final int MIN_BLOCK_SIZE = 4 << 20;
+
+    /**
+     * Number of significant digits of a decimal number that are taken into account.
+     */
+    private static final int MAX_DIGITS = 18;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private Word2VecModelReader() {
+    }
+
+    /**
+     * @param path
+     *      the file to check
+     * @return
+     *      the layout of the given file, or {@code null} if the file is not a word2vec model in one of
+     *      the supported layouts
+     */
+    public static Layout detect(final Path path) {
+        final byte[] sample;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SAMPLE_SIZE, channel.size()));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the sample is complete
+            }
+            sample = buffer.array();
+        } catch (IOException e) {
+            return null;
+        }
+        if (sample.length >= Integer.BYTES && ByteBuffer.wrap(sample).order(ByteOrder.LITTLE_ENDIAN).getInt(0) == ZIP_MAGIC) {
+            return hasDl4jVectors(path) ? Layout.DL4J : null;
+        }
+        final int headerEnd = indexOf(sample, 0, Math.min(sample.length, MAX_HEADER_LENGTH), (byte) '\n');
+        if (headerEnd < 0) {
+            return null;
+        }
+        final Header header = Header.parse(sample, 0, headerEnd);
+        if (header == null) {
+            return null;
+        }
+        final int lineEnd = indexOf(sample, headerEnd + 1, sample.length, (byte) '\n');
+        return lineEnd >= 0 && isTextRecord(sample, headerEnd + 1, lineEnd, header.dimensions) ? Layout.TEXT : Layout.BINARY;
+    }
+
+    private static boolean hasDl4jVectors(final Path path) {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            return zip.getEntry(DL4J_VECTORS) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isTextRecord(final byte[] bytes, final int from, final int to, final int dimensions) {
+        int pos = skipBlanks(bytes, from, to);
+        if (pos == to) {
+            return false;
+        }
+        pos = nextBlank(bytes, pos, to);
+        try {
+            for (int d = 0; d < dimensions; d++) {
+                pos = skipBlanks(bytes, pos, to);
+                if (pos == to) {
+                    return false;
+                }
+                final int tokenEnd = nextBlank(bytes, pos, to);
+                parseFloat(bytes, pos, tokenEnd);
+                pos = tokenEnd;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return skipBlanks(bytes, pos, to) == to;
+    }
+
+    /**
+     * Reads a model into a {@link HeapVectorStore}.
+     *
+     * @param path
+     *      the model file
+     * @param layout
+     *      the layout of the model file (cf. {@link #detect(Path)})
+     * @param threads
+     *      the number of threads that parse the model
+     * @param progress
+     *      receives the number of bytes and words that have been read; it is called from multiple
+     *      threads. For archives, the bytes of the word vectors are scaled to the size of the archive.
+     * @param kernel
+     *      computes the dot products of the vectors with queries
+     * @return
+     *      the vectors of the model
+     * @throws IOException
+     *      if the model cannot be read or is malformed
+     */
+    public static HeapVectorStore read(final Path path,
+                                       final Layout layout,
+                                       final int threads,
+                                       final ProgressListener progress,
+                                       final DotProduct kernel) throws IOException {
+        return read(path, layout, threads, progress, kernel, MIN_BLOCK_SIZE);
+    }
+
+    static HeapVectorStore read(final Path path,
+                                final Layout layout,
+                                final int threads,
+                                final ProgressListener progress,
+                                final DotProduct kernel,
+                                final int minBlockSize) throws IOException {
+        if (layout != Layout.DL4J) {
+            try (InputStream in = Files.newInputStream(path)) {
+                return read(in, layout, threads, progress, kernel, minBlockSize);
+            }
+        }
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            final ZipEntry entry = dl4jVectors(zip);
+            final long archiveSize = Files.size(path);
+            final long entrySize = entry.getSize();
+            final ProgressListener scaled = entrySize > 0
+                    ? (bytes, words) -> progress.advance(bytes * archiveSize / entrySize, words)
+                    : progress;
+            try (InputStream in = zip.getInputStream(entry)) {
+                return read(in, Layout.TEXT, threads, scaled, kernel, minBlockSize);
+            }
+        }
+    }
+
+    /**
+     * Reads only the header line of a model, which declares its vocabulary size and dimensions, but
+     * none of its vectors.
+     *
+     * @param path
+     *      the model file
+     * @param layout
+     *      the layout of the model file (cf. {@link #detect(Path)})
+     * @return
+     *      the header of the model
+     * @throws IOException
+     *      if the model cannot be read or does not start with a valid header line
+     */
+    public static Header readHeader(final Path path, final Layout layout) throws IOException {
+        if (layout != Layout.DL4J) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path), MAX_HEADER_LENGTH)) {
+                return Header.read(in);
+            }
+        }
+        try (ZipFile zip = new ZipFile(path.toFile());
+             InputStream in = new BufferedInputStream(zip.getInputStream(dl4jVectors(zip)), MAX_HEADER_LENGTH)) {
+            return Header.read(in);
+        }
+    }
+
+    private static ZipEntry dl4jVectors(final ZipFile zip) throws IOException {
+        final ZipEntry entry = zip.getEntry(DL4J_VECTORS);
+        if (entry == null) {
+            throw new IOException("The archive does not contain word vectors ('" + DL4J_VECTORS + "').");
+        }
+        return entry;
+    }
+
+    /**
+     * A model is read into a single float array on the heap, which holds at most
+     * {@code Integer.MAX_VALUE} components. Larger models have to be converted to the Lingus-native
+     * format, which is mapped into memory in segments.
+     *
+     * @return
+     *      {@code true} if the vectors of a model of the given shape fit into a single array
+     */
+    public static boolean fitsOnHeap(final int vocabSize, final int dimensions) {
+        return (long) vocabSize * dimensions <= Integer.MAX_VALUE;
+    }
+
+    private static HeapVectorStore read(final InputStream source,
+                                        final Layout layout,
+                                        final int threads,
+                                        final ProgressListener progress,
+                                        final DotProduct kernel,
+                                        final int minBlockSize) throws IOException {
+        final InputStream in = new BufferedInputStream(source, 1 << 16);
+        final Header header = Header.read(in);
+        if (!fitsOnHeap(header.vocabSize, header.dimensions)) {
+            throw new IOException("The model is too large to be held on the heap. Convert it to the Lingus-native format instead.");
+        }
+        progress.advance(header.length, 0);
+        final String[] words = new String[header.vocabSize];
+        final float[] matrix = new float[header.vocabSize * header.dimensions];
+        // a block holds at least 16 records, even if each component is written with 32 characters
+        final int blockSize = Math.max(minBlockSize, 16 * (32 * header.dimensions + MAX_HEADER_LENGTH));
+        new BlockParser(layout, header, words, matrix, Math.max(1, threads), blockSize, progress).parse(in);
+        return new HeapVectorStore(words, matrix, header.dimensions, kernel);
+    }
+
+    /**
+     * Cuts the body of a model into blocks that end at a record boundary and parses them in parallel.
+     * The number of blocks in flight is bounded, so that reading does not run away from parsing.
+     */
+    private static final class BlockParser {
+
+        private final Layout layout;
+
+        private final Header header;
+
+        private final String[] words;
+
+        private final float[] matrix;
+
+        private final int threads;
+
+        private final ProgressListener progress;
+
+        private final int blockSize;
+
+        private final BlockingQueue<byte[]> freeBlocks;
+
+        private int allocatedBlocks;
+
+        BlockParser(final Layout layout,
+                    final Header header,
+                    final String[] words,
+                    final float[] matrix,
+                    final int threads,
+                    final int blockSize,
+                    final ProgressListener progress) {
+            this.layout = layout;
+            this.header = header;
+            this.words = words;
+            this.matrix = matrix;
+            this.threads = threads;
+            this.blockSize = blockSize;
+            this.progress = progress;
+            this.freeBlocks = new ArrayBlockingQueue<>(threads + 2);
+        }
+
+        void parse(final InputStream in) throws IOException {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+                final Thread thread = new Thread(runnable, "model-reader-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            final List<Future<?>> blocks = new ArrayList<>();
+            try {
+                byte[] block = takeBlock();
+                int length = 0;
+                int row = 0;
+                boolean endOfFile = false;
+                while (!endOfFile) {
+                    final int read = readFully(in, block, length, block.length - length);
+                    length += read;
+                    endOfFile = length < block.length;
+                    final int end = endOfFile ? length : lastRecordEnd(block, length);
+                    if (end == 0 && !endOfFile) {
+                        throw new IOException("A record of the model exceeds " + blockSize + " bytes.");
+                    }
+                    final int rows = countRecords(block, end);
+                    if (row + rows > header.vocabSize) {
+                        throw new IOException("The model holds more words than its header declares (" + header.vocabSize + ").");
+                    }
+                    final byte[] next = endOfFile ? null : takeBlock();
+                    if (next != null) {
+                        System.arraycopy(block, end, next, 0, length - end);
+                    }
+                    final byte[] full = block;
+                    final int firstRow = row;
+                    blocks.add(executor.submit(() -> {
+                        parseBlock(full, end, firstRow);
+                        freeBlocks.offer(full);
+                        progress.advance(end, rows);
+                        return null;
+                    }));
+                    block = next;
+                    length -= end;
+                    row += rows;
+                }
+                for (Future<?> parsed : blocks) {
+                    parsed.get();
+                }
+                if (row != header.vocabSize) {
+                    throw new IOException("The model holds " + row + " words, but its header declares " + header.vocabSize + ".");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading the model.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Unable to parse the model: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        private byte[] takeBlock() throws InterruptedException {
+            final byte[] block = freeBlocks.poll();
+            if (block != null) {
+                return block;
+            }
+            if (allocatedBlocks < threads + 2) {
+                allocatedBlocks++;
+                return new byte[blockSize];
+            }
+            return freeBlocks.take();
+        }
+
+        /**
+         * @return
+         *      the end of the last record that is complete within {@code [0, length)}
+         */
+        private int lastRecordEnd(final byte[] block, final int length) {
+            if (layout == Layout.TEXT) {
+                for (int pos = length - 1; pos >= 0; pos--) {
+                    if (block[pos] == '\n') {
+                        return pos + 1;
+                    }
+                }
+                return 0;
+            }
+            int pos = 0;
+            int end;
+            while ((end = binaryRecordEnd(block, pos, length, header.dimensions)) >= 0) {
+                pos = end;
+            }
+            return pos;
+        }
+
+        private int countRecords(final byte[] block, final int end) throws IOException {
+            int records = 0;
+            if (layout == Layout.TEXT) {
+                int pos = 0;
+                while (pos < end) {
+                    int lineEnd = indexOf(block, pos, end, (byte) '\n');
+                    lineEnd = lineEnd < 0 ? end : lineEnd;
+                    if (skipBlanks(block, pos, lineEnd) < lineEnd) {
+                        records++;
+                    }
+                    pos = lineEnd + 1;
+                }
+                return records;
+            }
+            int pos = 0;
+            int recordEnd;
+            while ((recordEnd = binaryRecordEnd(block, pos, end, header.dimensions)) >= 0) {
+                pos = recordEnd;
+                records++;
+            }
+            if (skipBlanks(block, pos, end) < end) {
+                throw new IOException("Unexpected end of file while reading the vector of word " + (records + 1) + " of a block.");
+            }
+            return records;
+        }
+
+        private void parseBlock(final byte[] block, final int end, final int firstRow) throws IOException {
+            if (layout == Layout.TEXT) {
+                parseText(block, end, firstRow);
+            } else {
+                parseBinary(block, end, firstRow);
+            }
+        }
+
+        private void parseText(final byte[] block, final int end, final int firstRow) throws IOException {
+            final int dimensions = header.dimensions;
+            int row = firstRow;
+            int pos = 0;
+            while (pos < end) {
+                int lineEnd = indexOf(block, pos, end, (byte) '\n');
+                lineEnd = lineEnd < 0 ? end : lineEnd;
+                int token = skipBlanks(block, pos, lineEnd);
+                if (token < lineEnd) {
+                    final int wordEnd = nextBlank(block, token, lineEnd);
+                    words[row] = decodeWord(block, token, wordEnd);
+                    token = wordEnd;
+                    final int base = row * dimensions;
+                    for (int d = 0; d < dimensions; d++) {
+                        token = skipBlanks(block, token, lineEnd);
+                        if (token == lineEnd) {
+                            throw new IOException("The vector of word '" + words[row] + "' has fewer than " + dimensions + " components.");
+                        }
+                        final int tokenEnd = nextBlank(block, token, lineEnd);
+                        matrix[base + d] = parseFloat(block, token, tokenEnd);
+                        token = tokenEnd;
+                    }
+                    if (skipBlanks(block, token, lineEnd) < lineEnd) {
+                        throw new IOException("The vector of word '" + words[row] + "' has more than " + dimensions + " components.");
+                    }
+                    row++;
+                }
+                pos = lineEnd + 1;
+            }
+        }
+
+        private void parseBinary(final byte[] block, final int end, final int firstRow) {
+            final int dimensions = header.dimensions;
+            final ByteBuffer components = ByteBuffer.wrap(block).order(ByteOrder.LITTLE_ENDIAN);
+            int row = firstRow;
+            int pos = skipBlanks(block, 0, end);
+            while (pos < end) {
+                final int wordEnd = indexOf(block, pos, end, (byte) ' ');
+                words[row] = new String(block, pos, wordEnd - pos, StandardCharsets.UTF_8);
+                final int vector = wordEnd + 1;
+                final int base = row * dimensions;
+                for (int d = 0; d < dimensions; d++) {
+                    matrix[base + d] = components.getFloat(vector + d * Float.BYTES);
+                }
+                pos = skipBlanks(block, vector + dimensions * Float.BYTES, end);
+                row++;
+            }
+        }
+    }
+
+    /**
+     * @return
+     *      the end of the binary record that starts at the first non-blank byte at or after
+     *      {@code from}, or {@code -1} if that record is not complete within {@code limit}
+     */
+    private static int binaryRecordEnd(final byte[] bytes, final int from, final int limit, final int dimensions) {
+        final int start = skipBlanks(bytes, from, limit);
+        final int wordEnd = indexOf(bytes, start, limit, (byte) ' ');
+        if (start == limit || wordEnd < 0) {
+            return -1;
+        }
+        final long end = wordEnd + 1L + (long) dimensions * Float.BYTES;
+        return end <= limit ? (int) end : -1;
+    }
+
+    /**
+     * Decodes a word, which Deeplearning4J encodes in Base64 (prefixed by {@code B64:}) if it contains
+     * characters that would break its text format.
+     */
+    private static String decodeWord(final byte[] bytes, final int from, final int to) {
+        final int length = to - from;
+        if (length >= BASE64_PREFIX.length()
+                && bytes[from] == 'B' && bytes[from + 1] == '6' && bytes[from + 2] == '4' && bytes[from + 3] == ':') {
+            final ByteBuffer decoded = Base64.getDecoder().decode(ByteBuffer.wrap(bytes, from + BASE64_PREFIX.length(), length - BASE64_PREFIX.length()));
+            return new String(decoded.array(), decoded.arrayOffset() + decoded.position(), decoded.remaining(), StandardCharsets.UTF_8);
+        }
+        return new String(bytes, from, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a decimal floating-point number in plain or scientific notation without allocating.
+     * Numbers in any other notation (e.g. {@code NaN}) are handed to {@link Float#parseFloat(String)}.
+     */
+    static float parseFloat(final byte[] bytes, final int from, final int to) {
+        int pos = from;
+        boolean negative = false;
+        if (pos < to && (bytes[pos] == '-' || bytes[pos] == '+')) {
+            negative = bytes[pos] == '-';
+            pos++;
+        }
+        long mantissa = 0L;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        for (; pos < to && isDigit(bytes[pos]); pos++) {
+            anyDigit = true;
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa * 10 + (bytes[pos] - '0');
+                digits += mantissa > 0 ? 1 : 0;
+            } else {
+                exponent++;
+            }
+        }
+        if (pos < to && bytes[pos] == '.') {
+            for (pos++; pos < to && isDigit(bytes[pos]); pos++) {
+                anyDigit = true;
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (bytes[pos] - '0');
+                    digits += mantissa > 0 ? 1 : 0;
+                    exponent--;
+                }
+            }
+        }
+        if (anyDigit && pos < to && (bytes[pos] == 'e' || bytes[pos] == 'E')) {
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < to && (bytes[pos] == '-' || bytes[pos] == '+')) {
+                negativeExponent = bytes[pos] == '-';
+                pos++;
+            }
+            final int exponentStart = pos;
+            int explicitExponent = 0;
+            for (; pos < to && isDigit(bytes[pos]); pos++) {
+                explicitExponent = Math.min(explicitExponent * 10 + (bytes[pos] - '0'), 100_000);
+            }
+            anyDigit = pos > exponentStart;
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (!anyDigit || pos != to) {
+            return Float.parseFloat(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+        }
+        double value = mantissa;
+        if (mantissa != 0L && exponent != 0) {
+            if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+                value *= POWERS_OF_TEN[exponent];
+            } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+                value /= POWERS_OF_TEN[-exponent];
+            } else {
+                value *= Math.pow(10.0, exponent);
+            }
+        }
+        return (float) (negative ? -value : value);
+    }
+
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isBlank(final byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static int skipBlanks(final byte[] bytes, final int from, final int to) {
+        int pos = from;
+        while (pos < to && isBlank(bytes[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int nextBlank(final byte[] bytes, final int from, final int to) {
+        int pos = from;
+        while (pos < to && !isBlank(bytes[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int indexOf(final byte[] bytes, final int from, final int to, final byte b) {
+        for (int pos = from; pos < to; pos++) {
+            if (bytes[pos] == b) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static int readFully(final InputStream in, final byte[] target, final int offset, final int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            final int n = in.read(target, offset + read, length - read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        return read;
+    }
+
+    /**
+     * The header line of a model: {@code "<vocabSize> <dimensions>"}, which Deeplearning4J follows by
+     * the number of documents the model has been trained on.
+     */
+    public static final class Header {
+
+        private final int vocabSize;
+
+        private final int dimensions;
+
+        private final int length;
+
+        private Header(final int vocabSize, final int dimensions, final int length) {
+            this.vocabSize = vocabSize;
+            this.dimensions = dimensions;
+            this.length = length;
+        }
+
+        public int getVocabSize() {
+            return vocabSize;
+        }
+
+        public int getDimensions() {
+            return dimensions;
+        }
+
+        static Header read(final InputStream in) throws IOException {
+            final byte[] line = new byte[MAX_HEADER_LENGTH];
+            for (int length = 0; length < line.length; length++) {
+                final int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                if (b == '\n') {
+                    final Header header = parse(line, 0, length);
+                    if (header == null) {
+                        break;
+                    }
+                    return header;
+                }
+                line[length] = (byte) b;
+            }
+            throw new IOException("The model does not start with a header line that declares its vocabulary size and dimensions.");
+        }
+
+        /**
+         * @return
+         *      the header in {@code [from, to)}, excluding the line break, or {@code null} if it is malformed
+         */
+        static Header parse(final byte[] bytes, final int from, final int to) {
+            final String[] fields = new String(bytes, from, to - from, StandardCharsets.ISO_8859_1).trim().split("\\s+");
+            if (fields.length < 2) {
+                return null;
+            }
+            try {
+                final int vocabSize = Integer.parseInt(fields[0]);
+                final int dimensions = Integer.parseInt(fields[1]);
+                return vocabSize > 0 && dimensions > 0 ? new Header(vocabSize, dimensions, to - from + 1) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
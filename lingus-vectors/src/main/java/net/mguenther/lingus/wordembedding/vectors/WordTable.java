@@ -0,0 +1,174 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The words of a vocabulary as UTF-8 encoded strings, laid out back to back and located by an offset
+ * table, just like the vocabulary table of the Lingus-native format (cf. {@link LingusModelFormat}).
+ * A table either wraps the mapped vocabulary table of a model file, so that words are never decoded
+ * unless they are returned to a caller, or packs words that have been parsed onto the heap.
+ *
+ * Words are compared by their unsigned UTF-8 bytes, i.e. in the order of their code points. A word
+ * starts with a prefix if and only if its bytes start with the bytes of the prefix.
+ */
+final class WordTable {
+
+    private final IntBuffer offsets;
+
+    private final ByteBuffer strings;
+
+    private final int size;
+
+    private final long heapBytes;
+
+    private WordTable(final IntBuffer offsets, final ByteBuffer strings, final int size, final long heapBytes) {
+        this.offsets = offsets;
+        this.strings = strings;
+        this.size = size;
+        this.heapBytes = heapBytes;
+    }
+
+    /**
+     * Packs the given words into a table on the heap.
+     */
+    static WordTable of(final String[] words) {
+        final byte[][] encoded = new byte[words.length][];
+        long length = 0L;
+        for (int i = 0; i < words.length; i++) {
+            encoded[i] = words[i].getBytes(StandardCharsets.UTF_8);
+            length += encoded[i].length;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The vocabulary exceeds the supported size.");
+        }
+        final int[] offsets = new int[words.length + 1];
+        final byte[] strings = new byte[(int) length];
+        for (int i = 0; i < words.length; i++) {
+            System.arraycopy(encoded[i], 0, strings, offsets[i], encoded[i].length);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+        return new WordTable(IntBuffer.wrap(offsets), ByteBuffer.wrap(strings), words.length,
+                (long) offsets.length * Integer.BYTES + strings.length);
+    }
+
+    /**
+     * Wraps a vocabulary table that resides outside of the heap, e.g. in a mapped model file.
+     *
+     * @param table
+     *      {@code int[size + 1]} offsets in little-endian byte order, followed by the UTF-8 encoded
+     *      words; the offsets are relative to the start of the words
+     * @param size
+     *      the number of words
+     * @return
+     *      the table, or {@code null} if the offsets do not fit the table
+     */
+    static WordTable wrap(final ByteBuffer table, final int size) {
+        final long stringsStart = (long) (size + 1) * Integer.BYTES;
+        if (stringsStart > table.capacity()) {
+            return null;
+        }
+        final IntBuffer offsets = table.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        final ByteBuffer positioned = table.duplicate();
+        positioned.position((int) stringsStart);
+        final ByteBuffer strings = positioned.slice();
+        if (offsets.get(0) != 0) {
+            return null;
+        }
+        for (int i = 0; i < size; i++) {
+            if (offsets.get(i + 1) < offsets.get(i)) {
+                return null;
+            }
+        }
+        if (offsets.get(size) > strings.capacity()) {
+            return null;
+        }
+        return new WordTable(offsets, strings, size, 0L);
+    }
+
+    int size() {
+        return size;
+    }
+
+    String word(final int id) {
+        final int from = offsets.get(id);
+        final byte[] bytes = new byte[offsets.get(id + 1) - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = strings.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return
+     *      the number of bytes that the table occupies on the heap, which is zero for a wrapped table
+     */
+    long heapBytes() {
+        return heapBytes;
+    }
+
+    static byte[] encode(final String word) {
+        return word.getBytes(StandardCharsets.UTF_8);
+    }
+
+    long hash(final int id) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = offsets.get(id), end = offsets.get(id + 1); i < end; i++) {
+            hash = (hash ^ (strings.get(i) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static long hash(final byte[] word) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : word) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    int compare(final int id, final int otherId) {
+        final int from = offsets.get(id);
+        final int length = offsets.get(id + 1) - from;
+        final int otherFrom = offsets.get(otherId);
+        final int otherLength = offsets.get(otherId + 1) - otherFrom;
+        for (int i = 0, n = Math.min(length, otherLength); i < n; i++) {
+            final int difference = (strings.get(from + i) & 0xFF) - (strings.get(otherFrom + i) & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - otherLength;
+    }
+
+    int compare(final int id, final byte[] word) {
+        final int from = offsets.get(id);
+        final int length = offsets.get(id + 1) - from;
+        for (int i = 0, n = Math.min(length, word.length); i < n; i++) {
+            final int difference = (strings.get(from + i) & 0xFF) - (word[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - word.length;
+    }
+
+    boolean startsWith(final int id, final byte[] prefix) {
+        final int from = offsets.get(id);
+        if (offsets.get(id + 1) - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (strings.get(from + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+
+    private static final long FNV_PRIME = 0x100000001B3L;
+}
@@ -0,0 +1,81 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BatchSearchTest {
+
+    private static final int K = 10;
+
+    private static MappedVectorStore store;
+
+    @BeforeAll
+    static void openStore() throws Exception {
+        store = MappedVectorStore.open(Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec"));
+    }
+
+    @Test
+    void rowsShouldCopyConsecutiveVectors() {
+        final int dimensions = store.dimensions();
+        final float[] rows = new float[3 * dimensions];
+        final float[] vector = new float[dimensions];
+        store.rows(store.size() - 3, 3, rows);
+        for (int i = 0; i < 3; i++) {
+            store.vector(store.size() - 3 + i, vector);
+            for (int d = 0; d < dimensions; d++) {
+                assertThat(rows[i * dimensions + d]).isEqualTo(vector[d]);
+            }
+        }
+    }
+
+    @Test
+    void batchSearchShouldFindTheSameNeighboursAsTheExhaustiveSearchPerQuery() {
+        // an odd number of queries covers partial query blocks and the remainder of the 4-query kernel
+        final int numberOfQueries = BatchSearch.QUERY_BLOCK * 2 + 7;
+        final float[][] queries = new float[numberOfQueries][store.dimensions()];
+        final int[] excludedIds = new int[numberOfQueries];
+        for (int q = 0; q < numberOfQueries; q++) {
+            excludedIds[q] = q % 2 == 0 ? q : -1;
+            store.vector(q, queries[q]);
+        }
+        final List<Integer> reportedQueries = new ArrayList<>();
+        BatchSearch.nearest(store, queries, K, excludedIds, (neighbours, q) -> {
+            reportedQueries.add(q);
+            final Neighbours expected = ExhaustiveSearch.nearest(store, queries[q], K, excludedIds[q]);
+            assertThat(neighbours.size()).isEqualTo(expected.size());
+            for (int rank = 0; rank < expected.size(); rank++) {
+                assertThat(neighbours.id(rank)).isEqualTo(expected.id(rank));
+                assertThat(neighbours.score(rank)).isCloseTo(expected.score(rank), within(1e-5f));
+            }
+        });
+        assertThat(reportedQueries).hasSize(numberOfQueries).isSorted();
+    }
+
+    @Test
+    void batchSearchShouldReportEachQueryAsPartialOnceTheDeadlineHasPassed() throws Exception {
+        final int numberOfQueries = BatchSearch.QUERY_BLOCK + 1;
+        final float[][] queries = new float[numberOfQueries][store.dimensions()];
+        final int[] excludedIds = new int[numberOfQueries];
+        for (int q = 0; q < numberOfQueries; q++) {
+            excludedIds[q] = q;
+            store.vector(q, queries[q]);
+        }
+        final Deadline deadline = Deadline.in(1, TimeUnit.NANOSECONDS);
+        Thread.sleep(1);
+
+        final List<Integer> reportedQueries = new ArrayList<>();
+        BatchSearch.nearest(store, queries, K, excludedIds, deadline, (neighbours, q) -> {
+            reportedQueries.add(q);
+            assertThat(neighbours.isPartial()).isTrue();
+        });
+        assertThat(reportedQueries).hasSize(numberOfQueries);
+    }
+}
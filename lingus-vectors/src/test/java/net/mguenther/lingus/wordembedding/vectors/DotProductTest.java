@@ -0,0 +1,46 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DotProductTest {
+
+    @Test
+    void allKernelsShouldComputeTheDotProductForAnyNumberOfComponents() {
+        final Random random = new Random(42L);
+        for (int length = 0; length <= 37; length++) {
+            final int offset = 3 * length + 1;
+            final float[] vectors = randomVector(offset + length, random);
+            final float[] query = randomVector(length, random);
+            double expected = 0.0;
+            for (int d = 0; d < length; d++) {
+                expected += (double) vectors[offset + d] * query[d];
+            }
+            for (DotProduct kernel : DotProduct.values()) {
+                assertThat(kernel.dot(vectors, offset, query, length)).isCloseTo((float) expected, within(1e-4f));
+                assertThat(kernel.dot(FloatBuffer.wrap(vectors), offset, query, length)).isCloseTo((float) expected, within(1e-4f));
+            }
+        }
+    }
+
+    @Test
+    void storesShouldScoreWithTheGivenKernel() {
+        final float[] matrix = {3f, 4f, 0f, 1f};
+        final HeapVectorStore store = new HeapVectorStore(new String[]{"a", "b"}, matrix, 2, DotProduct.SCALAR);
+        assertThat(store.dot(0, new float[]{0.6f, 0.8f})).isCloseTo(1f, within(1e-6f));
+        assertThat(store.dot(1, new float[]{1f, 0f})).isCloseTo(0f, within(1e-6f));
+    }
+
+    private static float[] randomVector(final int length, final Random random) {
+        final float[] vector = new float[length];
+        for (int d = 0; d < length; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
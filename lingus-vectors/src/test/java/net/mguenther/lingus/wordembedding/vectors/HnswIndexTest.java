@@ -0,0 +1,205 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HnswIndexTest {
+
+    private static final int K = 5;
+
+    private static final int M_OFFSET = 16;
+
+    private static final int ENTRY_POINT_OFFSET = 20;
+
+    private static final int MAX_LEVEL_OFFSET = 24;
+
+    private static final int HEADER_SIZE = 40;
+
+    private static MappedVectorStore store;
+
+    private static HnswIndex index;
+
+    @BeforeAll
+    static void buildIndex() throws Exception {
+        store = MappedVectorStore.open(Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec"));
+        index = HnswIndex.build(store, 8, 64, 42L);
+    }
+
+    @Test
+    void approximateSearchShouldHaveAHighRecallComparedToExhaustiveSearch() {
+        assertThat(recall(index, 64)).isGreaterThan(0.95);
+    }
+
+    @Test
+    void approximateSearchShouldNeverReturnTheExcludedWord() {
+        final float[] query = new float[store.dimensions()];
+        for (int id = 0; id < store.size(); id++) {
+            store.vector(id, query);
+            final Neighbours neighbours = index.nearest(query, K, 16, id);
+            for (int rank = 0; rank < neighbours.size(); rank++) {
+                assertThat(neighbours.id(rank)).isNotEqualTo(id);
+            }
+        }
+    }
+
+    @Test
+    void concurrentSearchesShouldYieldTheSameResultsAsSequentialSearches() throws Exception {
+        final int threads = 4 * Runtime.getRuntime().availableProcessors();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    final float[] query = new float[store.dimensions()];
+                    for (int id = 0; id < store.size(); id++) {
+                        store.vector(id, query);
+                        final Neighbours expected = index.nearest(query, K, 32, id);
+                        final Neighbours actual = index.nearest(query, K, 32, id);
+                        for (int rank = 0; rank < expected.size(); rank++) {
+                            if (expected.id(rank) != actual.id(rank)) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(index.searchContextBytes()).isEqualTo(HnswIndex.estimateSearchContextBytes(store.size(), store.dimensions()));
+    }
+
+    @Test
+    void searchShouldReturnPartialNeighboursOnceTheDeadlineHasPassed() throws Exception {
+        final float[] query = new float[store.dimensions()];
+        store.vector(0, query);
+        final Deadline deadline = Deadline.in(1, TimeUnit.NANOSECONDS);
+        Thread.sleep(1);
+
+        final Neighbours partial = index.nearest(query, K, 256, 0, deadline);
+        final Neighbours complete = index.nearest(query, K, 256, 0, Deadline.NONE);
+
+        assertThat(partial.isPartial()).isTrue();
+        assertThat(partial.size()).isLessThanOrEqualTo(K);
+        assertThat(complete.isPartial()).isFalse();
+        assertThat(complete.size()).isEqualTo(K);
+    }
+
+    @Test
+    void persistedIndexShouldYieldTheSameResults(@TempDir final Path tempDir) throws Exception {
+        final Path location = tempDir.resolve("model.lvec" + HnswIndex.FILE_EXTENSION);
+        index.write(location, 4711L);
+
+        final HnswIndex restored = HnswIndex.read(location, store, 4711L);
+
+        assertThat(recall(restored, 64)).isEqualTo(recall(index, 64));
+    }
+
+    @Test
+    void persistedIndexShouldBeRejectedForADifferentModel(@TempDir final Path tempDir) throws Exception {
+        final Path location = tempDir.resolve("model.lvec" + HnswIndex.FILE_EXTENSION);
+        index.write(location, 4711L);
+
+        assertThatThrownBy(() -> HnswIndex.read(location, store, 42L)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void persistedIndexShouldReplaceAnExistingFileWithoutLeavingTemporaryFilesBehind(@TempDir final Path tempDir) throws Exception {
+        final Path location = tempDir.resolve("model.lvec" + HnswIndex.FILE_EXTENSION);
+        Files.write(location, new byte[]{1, 2, 3});
+
+        index.write(location, 4711L);
+
+        assertThat(HnswIndex.read(location, store, 4711L)).isNotNull();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(location);
+        }
+    }
+
+    @Test
+    void persistedIndexShouldBeRejectedIfItIsTruncated(@TempDir final Path tempDir) throws Exception {
+        final Path location = tempDir.resolve("model.lvec" + HnswIndex.FILE_EXTENSION);
+        index.write(location, 4711L);
+        final byte[] content = Files.readAllBytes(location);
+        Files.write(location, Arrays.copyOf(content, content.length - 4));
+
+        assertThatThrownBy(() -> HnswIndex.read(location, store, 4711L)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void persistedIndexShouldBeRejectedIfItsHeaderIsCorrupt(@TempDir final Path tempDir) throws Exception {
+        final Path location = tempDir.resolve("model.lvec" + HnswIndex.FILE_EXTENSION);
+        index.write(location, 4711L);
+
+        assertThatThrownBy(() -> HnswIndex.read(overwriteInt(location, M_OFFSET, Integer.MAX_VALUE), store, 4711L)).isInstanceOf(IOException.class);
+        index.write(location, 4711L);
+        assertThatThrownBy(() -> HnswIndex.read(overwriteInt(location, M_OFFSET, 0), store, 4711L)).isInstanceOf(IOException.class);
+        index.write(location, 4711L);
+        assertThatThrownBy(() -> HnswIndex.read(overwriteInt(location, ENTRY_POINT_OFFSET, store.size()), store, 4711L)).isInstanceOf(IOException.class);
+        index.write(location, 4711L);
+        assertThatThrownBy(() -> HnswIndex.read(overwriteInt(location, MAX_LEVEL_OFFSET, Integer.MAX_VALUE), store, 4711L)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void persistedIndexShouldBeRejectedIfItLinksToNodesThatDoNotExist(@TempDir final Path tempDir) throws Exception {
+        final Path location = tempDir.resolve("model.lvec" + HnswIndex.FILE_EXTENSION);
+        index.write(location, 4711L);
+        final long firstLinkOfNode0 = HEADER_SIZE + (long) store.size() * Integer.BYTES + Integer.BYTES;
+
+        assertThatThrownBy(() -> HnswIndex.read(overwriteInt(location, firstLinkOfNode0, store.size()), store, 4711L)).isInstanceOf(IOException.class);
+    }
+
+    private static Path overwriteInt(final Path location, final long offset, final int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(location, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), offset);
+        }
+        return location;
+    }
+
+    private double recall(final HnswIndex index, final int efSearch) {
+        final float[] query = new float[store.dimensions()];
+        int hits = 0;
+        for (int id = 0; id < store.size(); id++) {
+            store.vector(id, query);
+            final Set<Integer> expected = new HashSet<>();
+            final Neighbours exact = ExhaustiveSearch.nearest(store, query, K, id);
+            for (int rank = 0; rank < exact.size(); rank++) {
+                expected.add(exact.id(rank));
+            }
+            final Neighbours approximate = index.nearest(query, K, efSearch, id);
+            for (int rank = 0; rank < approximate.size(); rank++) {
+                if (expected.contains(approximate.id(rank))) {
+                    hits++;
+                }
+            }
+        }
+        return (double) hits / (store.size() * K);
+    }
+}
@@ -0,0 +1,141 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class MappedVectorStoreTest {
+
+    private static final Path MODEL = Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec");
+
+    private static MappedVectorStore store;
+
+    @BeforeAll
+    static void openStore() throws Exception {
+        store = MappedVectorStore.open(MODEL);
+    }
+
+    @Test
+    void shouldRecognizeLingusModelByItsMagicNumber() {
+        assertThat(LingusModelFormat.isLingusModel(MODEL)).isTrue();
+        assertThat(LingusModelFormat.isLingusModel(Paths.get("src/test/resources/models/text-cleaned-1000-model.bin"))).isFalse();
+    }
+
+    @Test
+    void shouldResolveWordsToIdsAndBack() {
+        assertThat(store.size()).isEqualTo(501);
+        assertThat(store.dimensions()).isEqualTo(100);
+        assertThat(store.word(store.id("das"))).isEqualTo("das");
+        assertThat(store.id("schule")).isEqualTo(-1);
+    }
+
+    @Test
+    void openingShouldReportProgressOverTheWholeFile() throws Exception {
+        final long[] bytes = new long[1];
+        final int[] words = new int[1];
+        MappedVectorStore.open(MODEL, (b, w) -> {
+            bytes[0] += b;
+            words[0] += w;
+        });
+        assertThat(words[0]).isEqualTo(store.size());
+        assertThat(bytes[0]).isEqualTo(MODEL.toFile().length());
+    }
+
+    @Test
+    void vectorsShouldBeNormalized() {
+        final float[] vector = new float[store.dimensions()];
+        for (int id = 0; id < store.size(); id++) {
+            store.vector(id, vector);
+            assertThat(store.dot(id, vector)).isCloseTo(1.0f, within(1e-4f));
+        }
+    }
+
+    @Test
+    void exhaustiveSearchShouldReturnNeighboursInDescendingOrderOfSimilarity() {
+        final int id = store.id("das");
+        final float[] query = new float[store.dimensions()];
+        store.vector(id, query);
+
+        final Neighbours neighbours = ExhaustiveSearch.nearest(store, query, 5, id);
+
+        assertThat(neighbours.size()).isEqualTo(5);
+        float best = Float.NEGATIVE_INFINITY;
+        for (int other = 0; other < store.size(); other++) {
+            if (other != id) {
+                best = Math.max(best, store.dot(other, query));
+            }
+        }
+        assertThat(neighbours.score(0)).isEqualTo(best);
+        for (int rank = 0; rank < neighbours.size(); rank++) {
+            assertThat(neighbours.id(rank)).isNotEqualTo(id);
+            if (rank > 0) {
+                assertThat(neighbours.score(rank)).isLessThanOrEqualTo(neighbours.score(rank - 1));
+            }
+        }
+    }
+
+    @Test
+    void shouldRankWordsByPrefixByTheFrequenciesRecordedInTheModel(@TempDir final Path directory) throws Exception {
+        final Path model = writeModel(directory.resolve("prefix.lvec"),
+                new String[]{"schule", "schulen", "haus", "schul"},
+                new long[]{2L, 9L, 4L, 5L},
+                new int[]{0, 6, 13, 17, 22});
+        final MappedVectorStore prefixStore = MappedVectorStore.open(model);
+        assertThat(prefixStore.vocabulary().withPrefix("schul", 10)).containsExactly(1, 3, 0);
+        assertThat(prefixStore.word(prefixStore.id("schulen"))).isEqualTo("schulen");
+    }
+
+    @Test
+    void shouldRejectAVocabularyTableWithInconsistentOffsets(@TempDir final Path directory) throws Exception {
+        final Path model = writeModel(directory.resolve("corrupt.lvec"),
+                new String[]{"schule", "haus"},
+                new long[]{2L, 1L},
+                new int[]{0, 6, 4});
+        assertThatThrownBy(() -> MappedVectorStore.open(model))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("vocabulary table");
+    }
+
+    private static Path writeModel(final Path path, final String[] words, final long[] frequencies, final int[] offsets) throws IOException {
+        final int dimensions = 2;
+        final byte[] strings = String.join("", words).getBytes(StandardCharsets.UTF_8);
+        final long vocabOffset = LingusModelFormat.HEADER_SIZE;
+        final long vocabEnd = vocabOffset + (long) words.length * Long.BYTES + (long) offsets.length * Integer.BYTES + strings.length;
+        final long matrixOffset = (vocabEnd + LingusModelFormat.MATRIX_ALIGNMENT - 1) / LingusModelFormat.MATRIX_ALIGNMENT * LingusModelFormat.MATRIX_ALIGNMENT;
+        final ByteBuffer buffer = ByteBuffer.allocate((int) matrixOffset + words.length * dimensions * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(LingusModelFormat.MAGIC)
+                .putInt(LingusModelFormat.VERSION)
+                .putInt(LingusModelFormat.FLAG_NORMALIZED)
+                .putInt(words.length)
+                .putInt(dimensions)
+                .putInt(0)
+                .putLong(vocabOffset)
+                .putLong(matrixOffset);
+        buffer.position((int) vocabOffset);
+        for (long frequency : frequencies) {
+            buffer.putLong(frequency);
+        }
+        for (int offset : offsets) {
+            buffer.putInt(offset);
+        }
+        buffer.put(strings);
+        buffer.position((int) matrixOffset);
+        for (int i = 0; i < words.length; i++) {
+            buffer.putFloat(1.0f).putFloat(0.0f);
+        }
+        return Files.write(path, buffer.array());
+    }
+}
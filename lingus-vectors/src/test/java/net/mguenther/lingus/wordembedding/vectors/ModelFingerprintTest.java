@@ -0,0 +1,55 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModelFingerprintTest {
+
+    @Test
+    void fingerprintShouldBeStableForAnUnchangedFile(@TempDir final Path tempDir) throws Exception {
+        final Path model = Files.write(tempDir.resolve("model.lvec"), content(200_000, (byte) 1));
+
+        assertThat(ModelFingerprint.of(model)).isEqualTo(ModelFingerprint.of(model));
+    }
+
+    @Test
+    void fingerprintShouldTellApartFilesOfTheSameSizeAndModificationTime(@TempDir final Path tempDir) throws Exception {
+        final FileTime modified = FileTime.fromMillis(1_500_000_000_000L);
+        final Path model = Files.write(tempDir.resolve("model.lvec"), content(200_000, (byte) 1));
+        Files.setLastModifiedTime(model, modified);
+        final long before = ModelFingerprint.of(model);
+
+        final byte[] replacement = content(200_000, (byte) 1);
+        replacement[100_000] = 2;
+        Files.write(model, replacement);
+        Files.setLastModifiedTime(model, modified);
+
+        assertThat(ModelFingerprint.of(model)).isNotEqualTo(before);
+    }
+
+    @Test
+    void fingerprintShouldCoverFilesSmallerThanASample(@TempDir final Path tempDir) throws Exception {
+        final FileTime modified = FileTime.fromMillis(1_500_000_000_000L);
+        final Path model = Files.write(tempDir.resolve("model.lvec"), content(10, (byte) 1));
+        Files.setLastModifiedTime(model, modified);
+        final long before = ModelFingerprint.of(model);
+
+        Files.write(model, content(10, (byte) 2));
+        Files.setLastModifiedTime(model, modified);
+
+        assertThat(ModelFingerprint.of(model)).isNotEqualTo(before);
+    }
+
+    private static byte[] content(final int size, final byte value) {
+        final byte[] content = new byte[size];
+        Arrays.fill(content, value);
+        return content;
+    }
+}
@@ -0,0 +1,77 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class NeighbourTableTest {
+
+    private static final int K = 10;
+
+    private static final int ROWS = 300;
+
+    private static MappedVectorStore store;
+
+    private static NeighbourTable table;
+
+    @BeforeAll
+    static void computeTable() throws Exception {
+        store = MappedVectorStore.open(Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec"));
+        table = NeighbourTable.compute(store, ROWS, K, 4, ProgressListener.NONE);
+    }
+
+    @Test
+    void tableShouldHoldTheExactNeighboursOfItsRows() {
+        assertMatchesExhaustiveSearch(table);
+    }
+
+    @Test
+    void tableShouldOnlyServeRowsAndSizesItHolds() {
+        assertThat(table.neighbours(ROWS - 1, K)).isNotNull();
+        assertThat(table.neighbours(ROWS, K)).isNull();
+        assertThat(table.neighbours(0, K + 1)).isNull();
+        assertThat(table.neighbours(0, 3).size()).isEqualTo(3);
+    }
+
+    @Test
+    void persistedTableShouldYieldTheSameResults(@TempDir final Path tempDir) throws Exception {
+        final Path location = tempDir.resolve("model.lvec" + NeighbourTable.FILE_EXTENSION);
+        table.write(location, 4711L);
+
+        final NeighbourTable persisted = NeighbourTable.read(location, store, 4711L);
+
+        assertThat(persisted.rows()).isEqualTo(ROWS);
+        assertThat(persisted.neighbours()).isEqualTo(K);
+        assertMatchesExhaustiveSearch(persisted);
+    }
+
+    @Test
+    void persistedTableShouldBeRejectedForADifferentModel(@TempDir final Path tempDir) throws Exception {
+        final Path location = tempDir.resolve("model.lvec" + NeighbourTable.FILE_EXTENSION);
+        table.write(location, 4711L);
+
+        assertThatThrownBy(() -> NeighbourTable.read(location, store, 42L)).isInstanceOf(IOException.class);
+    }
+
+    private static void assertMatchesExhaustiveSearch(final NeighbourTable table) {
+        final float[] query = new float[store.dimensions()];
+        for (int id = 0; id < ROWS; id++) {
+            store.vector(id, query);
+            final Neighbours expected = ExhaustiveSearch.nearest(store, query, K, id);
+            final Neighbours precomputed = table.neighbours(id, K);
+            assertThat(precomputed.size()).isEqualTo(expected.size());
+            for (int rank = 0; rank < expected.size(); rank++) {
+                assertThat(precomputed.id(rank)).isEqualTo(expected.id(rank));
+                assertThat(precomputed.score(rank)).isCloseTo(expected.score(rank), within(1e-5f));
+            }
+        }
+    }
+}
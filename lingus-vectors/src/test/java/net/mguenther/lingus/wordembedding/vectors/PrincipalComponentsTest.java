@@ -0,0 +1,88 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class PrincipalComponentsTest {
+
+    private static MappedVectorStore store;
+
+    @BeforeAll
+    static void openStore() throws Exception {
+        store = MappedVectorStore.open(Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec"));
+    }
+
+    @Test
+    void shouldFindTheDirectionsOfLargestVariance() {
+        // the (normalized) vectors lie in a plane and are spread mostly along one direction within it
+        final float[] major = { 0.6f, 0.8f, 0.0f };
+        final float[] minor = { -0.8f, 0.6f, 0.0f };
+        final int size = 20_000;
+        final Random random = new Random(42L);
+        final String[] words = new String[size];
+        final float[] matrix = new float[size * 3];
+        for (int i = 0; i < size; i++) {
+            words[i] = "w" + i;
+            final double a = 4.0 * random.nextGaussian();
+            final double b = 0.5 * random.nextGaussian();
+            for (int d = 0; d < 3; d++) {
+                matrix[i * 3 + d] = (float) (a * major[d] + b * minor[d]);
+            }
+        }
+        final HeapVectorStore synthetic = new HeapVectorStore(words, matrix, 3);
+        final int[] ids = IntStream.range(0, size).toArray();
+
+        final PrincipalComponents pca = PrincipalComponents.fit(synthetic, ids, 1);
+        assertThat(pca.retainedVariance()).isGreaterThan(0.8).isLessThan(1.0);
+        assertThat(PrincipalComponents.fit(synthetic, ids, 2).retainedVariance()).isCloseTo(1.0, offset(1e-6));
+
+        final float[] projected = new float[1];
+        pca.project(major, projected);
+        assertThat(Math.abs(projected[0])).isCloseTo(1.0f, offset(0.02f));
+        pca.project(minor, projected);
+        assertThat(projected[0]).isCloseTo(0.0f, offset(0.02f));
+    }
+
+    @Test
+    void retainedVarianceShouldGrowWithTheNumberOfComponents() {
+        final int[] ids = IntStream.range(0, store.size()).toArray();
+        double previous = 0.0;
+        for (int components = 1; components <= store.dimensions(); components *= 2) {
+            final double retained = PrincipalComponents.fit(store, ids, components).retainedVariance();
+            assertThat(retained).isGreaterThan(previous);
+            previous = retained;
+        }
+        assertThat(PrincipalComponents.fit(store, ids, store.dimensions()).retainedVariance()).isCloseTo(1.0, offset(1e-9));
+    }
+
+    @Test
+    void projectionOntoAllComponentsShouldPreserveTheGeometryOfTheVectors() {
+        final int[] ids = IntStream.range(0, store.size()).toArray();
+        final PrincipalComponents pca = PrincipalComponents.fit(store, ids, store.dimensions());
+        final float[] a = new float[store.dimensions()];
+        final float[] b = new float[store.dimensions()];
+        final float[] projectedA = new float[store.dimensions()];
+        final float[] projectedB = new float[store.dimensions()];
+        store.vector(0, a);
+        store.vector(1, b);
+        pca.project(a, projectedA);
+        pca.project(b, projectedB);
+        // a rotation of the centered vectors preserves their distance
+        assertThat(distance(projectedA, projectedB)).isCloseTo(distance(a, b), offset(1e-4));
+    }
+
+    private static double distance(final float[] a, final float[] b) {
+        double sum = 0.0;
+        for (int d = 0; d < a.length; d++) {
+            sum += (a[d] - b[d]) * (a[d] - b[d]);
+        }
+        return Math.sqrt(sum);
+    }
+}
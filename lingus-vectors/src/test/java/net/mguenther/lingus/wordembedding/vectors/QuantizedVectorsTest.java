@@ -0,0 +1,75 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuantizedVectorsTest {
+
+    private static final int K = 5;
+
+    private static final int RERANK_FACTOR = 10;
+
+    private static MappedVectorStore store;
+
+    @BeforeAll
+    static void openStore() throws Exception {
+        store = MappedVectorStore.open(Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec"));
+    }
+
+    @Test
+    void scalarQuantizationShouldApproximateTheExactSimilarity() {
+        final ScalarQuantizedVectors quantized = ScalarQuantizedVectors.encode(store);
+        final float[] query = new float[store.dimensions()];
+        store.vector(0, query);
+        final QueryScorer scorer = quantized.scorer(query);
+        for (int id = 0; id < store.size(); id++) {
+            assertThat(Math.abs(scorer.score(id) - store.dot(id, query))).isLessThan(0.05f);
+        }
+    }
+
+    @Test
+    void scalarQuantizationShouldUseOneBytePerComponent() {
+        final ScalarQuantizedVectors quantized = ScalarQuantizedVectors.encode(store);
+        assertThat(quantized.sizeInBytes()).isEqualTo(ScalarQuantizedVectors.estimateSizeInBytes(store.size(), store.dimensions()));
+        assertThat(quantized.sizeInBytes()).isLessThan((long) store.size() * store.dimensions() * Float.BYTES / 3);
+    }
+
+    @Test
+    void rerankedScalarQuantizedSearchShouldFindTheExactNeighbours() {
+        assertThat(recall(ScalarQuantizedVectors.encode(store))).isGreaterThan(0.98);
+    }
+
+    @Test
+    void rerankedProductQuantizedSearchShouldFindTheExactNeighbours() {
+        final int subspaces = ProductQuantizedVectors.subspacesFor(store.dimensions(), 0);
+        assertThat(store.dimensions() % subspaces).isZero();
+        assertThat(recall(ProductQuantizedVectors.encode(store, subspaces, 25_000, 10, 42L))).isGreaterThan(0.95);
+    }
+
+    private double recall(final QuantizedVectors quantized) {
+        final float[] query = new float[store.dimensions()];
+        int hits = 0;
+        for (int id = 0; id < store.size(); id++) {
+            store.vector(id, query);
+            final Set<Integer> expected = new HashSet<>();
+            final Neighbours exact = ExhaustiveSearch.nearest(store, query, K, id);
+            for (int rank = 0; rank < exact.size(); rank++) {
+                expected.add(exact.id(rank));
+            }
+            final Neighbours candidates = ExhaustiveSearch.nearest(quantized.scorer(query), store.size(), K * RERANK_FACTOR, id);
+            final Neighbours reranked = ExhaustiveSearch.rerank(store, query, candidates, K);
+            for (int rank = 0; rank < reranked.size(); rank++) {
+                if (expected.contains(reranked.id(rank))) {
+                    hits++;
+                }
+            }
+        }
+        return (double) hits / (store.size() * K);
+    }
+}
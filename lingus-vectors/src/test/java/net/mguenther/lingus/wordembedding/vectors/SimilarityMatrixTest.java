@@ -0,0 +1,57 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SimilarityMatrixTest {
+
+    private static MappedVectorStore store;
+
+    @BeforeAll
+    static void openStore() throws Exception {
+        store = MappedVectorStore.open(Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec"));
+    }
+
+    @Test
+    void matrixShouldHoldTheSimilarityOfEachPair() {
+        // odd sizes cover partial row blocks, partial column tiles and the remainder of the 4-row kernel
+        final int[] rowIds = ids(SimilarityMatrix.ROW_BLOCK + 7, 0);
+        final int[] columnIds = ids(SimilarityMatrix.COLUMN_BLOCK + 3, 100);
+        final float[][] similarities = SimilarityMatrix.compute(store, rowIds, columnIds);
+
+        assertThat(similarities).hasSize(rowIds.length);
+        final float[] vector = new float[store.dimensions()];
+        for (int row = 0; row < rowIds.length; row++) {
+            assertThat(similarities[row]).hasSize(columnIds.length);
+            store.vector(rowIds[row], vector);
+            for (int column = 0; column < columnIds.length; column++) {
+                assertThat(similarities[row][column]).isCloseTo(store.dot(columnIds[column], vector), within(1e-5f));
+            }
+        }
+    }
+
+    @Test
+    void unknownWordsShouldYieldNaNForTheirRowOrColumn() {
+        final float[][] similarities = SimilarityMatrix.compute(store, new int[]{0, -1, 2}, new int[]{-1, 1});
+
+        assertThat(similarities[0][0]).isNaN();
+        assertThat(similarities[0][1]).isNotNaN();
+        assertThat(similarities[1][0]).isNaN();
+        assertThat(similarities[1][1]).isNaN();
+        assertThat(similarities[2][0]).isNaN();
+        assertThat(similarities[2][1]).isNotNaN();
+    }
+
+    private static int[] ids(final int count, final int first) {
+        final int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = first + i;
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,156 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.LongBuffer;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VocabularyIndexTest {
+
+    @Test
+    void shouldResolveEveryWordOfALargeVocabularyToItsId() {
+        final String[] words = randomWords(200_000, new Random(42L));
+        final VocabularyIndex index = VocabularyIndex.build(words);
+        for (int id = 0; id < words.length; id++) {
+            assertThat(index.id(words[id])).isEqualTo(id);
+        }
+        assertThat(index.id("not-a-word")).isEqualTo(-1);
+        assertThat(index.id("")).isEqualTo(-1);
+    }
+
+    @Test
+    void shouldResolveDuplicateWordsToTheirLowestId() {
+        final VocabularyIndex index = VocabularyIndex.build(new String[]{"die", "der", "die", "das"});
+        assertThat(index.id("die")).isEqualTo(0);
+        assertThat(index.id("das")).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSortIdsByWordAndIdsOfEqualWordsAscending() {
+        final Random random = new Random(42L);
+        final String[] words = new String[10_000];
+        for (int id = 0; id < words.length; id++) {
+            words[id] = Integer.toString(random.nextInt(2_000), 36);
+        }
+        final int[] expected = IntStream.range(0, words.length)
+                .boxed()
+                .sorted(Comparator.<Integer, String>comparing(id -> words[id]).thenComparing(id -> id))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertThat(VocabularyIndex.sortByWord(WordTable.of(words))).containsExactly(expected);
+        assertThat(VocabularyIndex.sortByWord(WordTable.of(new String[0]))).isEmpty();
+    }
+
+    @Test
+    void shouldFindWordsByPrefixInAscendingOrderOfTheirId() {
+        final VocabularyIndex index = VocabularyIndex.build(new String[]{"schule", "haus", "schulen", "schüler", "schul", "sch", "schulbus"});
+        assertThat(index.withPrefix("schul", 10)).containsExactly(0, 2, 4, 6);
+        assertThat(index.withPrefix("schul", 2)).containsExactly(0, 2);
+        assertThat(index.withPrefix("", 3)).containsExactly(0, 1, 2);
+        assertThat(index.withPrefix("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldFindTheMostFrequentWordsWithAShortPrefixInALargeVocabulary() {
+        final String[] words = randomWords(200_000, new Random(7L));
+        final VocabularyIndex index = VocabularyIndex.build(words);
+        for (String prefix : new String[]{"", "a", "q", "ab", "xyz"}) {
+            for (int limit : new int[]{1, 10, 100}) {
+                final int[] expected = IntStream.range(0, words.length)
+                        .filter(id -> words[id].startsWith(prefix))
+                        .limit(limit)
+                        .toArray();
+                assertThat(index.withPrefix(prefix, limit)).containsExactly(expected);
+            }
+        }
+    }
+
+    @Test
+    void shouldRankWordsByPrefixByTheirRecordedFrequency() {
+        final String[] words = {"schule", "haus", "schulen", "schüler", "schul", "sch", "schulbus"};
+        final long[] frequencies = {5L, 9L, 7L, 3L, 5L, 1L, 2L};
+        final VocabularyIndex index = VocabularyIndex.build(WordTable.of(words), LongBuffer.wrap(frequencies));
+        assertThat(index.withPrefix("schul", 10)).containsExactly(2, 0, 4, 6);
+        assertThat(index.withPrefix("schul", 2)).containsExactly(2, 0);
+        assertThat(index.withPrefix("", 3)).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    void shouldFindTheMostFrequentWordsWithAShortPrefixInALargeVocabularyByTheirRecordedFrequency() {
+        final Random random = new Random(11L);
+        final String[] words = randomWords(200_000, random);
+        final long[] frequencies = new long[words.length];
+        for (int id = 0; id < words.length; id++) {
+            frequencies[id] = random.nextInt(1_000);
+        }
+        final VocabularyIndex index = VocabularyIndex.build(WordTable.of(words), LongBuffer.wrap(frequencies));
+        for (String prefix : new String[]{"", "a", "ab", "xyz"}) {
+            for (int limit : new int[]{1, 10, 100}) {
+                final int[] expected = IntStream.range(0, words.length)
+                        .filter(id -> words[id].startsWith(prefix))
+                        .boxed()
+                        .sorted(Comparator.<Integer>comparingLong(id -> -frequencies[id]).thenComparing(id -> id))
+                        .limit(limit)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                assertThat(index.withPrefix(prefix, limit)).containsExactly(expected);
+            }
+        }
+    }
+
+    @Test
+    void shouldResolveWordsThatAreNotAsciiToTheirId() {
+        final VocabularyIndex index = VocabularyIndex.build(new String[]{"schüler", "straße", "über"});
+        assertThat(index.id("straße")).isEqualTo(1);
+        assertThat(index.word(2)).isEqualTo("über");
+        assertThat(index.withPrefix("sch", 10)).containsExactly(0);
+        assertThat(index.id("strasse")).isEqualTo(-1);
+    }
+
+    @Test
+    void keysWithTheSameHashShouldOccupyConsecutiveSlots() {
+        final MinimalPerfectHash hash = MinimalPerfectHash.build(new long[]{3L, 7L, 7L, 11L});
+        final Set<Integer> slots = new HashSet<>();
+        for (long key : new long[]{3L, 7L, 11L}) {
+            slots.add(hash.slot(key));
+        }
+        assertThat(hash.sharesHashWithNextSlot(hash.slot(7L))).isTrue();
+        slots.add(hash.slot(7L) + 1);
+        assertThat(slots).containsExactlyInAnyOrder(0, 1, 2, 3);
+    }
+
+    @Test
+    void shouldFallBackToTheNormalizedFormOfATerm() {
+        final VocabularyIndex index = VocabularyIndex.build(new String[]{"schule", "Haus"});
+        assertThat(index.normalizedId("Schule,")).isEqualTo(0);
+        assertThat(index.normalizedId("(schule)")).isEqualTo(0);
+        assertThat(index.normalizedId("Haus")).isEqualTo(1);
+        assertThat(index.normalizedId("HAUS")).isEqualTo(-1);
+    }
+
+    @Test
+    void normalizationShouldMatchTheCommonPreprocessor() {
+        assertThat(TokenNormalizer.normalize("Schule2019!")).isEqualTo("schule");
+        assertThat(TokenNormalizer.normalize("\"Es\";")).isEqualTo("es");
+        assertThat(TokenNormalizer.normalize("high-tech")).isEqualTo("high-tech");
+    }
+
+    private static String[] randomWords(final int numberOfWords, final Random random) {
+        final Set<String> words = new HashSet<>();
+        while (words.size() < numberOfWords) {
+            final StringBuilder word = new StringBuilder();
+            final int length = 1 + random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words.add(word.toString());
+        }
+        return words.toArray(new String[0]);
+    }
+}
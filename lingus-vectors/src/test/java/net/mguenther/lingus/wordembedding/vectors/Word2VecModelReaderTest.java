@@ -0,0 +1,156 @@
+package net.mguenther.lingus.wordembedding.vectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class Word2VecModelReaderTest {
+
+    private static final Path DL4J_MODEL = Paths.get("src/test/resources/models/text-cleaned-1000-model.bin");
+
+    private static MappedVectorStore expected;
+
+    @BeforeAll
+    static void openConvertedModel() throws Exception {
+        expected = MappedVectorStore.open(Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec"));
+    }
+
+    @Test
+    void shouldReadTheWordVectorsOfADl4jArchive() throws Exception {
+        assertThat(Word2VecModelReader.detect(DL4J_MODEL)).isEqualTo(Word2VecModelReader.Layout.DL4J);
+
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong words = new AtomicLong();
+        final HeapVectorStore store = Word2VecModelReader.read(DL4J_MODEL, Word2VecModelReader.Layout.DL4J, 4,
+                (b, w) -> {
+                    bytes.addAndGet(b);
+                    words.addAndGet(w);
+                }, DotProduct.SCALAR, 0);
+
+        assertSameVectors(store);
+        assertThat(words.get()).isEqualTo(expected.size());
+        assertThat(bytes.get()).isCloseTo(Files.size(DL4J_MODEL), within(1024L));
+    }
+
+    @Test
+    void shouldReadOnlyTheHeaderOfADl4jArchive() throws Exception {
+        final Word2VecModelReader.Header header = Word2VecModelReader.readHeader(DL4J_MODEL, Word2VecModelReader.Layout.DL4J);
+
+        assertThat(header.getVocabSize()).isEqualTo(expected.size());
+        assertThat(header.getDimensions()).isEqualTo(expected.dimensions());
+    }
+
+    @Test
+    void shouldReadTheBinaryFormatOfTheOriginalTool(@TempDir final Path tempDir) throws Exception {
+        final Path model = tempDir.resolve("model.bin");
+        writeOriginalFormat(model, true);
+
+        assertThat(Word2VecModelReader.detect(model)).isEqualTo(Word2VecModelReader.Layout.BINARY);
+        assertSameVectors(Word2VecModelReader.read(model, Word2VecModelReader.Layout.BINARY, 4, ProgressListener.NONE, DotProduct.SCALAR, 0));
+    }
+
+    @Test
+    void shouldReadTheTextFormatOfTheOriginalTool(@TempDir final Path tempDir) throws Exception {
+        final Path model = tempDir.resolve("model.txt");
+        writeOriginalFormat(model, false);
+
+        assertThat(Word2VecModelReader.detect(model)).isEqualTo(Word2VecModelReader.Layout.TEXT);
+        assertSameVectors(Word2VecModelReader.read(model, Word2VecModelReader.Layout.TEXT, 4, ProgressListener.NONE, DotProduct.SCALAR, 0));
+    }
+
+    @Test
+    void shouldRejectAModelWithFewerWordsThanDeclared(@TempDir final Path tempDir) throws Exception {
+        final Path model = tempDir.resolve("model.txt");
+        Files.write(model, "3 2\nhaus 0.5 0.5\nschule 1 0\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> Word2VecModelReader.read(model, Word2VecModelReader.Layout.TEXT, 2, ProgressListener.NONE, DotProduct.SCALAR))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldNotDetectFilesThatAreNoWord2VecModels(@TempDir final Path tempDir) throws Exception {
+        final Path notes = tempDir.resolve("notes.txt");
+        Files.write(notes, "some notes about the models\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(Word2VecModelReader.detect(notes)).isNull();
+    }
+
+    @Test
+    void parseFloatShouldMatchTheJdk() {
+        final Random random = new Random(42L);
+        for (int i = 0; i < 100_000; i++) {
+            final double value = random.nextGaussian() * Math.pow(10, random.nextInt(12) - 8);
+            assertParsesLikeTheJdk(Double.toString(value));
+            assertParsesLikeTheJdk(Float.toString((float) value));
+        }
+        for (String number : new String[]{"0", "-0.0", "3", "+1.5", "1e-3", "2.5E+2", "0.000000000000000000000000000000000000000001", "NaN", "-Infinity"}) {
+            assertParsesLikeTheJdk(number);
+        }
+    }
+
+    private static void assertParsesLikeTheJdk(final String number) {
+        final byte[] bytes = number.getBytes(StandardCharsets.ISO_8859_1);
+        final float expectedValue = Float.parseFloat(number);
+        final float value = Word2VecModelReader.parseFloat(bytes, 0, bytes.length);
+        if (Float.isNaN(expectedValue)) {
+            assertThat(value).isNaN();
+        } else {
+            assertThat(value).as(number).isCloseTo(expectedValue, within(Math.ulp(expectedValue)));
+        }
+    }
+
+    private static void assertSameVectors(final VectorStore store) {
+        assertThat(store.size()).isEqualTo(expected.size());
+        assertThat(store.dimensions()).isEqualTo(expected.dimensions());
+        final float[] vector = new float[store.dimensions()];
+        final float[] expectedVector = new float[store.dimensions()];
+        for (int id = 0; id < store.size(); id++) {
+            assertThat(store.word(id)).isEqualTo(expected.word(id));
+            store.vector(id, vector);
+            expected.vector(id, expectedVector);
+            for (int d = 0; d < vector.length; d++) {
+                assertThat(vector[d]).isCloseTo(expectedVector[d], within(1e-5f));
+            }
+        }
+    }
+
+    private static void writeOriginalFormat(final Path target, final boolean binary) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            out.write((expected.size() + " " + expected.dimensions() + "\n").getBytes(StandardCharsets.UTF_8));
+            final float[] vector = new float[expected.dimensions()];
+            final ByteBuffer components = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int id = 0; id < expected.size(); id++) {
+                expected.vector(id, vector);
+                out.write((expected.word(id) + " ").getBytes(StandardCharsets.UTF_8));
+                if (binary) {
+                    components.clear();
+                    for (float component : vector) {
+                        components.putFloat(component);
+                    }
+                    out.write(components.array());
+                } else {
+                    for (float component : vector) {
+                        out.write((component + " ").getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                out.write('\n');
+            }
+        }
+    }
+}
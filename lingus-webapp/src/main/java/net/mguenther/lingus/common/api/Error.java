@@ -1,10 +1,12 @@
 package net.mguenther.lingus.common.api;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
+@RegisterForReflection
 @Getter
 @ToString
 @RequiredArgsConstructor
@@ -10,4 +10,10 @@ import lombok.ToString;
 public class ActivateModelRequest {
 
     private final String filename;
+
+    private final Quantization quantization;
+
+    public ActivateModelRequest(final String filename) {
+        this(filename, Quantization.NONE);
+    }
 }
@@ -2,9 +2,13 @@ package net.mguenther.lingus.wordembedding.api;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.Map;
+
+@RegisterForReflection
 @Getter
 @ToString
 public class AvailableModel {
@@ -12,13 +16,51 @@ public class AvailableModel {
     @JsonProperty("filename")
     private String filename;
 
+    @JsonProperty("format")
+    private String format;
+
+    @JsonProperty("fileSize")
+    private long fileSize;
+
+    /**
+     * The number of words of the model as declared by the header of its file, or {@code 0} if the
+     * header could not be read.
+     */
+    @JsonProperty("vocabSize")
+    private int vocabSize;
+
+    /**
+     * The number of dimensions of the vectors of the model as declared by the header of its file, or
+     * {@code 0} if the header could not be read.
+     */
+    @JsonProperty("dimensions")
+    private int dimensions;
+
     @JsonProperty("active")
     private boolean active;
 
+    @JsonProperty("quantization")
+    private String quantization;
+
+    @JsonProperty("residentMemory")
+    private Map<String, Long> residentMemory;
+
     @JsonCreator
     public AvailableModel(@JsonProperty("filename") final String filename,
-                          @JsonProperty("active") final boolean active) {
+                          @JsonProperty("format") final String format,
+                          @JsonProperty("fileSize") final long fileSize,
+                          @JsonProperty("vocabSize") final int vocabSize,
+                          @JsonProperty("dimensions") final int dimensions,
+                          @JsonProperty("active") final boolean active,
+                          @JsonProperty("quantization") final String quantization,
+                          @JsonProperty("residentMemory") final Map<String, Long> residentMemory) {
         this.filename = filename;
+        this.format = format;
+        this.fileSize = fileSize;
+        this.vocabSize = vocabSize;
+        this.dimensions = dimensions;
         this.active = active;
+        this.quantization = quantization;
+        this.residentMemory = residentMemory;
     }
 }
@@ -2,12 +2,14 @@ package net.mguenther.lingus.wordembedding.api;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Getter;
 import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
 
+@RegisterForReflection
 @Getter
 @ToString
 public class AvailableModelsResult {
@@ -15,9 +17,30 @@ public class AvailableModelsResult {
     @JsonProperty("availableModels")
     private List<AvailableModel> availableModels;
 
+    /**
+     * The model that serves requests which do not name a model explicitly, or {@code null}.
+     */
+    @JsonProperty("defaultModel")
+    private String defaultModel;
+
+    @JsonProperty("residentBytes")
+    private long residentBytes;
+
+    /**
+     * The number of bytes that resident models may occupy, or {@code 0} if there is no limit.
+     */
+    @JsonProperty("memoryBudget")
+    private long memoryBudget;
+
     @JsonCreator
-    public AvailableModelsResult(@JsonProperty("availableModels") final List<AvailableModel> availableModels) {
+    public AvailableModelsResult(@JsonProperty("availableModels") final List<AvailableModel> availableModels,
+                                 @JsonProperty("defaultModel") final String defaultModel,
+                                 @JsonProperty("residentBytes") final long residentBytes,
+                                 @JsonProperty("memoryBudget") final long memoryBudget) {
         this.availableModels = new ArrayList<>();
         this.availableModels.addAll(availableModels);
+        this.defaultModel = defaultModel;
+        this.residentBytes = residentBytes;
+        this.memoryBudget = memoryBudget;
     }
 }
@@ -0,0 +1,43 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Getter;
+import lombok.ToString;
+
+@RegisterForReflection
+@Getter
+@ToString
+@JsonPropertyOrder({"hits", "misses", "evictions", "hitRate", "size"})
+public class CacheStatistics {
+
+    @JsonProperty("hits")
+    private long hits;
+
+    @JsonProperty("misses")
+    private long misses;
+
+    @JsonProperty("evictions")
+    private long evictions;
+
+    @JsonProperty("hitRate")
+    private double hitRate;
+
+    @JsonProperty("size")
+    private long size;
+
+    @JsonCreator
+    public CacheStatistics(@JsonProperty("hits") final long hits,
+                           @JsonProperty("misses") final long misses,
+                           @JsonProperty("evictions") final long evictions,
+                           @JsonProperty("hitRate") final double hitRate,
+                           @JsonProperty("size") final long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.hitRate = hitRate;
+        this.size = size;
+    }
+}
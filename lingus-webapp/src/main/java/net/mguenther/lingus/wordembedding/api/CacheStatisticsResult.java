@@ -0,0 +1,31 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Getter;
+import lombok.ToString;
+
+@RegisterForReflection
+@Getter
+@ToString
+public class CacheStatisticsResult {
+
+    @JsonProperty("similarWords")
+    private CacheStatistics similarWords;
+
+    @JsonProperty("similarity")
+    private CacheStatistics similarity;
+
+    @JsonProperty("maximumSize")
+    private long maximumSize;
+
+    @JsonCreator
+    public CacheStatisticsResult(@JsonProperty("similarWords") final CacheStatistics similarWords,
+                                 @JsonProperty("similarity") final CacheStatistics similarity,
+                                 @JsonProperty("maximumSize") final long maximumSize) {
+        this.similarWords = similarWords;
+        this.similarity = similarity;
+        this.maximumSize = maximumSize;
+    }
+}
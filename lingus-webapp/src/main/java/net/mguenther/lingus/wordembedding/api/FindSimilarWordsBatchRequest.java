@@ -0,0 +1,66 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.json.bind.annotation.JsonbCreator;
+import javax.json.bind.annotation.JsonbProperty;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest.DEFAULT_SUGGESTIONS_PER_TERM;
+import static net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest.MAX_SUGGESTIONS_PER_TERM;
+import static net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest.MIN_SUGGESTIONS_PER_TERM;
+import static net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest.NO_TIMEOUT;
+
+/**
+ * Asks for similar words of many terms at once. Similar words are determined by an exact search,
+ * so there is no {@code efSearch} parameter. Duplicate terms are resolved only once.
+ */
+@RegisterForReflection
+@Getter
+@ToString
+public class FindSimilarWordsBatchRequest {
+
+    @JsonProperty("terms")
+    private final List<String> terms;
+
+    @JsonProperty("maxSuggestions")
+    private final int suggestionsPerTerm;
+
+    /**
+     * The filename of the resident model that shall be queried, or {@code null} for the model that has
+     * been activated most recently.
+     */
+    @JsonProperty("model")
+    private final String model;
+
+    /**
+     * The time in milliseconds after which the search stops, or {@link FindSimilarWordsRequest#NO_TIMEOUT}.
+     * Terms that have not been searched completely by then are answered with the most similar words
+     * found so far, if any.
+     */
+    @JsonProperty("timeoutMs")
+    private final long timeoutMs;
+
+    @JsonCreator
+    @JsonbCreator
+    public FindSimilarWordsBatchRequest(@JsonProperty("terms") @JsonbProperty("terms") final List<String> terms,
+                                        @JsonProperty("maxSuggestions") @JsonbProperty("maxSuggestions") final Integer maxSuggestions,
+                                        @JsonProperty("model") @JsonbProperty("model") final String model,
+                                        @JsonProperty("timeoutMs") @JsonbProperty("timeoutMs") final Long timeoutMs) {
+        this.terms = terms == null
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(terms)));
+        this.suggestionsPerTerm = maxSuggestions == null || maxSuggestions < MIN_SUGGESTIONS_PER_TERM || maxSuggestions > MAX_SUGGESTIONS_PER_TERM
+                ? DEFAULT_SUGGESTIONS_PER_TERM
+                : maxSuggestions;
+        this.model = model;
+        this.timeoutMs = timeoutMs == null ? NO_TIMEOUT : Math.max(NO_TIMEOUT, timeoutMs);
+    }
+}
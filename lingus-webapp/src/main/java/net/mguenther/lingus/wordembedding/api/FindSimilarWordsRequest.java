@@ -19,12 +19,28 @@ public class FindSimilarWordsRequest {
 
     public static final int MAX_SUGGESTIONS_PER_TERM = 10;
 
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    public static final int MIN_EF_SEARCH = 1;
+
+    public static final int MAX_EF_SEARCH = 1024;
+
+    public static final long NO_TIMEOUT = 0L;
+
     public static class FindSimilarWordsRequestBuilder {
 
         private final Set<String> terms = new HashSet<>();
 
         private int suggestionsPerTerm = DEFAULT_SUGGESTIONS_PER_TERM;
 
+        private int efSearch = DEFAULT_EF_SEARCH;
+
+        private boolean exact = false;
+
+        private String model;
+
+        private long timeoutMs = NO_TIMEOUT;
+
         public FindSimilarWordsRequestBuilder forTerm(final String term) {
             this.terms.add(term);
             return this;
@@ -44,8 +60,32 @@ public class FindSimilarWordsRequest {
             return this;
         }
 
+        public FindSimilarWordsRequestBuilder efSearch(final int efSearch) {
+            if (efSearch < MIN_EF_SEARCH || efSearch > MAX_EF_SEARCH) {
+                this.efSearch = DEFAULT_EF_SEARCH;
+            } else {
+                this.efSearch = efSearch;
+            }
+            return this;
+        }
+
+        public FindSimilarWordsRequestBuilder exact(final boolean exact) {
+            this.exact = exact;
+            return this;
+        }
+
+        public FindSimilarWordsRequestBuilder inModel(final String model) {
+            this.model = model;
+            return this;
+        }
+
+        public FindSimilarWordsRequestBuilder timeout(final long timeoutMs) {
+            this.timeoutMs = Math.max(NO_TIMEOUT, timeoutMs);
+            return this;
+        }
+
         public FindSimilarWordsRequest build() {
-            return new FindSimilarWordsRequest(terms, suggestionsPerTerm);
+            return new FindSimilarWordsRequest(terms, suggestionsPerTerm, efSearch, exact, model, timeoutMs);
         }
     }
 
@@ -53,6 +93,30 @@ public class FindSimilarWordsRequest {
 
     private final int suggestionsPerTerm;
 
+    /**
+     * Size of the dynamic candidate list of the approximate nearest-neighbour search. Higher values
+     * trade latency for recall.
+     */
+    private final int efSearch;
+
+    /**
+     * Bypasses the approximate nearest-neighbour search in favour of an exhaustive one, e.g. to
+     * measure the recall of the approximate search.
+     */
+    private final boolean exact;
+
+    /**
+     * The filename of the resident model that shall be queried, or {@code null} for the model that has
+     * been activated most recently.
+     */
+    private final String model;
+
+    /**
+     * The time in milliseconds after which the search returns the most similar words it has found so
+     * far instead of the exact result of its search, or {@link #NO_TIMEOUT}.
+     */
+    private final long timeoutMs;
+
     public static FindSimilarWordsRequestBuilder create() {
         return new FindSimilarWordsRequestBuilder();
     }
@@ -2,20 +2,50 @@ package net.mguenther.lingus.wordembedding.api;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Getter;
 import lombok.ToString;
 
 import java.util.Set;
 
+@RegisterForReflection
 @Getter
 @ToString
+@JsonPropertyOrder({"model", "modelVersion", "terms", "partial"})
 public class FindSimilarWordsResult {
 
+    /**
+     * The filename of the model that has answered the query.
+     */
+    @JsonProperty("model")
+    private String model;
+
+    /**
+     * Distinguishes successive activations of the model. The ids of similar words refer to the
+     * vocabulary of this activation (cf. {@link LingusMediaTypes#SIMILAR_WORD_IDS}).
+     */
+    @JsonProperty("modelVersion")
+    private long modelVersion;
+
     @JsonProperty("terms")
     private Set<Term> terms;
 
+    /**
+     * {@code true} if the deadline of the request has cut short the search for at least one of the
+     * terms (cf. {@link Term#isPartial()}).
+     */
+    @JsonProperty("partial")
+    private boolean partial;
+
     @JsonCreator
-    public FindSimilarWordsResult(@JsonProperty("terms") final Set<Term> terms) {
+    public FindSimilarWordsResult(@JsonProperty("model") final String model,
+                                  @JsonProperty("modelVersion") final long modelVersion,
+                                  @JsonProperty("terms") final Set<Term> terms,
+                                  @JsonProperty("partial") final boolean partial) {
+        this.model = model;
+        this.modelVersion = modelVersion;
         this.terms = terms;
+        this.partial = partial;
     }
 }
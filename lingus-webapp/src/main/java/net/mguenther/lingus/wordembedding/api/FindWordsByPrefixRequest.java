@@ -0,0 +1,31 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class FindWordsByPrefixRequest {
+
+    public static final int DEFAULT_LIMIT = 10;
+
+    public static final int MIN_LIMIT = 1;
+
+    public static final int MAX_LIMIT = 100;
+
+    private final String prefix;
+
+    private final int limit;
+
+    /**
+     * The filename of the resident model that shall be queried, or {@code null} for the model that has
+     * been activated most recently.
+     */
+    private final String model;
+
+    public FindWordsByPrefixRequest(final String prefix, final int limit, final String model) {
+        this.prefix = prefix == null ? "" : prefix;
+        this.limit = limit < MIN_LIMIT ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        this.model = model;
+    }
+}
@@ -0,0 +1,30 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@RegisterForReflection
+@Getter
+@ToString
+@JsonPropertyOrder({"prefix", "words"})
+public class FindWordsByPrefixResult {
+
+    @JsonProperty("prefix")
+    private String prefix;
+
+    @JsonProperty("words")
+    private List<String> words;
+
+    @JsonCreator
+    public FindWordsByPrefixResult(@JsonProperty("prefix") final String prefix,
+                                   @JsonProperty("words") final List<String> words) {
+        this.prefix = prefix;
+        this.words = words;
+    }
+}
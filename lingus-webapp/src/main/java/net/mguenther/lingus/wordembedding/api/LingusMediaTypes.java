@@ -0,0 +1,66 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Media types of the compact binary encoding of similar words, which machine clients can ask for
+ * instead of JSON via the {@code Accept} header of {@code /query} and {@code /query/batch}.
+ *
+ * Both encodings share a fixed little-endian layout. A response starts with a header, followed by
+ * one record per term:
+ *
+ * <pre>
+ * response := version:u8 flags:u8 model:string modelVersion:i64 numberOfTerms:i32 term*
+ * term     := term:string partial:u8 numberOfSimilarWords:i32 similarWord*
+ * similar  := (word:string | id:i32) similarity:f32
+ * string   := length:i32 utf8:u8[length]
+ * </pre>
+ *
+ * Bit 0 of {@code flags} marks the result as partial (cf. {@link FindSimilarWordsResult#isPartial()})
+ * and bit 1 says that similar words are encoded by their ids (cf. {@link SimilarWord#getId()}) rather
+ * than as strings. {@code model} and {@code modelVersion} identify the activation of the model that
+ * has answered the request (cf. {@link FindSimilarWordsResult#getModelVersion()}). {@code numberOfTerms}
+ * is {@code -1} for streamed batch responses, which end with the last term record.
+ */
+public final class LingusMediaTypes {
+
+    /**
+     * Similar words are encoded as UTF-8 strings.
+     */
+    public static final String SIMILAR_WORDS = "application/x-lingus-similar-words";
+
+    public static final MediaType SIMILAR_WORDS_TYPE = MediaType.valueOf(SIMILAR_WORDS);
+
+    /**
+     * Similar words are encoded as their ids in the vocabulary of the model, which clients resolve
+     * against their own copy of the vocabulary. The header of a response names the model and its
+     * version, so that clients notice when their copy does not match, and
+     * {@code /wordembedding/admin/models/{filename}/vocabulary} serves the words of a resident model
+     * in the order of their ids along with the same version.
+     */
+    public static final String SIMILAR_WORD_IDS = "application/x-lingus-similar-word-ids";
+
+    public static final MediaType SIMILAR_WORD_IDS_TYPE = MediaType.valueOf(SIMILAR_WORD_IDS);
+
+    public static final int VERSION = 2;
+
+    public static final int FLAG_PARTIAL = 1;
+
+    public static final int FLAG_IDS = 1 << 1;
+
+    public static final int STREAMED = -1;
+
+    /**
+     * Response header that carries the filename of the model that has answered a query.
+     */
+    public static final String MODEL_HEADER = "Lingus-Model";
+
+    /**
+     * Response header that carries the version of the activation of the model that has answered a
+     * query (cf. {@link FindSimilarWordsResult#getModelVersion()}).
+     */
+    public static final String MODEL_VERSION_HEADER = "Lingus-Model-Version";
+
+    private LingusMediaTypes() {
+    }
+}
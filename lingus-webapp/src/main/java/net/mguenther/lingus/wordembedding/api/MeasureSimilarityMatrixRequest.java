@@ -0,0 +1,48 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.json.bind.annotation.JsonbCreator;
+import javax.json.bind.annotation.JsonbProperty;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Asks for the similarity of each term of {@code rows} with each term of {@code columns}. Terms keep
+ * their position, so that the similarities can be addressed by the index of their row and column.
+ */
+@RegisterForReflection
+@Getter
+@ToString
+public class MeasureSimilarityMatrixRequest {
+
+    public static final int MAX_TERMS = 1000;
+
+    @JsonProperty("rows")
+    private final List<String> rows;
+
+    @JsonProperty("columns")
+    private final List<String> columns;
+
+    /**
+     * The filename of the resident model that shall be queried, or {@code null} for the model that has
+     * been activated most recently.
+     */
+    @JsonProperty("model")
+    private final String model;
+
+    @JsonCreator
+    @JsonbCreator
+    public MeasureSimilarityMatrixRequest(@JsonProperty("rows") @JsonbProperty("rows") final List<String> rows,
+                                          @JsonProperty("columns") @JsonbProperty("columns") final List<String> columns,
+                                          @JsonProperty("model") @JsonbProperty("model") final String model) {
+        this.rows = rows == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(rows));
+        this.columns = columns == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(columns));
+        this.model = model;
+    }
+}
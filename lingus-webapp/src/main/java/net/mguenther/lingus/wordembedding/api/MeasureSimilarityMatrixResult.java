@@ -0,0 +1,51 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * The similarity of each term of the rows with each term of the columns of a
+ * {@link MeasureSimilarityMatrixRequest}. {@code similarities.get(i).get(j)} is the similarity of
+ * {@code rows.get(i)} and {@code columns.get(j)}, or {@code null} if the model does not recognize one
+ * of both terms. The terms that the model does not recognize are listed separately.
+ */
+@RegisterForReflection
+@Getter
+@ToString
+@JsonPropertyOrder({"rows", "columns", "unknownRows", "unknownColumns", "similarities"})
+public class MeasureSimilarityMatrixResult {
+
+    @JsonProperty("rows")
+    private List<String> rows;
+
+    @JsonProperty("columns")
+    private List<String> columns;
+
+    @JsonProperty("unknownRows")
+    private List<String> unknownRows;
+
+    @JsonProperty("unknownColumns")
+    private List<String> unknownColumns;
+
+    @JsonProperty("similarities")
+    private List<List<Double>> similarities;
+
+    @JsonCreator
+    public MeasureSimilarityMatrixResult(@JsonProperty("rows") final List<String> rows,
+                                         @JsonProperty("columns") final List<String> columns,
+                                         @JsonProperty("unknownRows") final List<String> unknownRows,
+                                         @JsonProperty("unknownColumns") final List<String> unknownColumns,
+                                         @JsonProperty("similarities") final List<List<Double>> similarities) {
+        this.rows = rows;
+        this.columns = columns;
+        this.unknownRows = unknownRows;
+        this.unknownColumns = unknownColumns;
+        this.similarities = similarities;
+    }
+}
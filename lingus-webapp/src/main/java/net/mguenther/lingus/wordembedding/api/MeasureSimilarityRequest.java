@@ -11,4 +11,14 @@ public class MeasureSimilarityRequest {
 
     private final String word1;
     private final String word2;
+
+    /**
+     * The filename of the resident model that shall be queried, or {@code null} for the model that has
+     * been activated most recently.
+     */
+    private final String model;
+
+    public MeasureSimilarityRequest(final String word1, final String word2) {
+        this(word1, word2, null);
+    }
 }
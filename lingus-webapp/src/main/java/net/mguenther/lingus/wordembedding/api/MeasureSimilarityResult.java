@@ -2,10 +2,12 @@ package net.mguenther.lingus.wordembedding.api;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
+@RegisterForReflection
 @Getter
 @ToString
 @RequiredArgsConstructor
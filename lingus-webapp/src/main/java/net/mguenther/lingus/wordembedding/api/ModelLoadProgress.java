@@ -0,0 +1,87 @@
+package net.mguenther.lingus.wordembedding.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Progress of the activation of a model, which happens in the background. The state is one of
+ * {@code LOADING}, {@code COMPLETED} or {@code FAILED}; while loading, the phase is one of
+ * {@code READING}, {@code INDEXING} or {@code QUANTIZING}.
+ */
+@RegisterForReflection
+@Getter
+@ToString
+public class ModelLoadProgress {
+
+    @JsonProperty("filename")
+    private String filename;
+
+    @JsonProperty("quantization")
+    private String quantization;
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("phase")
+    private String phase;
+
+    @JsonProperty("bytesRead")
+    private long bytesRead;
+
+    @JsonProperty("totalBytes")
+    private long totalBytes;
+
+    @JsonProperty("wordsParsed")
+    private long wordsParsed;
+
+    @JsonProperty("wordsIndexed")
+    private long wordsIndexed;
+
+    /**
+     * The number of words of the model, or {@code -1} if it is not known yet.
+     */
+    @JsonProperty("totalWords")
+    private long totalWords;
+
+    @JsonProperty("elapsedMillis")
+    private long elapsedMillis;
+
+    /**
+     * Estimated time until the current phase completes, or {@code null} if there is no estimate.
+     */
+    @JsonProperty("etaMillis")
+    private Long etaMillis;
+
+    @JsonProperty("error")
+    private String error;
+
+    @JsonCreator
+    public ModelLoadProgress(@JsonProperty("filename") final String filename,
+                             @JsonProperty("quantization") final String quantization,
+                             @JsonProperty("state") final String state,
+                             @JsonProperty("phase") final String phase,
+                             @JsonProperty("bytesRead") final long bytesRead,
+                             @JsonProperty("totalBytes") final long totalBytes,
+                             @JsonProperty("wordsParsed") final long wordsParsed,
+                             @JsonProperty("wordsIndexed") final long wordsIndexed,
+                             @JsonProperty("totalWords") final long totalWords,
+                             @JsonProperty("elapsedMillis") final long elapsedMillis,
+                             @JsonProperty("etaMillis") final Long etaMillis,
+                             @JsonProperty("error") final String error) {
+        this.filename = filename;
+        this.quantization = quantization;
+        this.state = state;
+        this.phase = phase;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.wordsParsed = wordsParsed;
+        this.wordsIndexed = wordsIndexed;
+        this.totalWords = totalWords;
+        this.elapsedMillis = elapsedMillis;
+        this.etaMillis = etaMillis;
+        this.error = error;
+    }
+}
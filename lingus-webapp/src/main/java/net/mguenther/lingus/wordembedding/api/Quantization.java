@@ -0,0 +1,22 @@
+package net.mguenther.lingus.wordembedding.api;
+
+/**
+ * The in-memory representations that a model can be activated with.
+ */
+public enum Quantization {
+
+    /**
+     * Full-precision 32-bit floats.
+     */
+    NONE,
+
+    /**
+     * One signed byte per vector component.
+     */
+    INT8,
+
+    /**
+     * Product quantization: one byte per subspace of the vector space.
+     */
+    PQ
+}
@@ -1,26 +1,46 @@
 package net.mguenther.lingus.wordembedding.api;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Getter;
 import lombok.ToString;
 
+import javax.json.bind.annotation.JsonbTransient;
+
+@RegisterForReflection
 @Getter
 @ToString
 @JsonPropertyOrder({"word", "similarity"})
 public class SimilarWord {
 
+    public static final int UNKNOWN_ID = -1;
+
     @JsonProperty("word")
     private String word;
 
     @JsonProperty("similarity")
     private double similarity;
 
+    /**
+     * The id of the word in the vocabulary of the model, i.e. the position of the word in the model file, or
+     * {@link #UNKNOWN_ID}. Ids are only part of the binary encoding (cf. {@link LingusMediaTypes}).
+     */
+    @JsonIgnore
+    @JsonbTransient
+    private int id;
+
     @JsonCreator
     public SimilarWord(@JsonProperty("word") final String word,
                        @JsonProperty("similarity") final double similarity) {
+        this(word, similarity, UNKNOWN_ID);
+    }
+
+    public SimilarWord(final String word, final double similarity, final int id) {
         this.word = word;
         this.similarity = similarity;
+        this.id = id;
     }
 }
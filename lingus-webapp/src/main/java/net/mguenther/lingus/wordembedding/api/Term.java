@@ -3,14 +3,16 @@ package net.mguenther.lingus.wordembedding.api;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Getter;
 import lombok.ToString;
 
 import java.util.List;
 
+@RegisterForReflection
 @Getter
 @ToString
-@JsonPropertyOrder({"term", "similar"})
+@JsonPropertyOrder({"term", "similar", "partial"})
 public class Term {
 
     @JsonProperty("term")
@@ -19,10 +21,19 @@ public class Term {
     @JsonProperty("similar")
     private List<SimilarWord> similar;
 
+    /**
+     * {@code true} if the search for similar words has been cut short by the deadline of the request,
+     * so that more similar words may exist.
+     */
+    @JsonProperty("partial")
+    private boolean partial;
+
     @JsonCreator
     public Term(@JsonProperty("term") final String term,
-                @JsonProperty("similar") final List<SimilarWord> similar) {
+                @JsonProperty("similar") final List<SimilarWord> similar,
+                @JsonProperty("partial") final boolean partial) {
         this.term = term;
         this.similar = similar;
+        this.partial = partial;
     }
 }
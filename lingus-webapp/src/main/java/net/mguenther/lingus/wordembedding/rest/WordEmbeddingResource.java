@@ -1,12 +1,24 @@
 package net.mguenther.lingus.wordembedding.rest;
 
 import net.mguenther.lingus.wordembedding.api.AvailableModelsResult;
+import net.mguenther.lingus.wordembedding.api.CacheStatisticsResult;
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsBatchRequest;
 import net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest;
 import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.api.FindWordsByPrefixRequest;
+import net.mguenther.lingus.wordembedding.api.FindWordsByPrefixResult;
+import net.mguenther.lingus.wordembedding.api.LingusMediaTypes;
 import net.mguenther.lingus.wordembedding.api.ActivateModelRequest;
-import net.mguenther.lingus.wordembedding.api.ActivateModelResult;
+import net.mguenther.lingus.wordembedding.api.MeasureSimilarityMatrixRequest;
+import net.mguenther.lingus.wordembedding.api.MeasureSimilarityMatrixResult;
 import net.mguenther.lingus.wordembedding.api.MeasureSimilarityRequest;
 import net.mguenther.lingus.wordembedding.api.MeasureSimilarityResult;
+import net.mguenther.lingus.wordembedding.api.ModelLoadProgress;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+import net.mguenther.lingus.wordembedding.api.Term;
+import net.mguenther.lingus.wordembedding.rest.provider.SimilarWordsEncoder;
+import net.mguenther.lingus.wordembedding.service.Bulkheads;
+import net.mguenther.lingus.wordembedding.service.ModelSnapshot;
 import net.mguenther.lingus.wordembedding.service.WordEmbeddingService;
 import org.eclipse.microprofile.openapi.annotations.OpenAPIDefinition;
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -21,15 +33,45 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 
+/**
+ * None of the endpoints runs on a worker thread of the HTTP layer. Queries run on the query bulkhead,
+ * batch queries and similarity matrices on the batch bulkhead and requests of the admin endpoints on
+ * the admin bulkhead (cf. {@link Bulkheads}); the worker thread is
+ * released as soon as the request has been handed over. A request that finds its bulkhead saturated
+ * is answered with {@code 503 Service Unavailable} right away. The latency timers of the endpoints are
+ * part of {@link WordEmbeddingService}, so that they measure the work rather than the hand-over.
+ */
 @ApplicationScoped
 @Path("/wordembedding")
 @OpenAPIDefinition(
@@ -43,31 +85,185 @@ import java.util.Set;
 )
 public class WordEmbeddingResource {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+
+    private final Jsonb jsonb = JsonbBuilder.create();
+
     private WordEmbeddingService service;
 
+    private Bulkheads bulkheads;
+
     @Inject
-    public WordEmbeddingResource(final WordEmbeddingService service) {
+    public WordEmbeddingResource(final WordEmbeddingService service, final Bulkheads bulkheads) {
         this.service = service;
+        this.bulkheads = bulkheads;
     }
 
     @GET
     @Path("/query")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, LingusMediaTypes.SIMILAR_WORDS, LingusMediaTypes.SIMILAR_WORD_IDS})
     @Operation(summary = "Finds words that are similar to the given words.")
     @APIResponse(
-            description = "A result containing the set of original words, each enriched by a list of words that are similar",
-            content = @Content(mediaType = "application/json"),
+            description = "A result containing the set of original words, each enriched by a list of words that are similar. Machine clients may ask for a compact binary encoding instead of JSON via the Accept header.",
+            content = {
+                    @Content(mediaType = MediaType.APPLICATION_JSON),
+                    @Content(mediaType = LingusMediaTypes.SIMILAR_WORDS),
+                    @Content(mediaType = LingusMediaTypes.SIMILAR_WORD_IDS)
+            },
             responseCode = "200"
     )
     @Schema(implementation = FindSimilarWordsResult.class)
-    public FindSimilarWordsResult findSimilarities(@Parameter(description = "One or multiple words for which the client seeks to retrieve similar words.") @QueryParam("term") Set<String> terms,
-                                                   @Parameter(description = "The maximum number of suggested similar words per input word.") @QueryParam("maxSuggestions") int maxSuggestions) {
+    public CompletionStage<Response> findSimilarities(@Parameter(description = "One or multiple words for which the client seeks to retrieve similar words.") @QueryParam("term") Set<String> terms,
+                                                   @Parameter(description = "The maximum number of suggested similar words per input word.") @QueryParam("maxSuggestions") int maxSuggestions,
+                                                   @Parameter(description = "The size of the candidate list of the approximate nearest-neighbour search. Higher values trade latency for recall.") @QueryParam("efSearch") int efSearch,
+                                                   @Parameter(description = "Bypasses the approximate nearest-neighbour search in favour of an exact one.") @QueryParam("exact") boolean exact,
+                                                   @Parameter(description = "The filename of the resident model to query. Defaults to the model that has been activated most recently.") @QueryParam("model") String model,
+                                                   @Parameter(description = "The time in milliseconds after which the search returns the most similar words it has found so far, flagged as partial. Defaults to no timeout.") @QueryParam("timeoutMs") long timeoutMs,
+                                                   @Context HttpHeaders headers) {
+        final MediaType encoding = negotiate(headers, MediaType.APPLICATION_JSON_TYPE);
         final FindSimilarWordsRequest request = FindSimilarWordsRequest
                 .create()
                 .forTerm(terms)
                 .limit(maxSuggestions)
+                .efSearch(efSearch)
+                .exact(exact)
+                .inModel(model)
+                .timeout(timeoutMs)
                 .build();
-        return service.similar(request);
+        return bulkheads.query().submit(() -> {
+            final FindSimilarWordsResult result = service.similar(request);
+            return Response
+                    .ok(result, encoding)
+                    .header(LingusMediaTypes.MODEL_HEADER, result.getModel())
+                    .header(LingusMediaTypes.MODEL_VERSION_HEADER, result.getModelVersion())
+                    .build();
+        });
+    }
+
+    @POST
+    @Path("/query/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces({APPLICATION_NDJSON, LingusMediaTypes.SIMILAR_WORDS, LingusMediaTypes.SIMILAR_WORD_IDS})
+    @Operation(summary = "Finds words that are similar to each word of a large batch of words.")
+    @APIResponses({
+            @APIResponse(
+                    description = "A stream of newline-delimited JSON objects, one per original word, each enriched by a list of words that are similar. Words are streamed back as soon as they are resolved. Machine clients may ask for a compact binary encoding instead via the Accept header.",
+                    content = {
+                            @Content(mediaType = APPLICATION_NDJSON),
+                            @Content(mediaType = LingusMediaTypes.SIMILAR_WORDS),
+                            @Content(mediaType = LingusMediaTypes.SIMILAR_WORD_IDS)
+                    },
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    description = "There is no model in use",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "409"
+            )}
+    )
+    public void findSimilaritiesInBatch(final FindSimilarWordsBatchRequest request,
+                                        @Context HttpHeaders headers,
+                                        @Suspended final AsyncResponse response) {
+        final MediaType encoding = negotiate(headers, APPLICATION_NDJSON_TYPE);
+        // resuming a suspended response writes it on the calling thread, so resuming it from within
+        // the task scores and streams the whole batch on a thread of the batch bulkhead
+        bulkheads.batch()
+                .submit(() -> {
+                    final ModelSnapshot snapshot = service.snapshot(request.getModel());
+                    final StreamingOutput stream = encoding == APPLICATION_NDJSON_TYPE
+                            ? streamAsJson(snapshot, request)
+                            : streamAsBinary(snapshot, request, encoding == LingusMediaTypes.SIMILAR_WORD_IDS_TYPE);
+                    return response.resume(Response
+                            .ok(stream, encoding)
+                            .header(LingusMediaTypes.MODEL_HEADER, snapshot.filename())
+                            .header(LingusMediaTypes.MODEL_VERSION_HEADER, snapshot.getVersion())
+                            .build());
+                })
+                .whenComplete((resumed, e) -> {
+                    if (e != null) {
+                        response.resume(e);
+                    }
+                });
+    }
+
+    private StreamingOutput streamAsJson(final ModelSnapshot snapshot, final FindSimilarWordsBatchRequest request) {
+        return output -> {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            try {
+                service.similar(snapshot, request, term -> writeLine(writer, term));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+    }
+
+    private StreamingOutput streamAsBinary(final ModelSnapshot snapshot, final FindSimilarWordsBatchRequest request, final boolean ids) {
+        return output -> {
+            final BufferedOutputStream out = new BufferedOutputStream(output);
+            final SimilarWordsEncoder encoder = new SimilarWordsEncoder(out, ids);
+            encoder.writeStreamHeader(snapshot.filename(), snapshot.getVersion());
+            try {
+                service.similar(snapshot, request, term -> {
+                    try {
+                        encoder.write(term);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+    }
+
+    private void writeLine(final Writer writer, final Term term) {
+        try {
+            writer.write(jsonb.toJson(term));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Picks the encoding of similar words that the client prefers: one of the binary encodings of
+     * {@link LingusMediaTypes} if the client asks for it explicitly, otherwise the given JSON-based
+     * media type. Wildcards never select a binary encoding.
+     */
+    private static MediaType negotiate(final HttpHeaders headers, final MediaType json) {
+        for (MediaType acceptable : headers.getAcceptableMediaTypes()) {
+            if (acceptable.isWildcardType() || acceptable.isWildcardSubtype() || acceptable.isCompatible(json)) {
+                return json;
+            }
+            if (acceptable.isCompatible(LingusMediaTypes.SIMILAR_WORD_IDS_TYPE)) {
+                return LingusMediaTypes.SIMILAR_WORD_IDS_TYPE;
+            }
+            if (acceptable.isCompatible(LingusMediaTypes.SIMILAR_WORDS_TYPE)) {
+                return LingusMediaTypes.SIMILAR_WORDS_TYPE;
+            }
+        }
+        return json;
+    }
+
+    @GET
+    @Path("/vocabulary")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Finds words of the vocabulary that start with the given prefix.")
+    @APIResponse(
+            description = "A result containing the prefix along with the matching words, most frequent words first",
+            content = @Content(mediaType = "application/json"),
+            responseCode = "200"
+    )
+    @Schema(implementation = FindWordsByPrefixResult.class)
+    public CompletionStage<FindWordsByPrefixResult> findWordsByPrefix(@Parameter(description = "The prefix that the words have to start with.") @QueryParam("prefix") String prefix,
+                                                     @Parameter(description = "The maximum number of words (default: 10, capped at 100).") @QueryParam("limit") int limit,
+                                                     @Parameter(description = "The filename of the resident model to query. Defaults to the model that has been activated most recently.") @QueryParam("model") String model) {
+        final FindWordsByPrefixRequest request = new FindWordsByPrefixRequest(prefix, limit, model);
+        return bulkheads.query().submit(() -> service.wordsWithPrefix(request));
     }
 
     @GET
@@ -87,10 +283,33 @@ public class WordEmbeddingResource {
             )}
     )
     @Schema(implementation = MeasureSimilarityResult.class)
-    public MeasureSimilarityResult measureSimilarity(@Parameter(description = "The LHS of the similarity comparison.") @QueryParam("term1") String term1,
-                                                     @Parameter(description = "The RHS of the similarity comparison.") @QueryParam("term2") String term2) {
-        final MeasureSimilarityRequest request = new MeasureSimilarityRequest(term1, term2);
-        return service.measureSimilarity(request);
+    public CompletionStage<MeasureSimilarityResult> measureSimilarity(@Parameter(description = "The LHS of the similarity comparison.") @QueryParam("term1") String term1,
+                                                     @Parameter(description = "The RHS of the similarity comparison.") @QueryParam("term2") String term2,
+                                                     @Parameter(description = "The filename of the resident model to query. Defaults to the model that has been activated most recently.") @QueryParam("model") String model) {
+        final MeasureSimilarityRequest request = new MeasureSimilarityRequest(term1, term2, model);
+        return bulkheads.query().submit(() -> service.measureSimilarity(request));
+    }
+
+    @POST
+    @Path("/similarity/matrix")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Measures the similarity of each word of a list of words with each word of another list of words.")
+    @APIResponses({
+            @APIResponse(
+                    description = "A result containing the similarity of each pair of words, along with the words that the model does not recognize",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    description = "One of the lists exceeds the maximum number of words",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "400"
+            )}
+    )
+    @Schema(implementation = MeasureSimilarityMatrixResult.class)
+    public CompletionStage<MeasureSimilarityMatrixResult> measureSimilarities(final MeasureSimilarityMatrixRequest request) {
+        return bulkheads.batch().submit(() -> service.measureSimilarities(request));
     }
 
     @GET
@@ -98,26 +317,150 @@ public class WordEmbeddingResource {
     @Produces(MediaType.APPLICATION_JSON)
     @Operation(summary = "Shows all available Word2Vec models.")
     @APIResponse(
-            description = "A list of all available models that Lingus is able to load. Shows also which of these model is currently active (if any).",
+            description = "A list of all available models that Lingus is able to load. Shows also which of these model is currently active (if any) and the estimated resident memory of each model per quantization mode.",
             content = @Content(mediaType = "application/json"),
             responseCode = "200"
     )
     @Schema(implementation = AvailableModelsResult.class)
-    public AvailableModelsResult availableModels() {
-        return service.availableModels();
+    public CompletionStage<AvailableModelsResult> availableModels() {
+        return bulkheads.admin().submit(service::availableModels);
     }
 
     @PUT
     @Path("/admin/models/{filename}")
     @Produces(MediaType.APPLICATION_JSON)
-    @Operation(summary = "Activates the model identified by its filename. Deactivates the current model, if any.")
+    @Operation(summary = "Activates the model identified by its filename in the background. Resident models keep serving requests in the meantime.")
+    @APIResponses({
+            @APIResponse(
+                    description = "The activation has been started. The response shows its initial progress and refers to the progress endpoint.",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "202"
+            ),
+            @APIResponse(
+                    description = "Another model is being loaded at the moment, or the model would not fit into memory",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "409"
+            )}
+    )
+    @Schema(implementation = ModelLoadProgress.class)
+    public CompletionStage<Response> loadModel(@PathParam("filename") String filename,
+                              @Parameter(description = "The in-memory representation of the vectors: NONE (full precision), INT8 or PQ (product quantization).") @QueryParam("quantization") @DefaultValue("NONE") Quantization quantization,
+                              @Context UriInfo uriInfo) {
+        // UriInfo is bound to the thread that dispatches the request
+        final URI progressLocation = uriInfo.getAbsolutePathBuilder().path("progress").build();
+        final ActivateModelRequest request = new ActivateModelRequest(filename, quantization);
+        return bulkheads.admin().submit(() -> Response
+                .accepted(service.activate(request))
+                .location(progressLocation)
+                .build());
+    }
+
+    @DELETE
+    @Path("/admin/models/{filename}")
+    @Operation(summary = "Deactivates (unloads) the model identified by its filename.")
+    @APIResponses({
+            @APIResponse(
+                    description = "The model has been unloaded",
+                    responseCode = "204"
+            ),
+            @APIResponse(
+                    description = "The model is not loaded at the present time",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "409"
+            )}
+    )
+    public CompletionStage<Void> unloadModel(@PathParam("filename") String filename) {
+        return bulkheads.admin().submit(() -> {
+            service.deactivate(filename);
+            return null;
+        });
+    }
+
+    @GET
+    @Path("/admin/models/{filename}/progress")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Shows the progress of the latest activation of the model identified by its filename.")
+    @APIResponses({
+            @APIResponse(
+                    description = "Bytes read, words parsed and indexed, and the estimated remaining time of the current phase of the activation",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    description = "The model is unknown or has not been activated so far",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "404"
+            )}
+    )
+    @Schema(implementation = ModelLoadProgress.class)
+    public CompletionStage<ModelLoadProgress> loadProgress(@PathParam("filename") String filename) {
+        return bulkheads.admin().submit(() -> service.progress(filename));
+    }
+
+    @GET
+    @Path("/admin/models/{filename}/vocabulary")
+    @Produces(MediaType.TEXT_PLAIN)
+    @Operation(summary = "Streams the words of the resident model identified by its filename in the order of their ids.")
+    @APIResponses({
+            @APIResponse(
+                    description = "One word per line, the word with id 0 first. The Lingus-Model-Version header identifies the activation of the model, which clients compare with the version of responses that encode similar words by their ids.",
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN),
+                    responseCode = "200"
+            ),
+            @APIResponse(
+                    description = "The model is not loaded at the present time",
+                    content = @Content(mediaType = "application/json"),
+                    responseCode = "409"
+            )}
+    )
+    public void vocabulary(@PathParam("filename") String filename,
+                           @Suspended final AsyncResponse response) {
+        // cf. findSimilaritiesInBatch
+        bulkheads.batch()
+                .submit(() -> {
+                    final ModelSnapshot snapshot = service.snapshot(filename);
+                    final StreamingOutput stream = output -> {
+                        final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                        try {
+                            service.vocabulary(snapshot, word -> writeWord(writer, word));
+                        } catch (UncheckedIOException e) {
+                            throw e.getCause();
+                        }
+                        writer.flush();
+                    };
+                    return response.resume(Response
+                            .ok(stream, MediaType.TEXT_PLAIN_TYPE.withCharset(StandardCharsets.UTF_8.name()))
+                            .header(LingusMediaTypes.MODEL_HEADER, snapshot.filename())
+                            .header(LingusMediaTypes.MODEL_VERSION_HEADER, snapshot.getVersion())
+                            .build());
+                })
+                .whenComplete((resumed, e) -> {
+                    if (e != null) {
+                        response.resume(e);
+                    }
+                });
+    }
+
+    private static void writeWord(final Writer writer, final String word) {
+        try {
+            writer.write(word);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @GET
+    @Path("/admin/cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Operation(summary = "Shows statistics of the result caches.")
     @APIResponse(
-            description = "Shows which model has been activated and which one has been deactivated.",
+            description = "Hit, miss and eviction counters of the caches for similar words and similarity measurements.",
             content = @Content(mediaType = "application/json"),
             responseCode = "200"
     )
-    @Schema(implementation = ActivateModelResult.class)
-    public ActivateModelResult loadModel(@PathParam("filename") String filename) {
-        return service.activate(new ActivateModelRequest(filename));
+    @Schema(implementation = CacheStatisticsResult.class)
+    public CompletionStage<CacheStatisticsResult> cacheStatistics() {
+        return bulkheads.admin().submit(service::cacheStatistics);
     }
 }
@@ -0,0 +1,112 @@
+package net.mguenther.lingus.wordembedding.rest.provider;
+
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.api.LingusMediaTypes;
+import net.mguenther.lingus.wordembedding.api.SimilarWord;
+import net.mguenther.lingus.wordembedding.api.Term;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes similar words in the binary layout described by {@link LingusMediaTypes}. Each term is
+ * encoded into a reusable buffer and written to the stream with a single call, so that encoding
+ * allocates little more than the UTF-8 bytes of the words.
+ */
+public final class SimilarWordsEncoder {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final OutputStream out;
+
+    private final boolean ids;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * @param out
+     *      the stream to write to
+     * @param ids
+     *      {@code true} to encode similar words by their ids, {@code false} to encode them as strings
+     */
+    public SimilarWordsEncoder(final OutputStream out, final boolean ids) {
+        this.out = out;
+        this.ids = ids;
+    }
+
+    /**
+     * Writes the header and all terms of the given result.
+     */
+    public void write(final FindSimilarWordsResult result) throws IOException {
+        writeHeader(result.getModel(), result.getModelVersion(), result.getTerms().size(), result.isPartial());
+        for (Term term : result.getTerms()) {
+            write(term);
+        }
+    }
+
+    /**
+     * Writes the header of a stream of terms whose number is not known in advance.
+     *
+     * @param model
+     *      the filename of the model that answers the terms
+     * @param modelVersion
+     *      the version of the activation of that model
+     */
+    public void writeStreamHeader(final String model, final long modelVersion) throws IOException {
+        writeHeader(model, modelVersion, LingusMediaTypes.STREAMED, false);
+    }
+
+    private void writeHeader(final String model, final long modelVersion, final int numberOfTerms, final boolean partial) throws IOException {
+        buffer.clear();
+        buffer.put((byte) LingusMediaTypes.VERSION);
+        buffer.put((byte) ((partial ? LingusMediaTypes.FLAG_PARTIAL : 0) | (ids ? LingusMediaTypes.FLAG_IDS : 0)));
+        putString(model);
+        ensureRemaining(Long.BYTES + Integer.BYTES);
+        buffer.putLong(modelVersion);
+        buffer.putInt(numberOfTerms);
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Writes a single term along with its similar words.
+     */
+    public void write(final Term term) throws IOException {
+        buffer.clear();
+        putString(term.getTerm());
+        ensureRemaining(Byte.BYTES + Integer.BYTES);
+        buffer.put((byte) (term.isPartial() ? 1 : 0));
+        buffer.putInt(term.getSimilar().size());
+        for (SimilarWord similarWord : term.getSimilar()) {
+            if (ids) {
+                ensureRemaining(Integer.BYTES);
+                buffer.putInt(similarWord.getId());
+            } else {
+                putString(similarWord.getWord());
+            }
+            ensureRemaining(Float.BYTES);
+            buffer.putFloat((float) similarWord.getSimilarity());
+        }
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    private void putString(final String value) {
+        final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(Integer.BYTES + utf8.length);
+        buffer.putInt(utf8.length);
+        buffer.put(utf8);
+    }
+
+    private void ensureRemaining(final int bytes) {
+        if (buffer.remaining() < bytes) {
+            final ByteBuffer grown = ByteBuffer
+                    .allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package net.mguenther.lingus.wordembedding.rest.provider;
+
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.api.LingusMediaTypes;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Writes a {@link FindSimilarWordsResult} in the compact binary encoding of {@link LingusMediaTypes}.
+ */
+@Provider
+@ApplicationScoped
+@Produces({LingusMediaTypes.SIMILAR_WORDS, LingusMediaTypes.SIMILAR_WORD_IDS})
+public class SimilarWordsMessageBodyWriter implements MessageBodyWriter<FindSimilarWordsResult> {
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+        return FindSimilarWordsResult.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(final FindSimilarWordsResult result,
+                        final Class<?> type,
+                        final Type genericType,
+                        final Annotation[] annotations,
+                        final MediaType mediaType,
+                        final MultivaluedMap<String, Object> httpHeaders,
+                        final OutputStream entityStream) throws IOException {
+        final OutputStream out = new BufferedOutputStream(entityStream);
+        new SimilarWordsEncoder(out, LingusMediaTypes.SIMILAR_WORD_IDS_TYPE.getSubtype().equals(mediaType.getSubtype())).write(result);
+        out.flush();
+    }
+}
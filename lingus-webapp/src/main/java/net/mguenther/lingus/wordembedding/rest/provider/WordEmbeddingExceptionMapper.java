@@ -1,12 +1,20 @@
 package net.mguenther.lingus.wordembedding.rest.provider;
 
 import net.mguenther.lingus.common.api.Error;
+import net.mguenther.lingus.wordembedding.service.ActivationInProgressException;
+import net.mguenther.lingus.wordembedding.service.InsufficientMemoryException;
+import net.mguenther.lingus.wordembedding.service.ModelNotResidentException;
+import net.mguenther.lingus.wordembedding.service.ModelTooLargeException;
 import net.mguenther.lingus.wordembedding.service.NoModelLoadedException;
+import net.mguenther.lingus.wordembedding.service.OverloadedException;
+import net.mguenther.lingus.wordembedding.service.TooManyTermsException;
 import net.mguenther.lingus.wordembedding.service.UnableToActivateModelException;
 import net.mguenther.lingus.wordembedding.service.UnavailableModelException;
+import net.mguenther.lingus.wordembedding.service.UnknownActivationException;
 import net.mguenther.lingus.wordembedding.service.UnknownTermException;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
@@ -17,20 +25,36 @@ import java.util.Map;
 @ApplicationScoped
 public class WordEmbeddingExceptionMapper implements ExceptionMapper<Exception> {
 
+    /**
+     * Seconds after which a client should retry a request that has been shed.
+     */
+    private static final int RETRY_AFTER_OVERLOAD = 1;
+
     private static final Map<Class<? extends Exception>, Integer> EXCEPTION_TO_STATUS_CODE;
 
     static {
         EXCEPTION_TO_STATUS_CODE = new HashMap<>();
+        EXCEPTION_TO_STATUS_CODE.put(TooManyTermsException.class, 400);
         EXCEPTION_TO_STATUS_CODE.put(UnavailableModelException.class, 404);
         EXCEPTION_TO_STATUS_CODE.put(UnknownTermException.class, 404);
+        EXCEPTION_TO_STATUS_CODE.put(UnknownActivationException.class, 404);
         EXCEPTION_TO_STATUS_CODE.put(NoModelLoadedException.class, 409);
+        EXCEPTION_TO_STATUS_CODE.put(ModelNotResidentException.class, 409);
+        EXCEPTION_TO_STATUS_CODE.put(ActivationInProgressException.class, 409);
+        EXCEPTION_TO_STATUS_CODE.put(InsufficientMemoryException.class, 409);
+        EXCEPTION_TO_STATUS_CODE.put(ModelTooLargeException.class, 409);
         EXCEPTION_TO_STATUS_CODE.put(UnableToActivateModelException.class, 500);
+        EXCEPTION_TO_STATUS_CODE.put(OverloadedException.class, 503);
     }
 
     @Override
     public Response toResponse(final Exception e) {
         final int httpStatus = EXCEPTION_TO_STATUS_CODE.getOrDefault(e.getClass(), 500);
         final Error error = new Error(e.getMessage(), httpStatus);
-        return Response.status(httpStatus).entity(error).build();
+        final Response.ResponseBuilder response = Response.status(httpStatus).entity(error);
+        if (e instanceof OverloadedException) {
+            response.header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_OVERLOAD);
+        }
+        return response.build();
     }
 }
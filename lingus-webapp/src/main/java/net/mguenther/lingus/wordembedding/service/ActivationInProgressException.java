@@ -0,0 +1,10 @@
+package net.mguenther.lingus.wordembedding.service;
+
+public class ActivationInProgressException extends RuntimeException {
+
+    private static final String ERROR_MESSAGE = "Unable to activate another model while model '%s' is being loaded.";
+
+    public ActivationInProgressException(final String filename) {
+        super(String.format(ERROR_MESSAGE, filename));
+    }
+}
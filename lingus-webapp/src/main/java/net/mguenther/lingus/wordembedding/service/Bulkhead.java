@@ -0,0 +1,88 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs requests of one kind on a dedicated, bounded pool of threads, so that requests of one kind can
+ * neither exhaust the threads that serve requests of another kind nor the worker threads of the HTTP
+ * layer. At most {@code threads} requests run at the same time; up to {@code queueDepth} further
+ * requests wait for a thread. Requests beyond that are not queued, but fail right away with an
+ * {@link OverloadedException}, so that a client learns within microseconds that it should back off
+ * instead of waiting for a response that would arrive too late anyway.
+ */
+public final class Bulkhead {
+
+    private final String name;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer waitTime;
+
+    private final Counter rejections;
+
+    Bulkhead(final String name, final int threads, final int queueDepth, final LingusMetrics metrics) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.name = name;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueDepth)),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "lingus-" + name + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        final String prefix = "lingus.bulkhead." + name;
+        this.waitTime = metrics.timer(prefix + ".wait", "Time that requests of bulkhead '" + name + "' wait for a thread");
+        this.rejections = metrics.counter(prefix + ".rejected", "Number of requests that bulkhead '" + name + "' has rejected, as its queue was full");
+        metrics.gauge(prefix + ".active", "Number of requests that bulkhead '" + name + "' is running", MetricUnits.NONE, () -> (long) executor.getActiveCount());
+        metrics.gauge(prefix + ".queued", "Number of requests that wait for a thread of bulkhead '" + name + "'", MetricUnits.NONE, () -> (long) executor.getQueue().size());
+    }
+
+    /**
+     * Runs the given task on a thread of this bulkhead.
+     *
+     * @param task
+     *      the work of a single request
+     * @return
+     *      a stage that completes with the result of the task, or exceptionally with the exception that
+     *      the task has thrown (unwrapped), or with an {@link OverloadedException} if the bulkhead is
+     *      saturated
+     */
+    public <T> CompletionStage<T> submit(final Supplier<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTime.update(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.inc();
+            result.completeExceptionally(new OverloadedException(name, executor.getQueue().size()));
+        }
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,80 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Separates the execution of queries from the execution of administrative requests. Both run on their
+ * own {@link Bulkhead}, so that a burst of queries cannot keep an operator from activating or
+ * unloading a model, and vice versa. Batch queries and similarity matrices run on a bulkhead of their
+ * own as well, since each of them occupies its thread for much longer than a single query, so that a
+ * few clients that send large batches cannot starve the interactive queries.
+ *
+ * The query bulkhead runs as many queries at the same time as there are cores, since queries are
+ * CPU-bound, unless {@code lingus.bulkhead.query.threads} says otherwise.
+ */
+@ApplicationScoped
+public class Bulkheads {
+
+    private final Bulkhead query;
+
+    private final Bulkhead batch;
+
+    private final Bulkhead admin;
+
+    Bulkheads() {
+        // NO-OP (this unfortunately has to be done to make CDI happy)
+        query = null;
+        batch = null;
+        admin = null;
+    }
+
+    @Inject
+    public Bulkheads(@ConfigProperty(name = "lingus.bulkhead.query.threads", defaultValue = "0") final int queryThreads,
+                     @ConfigProperty(name = "lingus.bulkhead.query.queue-depth", defaultValue = "64") final int queryQueueDepth,
+                     @ConfigProperty(name = "lingus.bulkhead.batch.threads", defaultValue = "2") final int batchThreads,
+                     @ConfigProperty(name = "lingus.bulkhead.batch.queue-depth", defaultValue = "8") final int batchQueueDepth,
+                     @ConfigProperty(name = "lingus.bulkhead.admin.threads", defaultValue = "2") final int adminThreads,
+                     @ConfigProperty(name = "lingus.bulkhead.admin.queue-depth", defaultValue = "16") final int adminQueueDepth,
+                     final LingusMetrics metrics) {
+        final int numberOfQueryThreads = queryThreads > 0 ? queryThreads : Runtime.getRuntime().availableProcessors();
+        this.query = new Bulkhead("query", numberOfQueryThreads, queryQueueDepth, metrics);
+        this.batch = new Bulkhead("batch", Math.max(1, batchThreads), batchQueueDepth, metrics);
+        this.admin = new Bulkhead("admin", Math.max(1, adminThreads), adminQueueDepth, metrics);
+    }
+
+    /**
+     * @return
+     *      the bulkhead that runs queries for similar words, similarity measurements and vocabulary lookups
+     */
+    public Bulkhead query() {
+        return query;
+    }
+
+    /**
+     * @return
+     *      the bulkhead that runs batch queries for similar words, similarity matrices and streams of
+     *      the vocabulary of a model
+     */
+    public Bulkhead batch() {
+        return batch;
+    }
+
+    /**
+     * @return
+     *      the bulkhead that runs requests of the admin endpoints
+     */
+    public Bulkhead admin() {
+        return admin;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        query.shutdown();
+        batch.shutdown();
+        admin.shutdown();
+    }
+}
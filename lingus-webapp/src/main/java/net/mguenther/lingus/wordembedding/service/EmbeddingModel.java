@@ -0,0 +1,101 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import net.mguenther.lingus.wordembedding.vectors.Deadline;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Query operations on a loaded model, regardless of the file format it has been loaded from.
+ * Implementations are immutable and can be queried concurrently.
+ */
+interface EmbeddingModel {
+
+    boolean hasWord(String term);
+
+    /**
+     * @param term
+     *      the word for which similar words shall be found
+     * @param howMany
+     *      the maximum number of similar words
+     * @param efSearch
+     *      the size of the dynamic candidate list of the approximate search
+     * @param exact
+     *      {@code true} if the approximate search (and quantized vectors, if any) shall be bypassed in
+     *      favour of an exhaustive search on the full-precision vectors
+     * @param deadline
+     *      the deadline after which the search returns the most similar words it has found so far
+     * @return
+     *      similar words along with their similarity in descending order of their similarity,
+     *      excluding {@code term} itself; or {@link Optional#empty()} if the model does not
+     *      recognize {@code term}
+     */
+    Optional<NearestWords> nearest(String term, int howMany, int efSearch, boolean exact, Deadline deadline);
+
+    /**
+     * Finds similar words for many terms at once by an exact search on the full-precision vectors,
+     * which scores all terms against the vocabulary as a single blocked matrix product.
+     *
+     * @param terms
+     *      the words for which similar words shall be found
+     * @param howMany
+     *      the maximum number of similar words per term
+     * @param deadline
+     *      the deadline after which the search stops; terms that have not been searched completely
+     *      by then are passed on with the most similar words found so far, flagged as partial
+     * @param consumer
+     *      receives each term along with its similar words in descending order of their similarity
+     *      (excluding the term itself), or {@link Optional#empty()} if the model does not recognize
+     *      the term; results are passed on as soon as they are available
+     */
+    void nearest(List<String> terms, int howMany, Deadline deadline, BiConsumer<String, Optional<NearestWords>> consumer);
+
+    double similarity(String word, String otherWord);
+
+    /**
+     * Computes the similarity of each word of {@code rows} with each word of {@code columns} as a
+     * single blocked matrix product.
+     *
+     * @param rows
+     *      the words of the rows
+     * @param columns
+     *      the words of the columns
+     * @return
+     *      a matrix of {@code rows.size()} rows and {@code columns.size()} columns holding the
+     *      similarity of each pair of words, or {@link Float#NaN} if the model does not recognize one
+     *      of both words
+     */
+    float[][] similarities(List<String> rows, List<String> columns);
+
+    /**
+     * @param prefix
+     *      the prefix that the words have to start with
+     * @param limit
+     *      the maximum number of words
+     * @return
+     *      words of the vocabulary that start with the given prefix (or its normalized form, if
+     *      normalized lookups are enabled), most frequent words first
+     */
+    List<String> wordsWithPrefix(String prefix, int limit);
+
+    int vocabularySize();
+
+    /**
+     * @param id
+     *      the id of a word, between {@code 0} (inclusive) and {@link #vocabularySize()} (exclusive)
+     * @return
+     *      the word with the given id (cf. {@link net.mguenther.lingus.wordembedding.api.SimilarWord#getId()})
+     */
+    String word(int id);
+
+    int dimensions();
+
+    /**
+     * @return
+     *      the number of bytes that the model keeps resident in memory: its words and their index, the
+     *      vectors used for searching and re-ranking, its HNSW index along with the scratch space of
+     *      searches, and its neighbour table
+     */
+    long residentBytes();
+}
@@ -0,0 +1,266 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+import net.mguenther.lingus.wordembedding.vectors.DotProduct;
+import net.mguenther.lingus.wordembedding.vectors.HnswIndex;
+import net.mguenther.lingus.wordembedding.vectors.MappedVectorStore;
+import net.mguenther.lingus.wordembedding.vectors.ModelFingerprint;
+import net.mguenther.lingus.wordembedding.vectors.NeighbourTable;
+import net.mguenther.lingus.wordembedding.vectors.ProductQuantizedVectors;
+import net.mguenther.lingus.wordembedding.vectors.QuantizedVectors;
+import net.mguenther.lingus.wordembedding.vectors.ScalarQuantizedVectors;
+import net.mguenther.lingus.wordembedding.vectors.VectorStore;
+import net.mguenther.lingus.wordembedding.vectors.Word2VecModelReader;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Reads model files and prepares everything that is required to query them: the vectors, the HNSW
+ * index, the precomputed neighbours (if a neighbour table has been computed for the model) and - if
+ * requested - a quantized representation of the vectors.
+ */
+@Slf4j
+@ApplicationScoped
+class EmbeddingModelFactory {
+
+    private static final long SEED = 42L;
+
+    /**
+     * Rough number of bytes on the heap per word of a vocabulary that is read onto the heap: the word
+     * itself, as it is parsed and as it is packed into the word table, along with its entries in the
+     * vocabulary index (perfect hash, sorted ids and their block minima).
+     */
+    private static final long BYTES_PER_WORD = 80L;
+
+    /**
+     * Rough number of bytes on the heap per word of a vocabulary that is mapped into memory, which
+     * only accounts for its entries in the vocabulary index.
+     */
+    private static final long INDEX_BYTES_PER_WORD = 16L;
+
+    private static final String UNKNOWN_LAYOUT = "Model '%s' does not contain word vectors in a known layout. Convert it to the Lingus-native format using the 'convert-word2vec-model' command of the Lingus CLI.";
+
+    private final boolean indexEnabled;
+
+    private final int indexM;
+
+    private final int indexEfConstruction;
+
+    private final int pqSubspaces;
+
+    private final int pqSampleSize;
+
+    private final int pqIterations;
+
+    private final int rerankFactor;
+
+    private final boolean normalizedLookup;
+
+    private final DotProduct kernel;
+
+    private final int loaderThreads;
+
+    EmbeddingModelFactory() {
+        // NO-OP (this unfortunately has to be done to make CDI happy)
+        this(false, 0, 0, 0, 0, 0, 0, false, DotProduct.UNROLLED, 0);
+    }
+
+    @Inject
+    EmbeddingModelFactory(@ConfigProperty(name = "lingus.index.hnsw.enabled", defaultValue = "true") final boolean indexEnabled,
+                          @ConfigProperty(name = "lingus.index.hnsw.m", defaultValue = "16") final int indexM,
+                          @ConfigProperty(name = "lingus.index.hnsw.ef-construction", defaultValue = "100") final int indexEfConstruction,
+                          @ConfigProperty(name = "lingus.quantization.pq.subspaces", defaultValue = "0") final int pqSubspaces,
+                          @ConfigProperty(name = "lingus.quantization.pq.sample-size", defaultValue = "25000") final int pqSampleSize,
+                          @ConfigProperty(name = "lingus.quantization.pq.iterations", defaultValue = "10") final int pqIterations,
+                          @ConfigProperty(name = "lingus.quantization.rerank-factor", defaultValue = "10") final int rerankFactor,
+                          @ConfigProperty(name = "lingus.vocabulary.normalized-lookup", defaultValue = "true") final boolean normalizedLookup,
+                          @ConfigProperty(name = "lingus.scoring.kernel", defaultValue = "UNROLLED") final DotProduct kernel,
+                          @ConfigProperty(name = "lingus.loader.threads", defaultValue = "0") final int loaderThreads) {
+        this.indexEnabled = indexEnabled;
+        this.indexM = indexM;
+        this.indexEfConstruction = indexEfConstruction;
+        this.pqSubspaces = pqSubspaces;
+        this.pqSampleSize = pqSampleSize;
+        this.pqIterations = pqIterations;
+        this.rerankFactor = rerankFactor;
+        this.normalizedLookup = normalizedLookup;
+        this.kernel = kernel;
+        this.loaderThreads = loaderThreads > 0 ? loaderThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    EmbeddingModel create(final File modelFile,
+                          final ModelFormat format,
+                          final Quantization quantization,
+                          final LoadProgress progress) throws IOException {
+        final VectorStore store = read(modelFile, format, progress);
+        progress.describe(store.size());
+        progress.enter(LoadProgress.Phase.INDEXING);
+        final HnswIndex index = indexEnabled ? loadOrBuildIndex(modelFile, store, progress) : null;
+        progress.enter(LoadProgress.Phase.QUANTIZING);
+        final QuantizedVectors quantized = quantize(store, quantization);
+        final NeighbourTable neighbourTable = loadNeighbourTable(modelFile, store);
+        return new VectorStoreEmbeddingModel(store, index, neighbourTable, quantized, rerankFactor, normalizedLookup);
+    }
+
+    private VectorStore read(final File modelFile, final ModelFormat format, final LoadProgress progress) throws IOException {
+        switch (format) {
+            case LINGUS:
+                return MappedVectorStore.open(modelFile.toPath(), progress.reading(), kernel);
+            case WORD2VEC_BINARY:
+                return Word2VecModelReader.read(modelFile.toPath(), Word2VecModelReader.Layout.BINARY, loaderThreads, progress.reading(), kernel);
+            case WORD2VEC_TEXT:
+                return Word2VecModelReader.read(modelFile.toPath(), Word2VecModelReader.Layout.TEXT, loaderThreads, progress.reading(), kernel);
+            case DL4J:
+            default:
+                if (Word2VecModelReader.detect(modelFile.toPath()) != Word2VecModelReader.Layout.DL4J) {
+                    throw new IOException(String.format(UNKNOWN_LAYOUT, modelFile));
+                }
+                return Word2VecModelReader.read(modelFile.toPath(), Word2VecModelReader.Layout.DL4J, loaderThreads, progress.reading(), kernel);
+        }
+    }
+
+    private HnswIndex loadOrBuildIndex(final File modelFile, final VectorStore store, final LoadProgress progress) {
+        final Path indexLocation = HnswIndex.locationFor(modelFile.toPath());
+        final long fingerprint;
+        try {
+            fingerprint = ModelFingerprint.of(modelFile.toPath());
+        } catch (IOException e) {
+            log.warn("Unable to fingerprint the model file '{}'. The HNSW index is neither read nor persisted.", modelFile, e);
+            return buildIndex(store, progress);
+        }
+        if (indexLocation.toFile().exists()) {
+            try {
+                final HnswIndex index = HnswIndex.read(indexLocation, store, fingerprint);
+                progress.indexing().advance(0L, store.size());
+                log.info("Loaded HNSW index from file '{}'.", indexLocation);
+                return index;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to use the HNSW index at '{}'. Rebuilding it.", indexLocation, e);
+            }
+        }
+        final HnswIndex index = buildIndex(store, progress);
+        try {
+            index.write(indexLocation, fingerprint);
+            log.info("Persisted HNSW index to file '{}'.", indexLocation);
+        } catch (IOException e) {
+            log.warn("Unable to persist the HNSW index to '{}'. It will be rebuilt upon the next activation.", indexLocation, e);
+        }
+        return index;
+    }
+
+    private HnswIndex buildIndex(final VectorStore store, final LoadProgress progress) {
+        log.info("Building HNSW index for {} words (m = {}, efConstruction = {}).", store.size(), indexM, indexEfConstruction);
+        return HnswIndex.build(store, indexM, indexEfConstruction, SEED, progress.indexing());
+    }
+
+    private NeighbourTable loadNeighbourTable(final File modelFile, final VectorStore store) {
+        final Path tableLocation = NeighbourTable.locationFor(modelFile.toPath());
+        if (!tableLocation.toFile().exists()) {
+            return null;
+        }
+        try {
+            final NeighbourTable table = NeighbourTable.read(tableLocation, store, ModelFingerprint.of(modelFile.toPath()));
+            log.info("Loaded the {} nearest neighbours of {} words from file '{}'.", table.neighbours(), table.rows(), tableLocation);
+            return table;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to use the neighbour table at '{}'. Similar words are searched for all terms.", tableLocation, e);
+            return null;
+        }
+    }
+
+    private QuantizedVectors quantize(final VectorStore store, final Quantization quantization) {
+        switch (quantization) {
+            case INT8:
+                log.info("Quantizing {} vectors to int8.", store.size());
+                return ScalarQuantizedVectors.encode(store);
+            case PQ:
+                final int subspaces = ProductQuantizedVectors.subspacesFor(store.dimensions(), pqSubspaces);
+                log.info("Quantizing {} vectors with product quantization ({} subspaces).", store.size(), subspaces);
+                return ProductQuantizedVectors.encode(store, subspaces, pqSampleSize, pqIterations, SEED);
+            case NONE:
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Estimates the number of bytes that the words, the vectors and the HNSW index (if enabled) of a
+     * model with the given format and shape keep resident in each quantization mode. These estimates
+     * match {@link EmbeddingModel#residentBytes()} of the activated model, apart from its neighbour
+     * table.
+     */
+    Map<Quantization, Long> estimateResidentBytes(final ModelFormat format, final int vocabSize, final int dimensions) {
+        final Map<Quantization, Long> estimates = new EnumMap<>(Quantization.class);
+        for (Quantization quantization : Quantization.values()) {
+            estimates.put(quantization, estimateResidentBytes(format, vocabSize, dimensions, quantization));
+        }
+        return estimates;
+    }
+
+    /**
+     * Quantized vectors replace the full-precision vectors only for models in the Lingus-native format,
+     * whose full-precision vectors are mapped into memory and paged in for re-ranking on demand. The
+     * full-precision vectors of all other models remain on the heap for re-ranking, so quantized
+     * vectors occupy memory in addition to them.
+     */
+    private long estimateResidentBytes(final ModelFormat format, final int vocabSize, final int dimensions, final Quantization quantization) {
+        final long vectorBytes = quantization == Quantization.NONE || format != ModelFormat.LINGUS
+                ? estimateVectorBytes(vocabSize, dimensions, Quantization.NONE)
+                : 0L;
+        final long quantizedBytes = quantization == Quantization.NONE ? 0L : estimateVectorBytes(vocabSize, dimensions, quantization);
+        return estimateVocabularyBytes(format, vocabSize) + vectorBytes + quantizedBytes + estimateIndexBytes(vocabSize, dimensions);
+    }
+
+    /**
+     * @return
+     *      the estimated number of bytes that a vocabulary of the given format and size occupies on the
+     *      heap along with its vocabulary index; the words of models in the Lingus-native format
+     *      remain in the mapped file
+     */
+    private static long estimateVocabularyBytes(final ModelFormat format, final int vocabSize) {
+        return (long) vocabSize * (format == ModelFormat.LINGUS ? INDEX_BYTES_PER_WORD : BYTES_PER_WORD);
+    }
+
+    /**
+     * Estimates the memory that activating a model of the given format and shape requires. Models in
+     * the Lingus-native format are mapped into memory, all other models are read onto the heap. The
+     * full-precision vectors are kept in either case, as the candidates of searches on quantized
+     * vectors are re-ranked against them.
+     */
+    MemoryRequirement estimateRequirement(final ModelFormat format, final int vocabSize, final int dimensions, final Quantization quantization) {
+        final long vectorBytes = estimateVectorBytes(vocabSize, dimensions, Quantization.NONE);
+        final long quantizedBytes = quantization == Quantization.NONE ? 0L : estimateVectorBytes(vocabSize, dimensions, quantization);
+        final long mappedBytes = format == ModelFormat.LINGUS ? vectorBytes : 0L;
+        final long heapBytes = estimateVocabularyBytes(format, vocabSize)
+                + (vectorBytes - mappedBytes)
+                + quantizedBytes
+                + estimateIndexBytes(vocabSize, dimensions);
+        return new MemoryRequirement(heapBytes, mappedBytes, estimateResidentBytes(format, vocabSize, dimensions, quantization));
+    }
+
+    private long estimateVectorBytes(final int vocabSize, final int dimensions, final Quantization quantization) {
+        switch (quantization) {
+            case INT8:
+                return ScalarQuantizedVectors.estimateSizeInBytes(vocabSize, dimensions);
+            case PQ:
+                return ProductQuantizedVectors.estimateSizeInBytes(vocabSize, dimensions, ProductQuantizedVectors.subspacesFor(dimensions, pqSubspaces));
+            case NONE:
+            default:
+                return (long) vocabSize * dimensions * Float.BYTES;
+        }
+    }
+
+    private long estimateIndexBytes(final int vocabSize, final int dimensions) {
+        return indexEnabled
+                ? (long) vocabSize * (2 * indexM + 3) * Integer.BYTES + HnswIndex.estimateSearchContextBytes(vocabSize, dimensions)
+                : 0L;
+    }
+}
@@ -0,0 +1,10 @@
+package net.mguenther.lingus.wordembedding.service;
+
+public class InsufficientMemoryException extends RuntimeException {
+
+    private static final String ERROR_MESSAGE = "Refusing to activate model '%s', as it requires an estimated %d bytes of %s, but only %d bytes are available.";
+
+    public InsufficientMemoryException(final String filename, final long requiredBytes, final String memory, final long availableBytes) {
+        super(String.format(ERROR_MESSAGE, filename, requiredBytes, memory, availableBytes));
+    }
+}
@@ -0,0 +1,126 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Timer;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Application metrics of the service layer that cannot be expressed by annotating a single method,
+ * i.e. model activations, resident memory, the rate of terms that are not part of the vocabulary
+ * (out-of-vocabulary rate), coalesced searches, queries that have missed their deadline and the
+ * saturation of the bulkheads. Along with the latency timers of the endpoints, these metrics are exposed in the
+ * Prometheus format at {@code /metrics/application}.
+ */
+@ApplicationScoped
+public class LingusMetrics {
+
+    private final MetricRegistry registry;
+
+    private final Timer modelLoadTime;
+
+    private final Counter modelLoadBytes;
+
+    private final Counter modelLoadFailures;
+
+    private final Counter modelLoadRefusals;
+
+    private final Counter requestedTerms;
+
+    private final Counter unknownTerms;
+
+    private final Counter partialQueries;
+
+    private final Counter searchedTerms;
+
+    private final Counter coalescedTerms;
+
+    LingusMetrics() {
+        // NO-OP (this unfortunately has to be done to make CDI happy)
+        registry = null;
+        modelLoadTime = null;
+        modelLoadBytes = null;
+        modelLoadRefusals = null;
+        modelLoadFailures = null;
+        requestedTerms = null;
+        unknownTerms = null;
+        partialQueries = null;
+        searchedTerms = null;
+        coalescedTerms = null;
+    }
+
+    @Inject
+    public LingusMetrics(final MetricRegistry registry) {
+        this.registry = registry;
+        this.modelLoadTime = registry.timer(metadata("lingus.model.load", "Time to load a model until it serves requests", MetricType.TIMER, MetricUnits.NANOSECONDS));
+        this.modelLoadBytes = registry.counter(metadata("lingus.model.load.bytes", "Size of the model files that have been loaded", MetricType.COUNTER, MetricUnits.BYTES));
+        this.modelLoadFailures = registry.counter(metadata("lingus.model.load.failures", "Number of model activations that have failed", MetricType.COUNTER, MetricUnits.NONE));
+        this.modelLoadRefusals = registry.counter(metadata("lingus.model.load.refused", "Number of model activations that have been refused, as the model would not fit into memory", MetricType.COUNTER, MetricUnits.NONE));
+        this.requestedTerms = registry.counter(metadata("lingus.terms.requested", "Number of terms for which similar words have been requested", MetricType.COUNTER, MetricUnits.NONE));
+        this.unknownTerms = registry.counter(metadata("lingus.terms.unknown", "Number of terms for which similar words have been requested, but that the model does not recognize", MetricType.COUNTER, MetricUnits.NONE));
+        this.searchedTerms = registry.counter(metadata("lingus.terms.searched", "Number of searches for the similar words of a term that have been run", MetricType.COUNTER, MetricUnits.NONE));
+        this.coalescedTerms = registry.counter(metadata("lingus.terms.coalesced", "Number of searches for the similar words of a term that have shared the result of an identical search running at the same time", MetricType.COUNTER, MetricUnits.NONE));
+        this.partialQueries = registry.counter(metadata("lingus.queries.partial", "Number of queries for similar words that have been answered with partial results, as their deadline has passed", MetricType.COUNTER, MetricUnits.NONE));
+    }
+
+    void modelLoaded(final long bytes, final long elapsedNanos) {
+        modelLoadTime.update(elapsedNanos, TimeUnit.NANOSECONDS);
+        modelLoadBytes.inc(bytes);
+    }
+
+    void modelLoadFailed() {
+        modelLoadFailures.inc();
+    }
+
+    void modelLoadRefused() {
+        modelLoadRefusals.inc();
+    }
+
+    void termRequested(final boolean known) {
+        requestedTerms.inc();
+        if (!known) {
+            unknownTerms.inc();
+        }
+    }
+
+    void termSearched(final boolean coalesced) {
+        if (coalesced) {
+            coalescedTerms.inc();
+        } else {
+            searchedTerms.inc();
+        }
+    }
+
+    void queryAnsweredPartially() {
+        partialQueries.inc();
+    }
+
+    Timer timer(final String name, final String description) {
+        return registry.timer(metadata(name, description, MetricType.TIMER, MetricUnits.NANOSECONDS));
+    }
+
+    Counter counter(final String name, final String description) {
+        return registry.counter(metadata(name, description, MetricType.COUNTER, MetricUnits.NONE));
+    }
+
+    void gauge(final String name, final String description, final String unit, final Supplier<Long> value) {
+        registry.register(metadata(name, description, MetricType.GAUGE, unit), (Gauge<Long>) value::get);
+    }
+
+    private static Metadata metadata(final String name, final String description, final MetricType type, final String unit) {
+        return Metadata.builder()
+                .withName(name)
+                .withDescription(description)
+                .withType(type)
+                .withUnit(unit)
+                .build();
+    }
+}
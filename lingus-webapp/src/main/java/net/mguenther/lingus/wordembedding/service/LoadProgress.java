@@ -0,0 +1,139 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.Getter;
+import net.mguenther.lingus.wordembedding.api.ModelLoadProgress;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+import net.mguenther.lingus.wordembedding.vectors.ProgressListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of a single activation. The loader thread advances the counters, while
+ * request threads take consistent-enough snapshots of them via {@link #toResult()}.
+ */
+class LoadProgress {
+
+    enum State {
+        LOADING, COMPLETED, FAILED
+    }
+
+    enum Phase {
+        READING, INDEXING, QUANTIZING
+    }
+
+    @Getter
+    private final String filename;
+
+    private final Quantization quantization;
+
+    private final long totalBytes;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private final AtomicLong wordsParsed = new AtomicLong();
+
+    private final AtomicLong wordsIndexed = new AtomicLong();
+
+    private volatile long totalWords;
+
+    private volatile State state = State.LOADING;
+
+    private volatile Phase phase = Phase.READING;
+
+    private volatile long phaseStartedAt = startedAt;
+
+    private volatile long finishedAt;
+
+    private volatile String error;
+
+    LoadProgress(final String filename, final Quantization quantization, final long totalBytes, final long totalWords) {
+        this.filename = filename;
+        this.quantization = quantization;
+        this.totalBytes = totalBytes;
+        this.totalWords = totalWords;
+    }
+
+    ProgressListener reading() {
+        return (bytes, words) -> {
+            bytesRead.addAndGet(bytes);
+            wordsParsed.addAndGet(words);
+        };
+    }
+
+    ProgressListener indexing() {
+        return (bytes, words) -> wordsIndexed.addAndGet(words);
+    }
+
+    void describe(final int numberOfWords) {
+        this.totalWords = numberOfWords;
+    }
+
+    void enter(final Phase nextPhase) {
+        this.phase = nextPhase;
+        this.phaseStartedAt = System.currentTimeMillis();
+    }
+
+    void complete() {
+        this.finishedAt = System.currentTimeMillis();
+        this.state = State.COMPLETED;
+    }
+
+    void fail(final Throwable cause) {
+        this.finishedAt = System.currentTimeMillis();
+        this.error = cause.getMessage();
+        this.state = State.FAILED;
+    }
+
+    boolean isLoading() {
+        return state == State.LOADING;
+    }
+
+    ModelLoadProgress toResult() {
+        final State currentState = state;
+        final long now = currentState == State.LOADING ? System.currentTimeMillis() : finishedAt;
+        return new ModelLoadProgress(
+                filename,
+                quantization.name(),
+                currentState.name(),
+                currentState == State.LOADING ? phase.name() : null,
+                bytesRead.get(),
+                totalBytes,
+                wordsParsed.get(),
+                wordsIndexed.get(),
+                totalWords,
+                now - startedAt,
+                currentState == State.LOADING ? eta(now) : null,
+                error);
+    }
+
+    /**
+     * Extrapolates the remaining time of the current phase from the fraction of it that is done.
+     * Reading is measured in bytes if the loader reports them, in words otherwise.
+     */
+    private Long eta(final long now) {
+        final double done;
+        switch (phase) {
+            case READING:
+                done = bytesRead.get() > 0 && totalBytes > 0
+                        ? (double) bytesRead.get() / totalBytes
+                        : fraction(wordsParsed.get());
+                break;
+            case INDEXING:
+                done = fraction(wordsIndexed.get());
+                break;
+            case QUANTIZING:
+            default:
+                done = 0.0;
+        }
+        if (done <= 0.0 || done >= 1.0) {
+            return null;
+        }
+        return (long) ((now - phaseStartedAt) * (1.0 - done) / done);
+    }
+
+    private double fraction(final long words) {
+        return totalWords > 0 ? (double) words / totalWords : 0.0;
+    }
+}
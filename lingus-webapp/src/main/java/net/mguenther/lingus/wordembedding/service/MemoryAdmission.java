@@ -0,0 +1,170 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.LongSupplier;
+
+/**
+ * Refuses to activate a model that would not fit into memory before any of its vectors are read.
+ *
+ * The models that are resident already keep serving requests while another model is being loaded,
+ * so the heap that a model requires has to be available in addition to theirs. The heap that is in
+ * use is measured as the usage of each heap pool after its most recent collection, since the current
+ * usage includes garbage - e.g. an earlier activation of the same model that has been replaced in the
+ * meantime. Thus, an activation never triggers a collection on its own, which would pause the
+ * requests that are being served. Objects that have been allocated in a pool since its most recent
+ * collection are not accounted for. If {@code lingus.models.memory.collect-garbage} is enabled, a
+ * garbage collection is requested and the heap is measured again before a model is refused. A share
+ * of the heap ({@code lingus.models.memory.heap-headroom}) is kept free for serving requests.
+ *
+ * Bytes that are mapped into memory are not checked against the heap, but against the memory that
+ * the process is able to use outside of it: the memory limit of the container (or the physical
+ * memory of the machine, if there is no such limit) less the maximum heap. The bytes that the
+ * resident models map already count against this as well, as their pages compete for the same
+ * memory. Although the operating system is able to reclaim mapped pages, a model whose vectors do
+ * not fit would be paged in from disk over and over again.
+ *
+ * If a memory budget is configured, a model whose estimated resident size or whose mapped bytes
+ * exceed the budget on their own is refused as well.
+ */
+@Slf4j
+class MemoryAdmission {
+
+    private static final String[] CGROUP_MEMORY_LIMITS = {
+            "/sys/fs/cgroup/memory.max",
+            "/sys/fs/cgroup/memory/memory.limit_in_bytes"
+    };
+
+    private final long memoryBudget;
+
+    private final long heapHeadroom;
+
+    private final LongSupplier availableHeap;
+
+    private final LongSupplier memoryOutsideHeap;
+
+    private final Runnable collectGarbage;
+
+    MemoryAdmission(final long memoryBudget, final double heapHeadroom, final boolean collectGarbage) {
+        this(memoryBudget,
+                (long) (heapHeadroom * Runtime.getRuntime().maxMemory()),
+                MemoryAdmission::availableHeap,
+                MemoryAdmission::memoryOutsideHeap,
+                collectGarbage ? System::gc : null);
+    }
+
+    /**
+     * @param memoryOutsideHeap
+     *      the number of bytes that the process is able to use outside of the heap, e.g. for mappings
+     * @param collectGarbage
+     *      requests a garbage collection before the heap is measured again, or {@code null} if a model
+     *      that does not fit at first is refused right away
+     */
+    MemoryAdmission(final long memoryBudget,
+                    final long heapHeadroom,
+                    final LongSupplier availableHeap,
+                    final LongSupplier memoryOutsideHeap,
+                    final Runnable collectGarbage) {
+        this.memoryBudget = memoryBudget;
+        this.heapHeadroom = heapHeadroom;
+        this.availableHeap = availableHeap;
+        this.memoryOutsideHeap = memoryOutsideHeap;
+        this.collectGarbage = collectGarbage;
+    }
+
+    /**
+     * @param filename
+     *      the filename of the model that ought to be activated
+     * @param requirement
+     *      the estimated memory that activating the model requires
+     * @param residentMappedBytes
+     *      the number of bytes that the resident models (other than an earlier activation of the
+     *      same model, which maps the same file) map into memory
+     * @throws InsufficientMemoryException
+     *      if the model exceeds the memory budget on its own, does not fit into the available heap
+     *      or maps more bytes than are available outside of the heap
+     */
+    void admit(final String filename, final MemoryRequirement requirement, final long residentMappedBytes) {
+        if (memoryBudget > 0 && requirement.getResidentBytes() > memoryBudget) {
+            throw new InsufficientMemoryException(filename, requirement.getResidentBytes(), "the memory budget", memoryBudget);
+        }
+        if (memoryBudget > 0 && requirement.getMappedBytes() > memoryBudget) {
+            throw new InsufficientMemoryException(filename, requirement.getMappedBytes(), "mapped memory within the memory budget", memoryBudget);
+        }
+        final long availableOutsideHeap = Math.max(0L, memoryOutsideHeap.getAsLong() - residentMappedBytes);
+        if (requirement.getMappedBytes() > availableOutsideHeap) {
+            throw new InsufficientMemoryException(filename, requirement.getMappedBytes(), "memory outside of the heap", availableOutsideHeap);
+        }
+        long available = availableHeap.getAsLong() - heapHeadroom;
+        if (requirement.getHeapBytes() > available && collectGarbage != null) {
+            collectGarbage.run();
+            available = availableHeap.getAsLong() - heapHeadroom;
+        }
+        if (requirement.getHeapBytes() > available) {
+            throw new InsufficientMemoryException(filename, requirement.getHeapBytes(), "heap", Math.max(0L, available));
+        }
+        log.info("Admitting model '{}', which requires an estimated {} bytes of heap ({} bytes available) and maps {} bytes into memory ({} bytes available).",
+                filename, requirement.getHeapBytes(), available, requirement.getMappedBytes(), availableOutsideHeap);
+    }
+
+    /**
+     * @return
+     *      the number of bytes by which the live objects on the heap are able to grow until the heap
+     *      reaches its maximum size, as of the most recent collection of each heap pool
+     */
+    private static long availableHeap() {
+        long used = 0L;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isValid()) {
+                continue;
+            }
+            final MemoryUsage afterCollection = pool.getCollectionUsage();
+            used += afterCollection != null ? afterCollection.getUsed() : pool.getUsage().getUsed();
+        }
+        return Runtime.getRuntime().maxMemory() - used;
+    }
+
+    /**
+     * @return
+     *      the number of bytes that the process is able to use outside of the heap: the memory limit
+     *      of its container, or the physical memory of the machine, less the maximum heap
+     */
+    private static long memoryOutsideHeap() {
+        long limit = Long.MAX_VALUE;
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            limit = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+        }
+        for (String cgroupLimit : CGROUP_MEMORY_LIMITS) {
+            limit = Math.min(limit, readLimit(Paths.get(cgroupLimit)));
+        }
+        return limit == Long.MAX_VALUE ? Long.MAX_VALUE : limit - Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * @return
+     *      the memory limit in the given cgroup file, or {@code Long.MAX_VALUE} if there is none
+     */
+    private static long readLimit(final Path file) {
+        try {
+            if (!Files.isReadable(file)) {
+                return Long.MAX_VALUE;
+            }
+            final String value = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+            return "max".equals(value) ? Long.MAX_VALUE : Long.parseLong(value);
+        } catch (IOException | NumberFormatException e) {
+            log.debug("Unable to read the memory limit from '{}'.", file, e);
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The estimated memory that activating a model requires.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+class MemoryRequirement {
+
+    /**
+     * Bytes on the heap: the words, the vectors of models that are read onto the heap, the HNSW index
+     * and the quantized vectors.
+     */
+    private final long heapBytes;
+
+    /**
+     * Bytes of the model file that are mapped into memory instead of being copied onto the heap.
+     */
+    private final long mappedBytes;
+
+    /**
+     * Bytes that count towards {@code lingus.models.memory.budget} once the model is resident.
+     */
+    private final long residentBytes;
+}
@@ -0,0 +1,238 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.extern.slf4j.Slf4j;
+import net.mguenther.lingus.wordembedding.vectors.HnswIndex;
+import net.mguenther.lingus.wordembedding.vectors.LingusModelFormat;
+import net.mguenther.lingus.wordembedding.vectors.NeighbourTable;
+import net.mguenther.lingus.wordembedding.vectors.Word2VecModelReader;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps track of the models at {@code lingus.data.dir}. Each file in this directory is considered a
+ * model, apart from the HNSW indexes and neighbour tables that Lingus stores next to the models.
+ *
+ * Only the header of a model file is read to describe the model (its format, vocabulary size and
+ * dimensions), never its vectors. Unless {@code lingus.data.watch} is disabled, the directory is
+ * watched for changes afterwards: models that are added to or removed from the directory are
+ * picked up without a restart, and models whose files change are described anew. A model whose file
+ * is removed while it is resident keeps serving requests until it is unloaded.
+ */
+@Slf4j
+@ApplicationScoped
+class ModelDirectory {
+
+    private final String locationOnFS;
+
+    private final boolean watch;
+
+    private final Map<String, ModelMetadata> models = new ConcurrentSkipListMap<>();
+
+    private volatile WatchService watchService;
+
+    ModelDirectory() {
+        // NO-OP (this unfortunately has to be done to make CDI happy)
+        this(null, false);
+    }
+
+    @Inject
+    ModelDirectory(@ConfigProperty(name = "lingus.data.dir") final String locationOnFS,
+                   @ConfigProperty(name = "lingus.data.watch", defaultValue = "true") final boolean watch) {
+        this.locationOnFS = locationOnFS;
+        this.watch = watch;
+    }
+
+    @PostConstruct
+    void start() {
+        final Path directory = Paths.get(locationOnFS);
+        try {
+            if (watch) {
+                // register before scanning, so that no change in between goes unnoticed
+                watchService = directory.getFileSystem().newWatchService();
+                directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            }
+            scan(directory);
+        } catch (IOException e) {
+            final String message = "Application startup has been interrupted, as the model location at '%s' does not exist.";
+            throw new RuntimeException(String.format(message, locationOnFS));
+        }
+        if (watch) {
+            final Thread watcher = new Thread(() -> watch(directory), "lingus-model-directory");
+            watcher.setDaemon(true);
+            watcher.start();
+            log.info("Watching '{}' for models that are added, changed or removed.", locationOnFS);
+        }
+    }
+
+    /**
+     * @return
+     *      the models that are currently available, ordered by their filename
+     */
+    List<ModelMetadata> models() {
+        return new ArrayList<>(models.values());
+    }
+
+    /**
+     * @return
+     *      the model with the given filename, if it is currently available
+     */
+    Optional<ModelMetadata> find(final String filename) {
+        return Optional.ofNullable(models.get(filename));
+    }
+
+    private void scan(final Path directory) throws IOException {
+        final Set<String> present = new HashSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(ModelDirectory::isModel).forEach(pathToFile -> {
+                refresh(pathToFile);
+                present.add(pathToFile.getFileName().toString());
+            });
+        }
+        models.keySet().removeIf(filename -> !present.contains(filename));
+    }
+
+    private void watch(final Path directory) {
+        while (true) {
+            final WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean overflow = false;
+            final Set<Path> changed = new LinkedHashSet<>();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                } else {
+                    changed.add(directory.resolve((Path) event.context()));
+                }
+            }
+            try {
+                if (overflow) {
+                    log.info("Missed changes to '{}'. Scanning the directory anew.", directory);
+                    scan(directory);
+                } else {
+                    changed.forEach(this::changed);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to process changes to '{}'.", directory, e);
+            }
+            if (!key.reset()) {
+                log.warn("'{}' is no longer accessible. Changes to the available models are no longer picked up.", directory);
+                return;
+            }
+        }
+    }
+
+    private void changed(final Path pathToFile) {
+        if (isModel(pathToFile)) {
+            refresh(pathToFile);
+        } else if (!Files.exists(pathToFile)) {
+            final ModelMetadata removed = models.remove(pathToFile.getFileName().toString());
+            if (removed != null && removed.isActive()) {
+                log.warn("The file of model '{}' has been removed. The model keeps serving requests until it is unloaded.", removed.getFilename());
+            } else if (removed != null) {
+                log.info("Model '{}' has been removed.", removed.getFilename());
+            }
+        }
+    }
+
+    private void refresh(final Path pathToFile) {
+        final String filename = pathToFile.getFileName().toString();
+        final ModelMetadata existing = models.get(filename);
+        final boolean known = existing != null;
+        final ModelMetadata model = known ? existing : new ModelMetadata(filename, pathToFile.toString());
+        final long fileSize;
+        try {
+            fileSize = Files.size(pathToFile);
+        } catch (IOException e) {
+            log.warn("Unable to determine the size of model '{}'.", pathToFile, e);
+            return;
+        }
+        model.inspect(ModelFormat.of(pathToFile), fileSize);
+        describeFromHeader(model, pathToFile);
+        // a model is made available only once its format is known
+        models.putIfAbsent(filename, model);
+        if (known) {
+            log.debug("Model '{}' has changed and is now a {} model of {} bytes.", pathToFile, model.getFormat(), fileSize);
+        } else {
+            log.info("Found {} model at '{}'.", model.getFormat(), model.getLocationOnFS());
+        }
+    }
+
+    private static void describeFromHeader(final ModelMetadata model, final Path pathToFile) {
+        try {
+            switch (model.getFormat()) {
+                case LINGUS:
+                    try (FileChannel channel = FileChannel.open(pathToFile, StandardOpenOption.READ)) {
+                        final LingusModelFormat.Header header = LingusModelFormat.readHeader(channel);
+                        model.describe(header.getVocabSize(), header.getDimensions());
+                    }
+                    break;
+                case WORD2VEC_BINARY:
+                    describe(model, Word2VecModelReader.readHeader(pathToFile, Word2VecModelReader.Layout.BINARY));
+                    break;
+                case WORD2VEC_TEXT:
+                    describe(model, Word2VecModelReader.readHeader(pathToFile, Word2VecModelReader.Layout.TEXT));
+                    break;
+                case DL4J:
+                default:
+                    if (Word2VecModelReader.detect(pathToFile) == Word2VecModelReader.Layout.DL4J) {
+                        describe(model, Word2VecModelReader.readHeader(pathToFile, Word2VecModelReader.Layout.DL4J));
+                    }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to read the header of model '{}'.", pathToFile, e);
+        }
+    }
+
+    private static void describe(final ModelMetadata model, final Word2VecModelReader.Header header) {
+        model.describe(header.getVocabSize(), header.getDimensions());
+    }
+
+    private static boolean isModel(final Path pathToFile) {
+        final String filename = pathToFile.getFileName().toString();
+        return Files.isRegularFile(pathToFile)
+                && !filename.endsWith(HnswIndex.FILE_EXTENSION)
+                && !filename.endsWith(NeighbourTable.FILE_EXTENSION);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Unable to stop watching '{}'.", locationOnFS, e);
+            }
+        }
+    }
+}
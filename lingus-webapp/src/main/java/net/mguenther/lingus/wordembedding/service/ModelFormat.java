@@ -0,0 +1,51 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import net.mguenther.lingus.wordembedding.vectors.LingusModelFormat;
+import net.mguenther.lingus.wordembedding.vectors.Word2VecModelReader;
+
+import java.nio.file.Path;
+
+/**
+ * The file formats that Lingus is able to load models from.
+ */
+public enum ModelFormat {
+
+    /**
+     * A model written by {@code WordVectorSerializer.writeWord2VecModel} of Deeplearning4J. Loading
+     * such a model parses the whole file onto the heap. Files that are neither in one of the other
+     * formats nor an archive of this kind are listed as well, but cannot be activated; they have to be
+     * converted to the Lingus-native format by the Lingus CLI first.
+     */
+    DL4J,
+
+    /**
+     * A model in the binary format of the original word2vec tool. Loading such a model parses the
+     * whole file onto the heap.
+     */
+    WORD2VEC_BINARY,
+
+    /**
+     * A model in the text format of the original word2vec tool. Loading such a model parses the whole
+     * file onto the heap.
+     */
+    WORD2VEC_TEXT,
+
+    /**
+     * A model in the Lingus-native format (cf. {@link LingusModelFormat}). Such a model is mapped into
+     * memory and queried in place.
+     */
+    LINGUS;
+
+    static ModelFormat of(final Path pathToFile) {
+        if (LingusModelFormat.isLingusModel(pathToFile)) {
+            return LINGUS;
+        }
+        final Word2VecModelReader.Layout layout = Word2VecModelReader.detect(pathToFile);
+        if (layout == Word2VecModelReader.Layout.BINARY) {
+            return WORD2VEC_BINARY;
+        } else if (layout == Word2VecModelReader.Layout.TEXT) {
+            return WORD2VEC_TEXT;
+        }
+        return DL4J;
+    }
+}
@@ -1,23 +1,54 @@
 package net.mguenther.lingus.wordembedding.service;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.ToString;
+import net.mguenther.lingus.wordembedding.api.Quantization;
 
 @Getter
 @ToString
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class ModelMetadata {
 
     private final String filename;
     private final String locationOnFS;
-    private boolean active;
+    private volatile ModelFormat format;
+    private volatile long fileSize;
+    private volatile boolean active;
+    private volatile Quantization quantization;
+    private volatile int vocabSize;
+    private volatile int dimensions;
 
-    public void activate() {
-        active = true;
+    public void activate(final Quantization quantization) {
+        this.active = true;
+        this.quantization = quantization;
     }
 
     public void deactivate() {
-        active = false;
+        this.active = false;
+        this.quantization = null;
+    }
+
+    /**
+     * Records the format and the size of the model file, which may change while the file is being
+     * written. The shape of the model is reset until it is known again.
+     */
+    public void inspect(final ModelFormat format, final long fileSize) {
+        this.format = format;
+        this.fileSize = fileSize;
+        describe(0, 0);
+    }
+
+    /**
+     * Records the shape of the model, once it is known (either from the header of the model file or
+     * after the model has been loaded).
+     */
+    public void describe(final int vocabSize, final int dimensions) {
+        this.vocabSize = vocabSize;
+        this.dimensions = dimensions;
+    }
+
+    public boolean isDescribed() {
+        return dimensions > 0;
     }
 }
@@ -0,0 +1,10 @@
+package net.mguenther.lingus.wordembedding.service;
+
+public class ModelNotResidentException extends RuntimeException {
+
+    private static final String ERROR_MESSAGE = "Model '%s' is not loaded at the present time.";
+
+    public ModelNotResidentException(final String filename) {
+        super(String.format(ERROR_MESSAGE, filename));
+    }
+}
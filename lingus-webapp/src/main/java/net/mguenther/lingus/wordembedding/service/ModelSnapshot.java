@@ -0,0 +1,53 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+
+/**
+ * Immutable pairing of an activated model with its metadata. Requests obtain the snapshot of a model
+ * once and run all of their lookups against it, so they are never affected by a concurrent
+ * activation, and readers do not need to take any lock. The only mutable part of a snapshot is the
+ * time it has last been used, which decides which model is evicted first.
+ *
+ * A snapshot stays usable after its model has been unloaded or evicted, since the model is merely
+ * released to the garbage collector, so a request that holds a snapshot is answered completely.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class ModelSnapshot {
+
+    /**
+     * Distinguishes successive activations, even of the same model file.
+     */
+    @Getter
+    private final long version;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final ModelMetadata metadata;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final Quantization quantization;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final EmbeddingModel model;
+
+    @Getter(AccessLevel.PACKAGE)
+    private volatile long lastUsed = System.nanoTime();
+
+    void touch() {
+        lastUsed = System.nanoTime();
+    }
+
+    public String filename() {
+        return metadata.getFilename();
+    }
+
+    /**
+     * @return
+     *      identifies the results of this activation in the result cache
+     */
+    String cacheKey() {
+        return filename() + "#" + version;
+    }
+}
@@ -0,0 +1,10 @@
+package net.mguenther.lingus.wordembedding.service;
+
+public class ModelTooLargeException extends RuntimeException {
+
+    private static final String ERROR_MESSAGE = "Refusing to activate model '%s', as its %d words with %d dimensions exceed the largest array that the heap is able to hold. Convert it to the Lingus-native format using the 'convert-word2vec-model' command of the Lingus CLI.";
+
+    public ModelTooLargeException(final String filename, final int vocabSize, final int dimensions) {
+        super(String.format(ERROR_MESSAGE, filename, vocabSize, dimensions));
+    }
+}
@@ -0,0 +1,22 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * The words that are most similar to a term in descending order of their similarity. The words are
+ * partial if the search has been cut short by the deadline of the request, so that more similar
+ * words may exist.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+class NearestWords {
+
+    private final List<ScoredWord> words;
+
+    private final boolean partial;
+}
@@ -0,0 +1,10 @@
+package net.mguenther.lingus.wordembedding.service;
+
+public class OverloadedException extends RuntimeException {
+
+    private static final String ERROR_MESSAGE = "Unable to accept the request, as the %s requests that are already waiting exhaust the capacity of bulkhead '%s'. Retry later.";
+
+    public OverloadedException(final String bulkhead, final int waiting) {
+        super(String.format(ERROR_MESSAGE, waiting, bulkhead));
+    }
+}
@@ -0,0 +1,112 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import net.mguenther.lingus.wordembedding.api.CacheStatistics;
+import net.mguenther.lingus.wordembedding.api.CacheStatisticsResult;
+import net.mguenther.lingus.wordembedding.api.Term;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded cache for the results of similar-word queries and similarity measurements. Both
+ * caches use Caffeine's W-TinyLFU policy, which only admits a new entry at the expense of an
+ * existing one if the new entry is accessed more frequently. This protects the head terms of a
+ * Zipfian query distribution from being evicted by a burst of one-off queries.
+ *
+ * Entries are keyed by the activation of the model that computed them (cf.
+ * {@link ModelSnapshot#cacheKey()}), so results of a replaced or unloaded model can never be served
+ * for its successor. {@link #invalidate(String)} merely releases the entries of such a model early.
+ */
+@ApplicationScoped
+class ResultCache {
+
+    private final long maximumSize;
+
+    private final Cache<SimilarWordsKey, Term> similarWords;
+
+    private final Cache<SimilarityKey, Double> similarity;
+
+    ResultCache() {
+        // NO-OP (this unfortunately has to be done to make CDI happy)
+        this(0L);
+    }
+
+    @Inject
+    ResultCache(@ConfigProperty(name = "lingus.cache.maximum-size", defaultValue = "10000") final long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.similarWords = Caffeine.newBuilder().maximumSize(Math.max(0L, maximumSize)).recordStats().build();
+        this.similarity = Caffeine.newBuilder().maximumSize(Math.max(0L, maximumSize)).recordStats().build();
+    }
+
+    /**
+     * Looks up the similar words of a term, and loads and caches them if they are not cached yet.
+     * Partial results (cf. {@link Term#isPartial()}) are passed on, but never cached.
+     */
+    Term similarWords(final String model, final String term, final int maxSuggestions, final int efSearch, final Supplier<Term> loader) {
+        if (maximumSize <= 0) {
+            return loader.get();
+        }
+        final SimilarWordsKey key = new SimilarWordsKey(model, term, maxSuggestions, efSearch);
+        final Term cached = similarWords.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final Term loaded = loader.get();
+        if (!loaded.isPartial()) {
+            similarWords.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    double similarity(final String model, final String word1, final String word2, final Supplier<Double> loader) {
+        if (maximumSize <= 0) {
+            return loader.get();
+        }
+        return similarity.get(new SimilarityKey(model, word1, word2), key -> loader.get());
+    }
+
+    /**
+     * Discards all cached results of the given model.
+     */
+    void invalidate(final String model) {
+        similarWords.asMap().keySet().removeIf(key -> key.model.equals(model));
+        similarity.asMap().keySet().removeIf(key -> key.model.equals(model));
+    }
+
+    CacheStatisticsResult statistics() {
+        return new CacheStatisticsResult(
+                toStatistics(similarWords.stats(), similarWords.estimatedSize()),
+                toStatistics(similarity.stats(), similarity.estimatedSize()),
+                maximumSize);
+    }
+
+    private CacheStatistics toStatistics(final CacheStats stats, final long size) {
+        return new CacheStatistics(stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate(), size);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SimilarWordsKey {
+
+        private final String model;
+        private final String term;
+        private final int maxSuggestions;
+        private final int efSearch;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SimilarityKey {
+
+        private final String model;
+        private final String word1;
+        private final String word2;
+    }
+}
@@ -0,0 +1,21 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * A word along with its id in the vocabulary of the model and its similarity to the query of a
+ * nearest-neighbour search.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+class ScoredWord {
+
+    private final int id;
+
+    private final String word;
+
+    private final double similarity;
+}
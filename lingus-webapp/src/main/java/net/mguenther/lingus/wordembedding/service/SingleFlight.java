@@ -0,0 +1,104 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import net.mguenther.lingus.wordembedding.api.Term;
+import net.mguenther.lingus.wordembedding.vectors.Deadline;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Shares the search for the similar words of a term among concurrent identical searches (single
+ * flight). The first search of a term becomes the leader and runs the search; identical searches
+ * that arrive while the leader is still running wait for its result instead of running the same
+ * search again. Searches are identical if they target the same activation of a model with the same
+ * term, number of suggestions, {@code efSearch} and exactness.
+ *
+ * A search that waits for a leader never waits beyond its own deadline. It falls back to running the
+ * search itself if the leader does not complete in time, if the leader fails, or if the leader has
+ * been cut short by an earlier deadline while the waiting search still has time left.
+ *
+ * This sits below the {@link ResultCache}, so it coalesces the misses of the cache, and coalesces all
+ * searches if the cache is disabled or the search is exact.
+ */
+class SingleFlight {
+
+    private final ConcurrentMap<SearchKey, CompletableFuture<Term>> inFlight = new ConcurrentHashMap<>();
+
+    private final LingusMetrics metrics;
+
+    SingleFlight(final LingusMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    Term similarWords(final String model,
+                      final String term,
+                      final int maxSuggestions,
+                      final int efSearch,
+                      final boolean exact,
+                      final Deadline deadline,
+                      final Supplier<Term> search) {
+        final SearchKey key = new SearchKey(model, term, maxSuggestions, efSearch, exact);
+        final CompletableFuture<Term> own = new CompletableFuture<>();
+        final CompletableFuture<Term> leader = inFlight.putIfAbsent(key, own);
+        if (leader == null) {
+            return lead(key, own, search);
+        }
+        final Term shared = await(leader, deadline);
+        if (shared == null || (shared.isPartial() && !deadline.isExpired())) {
+            metrics.termSearched(false);
+            return search.get();
+        }
+        metrics.termSearched(true);
+        return shared;
+    }
+
+    private Term lead(final SearchKey key, final CompletableFuture<Term> own, final Supplier<Term> search) {
+        metrics.termSearched(false);
+        try {
+            final Term result = search.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * @return
+     *      the result of the leader, or {@code null} if the leader has failed or has not completed
+     *      before the given deadline
+     */
+    private Term await(final CompletableFuture<Term> leader, final Deadline deadline) {
+        try {
+            return deadline.isBounded()
+                    ? leader.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS)
+                    : leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class SearchKey {
+
+        private final String model;
+        private final String term;
+        private final int maxSuggestions;
+        private final int efSearch;
+        private final boolean exact;
+    }
+}
@@ -0,0 +1,37 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import net.mguenther.lingus.wordembedding.vectors.DotProduct;
+
+import java.nio.file.Path;
+
+/**
+ * Wires the service layer together without a CDI container, e.g. for benchmarks that exercise the
+ * service layer from outside of the application. The components are configured with the defaults of
+ * their configuration properties, except for the result cache, which is disabled so that callers
+ * measure the models rather than the cache, and the file watcher of the model directory, which is not
+ * started. Metrics are recorded into a registry of their own.
+ */
+public final class StandaloneWordEmbeddingService {
+
+    private StandaloneWordEmbeddingService() {
+    }
+
+    /**
+     * @param modelDirectory
+     *      the directory that holds the models (cf. {@code lingus.data.dir})
+     * @param indexEnabled
+     *      whether approximate searches go through an HNSW index (cf. {@code lingus.index.hnsw.enabled})
+     * @return
+     *      a service that has scanned the given directory, but has not activated any model yet
+     */
+    public static WordEmbeddingService create(final Path modelDirectory, final boolean indexEnabled) {
+        final EmbeddingModelFactory modelFactory = new EmbeddingModelFactory(indexEnabled, 16, 100, 0, 25000, 10, 10, true, DotProduct.UNROLLED, 0);
+        final ResultCache resultCache = new ResultCache(0L);
+        final LingusMetrics metrics = new LingusMetrics(new MetricsRegistryImpl());
+        final Word2VecProvider modelProvider = new Word2VecProvider(modelFactory, resultCache, metrics, 0L, 0.1, false);
+        final ModelDirectory models = new ModelDirectory(modelDirectory.toString(), false);
+        models.start();
+        return new WordEmbeddingService(models, modelProvider, modelFactory, resultCache, metrics);
+    }
+}
@@ -0,0 +1,10 @@
+package net.mguenther.lingus.wordembedding.service;
+
+public class TooManyTermsException extends RuntimeException {
+
+    private static final String ERROR_MESSAGE = "The request asks for %d terms, but accepts at most %d terms.";
+
+    public TooManyTermsException(final int numberOfTerms, final int maxTerms) {
+        super(String.format(ERROR_MESSAGE, numberOfTerms, maxTerms));
+    }
+}
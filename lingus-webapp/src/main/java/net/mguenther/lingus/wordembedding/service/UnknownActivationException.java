@@ -0,0 +1,10 @@
+package net.mguenther.lingus.wordembedding.service;
+
+public class UnknownActivationException extends RuntimeException {
+
+    private static final String ERROR_MESSAGE = "Model '%s' has not been activated so far.";
+
+    public UnknownActivationException(final String filename) {
+        super(String.format(ERROR_MESSAGE, filename));
+    }
+}
@@ -0,0 +1,220 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import lombok.RequiredArgsConstructor;
+import net.mguenther.lingus.wordembedding.vectors.BatchSearch;
+import net.mguenther.lingus.wordembedding.vectors.Deadline;
+import net.mguenther.lingus.wordembedding.vectors.ExhaustiveSearch;
+import net.mguenther.lingus.wordembedding.vectors.HnswIndex;
+import net.mguenther.lingus.wordembedding.vectors.MappedVectorStore;
+import net.mguenther.lingus.wordembedding.vectors.NeighbourTable;
+import net.mguenther.lingus.wordembedding.vectors.Neighbours;
+import net.mguenther.lingus.wordembedding.vectors.QuantizedVectors;
+import net.mguenther.lingus.wordembedding.vectors.QueryScorer;
+import net.mguenther.lingus.wordembedding.vectors.SimilarityMatrix;
+import net.mguenther.lingus.wordembedding.vectors.TokenNormalizer;
+import net.mguenther.lingus.wordembedding.vectors.VectorStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link EmbeddingModel} backed by a {@link VectorStore} with L2-normalized vectors, so that the
+ * similarity of two words is the dot product of their vectors. Similar words are looked up in an
+ * {@link HnswIndex} if one is present, otherwise by an exhaustive search.
+ *
+ * If the model has been activated with quantized vectors, the search scores the compressed codes
+ * and yields {@code rerankFactor} times as many candidates as requested. These candidates are then
+ * re-ranked against the full-precision vectors of the store. Thus, quantized vectors only replace the
+ * full-precision vectors in memory if the store maps them from a file; a store on the heap keeps them
+ * in addition to the quantized vectors.
+ *
+ * If a {@link NeighbourTable} has been computed for the model, the similar words of each term that
+ * the table covers are served from the table, as long as no more words are requested than the table
+ * holds per term. All other terms are searched as described above.
+ *
+ * Terms are resolved by the {@link net.mguenther.lingus.wordembedding.vectors.VocabularyIndex} of the
+ * store. If normalized lookups are enabled, a term that is not part of the vocabulary as is gets
+ * resolved in the form that {@link TokenNormalizer} normalizes it to.
+ */
+@RequiredArgsConstructor
+class VectorStoreEmbeddingModel implements EmbeddingModel {
+
+    private final VectorStore store;
+
+    private final HnswIndex index;
+
+    private final NeighbourTable neighbourTable;
+
+    private final QuantizedVectors quantized;
+
+    private final int rerankFactor;
+
+    private final boolean normalizedLookup;
+
+    /**
+     * Resolves a term to its id, falling back to the normalized form of the term if it is not part of
+     * the vocabulary as is and normalized lookups are enabled.
+     */
+    private int resolve(final String term) {
+        return normalizedLookup ? store.vocabulary().normalizedId(term) : store.id(term);
+    }
+
+    @Override
+    public boolean hasWord(final String term) {
+        return resolve(term) >= 0;
+    }
+
+    @Override
+    public Optional<NearestWords> nearest(final String term, final int howMany, final int efSearch, final boolean exact, final Deadline deadline) {
+        final int id = resolve(term);
+        if (id < 0) {
+            return Optional.empty();
+        }
+        final Neighbours precomputed = precomputed(id, howMany);
+        if (precomputed != null) {
+            return Optional.of(toNearestWords(precomputed));
+        }
+        final float[] query = new float[store.dimensions()];
+        store.vector(id, query);
+        return Optional.of(toNearestWords(search(query, howMany, efSearch, exact, id, deadline)));
+    }
+
+    private Neighbours precomputed(final int id, final int howMany) {
+        return neighbourTable == null ? null : neighbourTable.neighbours(id, howMany);
+    }
+
+    private NearestWords toNearestWords(final Neighbours neighbours) {
+        final List<ScoredWord> words = new ArrayList<>(neighbours.size());
+        for (int rank = 0; rank < neighbours.size(); rank++) {
+            words.add(new ScoredWord(neighbours.id(rank), store.word(neighbours.id(rank)), neighbours.score(rank)));
+        }
+        return new NearestWords(words, neighbours.isPartial());
+    }
+
+    private Neighbours search(final float[] query,
+                              final int howMany,
+                              final int efSearch,
+                              final boolean exact,
+                              final int excludedId,
+                              final Deadline deadline) {
+        if (exact) {
+            return ExhaustiveSearch.nearest(store, query, howMany, excludedId, deadline);
+        }
+        if (quantized == null) {
+            return index == null
+                    ? ExhaustiveSearch.nearest(store, query, howMany, excludedId, deadline)
+                    : index.nearest(query, howMany, efSearch, excludedId, deadline);
+        }
+        final int candidates = howMany * rerankFactor;
+        final QueryScorer scorer = quantized.scorer(query);
+        final Neighbours approximate = index == null
+                ? ExhaustiveSearch.nearest(scorer, store.size(), candidates, excludedId, deadline)
+                : index.nearest(scorer, candidates, Math.max(efSearch, candidates), excludedId, deadline);
+        return ExhaustiveSearch.rerank(store, query, approximate, howMany);
+    }
+
+    @Override
+    public void nearest(final List<String> terms, final int howMany, final Deadline deadline, final BiConsumer<String, Optional<NearestWords>> consumer) {
+        final List<String> knownTerms = new ArrayList<>(terms.size());
+        final List<Integer> knownIds = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            final int id = resolve(term);
+            final Neighbours precomputed = id < 0 ? null : precomputed(id, howMany);
+            if (id < 0) {
+                consumer.accept(term, Optional.empty());
+            } else if (precomputed != null) {
+                consumer.accept(term, Optional.of(toNearestWords(precomputed)));
+            } else {
+                knownTerms.add(term);
+                knownIds.add(id);
+            }
+        }
+        final float[][] queries = new float[knownTerms.size()][store.dimensions()];
+        final int[] excludedIds = new int[knownTerms.size()];
+        for (int q = 0; q < queries.length; q++) {
+            excludedIds[q] = knownIds.get(q);
+            store.vector(excludedIds[q], queries[q]);
+        }
+        BatchSearch.nearest(store, queries, howMany, excludedIds, deadline,
+                (neighbours, q) -> consumer.accept(knownTerms.get(q), Optional.of(toNearestWords(neighbours))));
+    }
+
+    @Override
+    public double similarity(final String word, final String otherWord) {
+        final int id = resolve(word);
+        final int otherId = resolve(otherWord);
+        if (id < 0 || otherId < 0) {
+            return Double.NaN;
+        }
+        final float[] vector = new float[store.dimensions()];
+        store.vector(id, vector);
+        return store.dot(otherId, vector);
+    }
+
+    @Override
+    public float[][] similarities(final List<String> rows, final List<String> columns) {
+        return SimilarityMatrix.compute(store, resolve(rows), resolve(columns));
+    }
+
+    private int[] resolve(final List<String> terms) {
+        final int[] ids = new int[terms.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = resolve(terms.get(i));
+        }
+        return ids;
+    }
+
+    @Override
+    public List<String> wordsWithPrefix(final String prefix, final int limit) {
+        final Set<Integer> ids = new TreeSet<>();
+        for (int id : store.vocabulary().withPrefix(prefix, limit)) {
+            ids.add(id);
+        }
+        final String normalizedPrefix = TokenNormalizer.normalize(prefix);
+        if (normalizedLookup && !normalizedPrefix.equals(prefix)) {
+            for (int id : store.vocabulary().withPrefix(normalizedPrefix, limit)) {
+                ids.add(id);
+            }
+        }
+        final List<String> words = new ArrayList<>(Math.min(limit, ids.size()));
+        for (int id : ids) {
+            if (words.size() == limit) {
+                break;
+            }
+            words.add(store.word(id));
+        }
+        return words;
+    }
+
+    @Override
+    public int vocabularySize() {
+        return store.size();
+    }
+
+    @Override
+    public String word(final int id) {
+        return store.word(id);
+    }
+
+    @Override
+    public int dimensions() {
+        return store.dimensions();
+    }
+
+    @Override
+    public long residentBytes() {
+        // the full-precision vectors of a store on the heap remain resident for re-ranking
+        final long vectorBytes = quantized == null || !(store instanceof MappedVectorStore)
+                ? (long) store.size() * store.dimensions() * Float.BYTES
+                : 0L;
+        return store.vocabulary().sizeInBytes()
+                + vectorBytes
+                + (quantized == null ? 0L : quantized.sizeInBytes())
+                + (index == null ? 0L : index.sizeInBytes() + index.searchContextBytes())
+                + (neighbourTable == null ? 0L : neighbourTable.sizeInBytes());
+    }
+}
@@ -1,82 +1,322 @@
 package net.mguenther.lingus.wordembedding.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
-import org.deeplearning4j.models.word2vec.Word2Vec;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+import net.mguenther.lingus.wordembedding.vectors.Word2VecModelReader;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricUnits;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import java.io.File;
-import java.util.Collection;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Holds the models that are currently resident and activates models in the background.
+ *
+ * Each resident model is published as an immutable {@link ModelSnapshot} (read-copy-update): an
+ * activation loads the model on a dedicated thread while the resident models keep serving requests,
+ * and then publishes the new snapshot atomically, replacing an earlier activation of the same model
+ * if there is one. Readers only look up a snapshot and never take a lock. A replaced model becomes
+ * garbage once the last request that still holds its snapshot has completed.
+ *
+ * If the models that are resident after an activation exceed {@code lingus.models.memory.budget}
+ * bytes, the least-recently-used models are unloaded until the budget is met again. The model that
+ * has just been activated is never evicted.
+ *
+ * Before a model is loaded, the memory that it requires is estimated from the header of its file and
+ * checked against the available memory (cf. {@link MemoryAdmission}). If the model would not fit,
+ * the activation is refused and the resident models remain untouched.
+ */
 @Slf4j
 @ApplicationScoped
 class Word2VecProvider {
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final EmbeddingModelFactory modelFactory;
 
-    private Word2Vec model;
+    private final ResultCache resultCache;
 
-    private ModelMetadata currentModelMetadata;
+    private final LingusMetrics metrics;
 
-    boolean hasWord(final String term) {
-        lock.readLock().lock();
-        try {
-            if (model == null) {
+    private final long memoryBudget;
+
+    private final MemoryAdmission admission;
+
+    private final Map<String, ModelSnapshot> resident = new ConcurrentHashMap<>();
+
+    private volatile String defaultModel;
+
+    private final AtomicReference<LoadProgress> ongoing = new AtomicReference<>();
+
+    private final Map<String, LoadProgress> activations = new ConcurrentHashMap<>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private final ExecutorService loader;
+
+    Word2VecProvider() {
+        // NO-OP (this unfortunately has to be done to make CDI happy)
+        this(null, null, null, 0L, 0.0, false);
+    }
+
+    @Inject
+    Word2VecProvider(final EmbeddingModelFactory modelFactory,
+                     final ResultCache resultCache,
+                     final LingusMetrics metrics,
+                     @ConfigProperty(name = "lingus.models.memory.budget", defaultValue = "0") final long memoryBudget,
+                     @ConfigProperty(name = "lingus.models.memory.heap-headroom", defaultValue = "0.1") final double heapHeadroom,
+                     @ConfigProperty(name = "lingus.models.memory.collect-garbage", defaultValue = "false") final boolean collectGarbage) {
+        this.modelFactory = modelFactory;
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+        this.memoryBudget = memoryBudget;
+        this.admission = new MemoryAdmission(memoryBudget, heapHeadroom, collectGarbage);
+        this.loader = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "lingus-model-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param filename
+     *      the filename of a resident model, or {@code null} for the model that has been activated
+     *      most recently
+     * @return
+     *      the snapshot of the requested model
+     * @throws NoModelLoadedException
+     *      if no filename is given and there is no resident model
+     * @throws ModelNotResidentException
+     *      if the requested model is not resident
+     */
+    ModelSnapshot current(final String filename) {
+        final String requestedModel = filename == null ? defaultModel : filename;
+        if (requestedModel == null) {
+            throw new NoModelLoadedException();
+        }
+        final ModelSnapshot snapshot = resident.get(requestedModel);
+        if (snapshot == null) {
+            if (filename == null) {
                 throw new NoModelLoadedException();
             }
-            return model.hasWord(term);
-        } finally {
-            lock.readLock().unlock();
+            throw new ModelNotResidentException(filename);
         }
+        snapshot.touch();
+        return snapshot;
     }
 
-    Collection<String> wordsNearestSum(final String word, final int howMany) {
-        lock.readLock().lock();
+    /**
+     * Starts to load the given model in the background. Only one model is loaded at a time.
+     *
+     * @return
+     *      the progress of the activation
+     * @throws ActivationInProgressException
+     *      if another activation has not completed yet
+     * @throws InsufficientMemoryException
+     *      if the model would not fit into memory
+     * @throws ModelTooLargeException
+     *      if the model would be read onto the heap, but its vectors exceed the largest array
+     */
+    LoadProgress load(final ModelMetadata modelMetadata, final Quantization quantization) {
+        final String locationOnFS = modelMetadata.getLocationOnFS();
+        final File modelFile = new File(locationOnFS);
+        if (!modelFile.exists()) {
+            throw new UnableToActivateModelException(locationOnFS);
+        }
+        final LoadProgress progress = new LoadProgress(
+                modelMetadata.getFilename(),
+                quantization,
+                modelFile.length(),
+                modelMetadata.isDescribed() ? modelMetadata.getVocabSize() : -1);
+        if (!ongoing.compareAndSet(null, progress)) {
+            throw new ActivationInProgressException(ongoing.get().getFilename());
+        }
         try {
-            if (model == null) {
-                throw new NoModelLoadedException();
-            }
-            return model.wordsNearestSum(word, howMany);
-        } finally {
-            lock.readLock().unlock();
+            admit(modelMetadata, quantization);
+        } catch (InsufficientMemoryException | ModelTooLargeException e) {
+            ongoing.set(null);
+            metrics.modelLoadRefused();
+            log.warn(e.getMessage());
+            throw e;
+        }
+        activations.put(modelMetadata.getFilename(), progress);
+        log.info("Received a request to load the model from file '{}' with quantization {}.", locationOnFS, quantization);
+        try {
+            loader.execute(() -> activate(modelMetadata, quantization, modelFile, progress));
+        } catch (RuntimeException e) {
+            ongoing.set(null);
+            progress.fail(e);
+            throw new UnableToActivateModelException(locationOnFS, e);
         }
+        return progress;
+    }
+
+    private void admit(final ModelMetadata modelMetadata, final Quantization quantization) {
+        if (!modelMetadata.isDescribed()) {
+            log.warn("The shape of model '{}' is unknown. Activating it without checking whether it fits into memory.", modelMetadata.getFilename());
+            return;
+        }
+        if (modelMetadata.getFormat() != ModelFormat.LINGUS
+                && !Word2VecModelReader.fitsOnHeap(modelMetadata.getVocabSize(), modelMetadata.getDimensions())) {
+            throw new ModelTooLargeException(modelMetadata.getFilename(), modelMetadata.getVocabSize(), modelMetadata.getDimensions());
+        }
+        admission.admit(modelMetadata.getFilename(), modelFactory.estimateRequirement(
+                modelMetadata.getFormat(),
+                modelMetadata.getVocabSize(),
+                modelMetadata.getDimensions(),
+                quantization), residentMappedBytes(modelMetadata.getFilename()));
+    }
+
+    /**
+     * @return
+     *      the number of bytes that the resident models other than the given one map into memory; a
+     *      resident activation of the given model maps the same file as its new activation
+     */
+    private long residentMappedBytes(final String filename) {
+        return resident.values()
+                .stream()
+                .filter(snapshot -> !snapshot.filename().equals(filename))
+                .mapToLong(snapshot -> modelFactory.estimateRequirement(
+                        snapshot.getMetadata().getFormat(),
+                        snapshot.getMetadata().getVocabSize(),
+                        snapshot.getMetadata().getDimensions(),
+                        snapshot.getQuantization()).getMappedBytes())
+                .sum();
     }
 
-    double similarity(final String word, final String otherWord) {
-        lock.readLock().lock();
+    private void activate(final ModelMetadata modelMetadata,
+                          final Quantization quantization,
+                          final File modelFile,
+                          final LoadProgress progress) {
+        final long startedAt = System.nanoTime();
         try {
-            if (model == null) {
-                throw new NoModelLoadedException();
-            }
-            return model.similarity(word, otherWord);
+            final EmbeddingModel model = modelFactory.create(modelFile, modelMetadata.getFormat(), quantization, progress);
+            modelMetadata.describe(model.vocabularySize(), model.dimensions());
+            publish(new ModelSnapshot(versions.incrementAndGet(), modelMetadata, quantization, model));
+            metrics.modelLoaded(modelFile.length(), System.nanoTime() - startedAt);
+            progress.complete();
+            log.info("Successfully loaded Word2Vec model from file '{}'.", modelFile);
+        } catch (Exception | OutOfMemoryError e) {
+            log.error("Unable to load Word2Vec model from file '{}'.", modelFile, e);
+            metrics.modelLoadFailed();
+            progress.fail(e);
         } finally {
-            lock.readLock().unlock();
+            ongoing.set(null);
         }
     }
 
-    void load(final ModelMetadata modelMetadata) {
-        final String locationOnFS = modelMetadata.getLocationOnFS();
-        lock.writeLock().lock();
-        try {
-            final File modelFile = new File(locationOnFS);
-            if (!modelFile.exists()) {
-                throw new UnableToActivateModelException(locationOnFS);
+    private synchronized void publish(final ModelSnapshot snapshot) {
+        final ModelSnapshot previous = resident.put(snapshot.filename(), snapshot);
+        if (previous != null) {
+            resultCache.invalidate(previous.cacheKey());
+        }
+        snapshot.getMetadata().activate(snapshot.getQuantization());
+        defaultModel = snapshot.filename();
+        enforceMemoryBudget(snapshot.filename());
+    }
+
+    private void enforceMemoryBudget(final String activatedModel) {
+        if (memoryBudget <= 0) {
+            return;
+        }
+        long residentBytes = residentBytes();
+        while (residentBytes > memoryBudget) {
+            final Optional<ModelSnapshot> leastRecentlyUsed = resident.values()
+                    .stream()
+                    .filter(snapshot -> !snapshot.filename().equals(activatedModel))
+                    .min(Comparator.comparingLong(ModelSnapshot::getLastUsed));
+            if (!leastRecentlyUsed.isPresent()) {
+                log.warn("Model '{}' occupies {} bytes on its own, which exceeds the memory budget of {} bytes.", activatedModel, residentBytes, memoryBudget);
+                return;
             }
-            log.info("Received a request to load the model from file '{}'.", locationOnFS);
-            this.model = null;
-            this.model = WordVectorSerializer.readWord2VecModel(modelFile);
-            this.currentModelMetadata = modelMetadata;
-            log.info("Successfully loaded Word2Vec model from file '{}'.", locationOnFS);
-        } catch (Exception e) {
-            throw new UnableToActivateModelException(locationOnFS, e);
-        } finally {
-            lock.writeLock().unlock();
+            log.info("Evicting model '{}', as the resident models occupy {} bytes, which exceeds the memory budget of {} bytes.",
+                    leastRecentlyUsed.get().filename(), residentBytes, memoryBudget);
+            remove(leastRecentlyUsed.get());
+            residentBytes = residentBytes();
         }
     }
 
-    ModelMetadata getCurrentModel() {
-        return currentModelMetadata;
+    /**
+     * Unloads the given model. Requests that still hold its snapshot complete normally.
+     *
+     * @throws ModelNotResidentException
+     *      if the model is not resident
+     */
+    synchronized void unload(final String filename) {
+        final ModelSnapshot snapshot = resident.get(filename);
+        if (snapshot == null) {
+            throw new ModelNotResidentException(filename);
+        }
+        remove(snapshot);
+        log.info("Unloaded model '{}'.", filename);
+    }
+
+    private void remove(final ModelSnapshot snapshot) {
+        resident.remove(snapshot.filename(), snapshot);
+        snapshot.getMetadata().deactivate();
+        resultCache.invalidate(snapshot.cacheKey());
+        if (snapshot.filename().equals(defaultModel)) {
+            defaultModel = resident.values()
+                    .stream()
+                    .max(Comparator.comparingLong(ModelSnapshot::getLastUsed))
+                    .map(ModelSnapshot::filename)
+                    .orElse(null);
+        }
+    }
+
+    boolean isResident(final String filename) {
+        return resident.containsKey(filename);
+    }
+
+    /**
+     * @return
+     *      the number of bytes that all resident models occupy
+     */
+    long residentBytes() {
+        return resident.values()
+                .stream()
+                .mapToLong(snapshot -> snapshot.getModel().residentBytes())
+                .sum();
+    }
+
+    long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return
+     *      the progress of the latest activation of the given model, if there has been one
+     */
+    Optional<LoadProgress> progress(final String filename) {
+        return Optional.ofNullable(activations.get(filename));
+    }
+
+    /**
+     * @return
+     *      the filename of the model that requests without an explicit model are served by, if any
+     */
+    Optional<String> getDefaultModel() {
+        return Optional.ofNullable(defaultModel);
+    }
+
+    @PostConstruct
+    void registerGauges() {
+        metrics.gauge("lingus.models.resident", "Number of resident models", MetricUnits.NONE, () -> (long) resident.size());
+        metrics.gauge("lingus.models.resident.bytes", "Number of bytes that the words, vectors and indexes of all resident models occupy", MetricUnits.BYTES, this::residentBytes);
+        metrics.gauge("lingus.models.memory.budget", "Number of bytes that resident models may occupy, or 0 if unlimited", MetricUnits.BYTES, this::getMemoryBudget);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
     }
 }
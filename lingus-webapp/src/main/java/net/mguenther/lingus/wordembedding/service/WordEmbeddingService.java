@@ -3,27 +3,37 @@ package net.mguenther.lingus.wordembedding.service;
 import lombok.extern.slf4j.Slf4j;
 import net.mguenther.lingus.wordembedding.api.AvailableModel;
 import net.mguenther.lingus.wordembedding.api.AvailableModelsResult;
+import net.mguenther.lingus.wordembedding.api.CacheStatisticsResult;
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsBatchRequest;
 import net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest;
 import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.api.FindWordsByPrefixRequest;
+import net.mguenther.lingus.wordembedding.api.FindWordsByPrefixResult;
 import net.mguenther.lingus.wordembedding.api.ActivateModelRequest;
-import net.mguenther.lingus.wordembedding.api.ActivateModelResult;
+import net.mguenther.lingus.wordembedding.api.MeasureSimilarityMatrixRequest;
+import net.mguenther.lingus.wordembedding.api.MeasureSimilarityMatrixResult;
 import net.mguenther.lingus.wordembedding.api.MeasureSimilarityRequest;
 import net.mguenther.lingus.wordembedding.api.MeasureSimilarityResult;
+import net.mguenther.lingus.wordembedding.api.ModelLoadProgress;
+import net.mguenther.lingus.wordembedding.api.Quantization;
 import net.mguenther.lingus.wordembedding.api.SimilarWord;
 import net.mguenther.lingus.wordembedding.api.Term;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
+import net.mguenther.lingus.wordembedding.vectors.Deadline;
+import org.eclipse.microprofile.metrics.annotation.Timed;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,41 +42,58 @@ public class WordEmbeddingService {
 
     private final Word2VecProvider modelProvider;
 
-    private final List<ModelMetadata> availableModels;
+    private final EmbeddingModelFactory modelFactory;
+
+    private final ResultCache resultCache;
+
+    private final LingusMetrics metrics;
+
+    private final SingleFlight singleFlight;
+
+    private final ModelDirectory modelDirectory;
 
     public WordEmbeddingService() {
         // NO-OP (this unfortunately has to be done to make CDI happy)
-        availableModels = Collections.emptyList();
+        modelDirectory = null;
         modelProvider = null;
+        modelFactory = null;
+        resultCache = null;
+        metrics = null;
+        singleFlight = null;
     }
 
     @Inject
-    public WordEmbeddingService(@ConfigProperty(name = "lingus.data.dir") final String locationOnFS,
-                                final Word2VecProvider modelProvider) {
-        this.availableModels = scan(locationOnFS);
+    public WordEmbeddingService(final ModelDirectory modelDirectory,
+                                final Word2VecProvider modelProvider,
+                                final EmbeddingModelFactory modelFactory,
+                                final ResultCache resultCache,
+                                final LingusMetrics metrics) {
+        this.modelDirectory = modelDirectory;
         this.modelProvider = modelProvider;
-    }
-
-    private List<ModelMetadata> scan(final String locationOnFS) {
-        try {
-            final List<ModelMetadata> found = Files.list(Paths.get(locationOnFS))
-                    .map(pathToFile -> new ModelMetadata(pathToFile.getFileName().toString(), pathToFile.toString(), false))
-                    .collect(Collectors.toList());
-            found.forEach(model -> log.info("Found model at '{}'.", model.getLocationOnFS()));
-            return found;
-        } catch (IOException e) {
-            final String message = "Application startup has been interrupted, as the model location at '%s' does not exist.";
-            throw new RuntimeException(String.format(message, locationOnFS));
-        }
+        this.modelFactory = modelFactory;
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+        this.singleFlight = new SingleFlight(metrics);
     }
 
     /**
      * Finds similar words to the given set of terms (cf. {@link FindSimilarWordsRequest#getTerms()}) and
      * gives information about their similarity measure wrt. the associated original term. The knowledge
-     * base for this is a vector model based on the {@code Word2Vec} implementation of Deeplearning4J.
+     * base for this is the vector store of the selected model, i.e. its L2-normalized word vectors
+     * (either mapped from a Lingus-native file or parsed onto the heap) and their quantized variants.
      *
      * The resulting list of similar words per term is ordered by the top {@code N} results according to the
-     * underlying model, where {@code N} is {@link FindSimilarWordsRequest#getSuggestionsPerTerm()}.
+     * underlying model, where {@code N} is {@link FindSimilarWordsRequest#getSuggestionsPerTerm()}. Unless
+     * the request asks for an exact search, these are looked up in the HNSW index of the model, whose
+     * recall is governed by {@link FindSimilarWordsRequest#getEfSearch()}; exact searches scan all
+     * vectors of the model exhaustively. Results of approximate
+     * searches are cached per model, term, number of suggestions and {@code efSearch}. Concurrent
+     * identical searches that are not answered from the cache share a single search (cf.
+     * {@link SingleFlight}).
+     *
+     * If the request carries a timeout, the terms are searched until the timeout has passed. Terms
+     * that have not been searched completely by then are answered with the most similar words found
+     * so far and flagged as partial, as is the result. Partial results are not cached.
      *
      * @param request
      *      contains the set of terms for which similar words shall be determined, along with other
@@ -74,81 +101,305 @@ public class WordEmbeddingService {
      * @return
      *      similar words for the set of original terms
      */
+    @Timed(name = "lingus.http.query", absolute = true, description = "Latency of queries for similar words")
     public FindSimilarWordsResult similar(final FindSimilarWordsRequest request) {
+        final Deadline deadline = Deadline.in(request.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        final ModelSnapshot snapshot = modelProvider.current(request.getModel());
         final Set<Term> resolvedTerms = new HashSet<>();
         for (String term : request.getTerms()) {
-            if (!modelProvider.hasWord(term)) {
-                log.warn("The model does not recognize the term '{}'.", term);
-                resolvedTerms.add(noResolution(term));
+            metrics.termRequested(snapshot.getModel().hasWord(term));
+            if (request.isExact()) {
+                resolvedTerms.add(searchOnce(snapshot, term, request, deadline));
             } else {
-                resolvedTerms.add(resolveTerm(term, request.getSuggestionsPerTerm()));
+                resolvedTerms.add(resultCache.similarWords(snapshot.cacheKey(), term, request.getSuggestionsPerTerm(), request.getEfSearch(), () -> searchOnce(snapshot, term, request, deadline)));
+            }
+        }
+        final boolean partial = resolvedTerms.stream().anyMatch(Term::isPartial);
+        if (partial) {
+            metrics.queryAnsweredPartially();
+        }
+        return new FindSimilarWordsResult(snapshot.filename(), snapshot.getVersion(), Collections.unmodifiableSet(resolvedTerms), partial);
+    }
+
+    /**
+     * Finds similar words for a large batch of terms. In contrast to {@link #similar(FindSimilarWordsRequest)},
+     * all terms are scored against the vocabulary in a single exact pass over the model, and the
+     * resolved terms are handed to {@code consumer} as soon as they are available instead of being
+     * collected into a single result. Results of batch queries are not cached.
+     *
+     * @param snapshot
+     *      the resident model that answers the batch, as resolved by {@link #snapshot(String)} before
+     *      the response has been committed, so that the batch is answered completely even if the model
+     *      is unloaded meanwhile
+     * @param request
+     *      contains the terms for which similar words shall be determined
+     * @param consumer
+     *      receives each resolved term; terms that the model does not recognize are reported without
+     *      any similar words, and terms that the timeout of the request has cut short are flagged as
+     *      partial
+     */
+    @Timed(name = "lingus.http.query.batch", absolute = true, description = "Latency of batch queries for similar words, including streaming the response")
+    public void similar(final ModelSnapshot snapshot, final FindSimilarWordsBatchRequest request, final Consumer<Term> consumer) {
+        final Deadline deadline = Deadline.in(request.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        final AtomicBoolean partial = new AtomicBoolean();
+        snapshot.getModel().nearest(request.getTerms(), request.getSuggestionsPerTerm(), deadline, (term, nearest) -> {
+            metrics.termRequested(nearest.isPresent());
+            final Term resolvedTerm = toTerm(term, nearest);
+            if (resolvedTerm.isPartial()) {
+                partial.set(true);
             }
+            consumer.accept(resolvedTerm);
+        });
+        if (partial.get()) {
+            metrics.queryAnsweredPartially();
         }
-        return new FindSimilarWordsResult(Collections.unmodifiableSet(resolvedTerms));
+    }
+
+    /**
+     * @param model
+     *      the filename of a model, or {@code null} for the model that has been activated most recently
+     * @return
+     *      the snapshot of the resident model that serves requests for the given model
+     * @throws NoModelLoadedException
+     *      if no model is given and there is no resident model
+     * @throws ModelNotResidentException
+     *      if the given model is not resident
+     */
+    public ModelSnapshot snapshot(final String model) {
+        return modelProvider.current(model);
     }
 
     private Term noResolution(final String term) {
-        return new Term(term, Collections.unmodifiableList(new ArrayList<>()));
+        return new Term(term, Collections.unmodifiableList(new ArrayList<>()), false);
+    }
+
+    private Term searchOnce(final ModelSnapshot snapshot, final String term, final FindSimilarWordsRequest request, final Deadline deadline) {
+        return singleFlight.similarWords(snapshot.cacheKey(), term, request.getSuggestionsPerTerm(), request.getEfSearch(), request.isExact(), deadline,
+                () -> resolveTerm(snapshot, term, request, deadline));
+    }
+
+    private Term resolveTerm(final ModelSnapshot snapshot, final String term, final FindSimilarWordsRequest request, final Deadline deadline) {
+        return toTerm(term, snapshot.getModel().nearest(term, request.getSuggestionsPerTerm(), request.getEfSearch(), request.isExact(), deadline));
     }
 
-    private Term resolveTerm(final String term, final int maxSuggestions) {
-        final List<SimilarWord> similarWords = Collections.unmodifiableList(modelProvider.wordsNearestSum(term, maxSuggestions)
+    private Term toTerm(final String term, final Optional<NearestWords> nearest) {
+        if (!nearest.isPresent()) {
+            log.warn("The model does not recognize the term '{}'.", term);
+            return noResolution(term);
+        }
+        final List<SimilarWord> similarWords = Collections.unmodifiableList(nearest.get()
+                .getWords()
                 .stream()
-                .filter(similarWord -> !similarWord.equalsIgnoreCase(term))
-                .map(similarWord -> new SimilarWord(similarWord, modelProvider.similarity(term, similarWord)))
+                .filter(similarWord -> !similarWord.getWord().equalsIgnoreCase(term))
+                .map(similarWord -> new SimilarWord(similarWord.getWord(), similarWord.getSimilarity(), similarWord.getId()))
                 .collect(Collectors.toList()));
-        return new Term(term, similarWords);
+        return new Term(term, similarWords, nearest.get().isPartial());
     }
 
     /**
      * Obtains a similarity measurement between both input words (cf. {@link MeasureSimilarityRequest}). The
-     * knowledge base for this is a vector model based on the {@code Word2Vec} implementation of Deeplearning4J.
+     * similarity is the cosine similarity of the full-precision vectors of both words, which is read
+     * from the vector store of the selected model.
      *
      * @param request
      *      contains the pair of input words for which a similarity measurement shall be obtained
      * @return
      *      pair of words enriched by their similarity measurement
      */
+    @Timed(name = "lingus.http.similarity", absolute = true, description = "Latency of similarity measurements")
     public MeasureSimilarityResult measureSimilarity(final MeasureSimilarityRequest request) {
-        if (!modelProvider.hasWord(request.getWord1())) {
-            throw new UnknownTermException(request.getWord1());
+        final ModelSnapshot snapshot = modelProvider.current(request.getModel());
+        final EmbeddingModel model = snapshot.getModel();
+        final double similarity = resultCache.similarity(snapshot.cacheKey(), request.getWord1(), request.getWord2(), () -> {
+            if (!model.hasWord(request.getWord1())) {
+                throw new UnknownTermException(request.getWord1());
+            }
+            if (!model.hasWord(request.getWord2())) {
+                throw new UnknownTermException(request.getWord2());
+            }
+            return model.similarity(request.getWord1(), request.getWord2());
+        });
+        return new MeasureSimilarityResult(request, similarity);
+    }
+
+    /**
+     * Measures the similarity of each term of the rows with each term of the columns of the request
+     * (cf. {@link MeasureSimilarityMatrixRequest}) as a single blocked matrix product. Terms that the
+     * model does not recognize do not fail the request, but are reported along with the matrix.
+     *
+     * @param request
+     *      contains the terms of the rows and the columns
+     * @return
+     *      the similarity of each pair of terms along with the terms that the model does not recognize
+     * @throws TooManyTermsException
+     *      if the rows or the columns exceed {@link MeasureSimilarityMatrixRequest#MAX_TERMS} terms
+     */
+    @Timed(name = "lingus.http.similarity.matrix", absolute = true, description = "Latency of similarity matrix measurements")
+    public MeasureSimilarityMatrixResult measureSimilarities(final MeasureSimilarityMatrixRequest request) {
+        final int numberOfTerms = Math.max(request.getRows().size(), request.getColumns().size());
+        if (numberOfTerms > MeasureSimilarityMatrixRequest.MAX_TERMS) {
+            throw new TooManyTermsException(numberOfTerms, MeasureSimilarityMatrixRequest.MAX_TERMS);
         }
-        if (!modelProvider.hasWord(request.getWord2())) {
-            throw new UnknownTermException(request.getWord2());
+        final EmbeddingModel model = modelProvider.current(request.getModel()).getModel();
+        final float[][] similarities = model.similarities(request.getRows(), request.getColumns());
+        final List<List<Double>> matrix = new ArrayList<>(similarities.length);
+        for (float[] row : similarities) {
+            final List<Double> scores = new ArrayList<>(row.length);
+            for (float similarity : row) {
+                scores.add(Float.isNaN(similarity) ? null : (double) similarity);
+            }
+            matrix.add(Collections.unmodifiableList(scores));
+        }
+        return new MeasureSimilarityMatrixResult(
+                request.getRows(),
+                request.getColumns(),
+                unknownTerms(model, request.getRows()),
+                unknownTerms(model, request.getColumns()),
+                Collections.unmodifiableList(matrix));
+    }
+
+    private List<String> unknownTerms(final EmbeddingModel model, final List<String> terms) {
+        return Collections.unmodifiableList(terms.stream()
+                .filter(term -> !model.hasWord(term))
+                .distinct()
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Finds words of the vocabulary of a model that start with the given prefix, e.g. to suggest
+     * completions of a partially typed term. Words are ranked by their frequency in the training corpus.
+     *
+     * @param request
+     *      contains the prefix and the maximum number of words
+     * @return
+     *      the prefix along with the matching words, most frequent words first
+     */
+    @Timed(name = "lingus.http.vocabulary", absolute = true, description = "Latency of vocabulary lookups by prefix")
+    public FindWordsByPrefixResult wordsWithPrefix(final FindWordsByPrefixRequest request) {
+        final List<String> words = modelProvider.current(request.getModel()).getModel().wordsWithPrefix(request.getPrefix(), request.getLimit());
+        return new FindWordsByPrefixResult(request.getPrefix(), Collections.unmodifiableList(words));
+    }
+
+    /**
+     * Hands the words of the vocabulary of a resident model to {@code consumer} in the order of their
+     * ids, so that clients can resolve the ids of similar words (cf.
+     * {@link net.mguenther.lingus.wordembedding.api.LingusMediaTypes#SIMILAR_WORD_IDS}).
+     *
+     * @param snapshot
+     *      the resident model, as resolved by {@link #snapshot(String)}
+     * @param consumer
+     *      receives the words, the word with id {@code 0} first
+     */
+    @Timed(name = "lingus.http.admin.vocabulary", absolute = true, description = "Latency of streaming the vocabulary of a model")
+    public void vocabulary(final ModelSnapshot snapshot, final Consumer<String> consumer) {
+        final EmbeddingModel model = snapshot.getModel();
+        for (int id = 0; id < model.vocabularySize(); id++) {
+            consumer.accept(model.word(id));
         }
-        final double similarity = modelProvider.similarity(request.getWord1(), request.getWord2());
-        return new MeasureSimilarityResult(request, similarity);
     }
 
     /**
-     * Collects all available files that may represent word2vec models and returns them to the caller.
+     * Reports hit, miss and eviction counters of the result caches for similar words and similarity
+     * measurements.
+     *
+     * @return
+     *      statistics of the result caches
+     */
+    @Timed(name = "lingus.http.admin.cache", absolute = true, description = "Latency of reporting the statistics of the result caches")
+    public CacheStatisticsResult cacheStatistics() {
+        return resultCache.statistics();
+    }
+
+    /**
+     * Collects all available files that may represent word2vec models and returns them to the caller,
+     * along with their format and file size. For each model whose shape is known from the header of
+     * its file, this includes its vocabulary size, its dimensions and an estimate of the memory that
+     * its vectors keep resident in each quantization mode.
      *
      * @return
      *      list of all available models
      */
+    @Timed(name = "lingus.http.admin.models", absolute = true, description = "Latency of listing the available models")
     public AvailableModelsResult availableModels() {
-        return new AvailableModelsResult(availableModels.stream()
-                .map(model -> new AvailableModel(model.getFilename(), model.isActive()))
-                .collect(Collectors.toList()));
+        return new AvailableModelsResult(modelDirectory.models().stream()
+                .map(this::toAvailableModel)
+                .collect(Collectors.toList()),
+                modelProvider.getDefaultModel().orElse(null),
+                modelProvider.residentBytes(),
+                modelProvider.getMemoryBudget());
+    }
+
+    private AvailableModel toAvailableModel(final ModelMetadata model) {
+        final Map<String, Long> residentMemory = new LinkedHashMap<>();
+        if (model.isDescribed()) {
+            modelFactory.estimateResidentBytes(model.getFormat(), model.getVocabSize(), model.getDimensions())
+                    .forEach((quantization, bytes) -> residentMemory.put(quantization.name(), bytes));
+        }
+        return new AvailableModel(
+                model.getFilename(),
+                model.getFormat().name(),
+                model.getFileSize(),
+                model.getVocabSize(),
+                model.getDimensions(),
+                model.isActive(),
+                Optional.ofNullable(model.getQuantization()).map(Quantization::name).orElse(null),
+                residentMemory);
     }
 
     /**
-     * Activates (loads) the requested model. Deactivates (unloads) the model that is currently in use (if any).
+     * Starts to activate (load) the requested model in the background and returns immediately. Models
+     * that are resident already keep serving requests. Once the requested model has been loaded, it
+     * becomes resident (replacing an earlier activation of the same model atomically) and serves all
+     * requests that do not name a model explicitly. If the resident models exceed the memory budget,
+     * the least-recently-used ones are unloaded.
+     * If the request asks for a quantized representation, searches run on the compressed vectors and
+     * their candidates are re-ranked against the full-precision vectors.
      *
      * @param request
      *      contains information about the model that ought to be activated
      * @return
-     *      status information on which model got activated and which model got deactivated (if any)
+     *      the progress of the activation, which can be followed up on by {@link #progress(String)}
+     */
+    @Timed(name = "lingus.http.admin.activate", absolute = true, description = "Latency of starting the activation of a model")
+    public ModelLoadProgress activate(final ActivateModelRequest request) {
+        final ModelMetadata availableModel = findModel(request.getFilename());
+        return modelProvider.load(availableModel, request.getQuantization()).toResult();
+    }
+
+    /**
+     * Unloads the requested model. Requests that are served by the model at the present time complete
+     * normally.
+     *
+     * @param filename
+     *      the filename of a resident model
      */
-    public ActivateModelResult activate(final ActivateModelRequest request) {
-        final ModelMetadata availableModel = availableModels.stream()
-                .filter(m -> m.getFilename().equals(request.getFilename()))
-                .findFirst()
-                .orElseThrow(() -> new UnavailableModelException(request.getFilename()));
-        final Optional<ModelMetadata> removedModel = Optional.ofNullable(modelProvider.getCurrentModel());
-        modelProvider.load(availableModel);
-        availableModel.activate();
-        removedModel.ifPresent(ModelMetadata::deactivate);
-        return new ActivateModelResult(availableModel.getFilename(), removedModel.map(ModelMetadata::getFilename).orElse("<<undefined>>"));
+    @Timed(name = "lingus.http.admin.deactivate", absolute = true, description = "Latency of unloading a model")
+    public void deactivate(final String filename) {
+        // the file of a resident model may have been removed from the model directory in the meantime
+        if (!modelProvider.isResident(filename)) {
+            findModel(filename);
+        }
+        modelProvider.unload(filename);
+    }
+
+    /**
+     * Reports the progress of the latest activation of the given model.
+     *
+     * @param filename
+     *      the filename of the model
+     * @return
+     *      the progress of the activation, including an estimate of the remaining time of its current phase
+     */
+    @Timed(name = "lingus.http.admin.progress", absolute = true, description = "Latency of reporting the progress of an activation")
+    public ModelLoadProgress progress(final String filename) {
+        findModel(filename);
+        return modelProvider.progress(filename)
+                .map(LoadProgress::toResult)
+                .orElseThrow(() -> new UnknownActivationException(filename));
+    }
+
+    private ModelMetadata findModel(final String filename) {
+        return modelDirectory.find(filename)
+                .orElseThrow(() -> new UnavailableModelException(filename));
     }
 }
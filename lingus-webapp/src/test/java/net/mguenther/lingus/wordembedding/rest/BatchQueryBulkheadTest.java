@@ -0,0 +1,266 @@
+package net.mguenther.lingus.wordembedding.rest;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsBatchRequest;
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest;
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.api.LingusMediaTypes;
+import net.mguenther.lingus.wordembedding.api.Term;
+import net.mguenther.lingus.wordembedding.service.Bulkheads;
+import net.mguenther.lingus.wordembedding.service.LingusMetrics;
+import net.mguenther.lingus.wordembedding.service.ModelNotResidentException;
+import net.mguenther.lingus.wordembedding.service.ModelSnapshot;
+import net.mguenther.lingus.wordembedding.service.ModelSnapshots;
+import net.mguenther.lingus.wordembedding.service.OverloadedException;
+import net.mguenther.lingus.wordembedding.service.WordEmbeddingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The resource writes the response of a batch query on whichever thread resumes it, just like
+ * RESTEasy does.
+ */
+class BatchQueryBulkheadTest {
+
+    private final CountDownLatch scoring = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final AtomicReference<String> scoringThread = new AtomicReference<>();
+
+    private final AtomicReference<ModelSnapshot> resolved = new AtomicReference<>();
+
+    private final AtomicReference<ModelSnapshot> scoredSnapshot = new AtomicReference<>();
+
+    private volatile boolean resident = true;
+
+    private Bulkheads bulkheads;
+
+    private WordEmbeddingResource resource;
+
+    @BeforeEach
+    void createResource() {
+        bulkheads = new Bulkheads(1, 1, 1, 1, 1, 1, new LingusMetrics(new MetricsRegistryImpl()));
+        final WordEmbeddingService service = new WordEmbeddingService() {
+            @Override
+            public ModelSnapshot snapshot(final String model) {
+                if (!resident) {
+                    throw new ModelNotResidentException(model);
+                }
+                return resolved.updateAndGet(previous -> previous == null ? ModelSnapshots.withoutModel(model, 1L) : previous);
+            }
+
+            @Override
+            public FindSimilarWordsResult similar(final FindSimilarWordsRequest request) {
+                return new FindSimilarWordsResult("model.lvec", 1L, Collections.emptySet(), false);
+            }
+
+            @Override
+            public void similar(final ModelSnapshot snapshot, final FindSimilarWordsBatchRequest request, final Consumer<Term> consumer) {
+                scoredSnapshot.set(snapshot);
+                scoringThread.set(Thread.currentThread().getName());
+                scoring.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        resource = new WordEmbeddingResource(service, bulkheads);
+    }
+
+    @AfterEach
+    void releaseBatch() {
+        release.countDown();
+    }
+
+    @Test
+    void aBatchShouldHoldAThreadOfTheBatchBulkheadUntilItHasBeenStreamed() throws Exception {
+        final WritingAsyncResponse response = new WritingAsyncResponse();
+
+        resource.findSimilaritiesInBatch(batch(), acceptingAnything(), response);
+
+        assertThat(scoring.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(scoringThread.get()).startsWith("lingus-batch-");
+        assertThat(scoredSnapshot.get()).isSameAs(resolved.get());
+        final CompletableFuture<String> next = bulkheads.batch().submit(() -> "next").toCompletableFuture();
+        assertThatThrownBy(() -> next.get(100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+        release.countDown();
+
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("next");
+        assertThat(response.resumedWith.get()).isInstanceOf(Response.class);
+        assertThat(((Response) response.resumedWith.get()).getHeaderString(LingusMediaTypes.MODEL_HEADER)).isEqualTo("model.lvec");
+        assertThat(((Response) response.resumedWith.get()).getHeaderString(LingusMediaTypes.MODEL_VERSION_HEADER)).isEqualTo("1");
+    }
+
+    @Test
+    void queriesShouldBeAnsweredWhileTheBatchBulkheadIsSaturated() throws Exception {
+        final WritingAsyncResponse running = new WritingAsyncResponse();
+        final WritingAsyncResponse queued = new WritingAsyncResponse();
+        final WritingAsyncResponse rejected = new WritingAsyncResponse();
+        resource.findSimilaritiesInBatch(batch(), acceptingAnything(), running);
+        assertThat(scoring.await(5, TimeUnit.SECONDS)).isTrue();
+        resource.findSimilaritiesInBatch(batch(), acceptingAnything(), queued);
+
+        resource.findSimilaritiesInBatch(batch(), acceptingAnything(), rejected);
+        final Response response = resource
+                .findSimilarities(Collections.singleton("haus"), 5, 64, false, "model.lvec", 0L, acceptingAnything())
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(rejected.resumed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(rejected.resumedWith.get()).isInstanceOf(OverloadedException.class);
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getEntity()).isInstanceOf(FindSimilarWordsResult.class);
+        assertThat(running.resumedWith.get()).isInstanceOf(Response.class);
+        assertThat(queued.resumedWith.get()).isNull();
+    }
+
+    @Test
+    void aBatchAgainstAModelThatIsNotResidentShouldResumeTheResponseWithTheException() throws Exception {
+        final WritingAsyncResponse response = new WritingAsyncResponse();
+        resident = false;
+
+        resource.findSimilaritiesInBatch(batch(), acceptingAnything(), response);
+
+        assertThat(response.resumed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(response.resumedWith.get()).isInstanceOf(ModelNotResidentException.class);
+        assertThat(scoringThread.get()).isNull();
+    }
+
+    private static FindSimilarWordsBatchRequest batch() {
+        return new FindSimilarWordsBatchRequest(Collections.singletonList("haus"), null, "model.lvec", null);
+    }
+
+    private static HttpHeaders acceptingAnything() {
+        return (HttpHeaders) Proxy.newProxyInstance(HttpHeaders.class.getClassLoader(), new Class<?>[]{HttpHeaders.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getAcceptableMediaTypes")) {
+                        return Collections.singletonList(MediaType.WILDCARD_TYPE);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Writes a streamed entity right away on the thread that resumes the response.
+     */
+    private static class WritingAsyncResponse implements AsyncResponse {
+
+        private final AtomicReference<Object> resumedWith = new AtomicReference<>();
+
+        private final CountDownLatch resumed = new CountDownLatch(1);
+
+        @Override
+        public boolean resume(final Object response) {
+            if (!resumedWith.compareAndSet(null, response)) {
+                return false;
+            }
+            final Object entity = ((Response) response).getEntity();
+            if (entity instanceof StreamingOutput) {
+                try {
+                    ((StreamingOutput) entity).write(new ByteArrayOutputStream());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            resumed.countDown();
+            return true;
+        }
+
+        @Override
+        public boolean resume(final Throwable response) {
+            if (!resumedWith.compareAndSet(null, response)) {
+                return false;
+            }
+            resumed.countDown();
+            return true;
+        }
+
+        @Override
+        public boolean cancel() {
+            return false;
+        }
+
+        @Override
+        public boolean cancel(final int retryAfter) {
+            return false;
+        }
+
+        @Override
+        public boolean cancel(final Date retryAfter) {
+            return false;
+        }
+
+        @Override
+        public boolean isSuspended() {
+            return resumedWith.get() == null;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return resumedWith.get() != null;
+        }
+
+        @Override
+        public boolean setTimeout(final long time, final TimeUnit unit) {
+            return false;
+        }
+
+        @Override
+        public void setTimeoutHandler(final TimeoutHandler handler) {
+        }
+
+        @Override
+        public Collection<Class<?>> register(final Class<?> callback) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(final Class<?> callback, final Class<?>... callbacks) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Collection<Class<?>> register(final Object callback) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Map<Class<?>, Collection<Class<?>>> register(final Object callback, final Object... callbacks) {
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -1,9 +1,7 @@
 package net.mguenther.lingus.wordembedding.rest;
 
 import io.quarkus.test.junit.NativeImageTest;
-import org.junit.jupiter.api.Disabled;
 
-@Disabled
 @NativeImageTest
 class NativeWordEmbeddingResourceTest extends WordEmbeddingResourceTest {
 }
@@ -1,19 +1,54 @@
 package net.mguenther.lingus.wordembedding.rest;
 
 import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.Response;
 import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.api.LingusMediaTypes;
 import net.mguenther.lingus.wordembedding.api.SimilarWord;
 import net.mguenther.lingus.wordembedding.api.Term;
-import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
 import static io.restassured.RestAssured.given;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
 
-@Disabled
 @QuarkusTest
 class WordEmbeddingResourceTest {
 
+    private static final String MODEL = "text-cleaned-1000-model.lvec";
+
+    private static final long ACTIVATION_TIMEOUT_MILLIS = 60_000L;
+
+    private static boolean modelActivated = false;
+
+    @BeforeEach
+    void activateModel() throws InterruptedException {
+        if (modelActivated) {
+            return;
+        }
+        given()
+                .when().put("/wordembedding/admin/models/" + MODEL)
+                .then()
+                .statusCode(202);
+        final long deadline = System.currentTimeMillis() + ACTIVATION_TIMEOUT_MILLIS;
+        String state = "LOADING";
+        while ("LOADING".equals(state) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100L);
+            state = given()
+                    .when().get("/wordembedding/admin/models/" + MODEL + "/progress")
+                    .then()
+                    .statusCode(200)
+                    .extract().path("state");
+        }
+        assertThat(state).isEqualTo("COMPLETED");
+        modelActivated = true;
+    }
+
     @Test
     void queryEndpointShouldReturnSuggestionsForRecognizedWords() {
         final FindSimilarWordsResult result = given()
@@ -48,4 +83,109 @@ class WordEmbeddingResourceTest {
             assertThat(term.getTerm()).isNotEmpty();
         }
     }
+
+    @Test
+    void queryEndpointShouldNameTheModelAndItsVersionAlongsideSimilarWordIds() {
+        final Response response = given()
+                .accept(LingusMediaTypes.SIMILAR_WORD_IDS)
+                .when().get("/wordembedding/query?term=das")
+                .then()
+                .statusCode(200)
+                .contentType(LingusMediaTypes.SIMILAR_WORD_IDS)
+                .header(LingusMediaTypes.MODEL_HEADER, MODEL)
+                .extract().response();
+        assertThat(Long.parseLong(response.header(LingusMediaTypes.MODEL_VERSION_HEADER))).isPositive();
+        assertThat(response.asByteArray()[0]).isEqualTo((byte) LingusMediaTypes.VERSION);
+    }
+
+    @Test
+    void batchEndpointShouldStreamOneLinePerTerm() {
+        final Response response = given()
+                .contentType("application/json")
+                .accept("application/x-ndjson")
+                .body("{\"terms\": [\"das\", \"schule\"], \"maxSuggestions\": 3}")
+                .when().post("/wordembedding/query/batch")
+                .then()
+                .statusCode(200)
+                .header(LingusMediaTypes.MODEL_HEADER, MODEL)
+                .extract().response();
+        final List<String> lines = Arrays.asList(new String(response.asByteArray(), StandardCharsets.UTF_8).trim().split("\n"));
+        assertThat(lines).hasSize(2);
+        assertThat(lines).anySatisfy(line -> assertThat(line).contains("\"term\":\"das\"").contains("\"similarity\""));
+        assertThat(lines).anySatisfy(line -> assertThat(line).contains("\"term\":\"schule\"").contains("\"similar\":[]"));
+    }
+
+    @Test
+    void matrixEndpointShouldMeasureEachRowAgainstEachColumn() {
+        final Response response = given()
+                .contentType("application/json")
+                .body("{\"rows\": [\"das\"], \"columns\": [\"das\", \"schule\"]}")
+                .when().post("/wordembedding/similarity/matrix")
+                .then()
+                .statusCode(200)
+                .contentType("application/json")
+                .extract().response();
+        assertThat(response.<List<String>>path("unknownRows")).isEmpty();
+        assertThat(response.<List<String>>path("unknownColumns")).containsExactly("schule");
+        assertThat(response.<Float>path("similarities[0][0]")).isCloseTo(1.0f, offset(0.001f));
+        assertThat(response.<Object>path("similarities[0][1]")).isNull();
+    }
+
+    @Test
+    void vocabularyEndpointShouldReturnWordsThatStartWithThePrefix() {
+        final List<String> words = given()
+                .when().get("/wordembedding/vocabulary?prefix=da&limit=5")
+                .then()
+                .statusCode(200)
+                .contentType("application/json")
+                .extract().path("words");
+        assertThat(words).isNotEmpty().hasSizeLessThanOrEqualTo(5).contains("das");
+        assertThat(words).allSatisfy(word -> assertThat(word).startsWith("da"));
+    }
+
+    @Test
+    void modelVocabularyEndpointShouldStreamTheWordsOfTheModelInIdOrder() {
+        final Response response = given()
+                .when().get("/wordembedding/admin/models/" + MODEL + "/vocabulary")
+                .then()
+                .statusCode(200)
+                .contentType("text/plain")
+                .header(LingusMediaTypes.MODEL_HEADER, MODEL)
+                .extract().response();
+        final List<String> words = Arrays.asList(new String(response.asByteArray(), StandardCharsets.UTF_8).split("\n"));
+        assertThat(words).contains("das").doesNotHaveDuplicates();
+    }
+
+    @Test
+    void progressEndpointShouldReportACompletedLoad() {
+        final Response response = given()
+                .when().get("/wordembedding/admin/models/" + MODEL + "/progress")
+                .then()
+                .statusCode(200)
+                .contentType("application/json")
+                .extract().response();
+        assertThat(response.<String>path("filename")).isEqualTo(MODEL);
+        assertThat(response.<String>path("state")).isEqualTo("COMPLETED");
+        assertThat(response.<Number>path("totalWords").longValue()).isPositive();
+        assertThat(response.<Object>path("error")).isNull();
+    }
+
+    @Test
+    void cacheEndpointShouldCountTheHitsOfARepeatedQuery() {
+        final int hitsBefore = given()
+                .when().get("/wordembedding/admin/cache")
+                .then()
+                .statusCode(200)
+                .extract().path("similarWords.hits");
+        given().when().get("/wordembedding/query?term=der").then().statusCode(200);
+        given().when().get("/wordembedding/query?term=der").then().statusCode(200);
+        final Response response = given()
+                .when().get("/wordembedding/admin/cache")
+                .then()
+                .statusCode(200)
+                .contentType("application/json")
+                .extract().response();
+        assertThat(response.<Integer>path("similarWords.hits")).isGreaterThan(hitsBefore);
+        assertThat(response.<Integer>path("maximumSize")).isPositive();
+    }
 }
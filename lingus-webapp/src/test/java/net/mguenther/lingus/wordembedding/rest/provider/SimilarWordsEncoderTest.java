@@ -0,0 +1,106 @@
+package net.mguenther.lingus.wordembedding.rest.provider;
+
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsResult;
+import net.mguenther.lingus.wordembedding.api.LingusMediaTypes;
+import net.mguenther.lingus.wordembedding.api.SimilarWord;
+import net.mguenther.lingus.wordembedding.api.Term;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SimilarWordsEncoderTest {
+
+    private static final FindSimilarWordsResult RESULT = new FindSimilarWordsResult("wiki.lvec", 3L, new LinkedHashSet<>(Arrays.asList(
+            new Term("schule", Arrays.asList(
+                    new SimilarWord("universität", 0.9, 17),
+                    new SimilarWord("akademie", 0.68, 4711)), true),
+            new Term("unbekannt", Collections.emptyList(), false))), true);
+
+    @Test
+    void shouldEncodeSimilarWordsAsStrings() throws Exception {
+        final ByteBuffer encoded = encode(false);
+
+        assertThat(encoded.get()).isEqualTo((byte) LingusMediaTypes.VERSION);
+        assertThat(encoded.get()).isEqualTo((byte) LingusMediaTypes.FLAG_PARTIAL);
+        assertThat(string(encoded)).isEqualTo("wiki.lvec");
+        assertThat(encoded.getLong()).isEqualTo(3L);
+        assertThat(encoded.getInt()).isEqualTo(2);
+        assertThat(string(encoded)).isEqualTo("schule");
+        assertThat(encoded.get()).isEqualTo((byte) 1);
+        assertThat(encoded.getInt()).isEqualTo(2);
+        assertThat(string(encoded)).isEqualTo("universität");
+        assertThat(encoded.getFloat()).isCloseTo(0.9f, within(1e-6f));
+        assertThat(string(encoded)).isEqualTo("akademie");
+        assertThat(encoded.getFloat()).isCloseTo(0.68f, within(1e-6f));
+        assertUnknownTerm(encoded);
+    }
+
+    @Test
+    void shouldEncodeSimilarWordsByTheirIds() throws Exception {
+        final ByteBuffer encoded = encode(true);
+
+        assertThat(encoded.get()).isEqualTo((byte) LingusMediaTypes.VERSION);
+        assertThat(encoded.get()).isEqualTo((byte) (LingusMediaTypes.FLAG_PARTIAL | LingusMediaTypes.FLAG_IDS));
+        assertThat(string(encoded)).isEqualTo("wiki.lvec");
+        assertThat(encoded.getLong()).isEqualTo(3L);
+        assertThat(encoded.getInt()).isEqualTo(2);
+        assertThat(string(encoded)).isEqualTo("schule");
+        assertThat(encoded.get()).isEqualTo((byte) 1);
+        assertThat(encoded.getInt()).isEqualTo(2);
+        assertThat(encoded.getInt()).isEqualTo(17);
+        assertThat(encoded.getFloat()).isCloseTo(0.9f, within(1e-6f));
+        assertThat(encoded.getInt()).isEqualTo(4711);
+        assertThat(encoded.getFloat()).isCloseTo(0.68f, within(1e-6f));
+        assertUnknownTerm(encoded);
+    }
+
+    @Test
+    void shouldGrowItsBufferForLargeTerms() throws Exception {
+        final char[] longWord = new char[10_000];
+        Arrays.fill(longWord, 'x');
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final SimilarWordsEncoder encoder = new SimilarWordsEncoder(out, false);
+        encoder.writeStreamHeader("wiki.lvec", 3L);
+        encoder.write(new Term("schule", Collections.singletonList(new SimilarWord(new String(longWord), 0.5)), false));
+
+        final ByteBuffer encoded = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        encoded.position(2);
+        assertThat(string(encoded)).isEqualTo("wiki.lvec");
+        assertThat(encoded.getLong()).isEqualTo(3L);
+        assertThat(encoded.getInt()).isEqualTo(LingusMediaTypes.STREAMED);
+        assertThat(string(encoded)).isEqualTo("schule");
+        encoded.get();
+        assertThat(encoded.getInt()).isEqualTo(1);
+        assertThat(string(encoded)).hasSize(longWord.length);
+        assertThat(encoded.getFloat()).isEqualTo(0.5f);
+        assertThat(encoded.hasRemaining()).isFalse();
+    }
+
+    private static ByteBuffer encode(final boolean ids) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SimilarWordsEncoder(out, ids).write(RESULT);
+        return ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void assertUnknownTerm(final ByteBuffer encoded) {
+        assertThat(string(encoded)).isEqualTo("unbekannt");
+        assertThat(encoded.get()).isEqualTo((byte) 0);
+        assertThat(encoded.getInt()).isZero();
+        assertThat(encoded.hasRemaining()).isFalse();
+    }
+
+    private static String string(final ByteBuffer encoded) {
+        final byte[] utf8 = new byte[encoded.getInt()];
+        encoded.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
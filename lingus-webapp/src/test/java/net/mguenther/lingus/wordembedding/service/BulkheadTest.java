@@ -0,0 +1,75 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadTest {
+
+    private Bulkhead bulkhead;
+
+    @BeforeEach
+    void createBulkhead() {
+        bulkhead = new Bulkhead("test", 1, 1, new LingusMetrics(new MetricsRegistryImpl()));
+    }
+
+    @AfterEach
+    void shutdownBulkhead() {
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void shouldCompleteWithTheResultOfTheTask() throws Exception {
+        assertThat(bulkhead.submit(() -> 42).toCompletableFuture().get(5, TimeUnit.SECONDS)).isEqualTo(42);
+    }
+
+    @Test
+    void shouldCompleteWithTheUnwrappedExceptionOfTheTask() {
+        final CompletableFuture<Object> result = bulkhead.submit(() -> {
+            throw new UnknownTermException("haus");
+        }).toCompletableFuture();
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseExactlyInstanceOf(UnknownTermException.class);
+    }
+
+    @Test
+    void shouldShedRequestsRightAwayOnceTheQueueIsFull() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<String> first = bulkhead.submit(() -> {
+            running.countDown();
+            await(release);
+            return "first";
+        }).toCompletableFuture();
+        running.await(5, TimeUnit.SECONDS);
+        final CompletableFuture<String> queued = bulkhead.submit(() -> "queued").toCompletableFuture();
+
+        final CompletableFuture<String> shed = bulkhead.submit(() -> "shed").toCompletableFuture();
+
+        assertThat(shed).isCompletedExceptionally();
+        assertThatThrownBy(shed::get).hasCauseExactlyInstanceOf(OverloadedException.class);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+import net.mguenther.lingus.wordembedding.vectors.Deadline;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LingusMetricsTest {
+
+    private MetricRegistry registry;
+
+    private LingusMetrics metrics;
+
+    @BeforeEach
+    void createMetrics() {
+        registry = new MetricsRegistryImpl();
+        metrics = new LingusMetrics(registry);
+    }
+
+    @Test
+    void shouldRegisterItsMetricsUponCreation() {
+        assertThat(registry.getTimers()).containsKey(new MetricID("lingus.model.load"));
+        assertThat(registry.getCounters()).containsKeys(
+                new MetricID("lingus.model.load.bytes"),
+                new MetricID("lingus.model.load.failures"),
+                new MetricID("lingus.model.load.refused"),
+                new MetricID("lingus.terms.requested"),
+                new MetricID("lingus.terms.unknown"),
+                new MetricID("lingus.terms.searched"),
+                new MetricID("lingus.terms.coalesced"),
+                new MetricID("lingus.queries.partial"));
+        assertThat(registry.getMetadata().get("lingus.model.load.bytes").getUnit()).contains(MetricUnits.BYTES);
+    }
+
+    @Test
+    void aLoadedModelShouldUpdateTheLoadTimeAndTheBytesLoaded() {
+        metrics.modelLoaded(1024L, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.modelLoaded(2048L, TimeUnit.MILLISECONDS.toNanos(15));
+
+        assertThat(registry.timer("lingus.model.load").getCount()).isEqualTo(2L);
+        assertThat(registry.timer("lingus.model.load").getSnapshot().getMax()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(15));
+        assertThat(registry.counter("lingus.model.load.bytes").getCount()).isEqualTo(3072L);
+    }
+
+    @Test
+    void failedAndRefusedActivationsShouldBeCounted() {
+        metrics.modelLoadFailed();
+        metrics.modelLoadRefused();
+        metrics.modelLoadRefused();
+
+        assertThat(registry.counter("lingus.model.load.failures").getCount()).isEqualTo(1L);
+        assertThat(registry.counter("lingus.model.load.refused").getCount()).isEqualTo(2L);
+    }
+
+    @Test
+    void unknownTermsShouldBeCountedAlongWithAllRequestedTerms() {
+        metrics.termRequested(true);
+        metrics.termRequested(false);
+        metrics.termRequested(true);
+
+        assertThat(registry.counter("lingus.terms.requested").getCount()).isEqualTo(3L);
+        assertThat(registry.counter("lingus.terms.unknown").getCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void partialQueriesShouldBeCounted() {
+        metrics.queryAnsweredPartially();
+
+        assertThat(registry.counter("lingus.queries.partial").getCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void bulkheadsShouldRegisterTheirTimersAndGauges() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead("query", 1, 1, metrics);
+        try {
+            bulkhead.submit(() -> "done").toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+            assertThat(registry.timer("lingus.bulkhead.query.wait").getCount()).isEqualTo(1L);
+            assertThat(registry.counter("lingus.bulkhead.query.rejected").getCount()).isZero();
+            assertThat(gauge("lingus.bulkhead.query.active")).isNotNull();
+            assertThat(gauge("lingus.bulkhead.query.queued")).isZero();
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    void residentMemoryGaugesShouldFollowTheResidentModels() throws Exception {
+        final EmbeddingModelFactory modelFactory = new EmbeddingModelFactory() {
+            @Override
+            EmbeddingModel create(final File modelFile, final ModelFormat format, final Quantization quantization, final LoadProgress progress) {
+                return new ResidentModel(4096L);
+            }
+        };
+        final Word2VecProvider provider = new Word2VecProvider(modelFactory, new ResultCache(0L), metrics, 8192L, 0.1, false);
+        try {
+            provider.registerGauges();
+            assertThat(gauge("lingus.models.resident")).isZero();
+            assertThat(gauge("lingus.models.resident.bytes")).isZero();
+            assertThat(gauge("lingus.models.memory.budget")).isEqualTo(8192L);
+
+            final Path modelFile = Files.createTempFile("a", ".lvec");
+            try {
+                final ModelMetadata metadata = new ModelMetadata("a.lvec", modelFile.toString());
+                final LoadProgress progress = provider.load(metadata, Quantization.NONE);
+                final long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (progress.isLoading() && System.nanoTime() < giveUpAt) {
+                    Thread.sleep(1);
+                }
+
+                assertThat(gauge("lingus.models.resident")).isEqualTo(1L);
+                assertThat(gauge("lingus.models.resident.bytes")).isEqualTo(4096L);
+                assertThat(registry.timer("lingus.model.load").getCount()).isEqualTo(1L);
+
+                provider.unload("a.lvec");
+
+                assertThat(gauge("lingus.models.resident")).isZero();
+                assertThat(gauge("lingus.models.resident.bytes")).isZero();
+            } finally {
+                Files.deleteIfExists(modelFile);
+            }
+        } finally {
+            provider.shutdown();
+        }
+    }
+
+    private Long gauge(final String name) {
+        final Gauge<?> gauge = registry.getGauges().get(new MetricID(name));
+        assertThat(gauge).as("gauge %s", name).isNotNull();
+        return (Long) gauge.getValue();
+    }
+
+    /**
+     * A model that only reports how many bytes it occupies.
+     */
+    private static class ResidentModel implements EmbeddingModel {
+
+        private final long residentBytes;
+
+        ResidentModel(final long residentBytes) {
+            this.residentBytes = residentBytes;
+        }
+
+        @Override
+        public boolean hasWord(final String term) {
+            return false;
+        }
+
+        @Override
+        public Optional<NearestWords> nearest(final String term, final int howMany, final int efSearch, final boolean exact, final Deadline deadline) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void nearest(final List<String> terms, final int howMany, final Deadline deadline, final BiConsumer<String, Optional<NearestWords>> consumer) {
+        }
+
+        @Override
+        public double similarity(final String word, final String otherWord) {
+            return 0.0;
+        }
+
+        @Override
+        public float[][] similarities(final List<String> rows, final List<String> columns) {
+            return new float[0][0];
+        }
+
+        @Override
+        public List<String> wordsWithPrefix(final String prefix, final int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int vocabularySize() {
+            return 0;
+        }
+
+        @Override
+        public String word(final int id) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public int dimensions() {
+            return 0;
+        }
+
+        @Override
+        public long residentBytes() {
+            return residentBytes;
+        }
+    }
+}
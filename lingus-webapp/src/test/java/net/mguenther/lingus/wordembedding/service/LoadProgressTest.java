@@ -0,0 +1,112 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import net.mguenther.lingus.wordembedding.api.ModelLoadProgress;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LoadProgressTest {
+
+    @Test
+    void aNewActivationShouldBeReadingWithoutAnEstimate() {
+        final LoadProgress progress = new LoadProgress("a.lvec", Quantization.INT8, 1000L, 100L);
+
+        final ModelLoadProgress result = progress.toResult();
+
+        assertThat(progress.isLoading()).isTrue();
+        assertThat(result.getFilename()).isEqualTo("a.lvec");
+        assertThat(result.getQuantization()).isEqualTo("INT8");
+        assertThat(result.getState()).isEqualTo("LOADING");
+        assertThat(result.getPhase()).isEqualTo("READING");
+        assertThat(result.getTotalBytes()).isEqualTo(1000L);
+        assertThat(result.getTotalWords()).isEqualTo(100L);
+        assertThat(result.getEtaMillis()).isNull();
+        assertThat(result.getError()).isNull();
+    }
+
+    @Test
+    void theEstimateWhileReadingShouldBeExtrapolatedFromTheBytesRead() throws Exception {
+        final LoadProgress progress = new LoadProgress("a.lvec", Quantization.NONE, 1000L, 100L);
+        progress.reading().advance(250L, 10);
+        Thread.sleep(20);
+
+        final ModelLoadProgress result = progress.toResult();
+
+        assertThat(result.getBytesRead()).isEqualTo(250L);
+        assertThat(result.getWordsParsed()).isEqualTo(10L);
+        assertThat(result.getElapsedMillis()).isGreaterThanOrEqualTo(20L);
+        assertThat(result.getEtaMillis()).isCloseTo(3 * result.getElapsedMillis(), within(1L));
+    }
+
+    @Test
+    void theEstimateWhileReadingShouldBeExtrapolatedFromTheWordsParsedIfNoBytesAreReported() throws Exception {
+        final LoadProgress progress = new LoadProgress("a.lvec", Quantization.NONE, 1000L, 100L);
+        progress.reading().advance(0L, 50);
+        Thread.sleep(20);
+
+        final ModelLoadProgress result = progress.toResult();
+
+        assertThat(result.getEtaMillis()).isCloseTo(result.getElapsedMillis(), within(1L));
+    }
+
+    @Test
+    void theEstimateWhileIndexingShouldBeExtrapolatedFromTheWordsIndexed() throws Exception {
+        final LoadProgress progress = new LoadProgress("a.lvec", Quantization.NONE, 1000L, -1L);
+        progress.reading().advance(1000L, 100);
+        progress.describe(100);
+        progress.enter(LoadProgress.Phase.INDEXING);
+        assertThat(progress.toResult().getEtaMillis()).isNull();
+
+        progress.indexing().advance(0L, 20);
+        Thread.sleep(20);
+        final ModelLoadProgress result = progress.toResult();
+
+        assertThat(result.getPhase()).isEqualTo("INDEXING");
+        assertThat(result.getTotalWords()).isEqualTo(100L);
+        assertThat(result.getWordsIndexed()).isEqualTo(20L);
+        assertThat(result.getEtaMillis()).isGreaterThanOrEqualTo(4 * 20L);
+    }
+
+    @Test
+    void quantizingShouldNotBeEstimated() {
+        final LoadProgress progress = new LoadProgress("a.lvec", Quantization.PQ, 1000L, 100L);
+        progress.enter(LoadProgress.Phase.QUANTIZING);
+
+        final ModelLoadProgress result = progress.toResult();
+
+        assertThat(result.getPhase()).isEqualTo("QUANTIZING");
+        assertThat(result.getEtaMillis()).isNull();
+    }
+
+    @Test
+    void aCompletedActivationShouldReportNeitherPhaseNorEstimateAndStopTheClock() throws Exception {
+        final LoadProgress progress = new LoadProgress("a.lvec", Quantization.NONE, 1000L, 100L);
+        progress.reading().advance(500L, 50);
+        progress.complete();
+        final long elapsedMillis = progress.toResult().getElapsedMillis();
+        Thread.sleep(20);
+
+        final ModelLoadProgress result = progress.toResult();
+
+        assertThat(progress.isLoading()).isFalse();
+        assertThat(result.getState()).isEqualTo("COMPLETED");
+        assertThat(result.getPhase()).isNull();
+        assertThat(result.getEtaMillis()).isNull();
+        assertThat(result.getElapsedMillis()).isEqualTo(elapsedMillis);
+    }
+
+    @Test
+    void aFailedActivationShouldReportTheCause() {
+        final LoadProgress progress = new LoadProgress("a.lvec", Quantization.NONE, 1000L, 100L);
+
+        progress.fail(new IllegalStateException("The model file is corrupt."));
+
+        final ModelLoadProgress result = progress.toResult();
+        assertThat(progress.isLoading()).isFalse();
+        assertThat(result.getState()).isEqualTo("FAILED");
+        assertThat(result.getPhase()).isNull();
+        assertThat(result.getError()).isEqualTo("The model file is corrupt.");
+    }
+}
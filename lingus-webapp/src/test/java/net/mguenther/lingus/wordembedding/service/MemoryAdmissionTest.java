@@ -0,0 +1,91 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemoryAdmissionTest {
+
+    @Test
+    void shouldAdmitAModelThatFitsIntoTheHeapWithoutCollectingGarbage() {
+        final AtomicInteger collections = new AtomicInteger();
+        final MemoryAdmission admission = new MemoryAdmission(0L, 100L, () -> 1_000L, () -> Long.MAX_VALUE, collections::incrementAndGet);
+
+        admission.admit("model.bin", new MemoryRequirement(900L, 0L, 900L), 0L);
+
+        assertThat(collections.get()).isZero();
+    }
+
+    @Test
+    void shouldCollectGarbageBeforeRefusingAModel() {
+        final AtomicLong availableHeap = new AtomicLong(500L);
+        final MemoryAdmission admission = new MemoryAdmission(0L, 0L, availableHeap::get, () -> Long.MAX_VALUE, () -> availableHeap.set(1_000L));
+
+        admission.admit("model.bin", new MemoryRequirement(800L, 0L, 800L), 0L);
+
+        assertThat(availableHeap.get()).isEqualTo(1_000L);
+    }
+
+    @Test
+    void shouldRefuseAModelThatDoesNotFitWithoutCollectingGarbageUnlessEnabled() {
+        final MemoryAdmission admission = new MemoryAdmission(0L, 0L, () -> 500L, () -> Long.MAX_VALUE, null);
+
+        assertThatThrownBy(() -> admission.admit("model.bin", new MemoryRequirement(800L, 0L, 800L), 0L))
+                .isInstanceOf(InsufficientMemoryException.class);
+    }
+
+    @Test
+    void shouldRefuseAModelThatDoesNotFitIntoTheHeapApartFromTheHeadroom() {
+        final MemoryAdmission admission = new MemoryAdmission(0L, 100L, () -> 1_000L, () -> Long.MAX_VALUE, () -> { });
+
+        assertThatThrownBy(() -> admission.admit("model.bin", new MemoryRequirement(901L, 0L, 901L), 0L))
+                .isInstanceOf(InsufficientMemoryException.class)
+                .hasMessageContaining("model.bin");
+    }
+
+    @Test
+    void shouldNotCheckMappedBytesAgainstTheHeap() {
+        final MemoryAdmission admission = new MemoryAdmission(0L, 0L, () -> 1_000L, () -> Long.MAX_VALUE, () -> { });
+
+        admission.admit("model.lvec", new MemoryRequirement(100L, 10_000L, 10_100L), 0L);
+    }
+
+    @Test
+    void shouldRefuseAModelThatExceedsTheMemoryBudgetOnItsOwn() {
+        final MemoryAdmission admission = new MemoryAdmission(1_000L, 0L, () -> Long.MAX_VALUE, () -> Long.MAX_VALUE, () -> { });
+
+        assertThatThrownBy(() -> admission.admit("model.lvec", new MemoryRequirement(100L, 10_000L, 10_100L), 0L))
+                .isInstanceOf(InsufficientMemoryException.class);
+    }
+
+    @Test
+    void shouldRefuseAModelThatMapsMoreBytesThanAreAvailableOutsideOfTheHeap() {
+        final MemoryAdmission admission = new MemoryAdmission(0L, 0L, () -> 1_000L, () -> 10_000L, () -> { });
+
+        assertThatThrownBy(() -> admission.admit("model.lvec", new MemoryRequirement(100L, 10_001L, 10_101L), 0L))
+                .isInstanceOf(InsufficientMemoryException.class)
+                .hasMessageContaining("outside of the heap");
+    }
+
+    @Test
+    void theBytesThatResidentModelsMapShouldCountAgainstTheMemoryOutsideOfTheHeap() {
+        final MemoryAdmission admission = new MemoryAdmission(0L, 0L, () -> 1_000L, () -> 10_000L, () -> { });
+
+        admission.admit("model.lvec", new MemoryRequirement(100L, 6_000L, 6_100L), 4_000L);
+        assertThatThrownBy(() -> admission.admit("model.lvec", new MemoryRequirement(100L, 6_000L, 6_100L), 4_001L))
+                .isInstanceOf(InsufficientMemoryException.class);
+    }
+
+    @Test
+    void shouldRefuseAModelThatMapsMoreBytesThanTheMemoryBudget() {
+        final MemoryAdmission admission = new MemoryAdmission(1_000L, 0L, () -> Long.MAX_VALUE, () -> Long.MAX_VALUE, () -> { });
+
+        assertThatThrownBy(() -> admission.admit("model.lvec", new MemoryRequirement(100L, 10_000L, 500L), 0L))
+                .isInstanceOf(InsufficientMemoryException.class)
+                .hasMessageContaining("memory budget");
+    }
+}
@@ -0,0 +1,78 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import net.mguenther.lingus.wordembedding.vectors.HnswIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModelDirectoryTest {
+
+    private static final Path LINGUS_MODEL = Paths.get("src/test/resources/models/text-cleaned-1000-model.lvec");
+
+    private static final Path DL4J_MODEL = Paths.get("src/test/resources/models/text-cleaned-1000-model.bin");
+
+    private static final long TIMEOUT_MILLIS = 30_000L;
+
+    private ModelDirectory directory;
+
+    @AfterEach
+    void stopWatching() {
+        if (directory != null) {
+            directory.shutdown();
+        }
+    }
+
+    @Test
+    void shouldDescribeModelsFromTheirHeaders(@TempDir final Path tempDir) throws Exception {
+        Files.copy(LINGUS_MODEL, tempDir.resolve("model.lvec"));
+        Files.copy(DL4J_MODEL, tempDir.resolve("model.bin"));
+        Files.write(tempDir.resolve("model.txt"), "2 3\nhaus 0.5 0.5 0\nschule 1 0 0\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("model.lvec" + HnswIndex.FILE_EXTENSION), new byte[16]);
+
+        directory = new ModelDirectory(tempDir.toString(), false);
+        directory.start();
+
+        assertThat(directory.models().stream().map(ModelMetadata::getFilename).collect(Collectors.toList()))
+                .containsExactly("model.bin", "model.lvec", "model.txt");
+        final ModelMetadata lingus = directory.find("model.lvec").get();
+        final ModelMetadata dl4j = directory.find("model.bin").get();
+        assertThat(lingus.getFormat()).isEqualTo(ModelFormat.LINGUS);
+        assertThat(lingus.getFileSize()).isEqualTo(Files.size(LINGUS_MODEL));
+        assertThat(dl4j.getFormat()).isEqualTo(ModelFormat.DL4J);
+        assertThat(dl4j.getVocabSize()).isEqualTo(lingus.getVocabSize());
+        assertThat(dl4j.getDimensions()).isEqualTo(lingus.getDimensions());
+        assertThat(directory.find("model.txt").get().getFormat()).isEqualTo(ModelFormat.WORD2VEC_TEXT);
+        assertThat(directory.find("model.txt").get().getVocabSize()).isEqualTo(2);
+        assertThat(directory.find("model.txt").get().getDimensions()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldPickUpModelsThatAreAddedOrRemoved(@TempDir final Path tempDir) throws Exception {
+        directory = new ModelDirectory(tempDir.toString(), true);
+        directory.start();
+        assertThat(directory.models()).isEmpty();
+
+        Files.copy(LINGUS_MODEL, tempDir.resolve("model.lvec"));
+        awaitUntil(() -> directory.find("model.lvec").map(ModelMetadata::isDescribed).orElse(false));
+
+        Files.delete(tempDir.resolve("model.lvec"));
+        awaitUntil(() -> !directory.find("model.lvec").isPresent());
+    }
+
+    private static void awaitUntil(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(50L);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import net.mguenther.lingus.wordembedding.api.Quantization;
+
+/**
+ * Creates snapshots for tests outside of the service package, which do not look into the model.
+ */
+public final class ModelSnapshots {
+
+    private ModelSnapshots() {
+    }
+
+    public static ModelSnapshot withoutModel(final String filename, final long version) {
+        return new ModelSnapshot(version, new ModelMetadata(filename, filename), Quantization.NONE, null);
+    }
+}
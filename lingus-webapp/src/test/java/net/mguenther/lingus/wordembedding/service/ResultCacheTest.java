@@ -0,0 +1,241 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import net.mguenther.lingus.wordembedding.api.CacheStatistics;
+import net.mguenther.lingus.wordembedding.api.FindSimilarWordsRequest;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+import net.mguenther.lingus.wordembedding.api.Term;
+import net.mguenther.lingus.wordembedding.vectors.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+class ResultCacheTest {
+
+    @TempDir
+    Path modelDirectory;
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private Word2VecProvider provider;
+
+    @AfterEach
+    void shutdownProvider() {
+        if (provider != null) {
+            provider.shutdown();
+        }
+    }
+
+    @Test
+    void resultsShouldBeCachedSeparatelyPerModelNumberOfSuggestionsAndEfSearch() {
+        final ResultCache cache = new ResultCache(100L);
+
+        cache.similarWords("a.lvec#1", "haus", 5, 64, search("haus"));
+        cache.similarWords("a.lvec#1", "haus", 5, 64, search("haus"));
+        cache.similarWords("b.lvec#1", "haus", 5, 64, search("haus"));
+        cache.similarWords("a.lvec#1", "haus", 3, 64, search("haus"));
+        cache.similarWords("a.lvec#1", "haus", 5, 128, search("haus"));
+
+        assertThat(searches.get()).isEqualTo(4);
+        assertThat(cache.statistics().getSimilarWords().getHits()).isEqualTo(1L);
+        assertThat(cache.statistics().getSimilarWords().getSize()).isEqualTo(4L);
+    }
+
+    @Test
+    void partialResultsShouldNotBeCached() {
+        final ResultCache cache = new ResultCache(100L);
+        final Supplier<Term> partialSearch = () -> {
+            searches.incrementAndGet();
+            return new Term("haus", Collections.emptyList(), true);
+        };
+
+        cache.similarWords("a.lvec#1", "haus", 5, 64, partialSearch);
+        cache.similarWords("a.lvec#1", "haus", 5, 64, partialSearch);
+
+        assertThat(searches.get()).isEqualTo(2);
+        assertThat(cache.statistics().getSimilarWords().getSize()).isZero();
+    }
+
+    @Test
+    void aMaximumSizeOfZeroShouldDisableTheCache() {
+        final ResultCache cache = new ResultCache(0L);
+
+        cache.similarWords("a.lvec#1", "haus", 5, 64, search("haus"));
+        cache.similarWords("a.lvec#1", "haus", 5, 64, search("haus"));
+        cache.similarity("a.lvec#1", "haus", "hof", () -> 0.5);
+        cache.similarity("a.lvec#1", "haus", "hof", () -> 0.5);
+
+        assertThat(searches.get()).isEqualTo(2);
+        assertThat(cache.statistics().getMaximumSize()).isZero();
+        assertThat(cache.statistics().getSimilarWords().getHits()).isZero();
+        assertThat(cache.statistics().getSimilarWords().getMisses()).isZero();
+        assertThat(cache.statistics().getSimilarity().getHits()).isZero();
+    }
+
+    @Test
+    void evictionsShouldBeCounted() throws Exception {
+        final ResultCache cache = new ResultCache(2L);
+
+        for (int i = 0; i < 10; i++) {
+            cache.similarWords("a.lvec#1", "term" + i, 5, 64, search("term" + i));
+        }
+
+        final long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.statistics().getSimilarWords().getEvictions() == 0) {
+            awaitOrFail(giveUpAt, "Caffeine did not evict any entry in time.");
+        }
+        assertThat(cache.statistics().getSimilarWords().getMisses()).isEqualTo(10L);
+    }
+
+    @Test
+    void exactQueriesShouldBypassTheCache() throws Exception {
+        final ResultCache cache = new ResultCache(100L);
+        final WordEmbeddingService service = serviceWith(cache);
+        activate("a.lvec");
+        final FindSimilarWordsRequest request = FindSimilarWordsRequest.create().forTerm("haus").exact(true).build();
+
+        service.similar(request);
+        service.similar(request);
+
+        assertThat(searches.get()).isEqualTo(2);
+        assertThat(cache.statistics().getSimilarWords().getHits()).isZero();
+        assertThat(cache.statistics().getSimilarWords().getMisses()).isZero();
+        assertThat(cache.statistics().getSimilarWords().getSize()).isZero();
+    }
+
+    @Test
+    void anActivationShouldStartAFreshGenerationWhileTheStatisticsCarryOver() throws Exception {
+        final ResultCache cache = new ResultCache(100L);
+        final WordEmbeddingService service = serviceWith(cache);
+        final FindSimilarWordsRequest request = FindSimilarWordsRequest.create().forTerm("haus").build();
+        activate("a.lvec");
+        service.similar(request);
+        service.similar(request);
+        assertThat(searches.get()).isEqualTo(1);
+
+        activate("a.lvec");
+        service.similar(request);
+
+        assertThat(searches.get()).isEqualTo(2);
+        final CacheStatistics statistics = service.cacheStatistics().getSimilarWords();
+        assertThat(statistics.getHits()).isEqualTo(1L);
+        assertThat(statistics.getMisses()).isEqualTo(2L);
+        assertThat(statistics.getSize()).isEqualTo(1L);
+        assertThat(service.cacheStatistics().getMaximumSize()).isEqualTo(100L);
+    }
+
+    private Supplier<Term> search(final String term) {
+        return () -> {
+            searches.incrementAndGet();
+            return new Term(term, Collections.emptyList(), false);
+        };
+    }
+
+    private WordEmbeddingService serviceWith(final ResultCache cache) {
+        final EmbeddingModelFactory modelFactory = new EmbeddingModelFactory() {
+            @Override
+            EmbeddingModel create(final File modelFile, final ModelFormat format, final Quantization quantization, final LoadProgress progress) {
+                return new CountingModel();
+            }
+        };
+        final LingusMetrics metrics = new LingusMetrics(new MetricsRegistryImpl());
+        provider = new Word2VecProvider(modelFactory, cache, metrics, 0L, 0.1, false);
+        return new WordEmbeddingService(null, provider, modelFactory, cache, metrics);
+    }
+
+    private void activate(final String filename) throws Exception {
+        final Path modelFile = Files.write(modelDirectory.resolve(filename), new byte[]{0});
+        final ModelMetadata metadata = new ModelMetadata(filename, modelFile.toString());
+        metadata.inspect(ModelFormat.LINGUS, 1L);
+        final long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        LoadProgress progress = null;
+        while (progress == null) {
+            try {
+                progress = provider.load(metadata, Quantization.NONE);
+            } catch (ActivationInProgressException e) {
+                awaitOrFail(giveUpAt, "The previous activation of model '" + filename + "' did not complete in time.");
+            }
+        }
+        while (progress.isLoading()) {
+            awaitOrFail(giveUpAt, "The activation of model '" + filename + "' did not complete in time.");
+        }
+        assertThat(provider.isResident(filename)).isTrue();
+    }
+
+    private static void awaitOrFail(final long giveUpAt, final String message) throws InterruptedException {
+        if (System.nanoTime() > giveUpAt) {
+            fail(message);
+        }
+        Thread.sleep(1);
+    }
+
+    /**
+     * Recognizes every word and counts the searches for similar words.
+     */
+    private class CountingModel implements EmbeddingModel {
+
+        @Override
+        public boolean hasWord(final String term) {
+            return true;
+        }
+
+        @Override
+        public Optional<NearestWords> nearest(final String term, final int howMany, final int efSearch, final boolean exact, final Deadline deadline) {
+            searches.incrementAndGet();
+            return Optional.of(new NearestWords(Collections.singletonList(new ScoredWord(1, "hof", 0.5)), false));
+        }
+
+        @Override
+        public void nearest(final List<String> terms, final int howMany, final Deadline deadline, final BiConsumer<String, Optional<NearestWords>> consumer) {
+        }
+
+        @Override
+        public double similarity(final String word, final String otherWord) {
+            return 0.0;
+        }
+
+        @Override
+        public float[][] similarities(final List<String> rows, final List<String> columns) {
+            return new float[0][0];
+        }
+
+        @Override
+        public List<String> wordsWithPrefix(final String prefix, final int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int vocabularySize() {
+            return 2;
+        }
+
+        @Override
+        public String word(final int id) {
+            return id == 0 ? "haus" : "hof";
+        }
+
+        @Override
+        public int dimensions() {
+            return 1;
+        }
+
+        @Override
+        public long residentBytes() {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import net.mguenther.lingus.wordembedding.api.Term;
+import net.mguenther.lingus.wordembedding.vectors.Deadline;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 4;
+
+    private MetricRegistry registry;
+
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void createSingleFlight() {
+        registry = new MetricsRegistryImpl();
+        singleFlight = new SingleFlight(new LingusMetrics(registry));
+    }
+
+    @Test
+    void concurrentIdenticalSearchesShouldShareASingleSearch() throws Exception {
+        final Followers followers = new Followers(FOLLOWERS);
+        final CountDownLatch leaderRunning = new CountDownLatch(1);
+        final AtomicInteger searches = new AtomicInteger();
+        final Term result = new Term("schule", Collections.emptyList(), false);
+        final Supplier<Term> search = () -> {
+            searches.incrementAndGet();
+            leaderRunning.countDown();
+            followers.awaitWaiting();
+            return result;
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+        try {
+            final List<Future<Term>> results = new ArrayList<>();
+            results.add(executor.submit(() -> similarWords(search, Deadline.NONE)));
+            assertThat(leaderRunning.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < FOLLOWERS; i++) {
+                results.add(executor.submit(followers.follow(search)));
+            }
+
+            for (Future<Term> future : results) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(result);
+            }
+            assertThat(searches.get()).isEqualTo(1);
+            assertThat(registry.counter("lingus.terms.searched").getCount()).isEqualTo(1);
+            assertThat(registry.counter("lingus.terms.coalesced").getCount()).isEqualTo(FOLLOWERS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void searchShouldRunAgainIfTheSharedResultIsPartialButTheDeadlineHasNotPassed() throws Exception {
+        final Followers followers = new Followers(1);
+        final CountDownLatch leaderRunning = new CountDownLatch(1);
+        final Term partial = new Term("schule", Collections.emptyList(), true);
+        final Term complete = new Term("schule", Collections.emptyList(), false);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Term> leader = executor.submit(() -> similarWords(() -> {
+                leaderRunning.countDown();
+                followers.awaitWaiting();
+                return partial;
+            }, Deadline.NONE));
+            assertThat(leaderRunning.await(5, TimeUnit.SECONDS)).isTrue();
+            final Future<Term> follower = executor.submit(followers.follow(() -> complete));
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(partial);
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(complete);
+            assertThat(registry.counter("lingus.terms.searched").getCount()).isEqualTo(2);
+            assertThat(registry.counter("lingus.terms.coalesced").getCount()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Term similarWords(final Supplier<Term> search, final Deadline deadline) {
+        return singleFlight.similarWords("model", "schule", 5, 64, false, deadline, search);
+    }
+
+    /**
+     * Lets the search of a leader block until all followers wait for its result. A follower signals
+     * its arrival right before it joins the search in flight; as nothing in between parks the thread,
+     * its thread only starts waiting once it blocks on the result of the leader.
+     */
+    private final class Followers {
+
+        private final CountDownLatch arrived;
+
+        private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        Followers(final int followers) {
+            this.arrived = new CountDownLatch(followers);
+        }
+
+        Callable<Term> follow(final Supplier<Term> search) {
+            return () -> {
+                threads.add(Thread.currentThread());
+                arrived.countDown();
+                return similarWords(search, Deadline.NONE);
+            };
+        }
+
+        void awaitWaiting() {
+            await(arrived);
+            final long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (threads.stream().anyMatch(thread -> thread.getState() != Thread.State.WAITING)) {
+                if (System.nanoTime() > giveUpAt) {
+                    fail("Not all followers are waiting for the leader.");
+                }
+                Thread.yield();
+            }
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
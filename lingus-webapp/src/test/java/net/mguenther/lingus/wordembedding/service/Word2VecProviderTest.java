@@ -0,0 +1,242 @@
+package net.mguenther.lingus.wordembedding.service;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import net.mguenther.lingus.wordembedding.api.Quantization;
+import net.mguenther.lingus.wordembedding.vectors.Deadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.fail;
+
+class Word2VecProviderTest {
+
+    private static final long MEMORY_BUDGET = 250L;
+
+    @TempDir
+    Path modelDirectory;
+
+    private final Map<String, Long> residentBytesByModel = new HashMap<>();
+
+    private volatile CountDownLatch activationGate = new CountDownLatch(0);
+
+    private Word2VecProvider provider;
+
+    @BeforeEach
+    void createProvider() {
+        final EmbeddingModelFactory modelFactory = new EmbeddingModelFactory() {
+            @Override
+            EmbeddingModel create(final File modelFile, final ModelFormat format, final Quantization quantization, final LoadProgress progress) throws IOException {
+                try {
+                    activationGate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+                return new FixedSizeModel(residentBytesByModel.get(modelFile.getName()));
+            }
+        };
+        final LingusMetrics metrics = new LingusMetrics(new MetricsRegistryImpl());
+        provider = new Word2VecProvider(modelFactory, new ResultCache(0L), metrics, MEMORY_BUDGET, 0.1, false);
+    }
+
+    @AfterEach
+    void shutdownProvider() {
+        activationGate.countDown();
+        provider.shutdown();
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedModelOnceTheBudgetIsExceeded() throws Exception {
+        activate("a.lvec", 100L);
+        activate("b.lvec", 100L);
+        Thread.sleep(1);
+        provider.current("a.lvec");
+
+        activate("c.lvec", 100L);
+
+        assertThat(provider.isResident("a.lvec")).isTrue();
+        assertThat(provider.isResident("b.lvec")).isFalse();
+        assertThat(provider.isResident("c.lvec")).isTrue();
+        assertThat(provider.residentBytes()).isEqualTo(200L);
+        assertThat(provider.getDefaultModel()).contains("c.lvec");
+    }
+
+    @Test
+    void shouldNeverEvictTheModelThatHasJustBeenActivated() throws Exception {
+        activate("a.lvec", 100L);
+        activate("b.lvec", 100L);
+
+        activate("large.lvec", 300L);
+
+        assertThat(provider.isResident("a.lvec")).isFalse();
+        assertThat(provider.isResident("b.lvec")).isFalse();
+        assertThat(provider.isResident("large.lvec")).isTrue();
+        assertThat(provider.residentBytes()).isEqualTo(300L);
+    }
+
+    @Test
+    void unloadingAModelShouldFreeItsBytesAndPassOnTheDefaultModel() throws Exception {
+        activate("a.lvec", 100L);
+        activate("b.lvec", 100L);
+
+        provider.unload("b.lvec");
+
+        assertThat(provider.isResident("b.lvec")).isFalse();
+        assertThat(provider.residentBytes()).isEqualTo(100L);
+        assertThat(provider.getDefaultModel()).contains("a.lvec");
+        assertThatThrownBy(() -> provider.unload("b.lvec")).isInstanceOf(ModelNotResidentException.class);
+    }
+
+    @Test
+    void queriesShouldBeAnsweredFromThePreviousSnapshotWhileTheModelIsReloaded() throws Exception {
+        activate("a.lvec", 100L);
+        final ModelSnapshot previous = provider.current("a.lvec");
+        activationGate = new CountDownLatch(1);
+
+        final LoadProgress progress = startActivation("a.lvec", 100L);
+
+        assertThat(progress.isLoading()).isTrue();
+        assertThat(progress.toResult().getState()).isEqualTo("LOADING");
+        assertThat(provider.current("a.lvec")).isSameAs(previous);
+        assertThat(provider.current(null)).isSameAs(previous);
+
+        activationGate.countDown();
+        awaitActivation(progress);
+
+        assertThat(progress.toResult().getState()).isEqualTo("COMPLETED");
+        assertThat(provider.current("a.lvec")).isNotSameAs(previous);
+        assertThat(provider.current("a.lvec").getVersion()).isGreaterThan(previous.getVersion());
+        assertThat(provider.residentBytes()).isEqualTo(100L);
+    }
+
+    @Test
+    void aModelThatIsReadOntoTheHeapShouldBeRefusedIfItsVectorsExceedTheLargestArray() throws Exception {
+        final Path modelFile = Files.write(modelDirectory.resolve("large.txt"), new byte[]{0});
+        final ModelMetadata metadata = new ModelMetadata("large.txt", modelFile.toString());
+        metadata.inspect(ModelFormat.WORD2VEC_TEXT, 1L);
+        metadata.describe(3_000_000, 1_000);
+
+        assertThatThrownBy(() -> provider.load(metadata, Quantization.NONE))
+                .isInstanceOf(ModelTooLargeException.class)
+                .hasMessageContaining("Lingus-native format");
+        assertThat(provider.isResident("large.txt")).isFalse();
+
+        metadata.inspect(ModelFormat.LINGUS, 1L);
+        metadata.describe(3_000_000, 1_000);
+
+        assertThatThrownBy(() -> provider.load(metadata, Quantization.NONE))
+                .isInstanceOf(InsufficientMemoryException.class);
+    }
+
+    private void activate(final String filename, final long residentBytes) throws IOException, InterruptedException {
+        final LoadProgress progress = startActivation(filename, residentBytes);
+        awaitActivation(progress);
+        assertThat(provider.isResident(filename)).isTrue();
+    }
+
+    private LoadProgress startActivation(final String filename, final long residentBytes) throws IOException, InterruptedException {
+        final Path modelFile = Files.write(modelDirectory.resolve(filename), new byte[]{0});
+        residentBytesByModel.put(filename, residentBytes);
+        final ModelMetadata metadata = new ModelMetadata(filename, modelFile.toString());
+        metadata.inspect(ModelFormat.LINGUS, 1L);
+        final long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        LoadProgress progress = null;
+        while (progress == null) {
+            try {
+                progress = provider.load(metadata, Quantization.NONE);
+            } catch (ActivationInProgressException e) {
+                awaitOrFail(giveUpAt, filename);
+            }
+        }
+        return progress;
+    }
+
+    private static void awaitActivation(final LoadProgress progress) throws InterruptedException {
+        final long giveUpAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (progress.isLoading()) {
+            awaitOrFail(giveUpAt, progress.getFilename());
+        }
+    }
+
+    private static void awaitOrFail(final long giveUpAt, final String filename) throws InterruptedException {
+        if (System.nanoTime() > giveUpAt) {
+            fail("The activation of model '" + filename + "' did not complete in time.");
+        }
+        Thread.sleep(1);
+    }
+
+    private static class FixedSizeModel implements EmbeddingModel {
+
+        private final long residentBytes;
+
+        FixedSizeModel(final long residentBytes) {
+            this.residentBytes = residentBytes;
+        }
+
+        @Override
+        public boolean hasWord(final String term) {
+            return false;
+        }
+
+        @Override
+        public Optional<NearestWords> nearest(final String term, final int howMany, final int efSearch, final boolean exact, final Deadline deadline) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void nearest(final List<String> terms, final int howMany, final Deadline deadline, final BiConsumer<String, Optional<NearestWords>> consumer) {
+        }
+
+        @Override
+        public double similarity(final String word, final String otherWord) {
+            return 0.0;
+        }
+
+        @Override
+        public float[][] similarities(final List<String> rows, final List<String> columns) {
+            return new float[0][0];
+        }
+
+        @Override
+        public List<String> wordsWithPrefix(final String prefix, final int limit) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int vocabularySize() {
+            return 0;
+        }
+
+        @Override
+        public String word(final int id) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public int dimensions() {
+            return 0;
+        }
+
+        @Override
+        public long residentBytes() {
+            return residentBytes;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import net.mguenther.lingus.wordembedding.vectors.DotProduct;
+import net.mguenther.lingus.wordembedding.vectors.LingusModelFormat;
+import net.mguenther.lingus.wordembedding.vectors.MappedVectorStore;
+import net.mguenther.lingus.wordembedding.vectors.PrincipalComponents;
+import net.mguenther.lingus.wordembedding.vectors.ProgressListener;
+import net.mguenther.lingus.wordembedding.vectors.VectorStore;
+import net.mguenther.lingus.wordembedding.vectors.Word2VecModelReader;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@CommandLine.Command(
+        name = "compact-word2vec-model",
+        description = "Rewrites a word2vec model into a smaller model in the Lingus-native format, which keeps only the most frequent words or the words of an allow-list and optionally reduces the dimensions of their vectors.",
+        header = {
+                "@|green  _      _____ _   _  _____ _    _  _____|@",
+                "@|green | |    |_   _| \\ | |/ ____| |  | |/ ____||@",
+                "@|green | |      | | |  \\| | |  __| |  | | (___  |@",
+                "@|green | |      | | | . ` | | |_ | |  | |\\___ \\ |@",
+                "@|green | |____ _| |_| |\\  | |__| | |__| |____) ||@",
+                "@|green |______|_____|_| \\_|\\_____|\\____/|_____/ |@"
+        }
+)
+public class CompactWord2VecModel implements Callable<Integer> {
+
+    @CommandLine.Parameters(
+            index = "0",
+            description = "The model that ought to be compacted (Lingus-native, word2vec binary or text, or Deeplearning4J)")
+    private File inputFilename;
+
+    @CommandLine.Option(
+            names = {"-o", "--output"},
+            description = "Sets the output filename")
+    private File outputFilename;
+
+    @CommandLine.Option(
+            names = {"-n", "--top"},
+            defaultValue = "0",
+            description = "Keeps the given number of most frequent words (default: ${DEFAULT-VALUE}, i.e. all words)")
+    private int top;
+
+    @CommandLine.Option(
+            names = {"-a", "--allowList"},
+            description = "Keeps only the words listed in the given file (one word per line)")
+    private File allowList;
+
+    @CommandLine.Option(
+            names = {"-d", "--dimensions"},
+            defaultValue = "0",
+            description = "Reduces the vectors to the given number of dimensions using principal component analysis (default: ${DEFAULT-VALUE}, i.e. keep all dimensions)")
+    private int dimensions;
+
+    @CommandLine.Option(
+            names = {"-f", "--force"},
+            defaultValue = "false",
+            description = "Override an already existing output file")
+    private boolean overrideOutputIfExists;
+
+    @CommandLine.Option(
+            names = {"-v", "--verbose"},
+            defaultValue = "false",
+            description = "Increases the amont of log output")
+    private boolean verbose;
+
+    public static void main(String[] args) {
+        final int exitCode = new CommandLine(new CompactWord2VecModel()).execute(args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+
+        if (outputFilename == null) {
+            final String s = inputFilename.toPath().getFileName().toString();
+            final String t = (s.contains(".") ? s.substring(0, s.lastIndexOf(".")) : s) + "-compact.lvec";
+            System.out.println("No output filename has been provided. Using '" + t + "'.");
+            outputFilename = new File(t);
+        }
+
+        if (!inputFilename.exists() || !inputFilename.canRead()) {
+            System.err.println("The source file '" + inputFilename.toString() + "' does not exist or is not readable.");
+            return 1;
+        }
+
+        if (allowList != null && (!allowList.exists() || !allowList.canRead())) {
+            System.err.println("The allow-list '" + allowList.toString() + "' does not exist or is not readable.");
+            return 1;
+        }
+
+        if (allowList != null && top > 0) {
+            System.err.println("Either keep the most frequent words or the words of an allow-list, but not both.");
+            return 1;
+        }
+
+        if (top < 0 || dimensions < 0) {
+            System.err.println("The number of words and dimensions must not be negative.");
+            return 1;
+        }
+
+        if (outputFilename.exists() && !overrideOutputIfExists) {
+            System.err.println("Unable to write to output file '" + outputFilename.toString() + "'.");
+            return 1;
+        }
+
+        int returnCode = 0;
+        try {
+            compactModel(inputFilename.toPath(), outputFilename);
+        } catch (Exception e) {
+            System.err.println("An error occurred: " + e.getMessage());
+            if (verbose) {
+                e.printStackTrace();
+            }
+            returnCode = 1;
+        }
+
+        return returnCode;
+    }
+
+    private void compactModel(final Path source, final File target) throws Exception {
+        System.out.println("Reading model....");
+        final VectorStore store = read(source);
+        final long[] frequencies = readFrequencies(source, store.size());
+
+        final int[] ids = retainedIds(store, frequencies);
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("None of the words of the model would be retained.");
+        }
+        final int targetDimensions = dimensions == 0 ? store.dimensions() : dimensions;
+        if (targetDimensions > store.dimensions()) {
+            throw new IllegalArgumentException("The model has only " + store.dimensions() + " dimensions.");
+        }
+
+        PrincipalComponents pca = null;
+        if (targetDimensions < store.dimensions()) {
+            System.out.println("Computing the principal components of " + ids.length + " word vectors with " + store.dimensions() + " dimensions....");
+            pca = PrincipalComponents.fit(store, ids, targetDimensions);
+        }
+
+        final List<String> words = new ArrayList<>(ids.length);
+        final long[] retainedFrequencies = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            words.add(store.word(ids[i]));
+            retainedFrequencies[i] = frequencies == null ? 0L : frequencies[ids[i]];
+        }
+
+        System.out.println("Writing " + ids.length + " word vectors with " + targetDimensions + " dimensions to Lingus model....");
+        final float[] vector = new float[store.dimensions()];
+        final float[] projected = new float[targetDimensions];
+        final double[] row = new double[targetDimensions];
+        try (LingusModelWriter writer = new LingusModelWriter(target, words, retainedFrequencies, targetDimensions)) {
+            for (int id : ids) {
+                store.vector(id, vector);
+                final float[] values = pca == null ? vector : projected;
+                if (pca != null) {
+                    pca.project(vector, projected);
+                }
+                for (int d = 0; d < targetDimensions; d++) {
+                    row[d] = values[d];
+                }
+                writer.append(row);
+            }
+        }
+
+        final long sourceBytes = Files.size(source);
+        final long targetBytes = target.length();
+        System.out.println(String.format("Retained %,d of %,d words and %d of %d dimensions.",
+                ids.length, store.size(), targetDimensions, store.dimensions()));
+        if (pca != null) {
+            System.out.println(String.format("The reduced vectors retain %.1f%% of the variance of the original vectors.",
+                    100.0 * pca.retainedVariance()));
+        }
+        System.out.println(String.format("Reduced the model from %,d to %,d bytes (%.1f%% smaller).",
+                sourceBytes, targetBytes, 100.0 * (sourceBytes - targetBytes) / sourceBytes));
+        System.out.println("Successfully compacted '" + source + "' to '" + target + "'.");
+    }
+
+    private static VectorStore read(final Path source) throws IOException {
+        if (LingusModelFormat.isLingusModel(source)) {
+            return MappedVectorStore.open(source);
+        }
+        final Word2VecModelReader.Layout layout = Word2VecModelReader.detect(source);
+        if (layout == null) {
+            throw new IOException("The file is neither a Lingus-native model nor a word2vec model in one of the supported layouts.");
+        }
+        return Word2VecModelReader.read(source, layout, Runtime.getRuntime().availableProcessors(), ProgressListener.NONE, DotProduct.SCALAR);
+    }
+
+    /**
+     * Only the Lingus-native format records the frequencies of the words. The words of the other
+     * formats are ordered by their frequency as well, but their frequencies are written as zero.
+     *
+     * @return
+     *      the frequency of each word by id, or {@code null} if the format does not record them
+     */
+    private static long[] readFrequencies(final Path source, final int vocabSize) throws IOException {
+        if (!LingusModelFormat.isLingusModel(source)) {
+            return null;
+        }
+        final long[] frequencies = new long[vocabSize];
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            final LingusModelFormat.Header header = LingusModelFormat.readHeader(channel);
+            final ByteBuffer buffer = ByteBuffer.allocate(vocabSize * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, header.getVocabOffset() + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of file while reading the word frequencies.");
+                }
+            }
+            buffer.flip();
+            buffer.asLongBuffer().get(frequencies);
+        }
+        return frequencies;
+    }
+
+    /**
+     * @param frequencies
+     *      the frequency of each word by id, or {@code null} if the words are only ordered by their
+     *      frequency
+     * @return
+     *      the ids of the words that are retained in descending order of their frequency, so that the
+     *      compacted model is ordered by frequency just like the original one
+     */
+    private int[] retainedIds(final VectorStore store, final long[] frequencies) throws IOException {
+        if (allowList == null) {
+            final int[] ids = byFrequency(allIds(store.size()), frequencies);
+            return top == 0 || top >= ids.length ? ids : Arrays.copyOf(ids, top);
+        }
+        final BitSet retained = new BitSet(store.size());
+        int unknown = 0;
+        for (String line : Files.readAllLines(allowList.toPath(), StandardCharsets.UTF_8)) {
+            final String word = line.trim();
+            if (word.isEmpty()) {
+                continue;
+            }
+            final int id = store.id(word);
+            if (id < 0) {
+                unknown++;
+                if (verbose) {
+                    System.out.println("The model does not contain the word '" + word + "' of the allow-list.");
+                }
+            } else {
+                retained.set(id);
+            }
+        }
+        if (unknown > 0) {
+            System.out.println(unknown + " words of the allow-list are not part of the model.");
+        }
+        return byFrequency(retained.stream().toArray(), frequencies);
+    }
+
+    private static int[] allIds(final int size) {
+        final int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    /**
+     * Orders the given ids, which are in ascending order, by descending frequency of their words.
+     * Words of equal frequency keep their order. Without frequencies, the ids are returned as they
+     * are, as the words of a word2vec model are stored in descending order of their frequency.
+     */
+    static int[] byFrequency(final int[] ids, final long[] frequencies) {
+        if (frequencies == null) {
+            return ids;
+        }
+        return Arrays.stream(ids)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer id) -> frequencies[id]).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
@@ -0,0 +1,127 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.word2vec.Huffman;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.Word2Vec;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Prepares an existing word2vec model for further training on a delta corpus, i.e. on the sentences
+ * that have been added since the model has been trained.
+ *
+ * Deeplearning4J only continues to train the words that a restored model knows already. Thus, the
+ * delta corpus is counted once up front, and words that it contains at least
+ * {@code minWordFrequency} times and that are not part of the model yet are added to the vocabulary.
+ * The frequencies of the other words are increased by their occurrences in the delta corpus. The
+ * Huffman tree of the vocabulary is built anew, which reassigns the indexes of the words. Hence the
+ * vectors of the known words (and their weights for negative sampling) are carried over to their new
+ * indexes, while the vectors of new words are initialized at random. The weights of the inner nodes
+ * of the Huffman tree are reset, as the tree has changed.
+ *
+ * The number of word occurrences is set to that of the delta corpus, so that the learning rate decays
+ * over the delta corpus. The learning rate itself is configured on the {@link Word2Vec} that trains
+ * the prepared vocabulary and lookup table. Both counting and training only read the delta corpus, so
+ * the time it takes scales with the size of the delta instead of the size of the whole corpus.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class ContinuedTraining {
+
+    /**
+     * The vocabulary of the existing model, extended by the new words of the delta corpus.
+     */
+    private final VocabCache<VocabWord> vocabulary;
+
+    /**
+     * The weights of the existing model, rearranged for the extended vocabulary.
+     */
+    private final InMemoryLookupTable<VocabWord> lookupTable;
+
+    private final int addedWords;
+
+    private final long deltaWords;
+
+    /**
+     * @param existing
+     *      the model to continue training, restored along with its frequencies and training weights
+     *      (cf. {@code WordVectorSerializer.readWord2VecModel(File, boolean)})
+     * @param delta
+     *      the sentences of the delta corpus; the iterator is reset afterwards
+     * @param tokenizerFactory
+     *      splits the sentences into words the same way as during training
+     * @param minWordFrequency
+     *      the number of times that a word has to occur in the delta corpus to be added to the vocabulary
+     * @param seed
+     *      the seed for the vectors of new words
+     */
+    static ContinuedTraining prepare(final Word2Vec existing,
+                                     final SentenceIterator delta,
+                                     final TokenizerFactory tokenizerFactory,
+                                     final int minWordFrequency,
+                                     final long seed) {
+        final Map<String, Long> counts = new HashMap<>();
+        long deltaWords = 0L;
+        while (delta.hasNext()) {
+            for (String token : tokenizerFactory.create(delta.nextSentence()).getTokens()) {
+                if (!token.isEmpty()) {
+                    counts.merge(token, 1L, Long::sum);
+                    deltaWords++;
+                }
+            }
+        }
+        delta.reset();
+
+        final VocabCache<VocabWord> previous = existing.getVocab();
+        final AbstractCache<VocabWord> vocabulary = new AbstractCache.Builder<VocabWord>().build();
+        for (VocabWord word : previous.vocabWords()) {
+            vocabulary.addToken(new VocabWord(word.getElementFrequency() + counts.getOrDefault(word.getWord(), 0L), word.getWord()));
+        }
+        int addedWords = 0;
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            if (count.getValue() >= minWordFrequency && !previous.containsWord(count.getKey())) {
+                vocabulary.addToken(new VocabWord(count.getValue(), count.getKey()));
+                addedWords++;
+            }
+        }
+        final Huffman huffman = new Huffman(vocabulary.vocabWords());
+        huffman.build();
+        huffman.applyIndexes(vocabulary);
+        vocabulary.setTotalWordOccurences(deltaWords);
+
+        @SuppressWarnings("unchecked")
+        final InMemoryLookupTable<VocabWord> previousTable = (InMemoryLookupTable<VocabWord>) existing.lookupTable();
+        final InMemoryLookupTable<VocabWord> lookupTable = new InMemoryLookupTable.Builder<VocabWord>()
+                .cache(vocabulary)
+                .vectorLength(existing.getLayerSize())
+                .useHierarchicSoftmax(existing.getConfiguration().isUseHierarchicSoftmax())
+                .negative(existing.getConfiguration().getNegative())
+                .useAdaGrad(false)
+                .seed(seed)
+                .build();
+        lookupTable.resetWeights(true);
+        for (VocabWord word : previous.vocabWords()) {
+            final int from = previous.indexOf(word.getWord());
+            final int to = vocabulary.indexOf(word.getWord());
+            copyRow(previousTable.getSyn0(), from, lookupTable.getSyn0(), to);
+            copyRow(previousTable.getSyn1Neg(), from, lookupTable.getSyn1Neg(), to);
+        }
+        return new ContinuedTraining(vocabulary, lookupTable, addedWords, deltaWords);
+    }
+
+    private static void copyRow(final INDArray source, final int from, final INDArray target, final int to) {
+        if (source != null && target != null) {
+            target.putRow(to, source.getRow(from));
+        }
+    }
+}
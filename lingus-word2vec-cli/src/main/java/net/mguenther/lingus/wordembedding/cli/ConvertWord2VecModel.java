@@ -0,0 +1,111 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.Word2Vec;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@CommandLine.Command(
+        name = "convert-word2vec-model",
+        description = "Converts a word2vec model written by Deeplearning4J into the Lingus-native format, which the Lingus web application maps into memory instead of parsing it.",
+        header = {
+                "@|green  _      _____ _   _  _____ _    _  _____|@",
+                "@|green | |    |_   _| \\ | |/ ____| |  | |/ ____||@",
+                "@|green | |      | | |  \\| | |  __| |  | | (___  |@",
+                "@|green | |      | | | . ` | | |_ | |  | |\\___ \\ |@",
+                "@|green | |____ _| |_| |\\  | |__| | |__| |____) ||@",
+                "@|green |______|_____|_| \\_|\\_____|\\____/|_____/ |@"
+        }
+)
+public class ConvertWord2VecModel implements Callable<Integer> {
+
+    @CommandLine.Parameters(
+            index = "0",
+            description = "The word2vec model that ought to be converted")
+    private File inputFilename;
+
+    @CommandLine.Option(
+            names = {"-o", "--output"},
+            description = "Sets the output filename")
+    private File outputFilename;
+
+    @CommandLine.Option(
+            names = {"-f", "--force"},
+            defaultValue = "false",
+            description = "Override an already existing output file")
+    private boolean overrideOutputIfExists;
+
+    @CommandLine.Option(
+            names = {"-v", "--verbose"},
+            defaultValue = "false",
+            description = "Increases the amont of log output")
+    private boolean verbose;
+
+    public static void main(String[] args) {
+        final int exitCode = new CommandLine(new ConvertWord2VecModel()).execute(args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+
+        if (outputFilename == null) {
+            final String s = inputFilename.toPath().getFileName().toString();
+            final String t = (s.contains(".") ? s.substring(0, s.lastIndexOf(".")) : s) + ".lvec";
+            System.out.println("No output filename has been provided. Using '" + t + "'.");
+            outputFilename = new File(t);
+        }
+
+        if (!inputFilename.exists() || !inputFilename.canRead()) {
+            System.err.println("The source file '" + inputFilename.toString() + "' does not exist or is not readable.");
+            return 1;
+        }
+
+        if (outputFilename.exists() && !overrideOutputIfExists) {
+            System.err.println("Unable to write to output file '" + outputFilename.toString() + "'.");
+            return 1;
+        }
+
+        int returnCode = 0;
+        try {
+            convertModel(inputFilename, outputFilename);
+        } catch (Exception e) {
+            System.err.println("An error occurred: " + e.getMessage());
+            if (verbose) {
+                e.printStackTrace();
+            }
+            returnCode = 1;
+        }
+
+        return returnCode;
+    }
+
+    private void convertModel(final File sourceModelLocation, final File targetModelLocation) throws Exception {
+        System.out.println("Reading word2vec model....");
+        final Word2Vec vec = WordVectorSerializer.readWord2VecModel(sourceModelLocation);
+        final VocabCache<VocabWord> vocab = vec.getVocab();
+
+        final int vocabSize = vocab.numWords();
+        final List<String> words = new ArrayList<>(vocabSize);
+        final long[] frequencies = new long[vocabSize];
+        for (int i = 0; i < vocabSize; i++) {
+            final String word = vocab.wordAtIndex(i);
+            words.add(word);
+            frequencies[i] = vocab.wordFrequency(word);
+        }
+
+        System.out.println("Writing " + vocabSize + " word vectors with " + vec.getLayerSize() + " dimensions to Lingus model....");
+        try (LingusModelWriter writer = new LingusModelWriter(targetModelLocation, words, frequencies, vec.getLayerSize())) {
+            for (String word : words) {
+                writer.append(vec.getWordVector(word));
+            }
+        }
+        System.out.println("Successfully converted '" + sourceModelLocation + "' to '" + targetModelLocation + "'.");
+    }
+}
@@ -0,0 +1,54 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A byte range {@code [start, end)} of a sentence-by-line corpus file. A shard owns every line that
+ * starts within its range, so a line that crosses the end of the range is read completely by this
+ * shard and skipped by the next one.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+class CorpusShard {
+
+    /**
+     * Files smaller than this are not split, as reading them in parallel does not pay off.
+     */
+    private static final long MIN_SHARD_BYTES = 1L << 20;
+
+    private final File file;
+
+    private final long start;
+
+    private final long end;
+
+    /**
+     * Splits each of the given files into at most {@code splitsPerFile} byte ranges of (roughly) equal
+     * size.
+     *
+     * @param files
+     *      the files of the corpus
+     * @param splitsPerFile
+     *      the maximum number of shards per file
+     * @return
+     *      the shards of all files
+     */
+    static List<CorpusShard> split(final List<File> files, final int splitsPerFile) {
+        final List<CorpusShard> shards = new ArrayList<>();
+        for (File file : files) {
+            final long length = file.length();
+            final int splits = (int) Math.max(1L, Math.min(splitsPerFile, length / MIN_SHARD_BYTES));
+            for (int i = 0; i < splits; i++) {
+                shards.add(new CorpusShard(file, length * i / splits, length * (i + 1) / splits));
+            }
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,161 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes word vectors in the Lingus-native model format that the Lingus web application maps into
+ * memory (cf. {@code net.mguenther.lingus.wordembedding.vectors.LingusModelFormat} for the layout).
+ * The vocabulary is written up front, the vectors are appended row by row in vocabulary order and
+ * L2-normalized on the way.
+ */
+class LingusModelWriter implements Closeable {
+
+    private static final int MAGIC = 0x53474E4C;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int FLAG_NORMALIZED = 1;
+
+    private static final int MATRIX_ALIGNMENT = 64;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+
+    private final int vocabSize;
+
+    private final int dimensions;
+
+    private final ByteBuffer buffer;
+
+    private int rowsWritten = 0;
+
+    LingusModelWriter(final File target,
+                      final List<String> words,
+                      final long[] frequencies,
+                      final int dimensions) throws IOException {
+        this.channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.vocabSize = words.size();
+        this.dimensions = dimensions;
+        this.buffer = ByteBuffer.allocate(Math.max(BUFFER_SIZE, dimensions * Float.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+        writeHeaderAndVocabulary(words, frequencies);
+    }
+
+    private void writeHeaderAndVocabulary(final List<String> words, final long[] frequencies) throws IOException {
+        final byte[][] encoded = new byte[vocabSize][];
+        long stringBytes = 0;
+        for (int i = 0; i < vocabSize; i++) {
+            encoded[i] = words.get(i).getBytes(StandardCharsets.UTF_8);
+            stringBytes += encoded[i].length;
+        }
+        if (stringBytes > Integer.MAX_VALUE) {
+            throw new IOException("The vocabulary is too large for the Lingus model format.");
+        }
+        final long vocabOffset = HEADER_SIZE;
+        final long vocabEnd = vocabOffset + (long) vocabSize * Long.BYTES + (long) (vocabSize + 1) * Integer.BYTES + stringBytes;
+        final long matrixOffset = (vocabEnd + MATRIX_ALIGNMENT - 1) / MATRIX_ALIGNMENT * MATRIX_ALIGNMENT;
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(FLAG_NORMALIZED);
+        buffer.putInt(vocabSize);
+        buffer.putInt(dimensions);
+        buffer.putInt(0);
+        buffer.putLong(vocabOffset);
+        buffer.putLong(matrixOffset);
+        pad(HEADER_SIZE);
+
+        for (int i = 0; i < vocabSize; i++) {
+            ensureCapacity(Long.BYTES);
+            buffer.putLong(frequencies[i]);
+        }
+        int offset = 0;
+        for (int i = 0; i < vocabSize; i++) {
+            ensureCapacity(Integer.BYTES);
+            buffer.putInt(offset);
+            offset += encoded[i].length;
+        }
+        ensureCapacity(Integer.BYTES);
+        buffer.putInt(offset);
+        for (byte[] word : encoded) {
+            int written = 0;
+            while (written < word.length) {
+                ensureCapacity(1);
+                final int chunk = Math.min(buffer.remaining(), word.length - written);
+                buffer.put(word, written, chunk);
+                written += chunk;
+            }
+        }
+        pad(matrixOffset);
+    }
+
+    /**
+     * Appends the vector of the next word in vocabulary order.
+     *
+     * @param vector
+     *      the word vector; does not have to be normalized
+     * @throws IOException
+     *      if the vector cannot be written
+     */
+    void append(final double[] vector) throws IOException {
+        if (vector.length != dimensions) {
+            throw new IOException("Expected a vector with " + dimensions + " dimensions, but got " + vector.length + ".");
+        }
+        if (rowsWritten == vocabSize) {
+            throw new IOException("All " + vocabSize + " vectors have already been written.");
+        }
+        double norm = 0.0;
+        for (double component : vector) {
+            norm += component * component;
+        }
+        norm = Math.sqrt(norm);
+        ensureCapacity(dimensions * Float.BYTES);
+        for (double component : vector) {
+            buffer.putFloat(norm > 0.0 ? (float) (component / norm) : 0f);
+        }
+        rowsWritten++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            if (rowsWritten != vocabSize) {
+                throw new IOException("Expected " + vocabSize + " vectors, but only " + rowsWritten + " have been written.");
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void pad(final long absoluteOffset) throws IOException {
+        while (channel.position() + buffer.position() < absoluteOffset) {
+            ensureCapacity(1);
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void ensureCapacity(final int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
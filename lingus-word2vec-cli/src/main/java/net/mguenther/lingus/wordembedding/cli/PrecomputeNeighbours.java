@@ -0,0 +1,134 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import net.mguenther.lingus.wordembedding.vectors.LingusModelFormat;
+import net.mguenther.lingus.wordembedding.vectors.MappedVectorStore;
+import net.mguenther.lingus.wordembedding.vectors.ModelFingerprint;
+import net.mguenther.lingus.wordembedding.vectors.NeighbourTable;
+import net.mguenther.lingus.wordembedding.vectors.ProgressListener;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+@CommandLine.Command(
+        name = "precompute-neighbours",
+        description = "Computes the nearest neighbours of the words of a model in the Lingus-native format and writes them next to the model, so that the Lingus web application serves them without searching.",
+        header = {
+                "@|green  _      _____ _   _  _____ _    _  _____|@",
+                "@|green | |    |_   _| \\ | |/ ____| |  | |/ ____||@",
+                "@|green | |      | | |  \\| | |  __| |  | | (___  |@",
+                "@|green | |      | | | . ` | | |_ | |  | |\\___ \\ |@",
+                "@|green | |____ _| |_| |\\  | |__| | |__| |____) ||@",
+                "@|green |______|_____|_| \\_|\\_____|\\____/|_____/ |@"
+        }
+)
+public class PrecomputeNeighbours implements Callable<Integer> {
+
+    private static final long REPORT_INTERVAL = 10_000L;
+
+    @CommandLine.Parameters(
+            index = "0",
+            description = "The model in the Lingus-native format")
+    private File modelFilename;
+
+    @CommandLine.Option(
+            names = {"-n", "--neighbours"},
+            defaultValue = "10",
+            description = "Sets the number of neighbours per word (default: ${DEFAULT-VALUE})")
+    private int neighbours;
+
+    @CommandLine.Option(
+            names = {"-w", "--words"},
+            defaultValue = "0",
+            description = "Restricts the table to the given number of most frequent words; 0 covers the whole vocabulary (default: ${DEFAULT-VALUE})")
+    private int words;
+
+    @CommandLine.Option(
+            names = {"-t", "--threads"},
+            description = "Sets the number of threads that search for neighbours (default: number of available processors)")
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @CommandLine.Option(
+            names = {"-f", "--force"},
+            defaultValue = "false",
+            description = "Override an already existing neighbour table")
+    private boolean overrideOutputIfExists;
+
+    @CommandLine.Option(
+            names = {"-v", "--verbose"},
+            defaultValue = "false",
+            description = "Increases the amont of log output")
+    private boolean verbose;
+
+    public static void main(String[] args) {
+        final int exitCode = new CommandLine(new PrecomputeNeighbours()).execute(args);
+        System.exit(exitCode);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+
+        if (!modelFilename.exists() || !modelFilename.canRead()) {
+            System.err.println("The model file '" + modelFilename.toString() + "' does not exist or is not readable.");
+            return 1;
+        }
+
+        if (!LingusModelFormat.isLingusModel(modelFilename.toPath())) {
+            System.err.println("The model file '" + modelFilename.toString() + "' is not in the Lingus-native format. Use convert-word2vec-model to convert it first.");
+            return 1;
+        }
+
+        if (neighbours < 1 || words < 0 || threads < 1) {
+            System.err.println("The number of neighbours and threads must be positive, the number of words must not be negative.");
+            return 1;
+        }
+
+        final Path outputFilename = NeighbourTable.locationFor(modelFilename.toPath());
+        if (outputFilename.toFile().exists() && !overrideOutputIfExists) {
+            System.err.println("Unable to write to output file '" + outputFilename.toString() + "'.");
+            return 1;
+        }
+
+        int returnCode = 0;
+        try {
+            precompute(modelFilename.toPath(), outputFilename);
+        } catch (Exception e) {
+            System.err.println("An error occurred: " + e.getMessage());
+            if (verbose) {
+                e.printStackTrace();
+            }
+            returnCode = 1;
+        }
+
+        return returnCode;
+    }
+
+    private void precompute(final Path model, final Path target) throws Exception {
+        System.out.println("Reading Lingus model....");
+        final MappedVectorStore store = MappedVectorStore.open(model);
+        final int rows = words == 0 ? store.size() : Math.min(words, store.size());
+
+        System.out.println("Computing the " + neighbours + " nearest neighbours of " + rows + " words using " + threads + " threads....");
+        final long started = System.nanoTime();
+        final NeighbourTable table = NeighbourTable.compute(store, rows, neighbours, threads, progress(rows, started));
+        final long elapsedMillis = (System.nanoTime() - started) / 1_000_000L;
+        System.out.println(String.format("Computed the neighbours of %,d words in %,d ms.", rows, elapsedMillis));
+
+        table.write(target, ModelFingerprint.of(model));
+        System.out.println("Successfully wrote the neighbour table of '" + model + "' to '" + target + "'.");
+    }
+
+    private ProgressListener progress(final int rows, final long started) {
+        final AtomicLong done = new AtomicLong();
+        return (bytes, count) -> {
+            final long before = done.getAndAdd(count);
+            final long after = before + count;
+            if (before / REPORT_INTERVAL != after / REPORT_INTERVAL || after == rows) {
+                final double seconds = Math.max(1L, System.nanoTime() - started) / 1e9;
+                System.out.println(String.format("%,d of %,d words (%,.0f words/s).", after, rows, after / seconds));
+            }
+        };
+    }
+}
@@ -0,0 +1,239 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import org.deeplearning4j.text.sentenceiterator.BaseSentenceIterator;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Iterates over the sentences of a corpus that consists of several shards (cf. {@link CorpusShard}).
+ * The shards are read in parallel by a pool of reader threads, which also apply the pre-processor,
+ * and hand their sentences over in batches through a bounded queue. Sentences of different shards
+ * are interleaved in no particular order. Each pass over the corpus (i.e. after each {@link #reset()})
+ * is reported to a {@link ThroughputReport}.
+ */
+class ShardedSentenceIterator extends BaseSentenceIterator {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private static final int BATCHES_PER_READER = 16;
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private static final List<String> END_OF_SHARD = Collections.emptyList();
+
+    private final List<CorpusShard> shards;
+
+    private final int readers;
+
+    private final ThroughputReport report;
+
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    private BlockingQueue<List<String>> queue;
+
+    private ExecutorService pool;
+
+    private Iterator<String> batch = Collections.emptyIterator();
+
+    private int finishedShards;
+
+    private int pass;
+
+    ShardedSentenceIterator(final List<CorpusShard> shards, final int readers, final ThroughputReport report) {
+        this.shards = shards;
+        this.readers = Math.max(1, Math.min(readers, shards.size()));
+        this.report = report;
+    }
+
+    @Override
+    public String nextSentence() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.next();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pool == null) {
+            start();
+        }
+        while (!batch.hasNext()) {
+            if (finishedShards == shards.size()) {
+                return false;
+            }
+            final List<String> next = take();
+            if (next == END_OF_SHARD) {
+                finishedShards++;
+                if (finishedShards == shards.size()) {
+                    report.endPass(pass);
+                }
+            } else {
+                batch = next.iterator();
+            }
+        }
+        return true;
+    }
+
+    private List<String> take() {
+        try {
+            final List<String> next = queue.take();
+            final IOException e = failure.get();
+            if (e != null) {
+                throw new UncheckedIOException("Unable to read the training corpus.", e);
+            }
+            return next;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for sentences of the training corpus.", e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        stop();
+        start();
+    }
+
+    @Override
+    public void finish() {
+        stop();
+    }
+
+    private void start() {
+        queue = new ArrayBlockingQueue<>(readers * BATCHES_PER_READER);
+        failure.set(null);
+        batch = Collections.emptyIterator();
+        finishedShards = 0;
+        pass++;
+        report.startPass(pass);
+        final AtomicInteger threadNumber = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(readers, runnable -> {
+            final Thread thread = new Thread(runnable, "corpus-reader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final BlockingQueue<List<String>> target = queue;
+        for (CorpusShard shard : shards) {
+            pool.execute(() -> read(shard, target));
+        }
+        pool.shutdown();
+    }
+
+    private void stop() {
+        if (pool == null) {
+            return;
+        }
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool = null;
+    }
+
+    private void read(final CorpusShard shard, final BlockingQueue<List<String>> target) {
+        try (FileChannel channel = FileChannel.open(shard.getFile().toPath(), StandardOpenOption.READ)) {
+            final long start = Math.max(0L, shard.getStart() - 1);
+            channel.position(start);
+            final LineReader lines = new LineReader(new BufferedInputStream(Channels.newInputStream(channel), READ_BUFFER_SIZE), start);
+            if (shard.getStart() > 0) {
+                // the line that crosses the start of the shard belongs to the preceding shard
+                lines.next();
+            }
+            List<String> sentences = new ArrayList<>(BATCH_SIZE);
+            while (lines.position() < shard.getEnd()) {
+                final String line = lines.next();
+                if (line == null) {
+                    break;
+                }
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                final String sentence = preProcessor == null ? line : preProcessor.preProcess(line);
+                report.record(sentence);
+                sentences.add(sentence);
+                if (sentences.size() == BATCH_SIZE) {
+                    target.put(sentences);
+                    sentences = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!sentences.isEmpty()) {
+                target.put(sentences);
+            }
+            target.put(END_OF_SHARD);
+        } catch (ClosedByInterruptException e) {
+            // the iterator has been reset or finished while this reader was blocked on the file
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+            target.offer(END_OF_SHARD);
+        } catch (InterruptedException e) {
+            // the iterator has been reset or finished
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads UTF-8 encoded lines and keeps track of the byte offset of the next line.
+     */
+    private static class LineReader {
+
+        private final InputStream in;
+
+        private long position;
+
+        private byte[] line = new byte[256];
+
+        LineReader(final InputStream in, final long position) {
+            this.in = in;
+            this.position = position;
+        }
+
+        long position() {
+            return position;
+        }
+
+        String next() throws IOException {
+            int length = 0;
+            int b = in.read();
+            if (b < 0) {
+                return null;
+            }
+            while (b >= 0 && b != '\n') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = (byte) b;
+                b = in.read();
+            }
+            position += length + (b < 0 ? 0 : 1);
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the sentences and words that are read from the training corpus and periodically prints the
+ * throughput of the current pass over the corpus. Deeplearning4J passes over the corpus once to
+ * build the vocabulary and once per epoch to fit the model.
+ */
+class ThroughputReport implements Closeable {
+
+    private final PrintStream out;
+
+    private final LongAdder sentences = new LongAdder();
+
+    private final LongAdder words = new LongAdder();
+
+    private final ScheduledExecutorService scheduler;
+
+    private int pass;
+
+    private boolean passInProgress;
+
+    private long passStartedAt;
+
+    private long lastSentences;
+
+    private long lastWords;
+
+    private long lastReportAt;
+
+    ThroughputReport(final PrintStream out, final long intervalSeconds) {
+        this.out = out;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "throughput-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::printInterval, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Records a sentence that has been read. May be called by several threads at once.
+     */
+    void record(final String sentence) {
+        sentences.increment();
+        words.add(countWords(sentence));
+    }
+
+    synchronized void startPass(final int pass) {
+        sentences.reset();
+        words.reset();
+        lastSentences = 0L;
+        lastWords = 0L;
+        passStartedAt = System.nanoTime();
+        lastReportAt = passStartedAt;
+        this.pass = pass;
+        this.passInProgress = true;
+    }
+
+    synchronized void endPass(final int pass) {
+        passInProgress = false;
+        final long elapsedNanos = System.nanoTime() - passStartedAt;
+        final long totalSentences = sentences.sum();
+        final long totalWords = words.sum();
+        out.println(String.format(Locale.ROOT, "Pass %d over the corpus completed: %,d sentences and %,d words in %.1f s (%,.0f sentences/s, %,.0f words/s).",
+                pass, totalSentences, totalWords, elapsedNanos / 1e9, perSecond(totalSentences, elapsedNanos), perSecond(totalWords, elapsedNanos)));
+    }
+
+    private synchronized void printInterval() {
+        if (!passInProgress) {
+            return;
+        }
+        final long now = System.nanoTime();
+        final long totalSentences = sentences.sum();
+        final long totalWords = words.sum();
+        final long elapsedNanos = now - lastReportAt;
+        out.println(String.format(Locale.ROOT, "Pass %d: %,d sentences and %,d words read (%,.0f sentences/s, %,.0f words/s).",
+                pass, totalSentences, totalWords, perSecond(totalSentences - lastSentences, elapsedNanos), perSecond(totalWords - lastWords, elapsedNanos)));
+        lastSentences = totalSentences;
+        lastWords = totalWords;
+        lastReportAt = now;
+    }
+
+    private static double perSecond(final long count, final long elapsedNanos) {
+        return elapsedNanos <= 0 ? 0.0 : count * 1e9 / elapsedNanos;
+    }
+
+    private static int countWords(final String sentence) {
+        int count = 0;
+        boolean inWord = false;
+        for (int i = 0; i < sentence.length(); i++) {
+            final boolean whitespace = Character.isWhitespace(sentence.charAt(i));
+            if (!whitespace && !inWord) {
+                count++;
+            }
+            inWord = !whitespace;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
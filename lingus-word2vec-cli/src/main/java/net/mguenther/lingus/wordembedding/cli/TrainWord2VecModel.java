@@ -2,7 +2,6 @@ package net.mguenther.lingus.wordembedding.cli;
 
 import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
 import org.deeplearning4j.models.word2vec.Word2Vec;
-import org.deeplearning4j.text.sentenceiterator.LineSentenceIterator;
 import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
 import org.deeplearning4j.text.sentenceiterator.SentencePreProcessor;
 import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
@@ -12,6 +11,7 @@ import org.nd4j.linalg.io.StringUtils;
 import picocli.CommandLine;
 
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 @CommandLine.Command(
@@ -29,9 +29,11 @@ import java.util.concurrent.Callable;
 public class TrainWord2VecModel implements Callable<Integer> {
 
     @CommandLine.Parameters(
-            index = "0",
-            description = "The training corpus for the word2vec model")
-    private File inputFilename;
+            index = "0..*",
+            arity = "1..*",
+            paramLabel = "<inputFilename>",
+            description = "The training corpus for the word2vec model. A corpus that consists of several files is read in parallel.")
+    private List<File> inputFilenames;
 
     @CommandLine.Option(
             names = {"-o", "--output"},
@@ -44,6 +46,12 @@ public class TrainWord2VecModel implements Callable<Integer> {
             description = "Override an already existing output file")
     private boolean overrideOutputIfExists;
 
+    @CommandLine.Option(
+            names = {"--resume-from"},
+            paramLabel = "<model.bin>",
+            description = "Continues to train an existing model (written by this command) on the given corpus, which only holds the sentences that have been added since. Words of the corpus that the model does not know yet and that occur at least --minWordFrequency times are added to its vocabulary. The dimensions and the training algorithm of the existing model are retained.")
+    private File resumeFrom;
+
     @CommandLine.Option(
             names = {"--minWordFrequency"},
             defaultValue = "5",
@@ -74,6 +82,41 @@ public class TrainWord2VecModel implements Callable<Integer> {
             description = "Sets the window size for Skip-Gram training")
     private Integer windowSize;
 
+    @CommandLine.Option(
+            names = {"--workers"},
+            description = "Sets the number of threads that fit the model (default: number of available processors)")
+    private Integer workers;
+
+    @CommandLine.Option(
+            names = {"--batchSize"},
+            defaultValue = "512",
+            description = "Sets the number of words that a worker processes per batch")
+    private Integer batchSize;
+
+    @CommandLine.Option(
+            names = {"--learningRate"},
+            defaultValue = "0.025",
+            description = "Sets the initial learning rate. When resuming from an existing model, a lower learning rate (e.g. 0.01) keeps the vectors of known words closer to their previous values.")
+    private Double learningRate;
+
+    @CommandLine.Option(
+            names = {"--minLearningRate"},
+            defaultValue = "0.0001",
+            description = "Sets the learning rate that the initial learning rate decays to linearly over the course of the training")
+    private Double minLearningRate;
+
+    @CommandLine.Option(
+            names = {"--splits"},
+            defaultValue = "1",
+            description = "Splits each corpus file into the given number of byte ranges that are read in parallel")
+    private Integer splits;
+
+    @CommandLine.Option(
+            names = {"--reportInterval"},
+            defaultValue = "10",
+            description = "Sets the interval in seconds at which the throughput of reading the corpus is reported")
+    private Integer reportInterval;
+
     @CommandLine.Option(
             names = {"-v", "--verbose"},
             defaultValue = "false",
@@ -89,17 +132,28 @@ public class TrainWord2VecModel implements Callable<Integer> {
     public Integer call() throws Exception {
 
         if (StringUtils.isEmpty(outputFilename)) {
-            final String s = inputFilename.toPath().getFileName().toString();
+            final String s = inputFilenames.get(0).toPath().getFileName().toString();
             final String t = s.substring(0, s.lastIndexOf(".")) + ".bin";
             System.out.println("No output filename has been provided. Using '" + t + "'.");
             outputFilename = new File(t);
         }
 
-        if (!isReadable(inputFilename)) {
-            System.err.println("The source file '" + inputFilename.toString() + "' does not exist or is not readable.");
+        for (File inputFilename : inputFilenames) {
+            if (!isReadable(inputFilename)) {
+                System.err.println("The source file '" + inputFilename.toString() + "' does not exist or is not readable.");
+                return 1;
+            }
+        }
+
+        if (resumeFrom != null && !isReadable(resumeFrom)) {
+            System.err.println("The model file '" + resumeFrom.toString() + "' does not exist or is not readable.");
             return 1;
         }
 
+        if (workers == null) {
+            workers = Runtime.getRuntime().availableProcessors();
+        }
+
         if (exists(outputFilename) && !overrideOutputIfExists) {
             System.err.println("Unable to write to output file '" + outputFilename.toString() + "'.");
             return 1;
@@ -107,7 +161,7 @@ public class TrainWord2VecModel implements Callable<Integer> {
 
         int returnCode = 0;
         try {
-            trainModel(inputFilename, outputFilename);
+            trainModel(inputFilenames, outputFilename);
         } catch (Exception e) {
             System.err.println("An error occurred: " + e.getMessage());
             if (verbose) {
@@ -138,25 +192,28 @@ public class TrainWord2VecModel implements Callable<Integer> {
         return f.exists();
     }
 
-    private void trainModel(final File corpusLocation, final File trainedModelLocation) throws Exception {
-        final SentenceIterator iter = new LineSentenceIterator(corpusLocation);
-        iter.setPreProcessor(new SentencePreProcessor() {
-            int i = 0;
-
-            @Override
-            public String preProcess(String sentence) {
-                i++;
-                if (i % 100_000 == 0) System.out.println("Processed '" + i + "' sentences.");
-                return sentence.toLowerCase();
-            }
-        });
+    private void trainModel(final List<File> corpusLocations, final File trainedModelLocation) throws Exception {
+        final List<CorpusShard> shards = CorpusShard.split(corpusLocations, splits);
+        System.out.println("Reading the corpus from " + shards.size() + " shard(s) of " + corpusLocations.size() + " file(s).");
+        try (ThroughputReport report = new ThroughputReport(System.out, reportInterval)) {
+            final SentenceIterator iter = new ShardedSentenceIterator(shards, workers, report);
+            iter.setPreProcessor((SentencePreProcessor) String::toLowerCase);
+            trainModel(iter, trainedModelLocation);
+        }
+    }
 
+    private void trainModel(final SentenceIterator iter, final File trainedModelLocation) throws Exception {
         final TokenizerFactory t = new DefaultTokenizerFactory();
         // CommonPreprocessor will apply the following regex to each token: [\d\.:,"'\(\)\[\]|/?!;]+
         // So, effectively all numbers, punctuation symbols and some special symbols are stripped off.
         // Additionally it forces lower case for all tokens.
         t.setTokenPreProcessor(new CommonPreprocessor());
 
+        if (resumeFrom != null) {
+            continueTraining(iter, t, trainedModelLocation);
+            return;
+        }
+
         System.out.println("Building model....");
         final Word2Vec vec = new Word2Vec.Builder()
                 .minWordFrequency(minWordFrequency)
@@ -164,6 +221,10 @@ public class TrainWord2VecModel implements Callable<Integer> {
                 .layerSize(layerSize)
                 .seed(seed)
                 .windowSize(windowSize)
+                .workers(workers)
+                .batchSize(batchSize)
+                .learningRate(learningRate)
+                .minLearningRate(minLearningRate)
                 .iterate(iter)
                 .tokenizerFactory(t)
                 .build();
@@ -175,4 +236,35 @@ public class TrainWord2VecModel implements Callable<Integer> {
 
         WordVectorSerializer.writeWord2VecModel(vec, trainedModelLocation);
     }
-}
\ No newline at end of file
+
+    private void continueTraining(final SentenceIterator iter, final TokenizerFactory t, final File trainedModelLocation) throws Exception {
+        System.out.println("Restoring model from '" + resumeFrom + "'....");
+        final Word2Vec existing = WordVectorSerializer.readWord2VecModel(resumeFrom, true);
+
+        System.out.println("Extending the vocabulary of " + existing.getVocab().numWords() + " words....");
+        final ContinuedTraining continued = ContinuedTraining.prepare(existing, iter, t, minWordFrequency, seed);
+        System.out.println("Added " + continued.getAddedWords() + " new words from " + continued.getDeltaWords() + " words of the delta corpus.");
+
+        final Word2Vec vec = new Word2Vec.Builder(existing.getConfiguration())
+                .vocabCache(continued.getVocabulary())
+                .lookupTable(continued.getLookupTable())
+                .resetModel(false)
+                .minWordFrequency(minWordFrequency)
+                .iterations(iterations)
+                .seed(seed)
+                .workers(workers)
+                .batchSize(batchSize)
+                .learningRate(learningRate)
+                .minLearningRate(minLearningRate)
+                .iterate(iter)
+                .tokenizerFactory(t)
+                .build();
+
+        System.out.println("Fitting Word2Vec model on the delta corpus....");
+        vec.fit();
+
+        System.out.println("Writing word vectors to text file....");
+
+        WordVectorSerializer.writeWord2VecModel(vec, trainedModelLocation);
+    }
+}
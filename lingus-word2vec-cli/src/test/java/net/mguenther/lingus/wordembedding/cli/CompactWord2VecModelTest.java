@@ -0,0 +1,58 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import net.mguenther.lingus.wordembedding.vectors.MappedVectorStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactWord2VecModelTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void theTopWordsShouldBeRankedByTheFrequenciesRecordedInTheModel() throws Exception {
+        final File source = writeModel(Arrays.asList("der", "die", "das", "hund", "katze"), new long[]{7L, 9L, 3L, 8L, 1L});
+        final File target = directory.resolve("compacted.lvec").toFile();
+
+        final int exitCode = new CommandLine(new CompactWord2VecModel())
+                .execute(source.getAbsolutePath(), "--output", target.getAbsolutePath(), "--top", "3");
+
+        assertThat(exitCode).isZero();
+        final MappedVectorStore compacted = MappedVectorStore.open(target.toPath());
+        assertThat(compacted.size()).isEqualTo(3);
+        assertThat(compacted.word(0)).isEqualTo("die");
+        assertThat(compacted.word(1)).isEqualTo("hund");
+        assertThat(compacted.word(2)).isEqualTo("der");
+    }
+
+    @Test
+    void wordsShouldBeOrderedByDescendingFrequencyAndKeepTheirOrderOnTies() {
+        assertThat(CompactWord2VecModel.byFrequency(new int[]{0, 1, 2, 3, 4}, new long[]{2L, 5L, 2L, 7L, 5L}))
+                .containsExactly(3, 1, 4, 0, 2);
+        assertThat(CompactWord2VecModel.byFrequency(new int[]{1, 3}, new long[]{2L, 5L, 2L, 7L, 5L}))
+                .containsExactly(3, 1);
+    }
+
+    @Test
+    void wordsShouldKeepTheirOrderIfTheModelDoesNotRecordFrequencies() {
+        assertThat(CompactWord2VecModel.byFrequency(new int[]{0, 2, 5}, null)).containsExactly(0, 2, 5);
+    }
+
+    private File writeModel(final List<String> words, final long[] frequencies) throws Exception {
+        final File model = directory.resolve("model.lvec").toFile();
+        try (LingusModelWriter writer = new LingusModelWriter(model, words, frequencies, 2)) {
+            for (int i = 0; i < words.size(); i++) {
+                writer.append(new double[]{1.0, i});
+            }
+        }
+        return model;
+    }
+}
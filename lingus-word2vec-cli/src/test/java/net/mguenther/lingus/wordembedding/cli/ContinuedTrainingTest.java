@@ -0,0 +1,98 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.Word2Vec;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
+import org.deeplearning4j.text.sentenceiterator.SentenceIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContinuedTrainingTest {
+
+    private static final List<String> CORPUS = Arrays.asList(
+            "der hund bellt den mond an",
+            "die katze jagt den hund",
+            "der mond scheint auf die katze",
+            "der hund schläft");
+
+    private static final List<String> DELTA = Arrays.asList(
+            "der igel schläft",
+            "der igel jagt die katze",
+            "ein einhorn");
+
+    private static final TokenizerFactory TOKENIZER = new DefaultTokenizerFactory();
+
+    private static Word2Vec existing;
+
+    @BeforeAll
+    static void trainTinyModel() {
+        existing = new Word2Vec.Builder()
+                .minWordFrequency(1)
+                .layerSize(8)
+                .windowSize(2)
+                .iterations(1)
+                .epochs(1)
+                .workers(1)
+                .seed(42L)
+                .iterate(new CollectionSentenceIterator(CORPUS))
+                .tokenizerFactory(TOKENIZER)
+                .build();
+        existing.fit();
+    }
+
+    @Test
+    void wordsOfTheDeltaCorpusThatOccurOftenEnoughShouldBeAdded() {
+        final ContinuedTraining continued = ContinuedTraining.prepare(existing, delta(), TOKENIZER, 2, 42L);
+
+        assertThat(continued.getAddedWords()).isEqualTo(1);
+        assertThat(continued.getDeltaWords()).isEqualTo(10L);
+        assertThat(continued.getVocabulary().containsWord("igel")).isTrue();
+        assertThat(continued.getVocabulary().containsWord("einhorn")).isFalse();
+        assertThat(continued.getVocabulary().numWords()).isEqualTo(existing.getVocab().numWords() + 1);
+        assertThat(continued.getLookupTable().vector("igel")).isNotNull();
+    }
+
+    @Test
+    void frequenciesOfKnownWordsShouldBeIncreasedByTheirOccurrencesInTheDeltaCorpus() {
+        final ContinuedTraining continued = ContinuedTraining.prepare(existing, delta(), TOKENIZER, 2, 42L);
+
+        assertThat(continued.getVocabulary().wordFrequency("der"))
+                .isEqualTo(existing.getVocab().wordFrequency("der") + 2);
+        assertThat(continued.getVocabulary().wordFrequency("mond"))
+                .isEqualTo(existing.getVocab().wordFrequency("mond"));
+        assertThat(continued.getVocabulary().totalWordOccurrences()).isEqualTo(10L);
+    }
+
+    @Test
+    void vectorsOfKnownWordsShouldBeCarriedOverToTheirNewIndexes() {
+        final ContinuedTraining continued = ContinuedTraining.prepare(existing, delta(), TOKENIZER, 2, 42L);
+
+        for (VocabWord word : existing.getVocab().vocabWords()) {
+            final int index = continued.getVocabulary().indexOf(word.getWord());
+            assertThat(continued.getLookupTable().getSyn0().getRow(index))
+                    .as("vector of '%s'", word.getWord())
+                    .isEqualTo(existing.getWordVectorMatrix(word.getWord()));
+        }
+    }
+
+    @Test
+    void theDeltaCorpusShouldBeResetAfterItHasBeenCounted() {
+        final SentenceIterator delta = delta();
+
+        ContinuedTraining.prepare(existing, delta, TOKENIZER, 2, 42L);
+
+        assertThat(delta.hasNext()).isTrue();
+        assertThat(delta.nextSentence()).isEqualTo(DELTA.get(0));
+    }
+
+    private static SentenceIterator delta() {
+        return new CollectionSentenceIterator(DELTA);
+    }
+}
@@ -0,0 +1,134 @@
+package net.mguenther.lingus.wordembedding.cli;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedSentenceIteratorTest {
+
+    private static final List<String> SENTENCES = Arrays.asList(
+            "der hund bellt",
+            "a",
+            "die größe der welt",
+            "",
+            "bb",
+            "ein satz mit einigen wörtern mehr als die anderen",
+            "c");
+
+    @TempDir
+    Path corpusDirectory;
+
+    private final ByteArrayOutputStream reportOutput = new ByteArrayOutputStream();
+
+    private ThroughputReport report;
+
+    @BeforeEach
+    void createReport() {
+        report = new ThroughputReport(new PrintStream(reportOutput, true), 3600L);
+    }
+
+    @AfterEach
+    void closeReport() {
+        report.close();
+    }
+
+    @Test
+    void shouldReadEachLineExactlyOnceRegardlessOfWhereTheCorpusIsSplit() throws IOException {
+        final File corpus = corpus("\n", true);
+        assertEachLineIsReadExactlyOnceForAllSplits(corpus);
+    }
+
+    @Test
+    void shouldReadEachLineExactlyOnceRegardlessOfWhereACorpusWithCarriageReturnsIsSplit() throws IOException {
+        final File corpus = corpus("\r\n", true);
+        assertEachLineIsReadExactlyOnceForAllSplits(corpus);
+    }
+
+    @Test
+    void shouldReadTheLastLineOfACorpusWithoutATrailingLineBreak() throws IOException {
+        final File corpus = corpus("\n", false);
+        assertEachLineIsReadExactlyOnceForAllSplits(corpus);
+    }
+
+    @Test
+    void shouldReadTheWholeCorpusAgainAfterAReset() throws IOException {
+        final File corpus = corpus("\r\n", true);
+        final long length = corpus.length();
+        final ShardedSentenceIterator iterator = new ShardedSentenceIterator(Arrays.asList(
+                new CorpusShard(corpus, 0L, length / 3),
+                new CorpusShard(corpus, length / 3, 2 * length / 3),
+                new CorpusShard(corpus, 2 * length / 3, length)), 3, report);
+
+        assertThat(readAll(iterator)).containsExactlyInAnyOrderElementsOf(nonEmptySentences());
+        iterator.reset();
+        assertThat(readAll(iterator)).containsExactlyInAnyOrderElementsOf(nonEmptySentences());
+
+        // a reset in the middle of a pass starts over rather than resuming where the pass stopped
+        iterator.reset();
+        assertThat(iterator.hasNext()).isTrue();
+        iterator.nextSentence();
+        iterator.reset();
+        assertThat(readAll(iterator)).containsExactlyInAnyOrderElementsOf(nonEmptySentences());
+        iterator.finish();
+
+        final String output = new String(reportOutput.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(output)
+                .contains("Pass 1 over the corpus completed: 6 sentences")
+                .contains("Pass 2 over the corpus completed: 6 sentences")
+                .doesNotContain("Pass 3 over the corpus completed")
+                .contains("Pass 4 over the corpus completed: 6 sentences");
+    }
+
+    /**
+     * Splits the corpus into three shards at every pair of byte offsets, which covers shards that
+     * start and end right before, on and after a line break as well as empty shards.
+     */
+    private void assertEachLineIsReadExactlyOnceForAllSplits(final File corpus) {
+        final long length = corpus.length();
+        for (long first = 0; first <= length; first++) {
+            for (long second = first; second <= length; second++) {
+                final ShardedSentenceIterator iterator = new ShardedSentenceIterator(Arrays.asList(
+                        new CorpusShard(corpus, 0L, first),
+                        new CorpusShard(corpus, first, second),
+                        new CorpusShard(corpus, second, length)), 3, report);
+                assertThat(readAll(iterator))
+                        .as("sentences of the shards split at %d and %d", first, second)
+                        .containsExactlyInAnyOrderElementsOf(nonEmptySentences());
+                iterator.finish();
+            }
+        }
+    }
+
+    private File corpus(final String lineBreak, final boolean trailingLineBreak) throws IOException {
+        final String content = String.join(lineBreak, SENTENCES) + (trailingLineBreak ? lineBreak : "");
+        return Files.write(corpusDirectory.resolve("corpus.txt"), content.getBytes(StandardCharsets.UTF_8)).toFile();
+    }
+
+    private static List<String> nonEmptySentences() {
+        final List<String> sentences = new ArrayList<>(SENTENCES);
+        sentences.removeIf(String::isEmpty);
+        return sentences;
+    }
+
+    private static List<String> readAll(final ShardedSentenceIterator iterator) {
+        final List<String> sentences = new ArrayList<>();
+        while (iterator.hasNext()) {
+            sentences.add(iterator.nextSentence());
+        }
+        return sentences;
+    }
+}